@@ -317,10 +317,26 @@ export default function App() {
     }
   }
 
+  // ✅ Carga inicial + alertas nuevas en vivo por SSE (/alerts/stream).
+  // EventSource reconecta solo y retoma desde el último id recibido.
   useEffect(() => {
     fetchAlerts();
-    const interval = setInterval(fetchAlerts, 5000); // Actualiza cada 5s
-    return () => clearInterval(interval);
+    if (typeof EventSource === "undefined") {
+      const interval = setInterval(fetchAlerts, 5000); // Sin SSE: polling cada 5s
+      return () => clearInterval(interval);
+    }
+
+    const source = new EventSource(`${BACKEND_ENDPOINT}/stream`);
+    source.addEventListener("alert", (e) => {
+      const alerta = JSON.parse(e.data);
+      setItems((prev) => [alerta, ...prev.filter((a) => a.id !== alerta.id)].slice(0, 100));
+      setStatus("Actualizado");
+    });
+    // Se perdieron eventos (cliente atrasado o backend reiniciado): se recarga la lista
+    source.addEventListener("resync", () => fetchAlerts());
+    source.onopen = () => setStatus("En vivo");
+    source.onerror = () => setStatus("Reconectando…");
+    return () => source.close();
   }, []);
 
   // ✅ Formato dinero
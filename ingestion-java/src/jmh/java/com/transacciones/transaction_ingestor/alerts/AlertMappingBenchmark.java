@@ -0,0 +1,62 @@
+package com.transacciones.transaction_ingestor.alerts;
+
+import com.transacciones.transaction_ingestor.model.enums.Bandera;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapeo de una fila de GET /alerts al DTO del panel ({@link FilaAlerta#toAlert}) y armado
+ * del cursor de la página siguiente.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AlertMappingBenchmark {
+
+    private FilaAlerta fila;
+    private FilaAlerta filaSinUbicacion;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        LocalDateTime creada = LocalDateTime.of(2025, 3, 14, 10, 30, 16);
+        fila = new FilaAlerta(123_456L, Timestamp.valueOf(creada), "0J5QZ8Y3M7K2P", new BigDecimal("1520.75"),
+                LocalDate.of(2025, 3, 14), LocalTime.of(10, 30, 15), "AR",
+                new BigDecimal("-34.603722"), new BigDecimal("-58.381592"), Bandera.sospechoso);
+        filaSinUbicacion = new FilaAlerta(123_457L, Timestamp.valueOf(creada), "0J5QZ8Y3M7K2Q", new BigDecimal("80.00"),
+                LocalDate.of(2025, 3, 14), LocalTime.of(10, 30, 15), null, null, null, Bandera.review);
+    }
+
+    @Benchmark
+    public Alert toAlert() {
+        return fila.toAlert();
+    }
+
+    @Benchmark
+    public Alert toAlertSinUbicacion() {
+        return filaSinUbicacion.toAlert();
+    }
+
+    @Benchmark
+    public String cursor() {
+        return fila.cursor();
+    }
+}
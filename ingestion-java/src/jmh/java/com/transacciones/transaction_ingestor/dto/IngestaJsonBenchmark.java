@@ -0,0 +1,89 @@
+package com.transacciones.transaction_ingestor.dto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.transacciones.transaction_ingestor.model.Transaccion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson sobre los dos modelos de entrada: {@link Transaccion} (cuerpo de los endpoints de
+ * ingesta) y {@link TransactionDTO} (POST /transactions/kafka). El ObjectMapper se arma con
+ * los mismos defaults que el de Spring Boot.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IngestaJsonBenchmark {
+
+    private ObjectReader lectorTransaccion;
+    private ObjectWriter escritorTransaccion;
+    private ObjectReader lectorDto;
+    private ObjectWriter escritorDto;
+
+    private Transaccion transaccion;
+    private TransactionDTO dto;
+    private byte[] jsonTransaccion;
+    private byte[] jsonDto;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        lectorTransaccion = objectMapper.readerFor(Transaccion.class);
+        escritorTransaccion = objectMapper.writerFor(Transaccion.class);
+        lectorDto = objectMapper.readerFor(TransactionDTO.class);
+        escritorDto = objectMapper.writerFor(TransactionDTO.class);
+
+        // Una línea de requests.jsonl
+        jsonTransaccion = ("{\"idTransaccion\":\"0J5QZ8Y3M7K2P\",\"idUsuario\":\"u-000123\",\"monto\":1520.75,"
+                + "\"timestampTransaccion\":\"2025-03-14T10:30:15\",\"latitud\":-34.603722,"
+                + "\"longitud\":-58.381592,\"pais\":\"AR\"}").getBytes(StandardCharsets.UTF_8);
+        transaccion = objectMapper.readValue(jsonTransaccion, Transaccion.class);
+
+        dto = new TransactionDTO("ACC-000123", new BigDecimal("1520.75"), "TRANSFER", "Pago de alquiler");
+        dto.setId("0J5QZ8Y3M7K2R");
+        dto.setTimestamp(LocalDateTime.of(2025, 3, 14, 10, 30, 15));
+        jsonDto = objectMapper.writeValueAsBytes(dto);
+    }
+
+    @Benchmark
+    public Transaccion leerTransaccion() throws IOException {
+        return lectorTransaccion.readValue(jsonTransaccion);
+    }
+
+    @Benchmark
+    public byte[] escribirTransaccion() throws JsonProcessingException {
+        return escritorTransaccion.writeValueAsBytes(transaccion);
+    }
+
+    @Benchmark
+    public TransactionDTO leerDto() throws IOException {
+        return lectorDto.readValue(jsonDto);
+    }
+
+    @Benchmark
+    public byte[] escribirDto() throws JsonProcessingException {
+        return escritorDto.writeValueAsBytes(dto);
+    }
+}
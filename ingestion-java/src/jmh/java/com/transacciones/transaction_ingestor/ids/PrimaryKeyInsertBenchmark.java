@@ -0,0 +1,114 @@
+package com.transacciones.transaction_ingestor.ids;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput de INSERT con clave primaria VARCHAR según el generador de IDs, sobre una tabla
+ * que ya tiene {@code filasIniciales} filas y un índice secundario (como id_usuario en
+ * transacciones). Cada operación es un batch JDBC de {@link #LOTE} filas con su commit; el
+ * resultado está en filas por segundo.
+ * <p>
+ * Por defecto usa H2 en memoria; contra MySQL (donde el efecto en el índice clustered de
+ * InnoDB es mayor):
+ * {@code -Djmh.args="PrimaryKeyInsert -p url=jdbc:mysql://localhost:3306/bench -p usuario=root -p clave=..."}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PrimaryKeyInsertBenchmark {
+
+    static final int LOTE = 1000;
+
+    @Param({"uuid", "tsid"})
+    public String generador;
+
+    @Param("500000")
+    public int filasIniciales;
+
+    @Param("jdbc:h2:mem:bench_ids;MODE=MySQL;DB_CLOSE_DELAY=-1")
+    public String url;
+
+    @Param("sa")
+    public String usuario;
+
+    @Param("")
+    public String clave;
+
+    private IdGenerator ids;
+    private Connection conexion;
+    private PreparedStatement insert;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        ids = "tsid".equals(generador) ? new TsidGenerator(1) : new UuidGenerator();
+        conexion = DriverManager.getConnection(url, usuario, clave);
+        conexion.setAutoCommit(false);
+        try (Statement st = conexion.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS bench_ids");
+            st.execute("CREATE TABLE bench_ids (id VARCHAR(64) NOT NULL PRIMARY KEY, "
+                    + "id_usuario VARCHAR(64) NOT NULL, monto DECIMAL(19,2) NOT NULL, "
+                    + "created_at TIMESTAMP NOT NULL, raw_json VARCHAR(255))");
+            st.execute("CREATE INDEX idx_bench_ids_usuario ON bench_ids (id_usuario)");
+        }
+        conexion.commit();
+        insert = conexion.prepareStatement(
+                "INSERT INTO bench_ids (id, id_usuario, monto, created_at, raw_json) VALUES (?, ?, ?, ?, ?)");
+        for (int i = 0; i < filasIniciales; i += LOTE) {
+            insertarLote();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement st = conexion.createStatement()) {
+            st.execute("DROP TABLE bench_ids");
+        }
+        conexion.commit();
+        insert.close();
+        conexion.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOTE)
+    public int insertarLote() throws SQLException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Timestamp ahora = new Timestamp(System.currentTimeMillis());
+        for (int i = 0; i < LOTE; i++) {
+            insert.setString(1, ids.nextId());
+            insert.setString(2, "U" + random.nextInt(50_000));
+            insert.setBigDecimal(3, BigDecimal.valueOf(random.nextLong(1, 1_000_000), 2));
+            insert.setTimestamp(4, ahora);
+            insert.setString(5, "{\"origen\":\"benchmark\"}");
+            insert.addBatch();
+        }
+        int filas = insert.executeBatch().length;
+        conexion.commit();
+        return filas;
+    }
+}
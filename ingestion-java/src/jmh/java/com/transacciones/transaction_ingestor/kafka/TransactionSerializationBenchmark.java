@@ -0,0 +1,105 @@
+package com.transacciones.transaction_ingestor.kafka;
+
+import com.transacciones.transaction_ingestor.dto.TransactionDTO;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara el JSON actual (JsonSerializer/JsonDeserializer con headers de tipo) contra el
+ * formato binario de TransactionDTO. Los bytes por mensaje de cada formato se imprimen
+ * al inicio de cada fork.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionSerializationBenchmark {
+
+    private static final String TOPIC = "transaction-input-topic";
+
+    private JsonSerializer<TransactionDTO> jsonSerializer;
+    private JsonDeserializer<TransactionDTO> jsonDeserializer;
+    private TransactionBinarySerializer binarySerializer;
+    private TransactionBinaryDeserializer binaryDeserializer;
+
+    private TransactionDTO dto;
+    private RecordHeaders headersJson;
+    private byte[] json;
+    private byte[] binario;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        jsonSerializer = new JsonSerializer<>();
+        jsonDeserializer = new JsonDeserializer<>();
+        // Misma configuración que application.properties
+        jsonDeserializer.configure(Map.of(
+                JsonDeserializer.TRUSTED_PACKAGES, "*",
+                JsonDeserializer.TYPE_MAPPINGS, "transaction:com.transacciones.transaction_ingestor.dto.TransactionDTO"),
+                false);
+        binarySerializer = new TransactionBinarySerializer();
+        binaryDeserializer = new TransactionBinaryDeserializer();
+
+        dto = new TransactionDTO("ACC-000123", new BigDecimal("1520.75"), "TRANSFER", "Pago de alquiler");
+        dto.setId("5f0c6e2a-8a4b-4d3e-9d1f-2b7c3a9e4f10");
+        dto.setTimestamp(LocalDateTime.of(2025, 3, 14, 10, 30, 15));
+        dto.setStatus("VALIDATED");
+
+        headersJson = new RecordHeaders();
+        json = jsonSerializer.serialize(TOPIC, headersJson, dto);
+        binario = binarySerializer.serialize(TOPIC, dto);
+
+        int bytesHeaders = 0;
+        for (var header : headersJson) {
+            bytesHeaders += header.key().length() + header.value().length;
+        }
+        System.out.printf("%nBytes por mensaje: json=%d (+%d de headers de tipo), binario=%d%n",
+                json.length, bytesHeaders, binario.length);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        jsonSerializer.close();
+        jsonDeserializer.close();
+    }
+
+    @Benchmark
+    public byte[] serializeJson() {
+        return jsonSerializer.serialize(TOPIC, new RecordHeaders(), dto);
+    }
+
+    @Benchmark
+    public byte[] serializeBinary() {
+        return binarySerializer.serialize(TOPIC, dto);
+    }
+
+    @Benchmark
+    public TransactionDTO deserializeJson() {
+        // Copia: el deserializer quita los headers de tipo después de leerlos
+        return jsonDeserializer.deserialize(TOPIC, new RecordHeaders(headersJson.toArray()), json);
+    }
+
+    @Benchmark
+    public TransactionDTO deserializeBinary() {
+        return binaryDeserializer.deserialize(TOPIC, binario);
+    }
+}
@@ -0,0 +1,109 @@
+package com.transacciones.transaction_ingestor.service;
+
+import com.transacciones.transaction_ingestor.dto.ResultadoIngesta;
+import com.transacciones.transaction_ingestor.dto.TransactionDTO;
+import com.transacciones.transaction_ingestor.ids.TsidGenerator;
+import com.transacciones.transaction_ingestor.metricas.MetricasIngesta;
+import com.transacciones.transaction_ingestor.model.Transaccion;
+import com.transacciones.transaction_ingestor.model.enums.Bandera;
+import com.transacciones.transaction_ingestor.rules.DefinicionRegla;
+import com.transacciones.transaction_ingestor.usuarios.CacheUsuarios;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validación de una transacción de entrada ({@link TransactionService#validarIngesta}) y
+ * adaptación de un evento de Kafka ({@link KafkaTransactionService#ingestar}: DTO a entidad,
+ * estado de publicación y lag), sin base de datos: el camino de escritura común devuelve un
+ * resultado fijo. Los servicios se arman sólo con lo que usan esos métodos.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IngestaHotPathBenchmark {
+
+    private ValidatorFactory validatorFactory;
+    private TransactionService transactionService;
+    private KafkaTransactionService kafkaTransactionService;
+
+    private Transaccion valida;
+    private Transaccion invalida;
+    private List<TransactionDTO> eventos;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        transactionService = new TransactionService(null, null, null, validatorFactory.getValidator(),
+                null, null, null, null, null, new CacheUsuarios(1_000, 600), null, null);
+        List<ResultadoIngesta> guardada = List.of(ResultadoIngesta.guardada(0, "0J5QZ8Y3M7K2R", Bandera.ok, null));
+        TransactionService caminoComun = new TransactionService(null, null, null, null, null, null, null, null,
+                null, null, null, null) {
+            @Override
+            public List<ResultadoIngesta> ingestar(List<Transaccion> lote, DefinicionRegla.Canal canal) {
+                return guardada;
+            }
+        };
+        kafkaTransactionService = new KafkaTransactionService(caminoComun, new TsidGenerator(1),
+                new MetricasIngesta(new SimpleMeterRegistry()));
+
+        valida = new Transaccion();
+        valida.setIdTransaccion("0J5QZ8Y3M7K2P");
+        valida.setIdUsuario("u-000123");
+        valida.setMonto(new BigDecimal("1520.75"));
+        valida.setTimestampTransaccion(LocalDateTime.of(2025, 3, 14, 10, 30, 15));
+        valida.setLatitud(new BigDecimal("-34.603722"));
+        valida.setLongitud(new BigDecimal("-58.381592"));
+        valida.setPais("AR");
+
+        // Sin monto ni timestamp: arma el mensaje con las violaciones
+        invalida = new Transaccion();
+        invalida.setIdTransaccion("0J5QZ8Y3M7K2Q");
+        invalida.setIdUsuario("u-000123");
+
+        TransactionDTO dto = new TransactionDTO("ACC-000123", new BigDecimal("1520.75"), "TRANSFER", "Pago de alquiler");
+        dto.setId("0J5QZ8Y3M7K2R");
+        dto.setTimestamp(LocalDateTime.of(2025, 3, 14, 10, 30, 15));
+        eventos = List.of(dto);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public String validarIngestaValida() {
+        return transactionService.validarIngesta(valida);
+    }
+
+    @Benchmark
+    public String validarIngestaInvalida() {
+        return transactionService.validarIngesta(invalida);
+    }
+
+    @Benchmark
+    public List<ResultadoIngesta> ingestarEvento() {
+        return kafkaTransactionService.ingestar(eventos);
+    }
+}
@@ -0,0 +1,115 @@
+package com.transacciones.transaction_ingestor.carga;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Cuerpos de los envíos del generador: las líneas de un NDJSON (como el de la ingesta por
+ * lotes) en orden y en ciclo, o transacciones sintéticas con IDs únicos y cuentas elegidas
+ * con una distribución Zipf, así unas pocas cuentas concentran la mayoría del tráfico.
+ */
+abstract class FuenteTransacciones {
+
+    /** Cuerpo del envío número {@code i}; lo llama un solo hilo. */
+    abstract byte[] siguiente(long i);
+
+    /** Clave del registro de Kafka (accountId) del último cuerpo, o null si no se conoce. */
+    abstract String clave();
+
+    static FuenteTransacciones archivo(Path archivo) throws IOException {
+        List<byte[]> lineas = Files.readAllLines(archivo, StandardCharsets.UTF_8).stream()
+                .filter(linea -> !linea.isBlank())
+                .map(linea -> linea.getBytes(StandardCharsets.UTF_8))
+                .toList();
+        if (lineas.isEmpty()) {
+            throw new IllegalArgumentException("El archivo " + archivo + " no tiene transacciones");
+        }
+        return new FuenteTransacciones() {
+            @Override
+            byte[] siguiente(long i) {
+                return lineas.get((int) (i % lineas.size()));
+            }
+
+            @Override
+            String clave() {
+                return null;
+            }
+        };
+    }
+
+    /**
+     * @param dto true para el formato de TransactionDTO (/transactions/kafka y el topic),
+     *            false para el de Transaccion (/transactions/ingest)
+     */
+    static FuenteTransacciones sintetica(boolean dto, int cuentas, double zipf, long semilla) {
+        return new Sintetica(dto, cuentas, zipf, semilla);
+    }
+
+    private static final class Sintetica extends FuenteTransacciones {
+        private static final String[] PAISES = {"AR", "AR", "AR", "UY", "CL", "BR"};
+        private static final String[] TIPOS = {"TRANSFER", "DEPOSIT", "WITHDRAWAL"};
+        // Formato de TransactionDTO.timestamp (siempre con segundos)
+        private static final DateTimeFormatter FECHA = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+        private final boolean dto;
+        private final double[] acumulada;
+        private final SplittableRandom random;
+        // Prefijo de la corrida: los IDs no chocan con los de corridas anteriores
+        private final String prefijo = Long.toString(System.currentTimeMillis(), 36);
+        private String cuenta;
+
+        Sintetica(boolean dto, int cuentas, double zipf, long semilla) {
+            if (cuentas <= 0 || zipf < 0) {
+                throw new IllegalArgumentException("cuentas debe ser positivo y zipf no negativo");
+            }
+            this.dto = dto;
+            this.random = new SplittableRandom(semilla);
+            // Distribución acumulada de Zipf: P(k) proporcional a 1 / k^zipf
+            this.acumulada = new double[cuentas];
+            double suma = 0;
+            for (int k = 0; k < cuentas; k++) {
+                suma += 1 / Math.pow(k + 1, zipf);
+                acumulada[k] = suma;
+            }
+            for (int k = 0; k < cuentas; k++) {
+                acumulada[k] /= suma;
+            }
+        }
+
+        @Override
+        byte[] siguiente(long i) {
+            int k = Arrays.binarySearch(acumulada, random.nextDouble());
+            cuenta = String.format(Locale.ROOT, "u-%06d", k < 0 ? -k - 1 : k);
+            // Montos con cola larga: la mayoría chicos, algunos grandes
+            String monto = String.format(Locale.ROOT, "%.2f", Math.exp(random.nextDouble(2, 10)));
+            String id = prefijo + "-" + i;
+            String ahora = FECHA.format(LocalDateTime.now());
+            String json;
+            if (dto) {
+                json = "{\"id\":\"" + id + "\",\"accountId\":\"" + cuenta + "\",\"amount\":" + monto
+                        + ",\"type\":\"" + TIPOS[random.nextInt(TIPOS.length)]
+                        + "\",\"description\":\"carga sintética\",\"timestamp\":\"" + ahora + "\"}";
+            } else {
+                json = "{\"idTransaccion\":\"" + id + "\",\"idUsuario\":\"" + cuenta + "\",\"monto\":" + monto
+                        + ",\"timestampTransaccion\":\"" + ahora + "\",\"latitud\":"
+                        + String.format(Locale.ROOT, "%.6f", random.nextDouble(-55, -22))
+                        + ",\"longitud\":" + String.format(Locale.ROOT, "%.6f", random.nextDouble(-73, -53))
+                        + ",\"pais\":\"" + PAISES[random.nextInt(PAISES.length)] + "\"}";
+            }
+            return json.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        String clave() {
+            return cuenta;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.transacciones.transaction_ingestor.carga;
+
+import com.transacciones.transaction_ingestor.TransactionIngestorApplication;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Generador de carga de lazo abierto: envía a una tasa fija sin esperar las respuestas, y
+ * mide cada latencia desde el instante en que el envío <em>debía</em> salir según la tasa, no
+ * desde que salió. Así un servicio que se traba no baja la tasa ni esconde la espera
+ * (corrección de coordinated omission). También se reporta la latencia de servicio (desde el
+ * envío real) para ver cuánto es cola del propio generador.
+ * <p>
+ * Destinos: {@code ingest} (POST /transactions/ingest), {@code kafka-http}
+ * (POST /transactions/kafka) y {@code topic} (directo al topic de entrada; mide hasta el ack
+ * del broker). Sin {@code --url} levanta la aplicación en este proceso con H2 y un Kafka
+ * embebido (spring-kafka-test), sin servicios externos.
+ * <p>
+ * Ejecutar: {@code mvn -Ploadtest test-compile exec:exec -Dcarga.args="--destino=ingest --tasa=500"}
+ * <pre>
+ *   --destino=ingest|kafka-http|topic   (ingest)
+ *   --tasa=envíos por segundo           (200)
+ *   --duracion=segundos medidos         (30)
+ *   --calentamiento=segundos sin medir  (5)
+ *   --archivo=NDJSON a reenviar en ciclo (sin archivo: tráfico sintético)
+ *   --cuentas=N  --zipf=s  --semilla=n  (10000, 1.1, 42) sesgo de cuentas del sintético
+ *   --max-en-vuelo=N                    (10000) tope de envíos sin respuesta
+ *   --url=http://host:8000              (sin url: aplicación embebida)
+ *   --bootstrap=host:9092               (topic con --url; embebido: el broker propio)
+ *   --salida=archivo.hgrm               (histograma corregido en formato HdrHistogram)
+ * </pre>
+ */
+public final class GeneradorCarga {
+
+    private static final long MAX_LATENCIA_US = TimeUnit.MINUTES.toMicros(10);
+    private static final String TOPIC_ENTRADA = "transaction-input-topic";
+
+    private final Map<String, String> opciones;
+    private final Histogram corregida = new ConcurrentHistogram(MAX_LATENCIA_US, 3);
+    private final Histogram servicio = new ConcurrentHistogram(MAX_LATENCIA_US, 3);
+    private final AtomicLong errores = new AtomicLong();
+    private final AtomicLong completados = new AtomicLong();
+
+    private GeneradorCarga(Map<String, String> opciones) {
+        this.opciones = opciones;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opciones = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Argumento inválido: " + arg + " (se espera --clave=valor)");
+            }
+            int igual = arg.indexOf('=');
+            opciones.put(arg.substring(2, igual), arg.substring(igual + 1));
+        }
+        new GeneradorCarga(opciones).ejecutar();
+        System.exit(0);
+    }
+
+    private void ejecutar() throws Exception {
+        String destino = opciones.getOrDefault("destino", "ingest");
+        if (!destino.equals("ingest") && !destino.equals("kafka-http") && !destino.equals("topic")) {
+            throw new IllegalArgumentException("destino debe ser ingest, kafka-http o topic");
+        }
+        double tasa = Double.parseDouble(opciones.getOrDefault("tasa", "200"));
+        long duracionS = Long.parseLong(opciones.getOrDefault("duracion", "30"));
+        long calentamientoS = Long.parseLong(opciones.getOrDefault("calentamiento", "5"));
+        int maxEnVuelo = Integer.parseInt(opciones.getOrDefault("max-en-vuelo", "10000"));
+
+        FuenteTransacciones fuente = opciones.containsKey("archivo")
+                ? FuenteTransacciones.archivo(Path.of(opciones.get("archivo")))
+                : FuenteTransacciones.sintetica(!destino.equals("ingest"),
+                        Integer.parseInt(opciones.getOrDefault("cuentas", "10000")),
+                        Double.parseDouble(opciones.getOrDefault("zipf", "1.1")),
+                        Long.parseLong(opciones.getOrDefault("semilla", "42")));
+
+        EmbeddedKafkaKraftBroker broker = null;
+        ConfigurableApplicationContext aplicacion = null;
+        String url = opciones.get("url");
+        String bootstrap = opciones.get("bootstrap");
+        if (url == null) {
+            broker = new EmbeddedKafkaKraftBroker(1, 3);
+            broker.afterPropertiesSet();
+            bootstrap = broker.getBrokersAsString();
+            aplicacion = iniciarAplicacion(bootstrap);
+            url = "http://localhost:" + ((WebServerApplicationContext) aplicacion).getWebServer().getPort();
+        } else if (destino.equals("topic") && bootstrap == null) {
+            throw new IllegalArgumentException("destino=topic contra una instancia externa requiere --bootstrap");
+        }
+
+        Envio envio = destino.equals("topic") ? envioATopic(bootstrap) : envioHttp(url, destino);
+        System.out.printf(Locale.ROOT, "Destino %s (%s), %.0f envíos/s, %d s de calentamiento + %d s medidos%n",
+                destino, destino.equals("topic") ? bootstrap : url, tasa, calentamientoS, duracionS);
+        try {
+            correr(fuente, envio, tasa, calentamientoS, duracionS, maxEnVuelo);
+        } finally {
+            envio.cerrar();
+            if (aplicacion != null) {
+                aplicacion.close();
+            }
+            if (broker != null) {
+                broker.destroy();
+            }
+        }
+    }
+
+    /**
+     * Lazo abierto: el envío i sale en {@code inicio + i / tasa}. Si se alcanzó el máximo de
+     * envíos sin respuesta, el hilo espera lugar; la latencia de los que se atrasan se sigue
+     * contando desde su instante previsto.
+     */
+    private void correr(FuenteTransacciones fuente, Envio envio, double tasa, long calentamientoS,
+                        long duracionS, int maxEnVuelo) throws Exception {
+        double intervaloNs = TimeUnit.SECONDS.toNanos(1) / tasa;
+        long total = (long) (tasa * (calentamientoS + duracionS));
+        long primeroMedido = (long) (tasa * calentamientoS);
+        Semaphore enVuelo = new Semaphore(maxEnVuelo);
+        long inicio = System.nanoTime();
+
+        for (long i = 0; i < total; i++) {
+            long previsto = inicio + (long) (i * intervaloNs);
+            long espera;
+            while ((espera = previsto - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(espera);
+            }
+            // Sólo cuentan los envíos previstos después del calentamiento
+            boolean medido = i >= primeroMedido;
+            byte[] cuerpo = fuente.siguiente(i);
+            String clave = fuente.clave();
+            enVuelo.acquire();
+            long enviado = System.nanoTime();
+            CompletableFuture<Boolean> respuesta;
+            try {
+                respuesta = envio.enviar(cuerpo, clave);
+            } catch (RuntimeException e) {
+                respuesta = CompletableFuture.failedFuture(e);
+            }
+            respuesta.whenComplete((ok, ex) -> {
+                long fin = System.nanoTime();
+                enVuelo.release();
+                if (!medido) {
+                    return;
+                }
+                completados.incrementAndGet();
+                if (ex != null || !Boolean.TRUE.equals(ok)) {
+                    errores.incrementAndGet();
+                }
+                corregida.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(fin - previsto), MAX_LATENCIA_US));
+                servicio.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(fin - enviado), MAX_LATENCIA_US));
+            });
+        }
+        long finEnvios = System.nanoTime();
+        // Esperar las respuestas pendientes
+        enVuelo.acquire(maxEnVuelo);
+        long finMedicion = System.nanoTime();
+
+        double segundosEnvio = (finEnvios - inicio) / 1e9 - calentamientoS;
+        double segundos = (finMedicion - inicio) / 1e9 - calentamientoS;
+        reportar(tasa, segundosEnvio, segundos);
+    }
+
+    private void reportar(double tasa, double segundosEnvio, double segundos) throws IOException {
+        long n = completados.get();
+        System.out.printf(Locale.ROOT, "%nEnvíos medidos: %d (%.1f/s ofrecidos, objetivo %.0f/s), completados %.1f/s, errores %d%n",
+                n, n / segundosEnvio, tasa, n / segundos, errores.get());
+        imprimirResumen("Corregida (desde el instante previsto)", corregida);
+        imprimirResumen("Servicio (desde el envío real)       ", servicio);
+        System.out.println("\nDistribución corregida (ms):");
+        corregida.outputPercentileDistribution(System.out, 1000.0);
+        String salida = opciones.get("salida");
+        if (salida != null) {
+            try (PrintStream archivo = new PrintStream(new FileOutputStream(salida))) {
+                corregida.outputPercentileDistribution(archivo, 1000.0);
+            }
+            System.out.println("Histograma corregido guardado en " + salida);
+        }
+    }
+
+    private static void imprimirResumen(String nombre, Histogram h) {
+        System.out.printf(Locale.ROOT, "%s p50 %.2f ms | p99 %.2f ms | p99.9 %.2f ms | max %.2f ms%n", nombre,
+                h.getValueAtPercentile(50) / 1000.0, h.getValueAtPercentile(99) / 1000.0,
+                h.getValueAtPercentile(99.9) / 1000.0, h.getMaxValue() / 1000.0);
+    }
+
+    private static ConfigurableApplicationContext iniciarAplicacion(String bootstrap) {
+        return SpringApplication.run(TransactionIngestorApplication.class,
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:carga;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                // Las migraciones particionan para MySQL: en H2 el esquema lo crea Hibernate
+                "--spring.flyway.enabled=false",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--ingesta.archivo.habilitado=false",
+                "--spring.jpa.show-sql=false",
+                "--spring.kafka.bootstrap-servers=" + bootstrap,
+                "--ingesta.wal.directorio=target/carga-wal",
+                "--logging.level.com.transacciones=WARN",
+                "--logging.level.org.springframework.kafka=WARN",
+                "--logging.level.org.hibernate.SQL=WARN");
+    }
+
+    private interface Envio {
+        /** @return future con true si el destino aceptó el envío */
+        CompletableFuture<Boolean> enviar(byte[] cuerpo, String clave);
+
+        default void cerrar() {
+        }
+    }
+
+    private static Envio envioHttp(String url, String destino) {
+        HttpClient cliente = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        URI uri = URI.create(url + (destino.equals("ingest") ? "/transactions/ingest" : "/transactions/kafka"));
+        return (cuerpo, clave) -> {
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(cuerpo))
+                    .build();
+            return cliente.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .thenApply(r -> r.statusCode() / 100 == 2);
+        };
+    }
+
+    private static Envio envioATopic(String bootstrap) {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrap);
+        config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        // JSON tal cual: el deserializer de la aplicación acepta JSON y binario
+        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        config.put(ProducerConfig.ACKS_CONFIG, "all");
+        config.put(ProducerConfig.LINGER_MS_CONFIG, 1);
+        KafkaProducer<String, byte[]> producer = new KafkaProducer<>(config);
+        return new Envio() {
+            @Override
+            public CompletableFuture<Boolean> enviar(byte[] cuerpo, String clave) {
+                CompletableFuture<Boolean> resultado = new CompletableFuture<>();
+                producer.send(new ProducerRecord<>(TOPIC_ENTRADA, clave, cuerpo), (metadata, ex) -> {
+                    if (ex != null) {
+                        resultado.completeExceptionally(ex);
+                    } else {
+                        resultado.complete(true);
+                    }
+                });
+                return resultado;
+            }
+
+            @Override
+            public void cerrar() {
+                producer.close(Duration.ofSeconds(5));
+            }
+        };
+    }
+}
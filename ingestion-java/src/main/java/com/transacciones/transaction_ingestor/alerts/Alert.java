@@ -1,6 +1,13 @@
 package com.transacciones.transaction_ingestor.alerts;
 
+import com.transacciones.transaction_ingestor.model.Alerta;
+import com.transacciones.transaction_ingestor.model.Transaccion;
+import com.transacciones.transaction_ingestor.model.enums.Bandera;
+
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalTime;
 
 /**
  * Simple DTO used to expose alert data to the dashboard.
@@ -14,4 +21,45 @@ public record Alert(
         String bandera,
         boolean sospechosa
 ) {
+
+    /**
+     * Arma el DTO a partir de la entidad; usa los datos de la transacción asociada
+     * (id, país y coordenadas), que debe estar cargada.
+     */
+    public static Alert de(Alerta alerta) {
+        Transaccion tx = alerta.getTransaccion();
+        return de(tx != null ? tx.getIdTransaccion() : null, alerta.getIdAlerta(), alerta.getMonto(),
+                alerta.getFechaOnly(), alerta.getHoraOnly(),
+                tx != null ? tx.getPais() : null,
+                tx != null ? tx.getLatitud() : null,
+                tx != null ? tx.getLongitud() : null,
+                alerta.getBandera());
+    }
+
+    static Alert de(String idTransaccion, Long idAlerta, BigDecimal monto, LocalDate fecha, LocalTime hora,
+                    String pais, BigDecimal latitud, BigDecimal longitud, Bandera bandera) {
+        String id = idTransaccion != null && !idTransaccion.isBlank()
+                ? idTransaccion
+                : idAlerta != null ? String.valueOf(idAlerta) : "";
+        String nombreBandera = bandera != null ? bandera.name() : Bandera.ok.name();
+        return new Alert(
+                id,
+                monto,
+                fecha != null ? fecha.toString() : "",
+                hora != null ? hora.toString() : "",
+                ubicacion(pais, latitud, longitud),
+                nombreBandera,
+                bandera != null && bandera != Bandera.ok
+        );
+    }
+
+    // "AR (-34.6000, -58.4000)"; sin coordenadas sólo el país
+    private static String ubicacion(String pais, BigDecimal latitud, BigDecimal longitud) {
+        String p = pais != null && !pais.isBlank() ? pais : "-";
+        if (latitud == null || longitud == null) {
+            return p;
+        }
+        return p + " (" + latitud.setScale(4, RoundingMode.HALF_UP).toPlainString()
+                + ", " + longitud.setScale(4, RoundingMode.HALF_UP).toPlainString() + ")";
+    }
 }
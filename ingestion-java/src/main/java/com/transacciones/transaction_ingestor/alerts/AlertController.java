@@ -1,83 +1,105 @@
 package com.transacciones.transaction_ingestor.alerts;
 
-import com.transacciones.transaction_ingestor.model.Alerta;
+import com.transacciones.transaction_ingestor.model.enums.Bandera;
 import com.transacciones.transaction_ingestor.repository.AlertaRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import com.transacciones.transaction_ingestor.model.Transaccion;
-import java.util.Optional;
-import java.util.stream.Collectors;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @RestController
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = AlertController.HEADER_SIGUIENTE)
 public class AlertController {
 
+    /** Header con el cursor de la página siguiente (ausente en la última página). */
+    public static final String HEADER_SIGUIENTE = "X-Next-Before";
+
+    private static final int MAX_LIMIT = 500;
+
     private final AlertaRepository alertRepository;
+    private final AlertStream alertStream;
 
     @Autowired
-    public AlertController(AlertaRepository alertRepository) {
+    public AlertController(AlertaRepository alertRepository, AlertStream alertStream) {
         this.alertRepository = alertRepository;
+        this.alertStream = alertStream;
     }
 
+    /**
+     * Alertas más recientes primero, paginadas por cursor (keyset): cada página es una sola
+     * consulta acotada a {@code limit} filas, sin importar cuán atrás se navegue.
+     * @param before cursor {@code <createdAt>,<idAlerta>} del header X-Next-Before de la página anterior
+     * @param bandera filtro opcional (ok, review, sospechoso, bloqueado)
+     * @param desde fecha de creación mínima (inclusive)
+     * @param hasta fecha de creación máxima (inclusive)
+     */
     @GetMapping("/alerts")
-   public List<Alert> getAlerts() {
-        return alertRepository.findTop100ByOrderByCreatedAtDesc()
-                .stream()
-                .map(this::mapToDto)
-                .collect(Collectors.toList());
-    }
-
-
-private Alert mapToDto(Alerta alerta) {
-        String id = Optional.ofNullable(alerta.getTransaccion())
-                .map(Transaccion::getIdTransaccion)
-                .filter(s -> !s.isBlank())
-                .orElseGet(() -> Optional.ofNullable(alerta.getIdAlerta())
-                        .map(String::valueOf)
-                        .orElse(""));
-
-        String fecha = Optional.ofNullable(alerta.getFechaOnly())
-                .map(Object::toString)
-                .orElse("");
-
-        String hora = Optional.ofNullable(alerta.getHoraOnly())
-                .map(Object::toString)
-                .orElse("");
-
-        Transaccion tx = alerta.getTransaccion();
-        String pais = Optional.ofNullable(tx)
-                .map(Transaccion::getPais)
-                .filter(p -> !p.isBlank())
-                .orElse("-");
-
-        String ubicacion;
-        if (tx != null && tx.getLatitud() != null && tx.getLongitud() != null) {
-            ubicacion = String.format("%s (%.4f, %.4f)",
-                    pais,
-                    tx.getLatitud().doubleValue(),
-                    tx.getLongitud().doubleValue());
-        } else {
-            ubicacion = pais;
+    public ResponseEntity<Object> getAlerts(
+            @RequestParam(required = false) String before,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(required = false) Bandera bandera,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        if (limit <= 0 || limit > MAX_LIMIT) {
+            return ResponseEntity.badRequest().body(Map.of("error", "limit debe estar entre 1 y " + MAX_LIMIT));
+        }
+        Timestamp antesDe = null;
+        Long antesId = null;
+        if (before != null && !before.isBlank()) {
+            int coma = before.lastIndexOf(',');
+            try {
+                antesDe = Timestamp.valueOf(LocalDateTime.parse(before.substring(0, coma).trim()));
+                antesId = Long.parseLong(before.substring(coma + 1).trim());
+            } catch (DateTimeParseException | NumberFormatException | StringIndexOutOfBoundsException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", "before debe tener la forma <createdAt>,<idAlerta>"));
+            }
         }
 
-        String bandera = Optional.ofNullable(alerta.getBandera())
-                .map(Enum::name)
-                .orElse("ok");
+        List<FilaAlerta> filas = alertRepository.findPagina(bandera,
+                desde != null ? Timestamp.valueOf(desde.atStartOfDay()) : null,
+                hasta != null ? Timestamp.valueOf(hasta.plusDays(1).atStartOfDay()) : null,
+                antesDe, antesId, Limit.of(limit));
 
-        boolean sospechosa = !"ok".equalsIgnoreCase(bandera);
+        List<Alert> alertas = new ArrayList<>(filas.size());
+        for (FilaAlerta fila : filas) {
+            alertas.add(fila.toAlert());
+        }
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok();
+        if (filas.size() == limit) {
+            respuesta.header(HEADER_SIGUIENTE, filas.get(filas.size() - 1).cursor());
+        }
+        return respuesta.body(alertas);
+    }
 
-        return new Alert(
-                id,
-                alerta.getMonto(),
-                fecha,
-                hora,
-                ubicacion,
-                bandera,
-                sospechosa
-        );
+    /**
+     * Alertas nuevas en vivo (Server-Sent Events, eventos "alert" y "resync").
+     * Para retomar se usa el header Last-Event-ID (EventSource lo envía solo al reconectar)
+     * o el parámetro {@code desde}; sin ninguno se reciben sólo las alertas nuevas.
+     */
+    @GetMapping(value = "/alerts/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamAlerts(
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+            @RequestParam(value = "desde", required = false) Long desde) {
+        SseEmitter emitter = alertStream.suscribir(lastEventId != null ? lastEventId : desde);
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(emitter);
     }
-}
\ No newline at end of file
+}
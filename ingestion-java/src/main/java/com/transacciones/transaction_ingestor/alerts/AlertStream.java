@@ -0,0 +1,233 @@
+package com.transacciones.transaction_ingestor.alerts;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Difusión en vivo de alertas por Server-Sent Events. Las alertas ya persistidas se agregan a
+ * un único buffer circular en memoria y cada suscriptor lleva su propio cursor sobre él, así
+ * N dashboards cuestan un envío por alerta en lugar de N consultas a la base.
+ * <p>
+ * Cada evento lleva como id su número de secuencia; un cliente que se reconecta con
+ * {@code Last-Event-ID} recibe lo que se perdió mientras siga en el buffer. Un suscriptor
+ * lento no frena a los demás (cada uno se atiende en un hilo del pool de envío) y si se
+ * atrasa más que el tamaño del buffer recibe un evento {@code resync} en lugar de la
+ * historia completa: debe volver a consultar GET /alerts.
+ */
+@Component
+public class AlertStream implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(AlertStream.class);
+
+    public static final String EVENTO_ALERTA = "alert";
+    public static final String EVENTO_RESYNC = "resync";
+
+    private final Alert[] buffer;
+    private final ReentrantLock lock = new ReentrantLock();
+    // Las secuencias arrancan en el epoch millis del arranque: un Last-Event-ID de una
+    // ejecución anterior queda fuera de rango y provoca un resync
+    private final long inicio = System.currentTimeMillis();
+    private long siguiente = inicio;
+
+    private final List<Suscriptor> suscriptores = new CopyOnWriteArrayList<>();
+    private final int maxSuscriptores;
+    private final long timeoutMs;
+    private final ExecutorService envios;
+    private final ScheduledExecutorService latidos;
+
+    public AlertStream(@Value("${alertas.stream.buffer:1024}") int capacidad,
+                       @Value("${alertas.stream.max-suscriptores:100}") int maxSuscriptores,
+                       @Value("${alertas.stream.hilos:4}") int hilos,
+                       @Value("${alertas.stream.timeout-ms:1800000}") long timeoutMs,
+                       @Value("${alertas.stream.latido-ms:15000}") long latidoMs) {
+        if (capacidad <= 0 || maxSuscriptores <= 0 || hilos <= 0 || latidoMs <= 0) {
+            throw new IllegalArgumentException("buffer, max-suscriptores, hilos y latido-ms deben ser positivos");
+        }
+        this.buffer = new Alert[capacidad];
+        this.maxSuscriptores = maxSuscriptores;
+        this.timeoutMs = timeoutMs;
+        AtomicInteger contador = new AtomicInteger();
+        this.envios = Executors.newFixedThreadPool(hilos, r -> {
+            Thread hilo = new Thread(r, "alertas-stream-" + contador.getAndIncrement());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        this.latidos = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "alertas-stream-latido");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        // El latido mantiene viva la conexión en proxies y detecta clientes que se fueron
+        latidos.scheduleAtFixedRate(this::latir, latidoMs, latidoMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Registra un suscriptor nuevo.
+     * @param ultimoId último id de evento recibido por el cliente, o null para recibir sólo lo nuevo
+     * @return el emitter, o null si se alcanzó el máximo de suscriptores
+     */
+    public SseEmitter suscribir(Long ultimoId) {
+        if (suscriptores.size() >= maxSuscriptores) {
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Suscriptor suscriptor = new Suscriptor(emitter, ultimoId != null ? ultimoId : ultimo());
+        emitter.onCompletion(() -> suscriptores.remove(suscriptor));
+        emitter.onTimeout(() -> suscriptores.remove(suscriptor));
+        emitter.onError(e -> suscriptores.remove(suscriptor));
+        suscriptores.add(suscriptor);
+        // Un cliente que retoma puede tener eventos pendientes: se le envían ya
+        programar(suscriptor);
+        return emitter;
+    }
+
+    /**
+     * Agrega alertas ya persistidas al buffer y avisa a los suscriptores. No bloquea por envíos.
+     */
+    public void publicar(List<Alert> alertas) {
+        if (alertas.isEmpty()) {
+            return;
+        }
+        lock.lock();
+        try {
+            for (Alert alerta : alertas) {
+                buffer[(int) (siguiente % buffer.length)] = alerta;
+                siguiente++;
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (Suscriptor suscriptor : suscriptores) {
+            programar(suscriptor);
+        }
+    }
+
+    public int cantidadSuscriptores() {
+        return suscriptores.size();
+    }
+
+    private long ultimo() {
+        lock.lock();
+        try {
+            return siguiente - 1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Un único envío en curso por suscriptor: los avisos que llegan mientras tanto se
+    // absorben en la misma pasada (coalescing)
+    private void programar(Suscriptor suscriptor) {
+        if (suscriptor.enviando.compareAndSet(false, true)) {
+            envios.execute(() -> enviar(suscriptor));
+        }
+    }
+
+    private void enviar(Suscriptor suscriptor) {
+        try {
+            while (true) {
+                Lectura lectura = leer(suscriptor.cursor);
+                boolean envio = false;
+                if (lectura.resync()) {
+                    suscriptor.emitter.send(SseEmitter.event().id(String.valueOf(lectura.hasta()))
+                            .name(EVENTO_RESYNC).data(Map.of("motivo", "eventos fuera del buffer"),
+                                    MediaType.APPLICATION_JSON));
+                    envio = true;
+                } else {
+                    long id = suscriptor.cursor;
+                    for (Alert alerta : lectura.alertas()) {
+                        suscriptor.emitter.send(SseEmitter.event().id(String.valueOf(++id))
+                                .name(EVENTO_ALERTA).data(alerta, MediaType.APPLICATION_JSON));
+                        envio = true;
+                    }
+                }
+                suscriptor.cursor = lectura.hasta();
+                if (suscriptor.latido) {
+                    suscriptor.latido = false;
+                    suscriptor.emitter.send(SseEmitter.event().comment("ping"));
+                    envio = true;
+                }
+                if (!envio) {
+                    break;
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Cliente desconectado o emitter ya cerrado
+            log.debug("Se quita un suscriptor del stream de alertas: {}", e.getMessage());
+            suscriptores.remove(suscriptor);
+            return;
+        } finally {
+            suscriptor.enviando.set(false);
+        }
+        // Un aviso pudo llegar entre la última lectura y liberar el flag
+        if (suscriptor.latido || suscriptor.cursor < ultimo()) {
+            programar(suscriptor);
+        }
+    }
+
+    private Lectura leer(long cursor) {
+        lock.lock();
+        try {
+            long ultimo = siguiente - 1;
+            long primero = Math.max(inicio, siguiente - buffer.length);
+            if (cursor > ultimo || cursor < primero - 1) {
+                return new Lectura(true, List.of(), ultimo);
+            }
+            List<Alert> alertas = new ArrayList<>((int) (ultimo - cursor));
+            for (long s = cursor + 1; s <= ultimo; s++) {
+                alertas.add(buffer[(int) (s % buffer.length)]);
+            }
+            return new Lectura(false, alertas, ultimo);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void latir() {
+        for (Suscriptor suscriptor : suscriptores) {
+            suscriptor.latido = true;
+            programar(suscriptor);
+        }
+    }
+
+    @Override
+    public void close() {
+        latidos.shutdownNow();
+        envios.shutdownNow();
+        suscriptores.forEach(s -> s.emitter.complete());
+        suscriptores.clear();
+    }
+
+    private static final class Suscriptor {
+        private final SseEmitter emitter;
+        private final AtomicBoolean enviando = new AtomicBoolean(false);
+        // Último id enviado; sólo lo modifica el hilo que tiene el flag 'enviando'
+        private volatile long cursor;
+        private volatile boolean latido;
+
+        Suscriptor(SseEmitter emitter, long cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+    }
+
+    private record Lectura(boolean resync, List<Alert> alertas, long hasta) {
+    }
+}
@@ -0,0 +1,11 @@
+package com.transacciones.transaction_ingestor.alerts;
+
+import com.transacciones.transaction_ingestor.model.enums.Bandera;
+
+/**
+ * Decisión con la que se guardó una transacción, leída de su alerta (proyección de alertas
+ * LEFT JOIN auditoria): la bandera y, si una regla eliminatoria la bloqueó, el motivo que
+ * quedó en la auditoría automática.
+ */
+public record DecisionGuardada(String idTransaccion, Bandera bandera, String motivo) {
+}
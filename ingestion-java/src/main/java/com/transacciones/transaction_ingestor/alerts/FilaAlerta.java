@@ -0,0 +1,35 @@
+package com.transacciones.transaction_ingestor.alerts;
+
+import com.transacciones.transaction_ingestor.model.enums.Bandera;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Fila de la consulta de alertas (proyección por constructor sobre alertas LEFT JOIN transacciones):
+ * sólo las columnas que muestra el panel más las claves del cursor de paginación.
+ */
+public record FilaAlerta(
+        Long idAlerta,
+        Timestamp createdAt,
+        String idTransaccion,
+        BigDecimal monto,
+        LocalDate fechaOnly,
+        LocalTime horaOnly,
+        String pais,
+        BigDecimal latitud,
+        BigDecimal longitud,
+        Bandera bandera
+) {
+
+    public Alert toAlert() {
+        return Alert.de(idTransaccion, idAlerta, monto, fechaOnly, horaOnly, pais, latitud, longitud, bandera);
+    }
+
+    /** Cursor para pedir la página siguiente: {@code ?before=<createdAt>,<idAlerta>}. */
+    public String cursor() {
+        return createdAt.toLocalDateTime() + "," + idAlerta;
+    }
+}
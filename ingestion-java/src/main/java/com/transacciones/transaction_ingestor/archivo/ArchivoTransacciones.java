@@ -0,0 +1,425 @@
+package com.transacciones.transaction_ingestor.archivo;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.transacciones.transaction_ingestor.model.Transaccion;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Transacciones de las particiones vencidas, fuera de la base: un archivo columnar por
+ * partición y un índice chico ({@value #INDICE}) con el rango de timestamps de cada uno, así
+ * una consulta sólo abre los archivos que se solapan con su rango.
+ * <p>
+ * Formato de cada archivo ({@code <particion>.tcol}): {@code "TCOL" | versión | filas |
+ * columnas}, el directorio de columnas (nombre, offset, largo) y un bloque por columna
+ * comprimido con deflate por separado. Las filas van ordenadas por timestamp_transaccion:
+ * una lectura descomprime primero esa columna para ubicar el rango y de las demás sólo lo
+ * necesario; raw_payload no se lee nunca al consultar.
+ */
+@Component
+public class ArchivoTransacciones {
+
+    static final String INDICE = "indice.json";
+    private static final String SUFIJO = ".tcol";
+    private static final int MAGIA = 0x54434F4C; // "TCOL"
+    private static final byte VERSION = 1;
+    private static final long NULO = Long.MIN_VALUE;
+
+    /** Archivo de una partición exportada. Rango de timestamps real de sus filas. */
+    public record Entrada(String particion, String archivo, long filas,
+                          LocalDateTime minimo, LocalDateTime maximo, Instant archivadaEn) {
+
+        boolean seSolapa(LocalDateTime desde, LocalDateTime hasta) {
+            return !maximo.isBefore(desde) && !minimo.isAfter(hasta);
+        }
+    }
+
+    private enum Tipo { TEXTO, DECIMAL, FECHA, BYTES }
+
+    /** Columnas de transacciones, en el orden del archivo. */
+    enum Columna {
+        ID_TRANSACCION("id_transaccion", Tipo.TEXTO),
+        ID_USUARIO("id_usuario", Tipo.TEXTO),
+        MONTO("monto", Tipo.DECIMAL),
+        TIMESTAMP_TRANSACCION("timestamp_transaccion", Tipo.FECHA),
+        LATITUD("latitud", Tipo.DECIMAL),
+        LONGITUD("longitud", Tipo.DECIMAL),
+        PAIS("pais", Tipo.TEXTO),
+        TIPO("tipo", Tipo.TEXTO),
+        DESCRIPCION("descripcion", Tipo.TEXTO),
+        CANAL("canal", Tipo.TEXTO),
+        CREATED_AT("created_at", Tipo.FECHA),
+        RAW_JSON("raw_json", Tipo.TEXTO),
+        RAW_PAYLOAD("raw_payload", Tipo.BYTES);
+
+        final String nombre;
+        private final Tipo tipo;
+
+        Columna(String nombre, Tipo tipo) {
+            this.nombre = nombre;
+            this.tipo = tipo;
+        }
+    }
+
+    private static final Columna[] COLUMNAS = Columna.values();
+
+    private final ObjectMapper objectMapper;
+    private final Path directorio;
+    // Copia inmutable; se reemplaza entera al registrar
+    private volatile List<Entrada> indice;
+    // Serializa los registros (leer + reescribir indice.json); las lecturas no lo toman.
+    // ReentrantLock y no synchronized: adentro hay I/O con fsync y un hilo virtual no debe
+    // quedar anclado a su carrier mientras espera el disco
+    private final ReentrantLock registro = new ReentrantLock();
+
+    public ArchivoTransacciones(ObjectMapper objectMapper,
+                                @Value("${ingesta.archivo.directorio:./data/archivo}") String directorio) throws IOException {
+        this.objectMapper = objectMapper;
+        this.directorio = Path.of(directorio);
+        Path archivoIndice = this.directorio.resolve(INDICE);
+        this.indice = Files.exists(archivoIndice)
+                ? List.copyOf(objectMapper.readValue(archivoIndice.toFile(), new TypeReference<List<Entrada>>() { }))
+                : List.of();
+    }
+
+    public List<Entrada> entradas() {
+        return indice;
+    }
+
+    /**
+     * Transacciones archivadas con timestamp en [desde, hasta], en orden ascendente. Sin
+     * archivos que se solapen con el rango no toca el disco.
+     */
+    public List<Transaccion> leer(LocalDateTime desde, LocalDateTime hasta) {
+        List<Transaccion> resultado = new ArrayList<>();
+        for (Entrada entrada : indice) {
+            if (entrada.seSolapa(desde, hasta)) {
+                try {
+                    leerArchivo(directorio.resolve(entrada.archivo()), micros(desde), micros(hasta), resultado);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("No se pudo leer el archivo " + entrada.archivo(), e);
+                }
+            }
+        }
+        resultado.sort(Comparator.comparing(Transaccion::getTimestampTransaccion));
+        return resultado;
+    }
+
+    /** Empieza la exportación de una partición; las filas tienen que llegar ordenadas por timestamp. */
+    Escritor escritor(String particion) throws IOException {
+        Files.createDirectories(directorio);
+        return new Escritor(particion);
+    }
+
+    /** Agrega (o reemplaza, si se reexportó) la entrada de la partición en el índice. */
+    void registrar(Entrada entrada) throws IOException {
+        registro.lock();
+        try {
+            List<Entrada> nuevo = new ArrayList<>(indice.size() + 1);
+            for (Entrada existente : indice) {
+                if (!existente.particion().equals(entrada.particion())) {
+                    nuevo.add(existente);
+                }
+            }
+            nuevo.add(entrada);
+            nuevo.sort(Comparator.comparing(Entrada::minimo));
+            Path temporal = directorio.resolve(INDICE + ".tmp");
+            try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                canal.write(ByteBuffer.wrap(objectMapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(nuevo)));
+                canal.force(true);
+            }
+            Files.move(temporal, directorio.resolve(INDICE), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            indice = List.copyOf(nuevo);
+        } finally {
+            registro.unlock();
+        }
+    }
+
+    /**
+     * Escribe cada columna en su propio archivo temporal comprimido (memoria acotada sin
+     * importar el tamaño de la partición) y al cerrar los concatena detrás del directorio.
+     */
+    final class Escritor implements AutoCloseable {
+        private final String particion;
+        private final Map<Columna, Path> temporales = new EnumMap<>(Columna.class);
+        private final Map<Columna, DataOutputStream> salidas = new EnumMap<>(Columna.class);
+        private long filas;
+        private long minimo = NULO;
+        private long maximo = NULO;
+        private boolean cerrado;
+
+        private Escritor(String particion) throws IOException {
+            this.particion = particion;
+            for (Columna columna : COLUMNAS) {
+                Path temporal = directorio.resolve("." + particion + "." + columna.nombre + ".tmp");
+                temporales.put(columna, temporal);
+                salidas.put(columna, new DataOutputStream(new DeflaterOutputStream(
+                        new BufferedOutputStream(Files.newOutputStream(temporal), 64 * 1024))));
+            }
+        }
+
+        /** Agrega la fila actual del ResultSet (SELECT con los nombres de {@link Columna}). */
+        void agregar(ResultSet rs) throws SQLException, IOException {
+            for (Columna columna : COLUMNAS) {
+                DataOutputStream salida = salidas.get(columna);
+                switch (columna.tipo) {
+                    case TEXTO -> escribirBytes(salida, texto(rs.getString(columna.nombre)));
+                    case DECIMAL -> {
+                        BigDecimal valor = rs.getBigDecimal(columna.nombre);
+                        escribirBytes(salida, valor == null ? null : texto(valor.toPlainString()));
+                    }
+                    case FECHA -> salida.writeLong(micros(rs.getObject(columna.nombre, LocalDateTime.class)));
+                    case BYTES -> escribirBytes(salida, rs.getBytes(columna.nombre));
+                }
+            }
+            long timestamp = micros(rs.getObject(Columna.TIMESTAMP_TRANSACCION.nombre, LocalDateTime.class));
+            if (filas == 0) {
+                minimo = timestamp;
+            }
+            maximo = timestamp;
+            filas++;
+        }
+
+        long filas() {
+            return filas;
+        }
+
+        /** Arma el archivo final, lo sincroniza a disco y devuelve su entrada (sin registrarla). */
+        Entrada terminar() throws IOException {
+            cerrarSalidas();
+            String nombre = particion + SUFIJO;
+            Path temporal = directorio.resolve(nombre + ".tmp");
+            long[] largos = new long[COLUMNAS.length];
+            long cabecera = 4 + 1 + 8 + 4;
+            for (Columna columna : COLUMNAS) {
+                largos[columna.ordinal()] = Files.size(temporales.get(columna));
+                cabecera += 2 + columna.nombre.length() + 8 + 8;
+            }
+            try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                 DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(
+                         Channels.newOutputStream(canal), 64 * 1024))) {
+                salida.writeInt(MAGIA);
+                salida.writeByte(VERSION);
+                salida.writeLong(filas);
+                salida.writeInt(COLUMNAS.length);
+                long offset = cabecera;
+                for (Columna columna : COLUMNAS) {
+                    salida.writeUTF(columna.nombre);
+                    salida.writeLong(offset);
+                    salida.writeLong(largos[columna.ordinal()]);
+                    offset += largos[columna.ordinal()];
+                }
+                for (Columna columna : COLUMNAS) {
+                    Files.copy(temporales.get(columna), salida);
+                }
+                salida.flush();
+                canal.force(true);
+            }
+            Files.move(temporal, directorio.resolve(nombre), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            borrarTemporales();
+            return new Entrada(particion, nombre, filas, fecha(minimo), fecha(maximo), Instant.now());
+        }
+
+        @Override
+        public void close() throws IOException {
+            cerrarSalidas();
+            borrarTemporales();
+        }
+
+        private void cerrarSalidas() throws IOException {
+            if (cerrado) {
+                return;
+            }
+            cerrado = true;
+            IOException error = null;
+            for (DataOutputStream salida : salidas.values()) {
+                try {
+                    salida.close();
+                } catch (IOException e) {
+                    error = e;
+                }
+            }
+            if (error != null) {
+                throw error;
+            }
+        }
+
+        private void borrarTemporales() throws IOException {
+            for (Path temporal : temporales.values()) {
+                Files.deleteIfExists(temporal);
+            }
+        }
+    }
+
+    private static void leerArchivo(Path archivo, long desde, long hasta, List<Transaccion> resultado) throws IOException {
+        long filas;
+        Map<String, long[]> bloques = new HashMap<>();
+        try (DataInputStream entrada = new DataInputStream(new BufferedInputStream(Files.newInputStream(archivo)))) {
+            if (entrada.readInt() != MAGIA || entrada.readByte() != VERSION) {
+                throw new IOException("Formato de archivo desconocido: " + archivo);
+            }
+            filas = entrada.readLong();
+            int columnas = entrada.readInt();
+            for (int i = 0; i < columnas; i++) {
+                bloques.put(entrada.readUTF(), new long[]{entrada.readLong(), entrada.readLong()});
+            }
+        }
+
+        // 1) Rango de filas a partir de la columna de timestamps (ordenada)
+        long[] timestamps = new long[(int) filas];
+        try (DataInputStream columna = abrirColumna(archivo, bloques, Columna.TIMESTAMP_TRANSACCION)) {
+            for (int i = 0; i < filas; i++) {
+                timestamps[i] = columna.readLong();
+            }
+        }
+        int primera = 0;
+        while (primera < filas && timestamps[primera] < desde) {
+            primera++;
+        }
+        int ultima = primera;
+        while (ultima < filas && timestamps[ultima] <= hasta) {
+            ultima++;
+        }
+        if (primera == ultima) {
+            return;
+        }
+
+        // 2) El resto de las columnas, sólo hasta la última fila del rango
+        Transaccion[] transacciones = new Transaccion[ultima - primera];
+        for (int i = 0; i < transacciones.length; i++) {
+            transacciones[i] = new Transaccion();
+            transacciones[i].setTimestampTransaccion(fecha(timestamps[primera + i]));
+        }
+        for (Columna columna : COLUMNAS) {
+            if (columna == Columna.TIMESTAMP_TRANSACCION || columna == Columna.RAW_PAYLOAD) {
+                continue;
+            }
+            try (DataInputStream entrada = abrirColumna(archivo, bloques, columna)) {
+                for (int i = 0; i < ultima; i++) {
+                    if (i < primera) {
+                        saltear(entrada, columna.tipo);
+                    } else {
+                        asignar(transacciones[i - primera], columna, entrada);
+                    }
+                }
+            }
+        }
+        resultado.addAll(List.of(transacciones));
+    }
+
+    private static DataInputStream abrirColumna(Path archivo, Map<String, long[]> bloques, Columna columna) throws IOException {
+        long[] bloque = bloques.get(columna.nombre);
+        if (bloque == null) {
+            throw new IOException("Falta la columna " + columna.nombre + " en " + archivo);
+        }
+        InputStream entrada = Files.newInputStream(archivo);
+        entrada.skipNBytes(bloque[0]);
+        return new DataInputStream(new BufferedInputStream(new InflaterInputStream(entrada), 64 * 1024));
+    }
+
+    private static void asignar(Transaccion tx, Columna columna, DataInputStream entrada) throws IOException {
+        switch (columna) {
+            case ID_TRANSACCION -> tx.setIdTransaccion(leerTexto(entrada));
+            case ID_USUARIO -> tx.setIdUsuario(leerTexto(entrada));
+            case MONTO -> tx.setMonto(leerDecimal(entrada));
+            case LATITUD -> tx.setLatitud(leerDecimal(entrada));
+            case LONGITUD -> tx.setLongitud(leerDecimal(entrada));
+            case PAIS -> tx.setPais(leerTexto(entrada));
+            case TIPO -> tx.setTipo(leerTexto(entrada));
+            case DESCRIPCION -> tx.setDescripcion(leerTexto(entrada));
+            case CANAL -> tx.setCanal(leerTexto(entrada));
+            case CREATED_AT -> tx.setCreatedAt(fecha(entrada.readLong()));
+            case RAW_JSON -> tx.setRawJson(leerTexto(entrada));
+            default -> saltear(entrada, columna.tipo);
+        }
+    }
+
+    private static void saltear(DataInputStream entrada, Tipo tipo) throws IOException {
+        if (tipo == Tipo.FECHA) {
+            entrada.readLong();
+            return;
+        }
+        int largo = entrada.readInt();
+        if (largo > 0) {
+            entrada.skipNBytes(largo);
+        }
+    }
+
+    private static void escribirBytes(DataOutputStream salida, byte[] valor) throws IOException {
+        if (valor == null) {
+            salida.writeInt(-1);
+        } else {
+            salida.writeInt(valor.length);
+            salida.write(valor);
+        }
+    }
+
+    private static byte[] leerBytes(DataInputStream entrada) throws IOException {
+        int largo = entrada.readInt();
+        return largo < 0 ? null : entrada.readNBytes(largo);
+    }
+
+    private static String leerTexto(DataInputStream entrada) throws IOException {
+        byte[] bytes = leerBytes(entrada);
+        return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static BigDecimal leerDecimal(DataInputStream entrada) throws IOException {
+        String texto = leerTexto(entrada);
+        return texto == null ? null : new BigDecimal(texto);
+    }
+
+    private static byte[] texto(String valor) {
+        return valor == null ? null : valor.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Fechas sin zona (como DATETIME): microsegundos tomando el valor como UTC
+    private static long micros(LocalDateTime fecha) {
+        if (fecha == null) {
+            return NULO;
+        }
+        return fecha.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + fecha.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fecha(long micros) {
+        if (micros == NULO) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+                Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+}
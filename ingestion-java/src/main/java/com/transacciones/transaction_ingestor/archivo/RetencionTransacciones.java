@@ -0,0 +1,222 @@
+package com.transacciones.transaction_ingestor.archivo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Mantenimiento de las particiones mensuales de transacciones (migración V2), en un hilo
+ * propio cada {@code ingesta.archivo.intervalo-ms}:
+ * <ul>
+ *   <li>divide p_futuro para que existan las particiones del mes en curso y de los
+ *       {@code meses-adelante} siguientes (p_futuro queda vacía y el REORGANIZE es barato)</li>
+ *   <li>exporta cada partición cuyo límite quedó a más de {@code retencion-meses} a
+ *       {@link ArchivoTransacciones}, verifica la cantidad de filas, la registra en el índice
+ *       y recién entonces la borra con DROP PARTITION</li>
+ * </ul>
+ * Si se cae entre el registro y el DROP, la próxima pasada reexporta la partición y pisa el
+ * archivo. Una fila que llegue tarde a una partición vencida entre el conteo y el DROP se
+ * pierde; con meses de retención no debería pasar.
+ */
+@Component
+@ConditionalOnProperty(name = "ingesta.archivo.habilitado", havingValue = "true")
+public class RetencionTransacciones implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(RetencionTransacciones.class);
+
+    private static final String FUTURO = "p_futuro";
+    private static final Pattern NOMBRE_PARTICION = Pattern.compile("p_?[a-z0-9_]+");
+    private static final DateTimeFormatter MES = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final DateTimeFormatter LIMITE = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final String PARTICIONES = """
+            SELECT PARTITION_NAME, PARTITION_DESCRIPTION
+            FROM information_schema.PARTITIONS
+            WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'transacciones'
+            ORDER BY PARTITION_ORDINAL_POSITION
+            """;
+
+    /** Partición de rango; {@code limite} null = MAXVALUE. */
+    record Particion(String nombre, LocalDateTime limite) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    // Fetch size MIN_VALUE: el driver de MySQL trae las filas de a una (streaming) en vez
+    // de cargar la partición entera en memoria
+    private final JdbcTemplate lectura;
+    private final ArchivoTransacciones archivo;
+    private final int retencionMeses;
+    private final int mesesAdelante;
+    private final long intervaloMs;
+    private final ScheduledExecutorService mantenimiento;
+
+    @Autowired
+    public RetencionTransacciones(JdbcTemplate jdbcTemplate,
+                                  DataSource dataSource,
+                                  ArchivoTransacciones archivo,
+                                  @Value("${ingesta.archivo.retencion-meses:6}") int retencionMeses,
+                                  @Value("${ingesta.archivo.meses-adelante:2}") int mesesAdelante,
+                                  @Value("${ingesta.archivo.intervalo-ms:3600000}") long intervaloMs) {
+        this(jdbcTemplate, lecturaEnStreaming(dataSource), archivo, retencionMeses, mesesAdelante, intervaloMs);
+    }
+
+    RetencionTransacciones(JdbcTemplate jdbcTemplate, JdbcTemplate lectura, ArchivoTransacciones archivo,
+                           int retencionMeses, int mesesAdelante, long intervaloMs) {
+        if (retencionMeses < 1 || mesesAdelante < 0 || intervaloMs <= 0) {
+            throw new IllegalArgumentException(
+                    "ingesta.archivo: retencion-meses >= 1, meses-adelante >= 0 e intervalo-ms positivo");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.lectura = lectura;
+        this.archivo = archivo;
+        this.retencionMeses = retencionMeses;
+        this.mesesAdelante = mesesAdelante;
+        this.intervaloMs = intervaloMs;
+        this.mantenimiento = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "archivo-transacciones");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+
+    private static JdbcTemplate lecturaEnStreaming(DataSource dataSource) {
+        JdbcTemplate lectura = new JdbcTemplate(dataSource);
+        lectura.setFetchSize(Integer.MIN_VALUE);
+        return lectura;
+    }
+
+    // Después del arranque: las migraciones ya corrieron
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        mantenimiento.scheduleWithFixedDelay(this::mantener, 0, intervaloMs, TimeUnit.MILLISECONDS);
+    }
+
+    void mantener() {
+        try {
+            List<Particion> particiones = particiones();
+            if (particiones.isEmpty()) {
+                log.warn("transacciones no está particionada (falta la migración V2); no se archiva");
+                return;
+            }
+            LocalDate mesActual = LocalDate.now().withDayOfMonth(1);
+            crearParticiones(particiones, mesActual.plusMonths(mesesAdelante + 1L).atStartOfDay());
+
+            LocalDateTime corte = mesActual.minusMonths(retencionMeses).atStartOfDay();
+            for (Particion particion : particiones) {
+                if (particion.limite() != null && !particion.limite().isAfter(corte)) {
+                    archivar(particion);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Falló el mantenimiento de particiones de transacciones", e);
+        }
+    }
+
+    List<Particion> particiones() {
+        return jdbcTemplate.query(PARTICIONES, (rs, i) -> rs.getString(1) == null ? null
+                        : new Particion(rs.getString(1), limite(rs.getString(2))))
+                .stream()
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /** Divide p_futuro en meses hasta {@code hasta} (exclusivo). */
+    private void crearParticiones(List<Particion> particiones, LocalDateTime hasta) {
+        if (particiones.stream().noneMatch(p -> p.nombre().equals(FUTURO))) {
+            return;
+        }
+        LocalDateTime desde = particiones.stream()
+                .map(Particion::limite)
+                .filter(Objects::nonNull)
+                .max(LocalDateTime::compareTo)
+                .orElse(LocalDate.now().withDayOfMonth(1).atStartOfDay());
+        List<String> nuevas = new ArrayList<>();
+        for (LocalDateTime mes = desde; mes.isBefore(hasta); mes = mes.plusMonths(1)) {
+            nuevas.add("PARTITION p" + MES.format(mes) + " VALUES LESS THAN ('" + LIMITE.format(mes.plusMonths(1)) + "')");
+        }
+        if (nuevas.isEmpty()) {
+            return;
+        }
+        nuevas.add("PARTITION " + FUTURO + " VALUES LESS THAN (MAXVALUE)");
+        jdbcTemplate.execute("ALTER TABLE transacciones REORGANIZE PARTITION " + FUTURO
+                + " INTO (" + String.join(", ", nuevas) + ")");
+        log.info("Particiones de transacciones creadas hasta {}", hasta.toLocalDate());
+    }
+
+    private void archivar(Particion particion) throws IOException {
+        String nombre = particion.nombre();
+        if (!NOMBRE_PARTICION.matcher(nombre).matches()) {
+            log.warn("Partición con nombre inesperado, no se archiva: {}", nombre);
+            return;
+        }
+        long inicio = System.currentTimeMillis();
+        String columnas = Arrays.stream(ArchivoTransacciones.Columna.values())
+                .map(columna -> columna.nombre)
+                .collect(Collectors.joining(", "));
+
+        ArchivoTransacciones.Entrada entrada = null;
+        try (ArchivoTransacciones.Escritor escritor = archivo.escritor(nombre)) {
+            lectura.query("SELECT " + columnas + " FROM transacciones PARTITION (" + nombre + ")"
+                    + " ORDER BY timestamp_transaccion", rs -> {
+                try {
+                    escritor.agregar(rs);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            if (escritor.filas() > 0) {
+                entrada = escritor.terminar();
+            }
+        }
+
+        long filas = entrada != null ? entrada.filas() : 0;
+        Long enBase = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM transacciones PARTITION (" + nombre + ")", Long.class);
+        if (enBase == null || enBase != filas) {
+            // Entraron filas durante la exportación: se reintenta en la próxima pasada
+            log.warn("La partición {} cambió durante la exportación ({} exportadas, {} en la base); no se borra",
+                    nombre, filas, enBase);
+            return;
+        }
+        if (entrada != null) {
+            archivo.registrar(entrada);
+        }
+        jdbcTemplate.execute("ALTER TABLE transacciones DROP PARTITION " + nombre);
+        log.info("Partición {} archivada ({} filas, {} ms) y borrada", nombre, filas, System.currentTimeMillis() - inicio);
+    }
+
+    private static LocalDateTime limite(String descripcion) {
+        if (descripcion == null || descripcion.equalsIgnoreCase("MAXVALUE")) {
+            return null;
+        }
+        // RANGE COLUMNS sobre DATETIME: '2025-03-01 00:00:00'
+        return LocalDateTime.parse(descripcion.replace("'", ""), LIMITE);
+    }
+
+    @Override
+    public void close() {
+        mantenimiento.shutdownNow();
+    }
+}
@@ -1,10 +1,19 @@
 package com.transacciones.transaction_ingestor.config;
 
+import com.transacciones.transaction_ingestor.kafka.KeyOrderedExecutor;
+import com.transacciones.transaction_ingestor.kafka.TransactionRetryRouter;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.FixedBackOff;
 
 @Configuration
 public class KafkaConfig {
@@ -18,6 +27,18 @@ public class KafkaConfig {
     @Value("${kafka.topics.transaction-rejected}")
     private String transactionRejectedTopic;
 
+    @Value("${kafka.topics.transaction-retry-1}")
+    private String transactionRetryTopic1;
+
+    @Value("${kafka.topics.transaction-retry-2}")
+    private String transactionRetryTopic2;
+
+    @Value("${kafka.topics.transaction-retry-3}")
+    private String transactionRetryTopic3;
+
+    @Value("${kafka.topics.transaction-dlt}")
+    private String transactionDeadLetterTopic;
+
     @Bean
     public NewTopic transactionInputTopic() {
         return TopicBuilder.name(transactionInputTopic)
@@ -41,4 +62,93 @@ public class KafkaConfig {
                 .replicas(1)
                 .build();
     }
-}
\ No newline at end of file
+
+    @Bean
+    public NewTopic transactionRetryTopic1() {
+        return TopicBuilder.name(transactionRetryTopic1)
+                .partitions(3)
+                .replicas(1)
+                .build();
+    }
+
+    @Bean
+    public NewTopic transactionRetryTopic2() {
+        return TopicBuilder.name(transactionRetryTopic2)
+                .partitions(3)
+                .replicas(1)
+                .build();
+    }
+
+    @Bean
+    public NewTopic transactionRetryTopic3() {
+        return TopicBuilder.name(transactionRetryTopic3)
+                .partitions(3)
+                .replicas(1)
+                .build();
+    }
+
+    @Bean
+    public NewTopic transactionDeadLetterTopic() {
+        return TopicBuilder.name(transactionDeadLetterTopic)
+                .partitions(3)
+                .replicas(1)
+                .build();
+    }
+
+    /**
+     * Manejador de errores de todos los contenedores: lo que escape de un listener (incluidos
+     * los registros que no se pudieron deserializar) se envía sin reintentos bloqueantes al
+     * router, que lo deriva al topic de reintento o al DLT y libera la partición. El offset
+     * del registro derivado lo confirma el contenedor (ackAfterHandle, también con ack
+     * manual); si el envío al router falla, el registro se vuelve a buscar. En modo lote
+     * el listener indica el registro fallido con BatchListenerFailedException y sólo ése
+     * se deriva.
+     */
+    @Bean
+    public DefaultErrorHandler kafkaErrorHandler(TransactionRetryRouter retryRouter) {
+        return new DefaultErrorHandler(retryRouter::handleFailure, new FixedBackOff(0L, 0L));
+    }
+
+    /**
+     * Factory para el modo lote (kafka.consumer.mode=batch): el listener recibe el poll
+     * completo (hasta max-poll-records) y confirma una sola vez por lote.
+     * Hereda el resto de la configuración spring.kafka.listener.* (ack-mode manual, etc.).
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> batchKafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.setBatchListener(true);
+        return factory;
+    }
+
+    /**
+     * Factory para el modo paralelo (kafka.consumer.mode=parallel): el listener reparte los
+     * registros en carriles por accountId y los confirma desde los workers. Con asyncAcks
+     * el contenedor acepta acks fuera de orden y sólo commitea hasta el menor offset
+     * contiguo completado de cada partición.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> parallelKafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setAsyncAcks(true);
+        return factory;
+    }
+
+    /**
+     * Carriles de procesamiento del modo paralelo, uno por hilo, asignados por accountId.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "kafka.consumer.mode", havingValue = "parallel")
+    public KeyOrderedExecutor transactionKeyOrderedExecutor(
+            @Value("${kafka.consumer.parallel.workers:16}") int workers,
+            @Value("${kafka.consumer.parallel.queue-capacity:256}") int capacidadPorCarril) {
+        return new KeyOrderedExecutor("tx-worker", workers, capacidadPorCarril);
+    }
+}
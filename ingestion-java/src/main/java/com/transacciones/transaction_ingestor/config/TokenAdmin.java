@@ -0,0 +1,40 @@
+package com.transacciones.transaction_ingestor.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Map;
+
+/**
+ * Token de las operaciones de administración ({@code reglas.admin.token}), enviado en el
+ * header {@value #HEADER}. Sin token configurado esas operaciones no están expuestas (404).
+ */
+@Component
+public class TokenAdmin {
+
+    public static final String HEADER = "X-Admin-Token";
+
+    private final byte[] token;
+
+    public TokenAdmin(@Value("${reglas.admin.token:}") String token) {
+        this.token = token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param recibido valor del header, o null si no vino
+     * @return null si el token es válido; si no, la respuesta a devolver (404 o 401)
+     */
+    public ResponseEntity<Object> rechazo(String recibido) {
+        if (token.length == 0) {
+            return ResponseEntity.notFound().build();
+        }
+        if (recibido == null || !MessageDigest.isEqual(token, recibido.getBytes(StandardCharsets.UTF_8))) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Token de administración inválido"));
+        }
+        return null;
+    }
+}
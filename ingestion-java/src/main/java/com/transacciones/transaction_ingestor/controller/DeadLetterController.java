@@ -0,0 +1,65 @@
+package com.transacciones.transaction_ingestor.controller;
+
+import com.transacciones.transaction_ingestor.config.TokenAdmin;
+import com.transacciones.transaction_ingestor.kafka.DeadLetterReplayer;
+import com.transacciones.transaction_ingestor.kafka.TransactionRetryRouter;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Operación de los reintentos y del dead-letter topic de transacciones.
+ */
+@RestController
+@RequestMapping("/transactions/dlt")
+public class DeadLetterController {
+
+    private final TransactionRetryRouter retryRouter;
+    private final DeadLetterReplayer deadLetterReplayer;
+    private final TokenAdmin tokenAdmin;
+
+    public DeadLetterController(TransactionRetryRouter retryRouter, DeadLetterReplayer deadLetterReplayer,
+                                TokenAdmin tokenAdmin) {
+        this.retryRouter = retryRouter;
+        this.deadLetterReplayer = deadLetterReplayer;
+        this.tokenAdmin = tokenAdmin;
+    }
+
+    /**
+     * Contadores de fallos por motivo (enviados a reintento y enviados al DLT).
+     */
+    @GetMapping("/stats")
+    public Map<String, Map<String, Long>> stats() {
+        return retryRouter.estadisticas();
+    }
+
+    /**
+     * Reinyecta en transaction-input-topic hasta {@code max} registros del DLT. Como los
+     * cambios de reglas, exige el token de administración en {@value TokenAdmin#HEADER}
+     * (404 si no hay token configurado).
+     */
+    @PostMapping("/replay")
+    public ResponseEntity<Object> replay(@RequestHeader(name = TokenAdmin.HEADER, required = false) String token,
+                                         @RequestParam(defaultValue = "1000") int max) {
+        ResponseEntity<Object> rechazo = tokenAdmin.rechazo(token);
+        if (rechazo != null) {
+            return rechazo;
+        }
+        if (max <= 0) {
+            return ResponseEntity.badRequest().body(Map.of("error", "max debe ser positivo"));
+        }
+        try {
+            int reinyectados = deadLetterReplayer.replay(max);
+            return ResponseEntity.ok(Map.of("reinyectados", reinyectados));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+}
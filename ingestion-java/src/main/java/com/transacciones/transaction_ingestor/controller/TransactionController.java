@@ -1,21 +1,43 @@
 package com.transacciones.transaction_ingestor.controller;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
+import com.transacciones.transaction_ingestor.dto.ResultadoIngesta;
 import com.transacciones.transaction_ingestor.dto.TransactionDTO;
+import com.transacciones.transaction_ingestor.ids.IdGenerator;
 import com.transacciones.transaction_ingestor.kafka.TransactionProducer;
 import com.transacciones.transaction_ingestor.model.Transaccion;
+import com.transacciones.transaction_ingestor.service.IngestaStream;
 import com.transacciones.transaction_ingestor.service.TransactionService;
+import com.transacciones.transaction_ingestor.wal.IngestaWal;
 
-import java.util.UUID;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Controlador REST que expone el endpoint para la ingesta de transacciones (Requisito 1).
@@ -29,12 +51,37 @@ public class TransactionController {
     // ========================================
     private final TransactionService transactionService;
     private final TransactionProducer transactionProducer;
+    private final ObjectMapper objectMapper;
+    private final IdGenerator idGenerator;
+    private final IngestaStream ingestaStream;
+    // Sólo presente con ingesta.modo=wal
+    private final IngestaWal ingestaWal;
+
+    // Límite de ítems por request de ingesta por lotes
+    @Value("${ingesta.batch.max-items:5000}")
+    private int maxItemsPorLote;
+
+    // Límite del cuerpo de la ingesta por lotes, que se lee entero a memoria
+    @Value("${ingesta.batch.max-bytes:16777216}")
+    private int maxBytesPorLote;
+
+    // Espera máxima de la confirmación del broker en POST /transactions/kafka
+    @Value("${kafka.envio.timeout-ms:10000}")
+    private long timeoutEnvioMs;
 
     @Autowired
     public TransactionController(TransactionService transactionService,
-                                  TransactionProducer transactionProducer) {
+                                  TransactionProducer transactionProducer,
+                                  ObjectMapper objectMapper,
+                                  IdGenerator idGenerator,
+                                  IngestaStream ingestaStream,
+                                  ObjectProvider<IngestaWal> ingestaWal) {
         this.transactionService = transactionService;
         this.transactionProducer = transactionProducer;
+        this.objectMapper = objectMapper;
+        this.idGenerator = idGenerator;
+        this.ingestaStream = ingestaStream;
+        this.ingestaWal = ingestaWal.getIfAvailable();
     }
 
     // ========================================
@@ -42,32 +89,202 @@ public class TransactionController {
     // ========================================
     // Requisito 1: Crear endpoint /transactions/ingest
     @PostMapping("/ingest")
-    @ResponseStatus(HttpStatus.CREATED) // Código de respuesta 201
-    public String ingestTransaction(
+    public ResponseEntity<String> ingestTransaction(
             // @Valid activa las reglas de validación definidas en la clase Transaction (Requisito 2)
             @RequestBody @Valid Transaccion transaction) {
+        if (ingestaWal != null) {
+            return ingestarEnWal(transaction);
+        }
         Transaccion savedTransaction = transactionService.ingestAndSave(transaction);
-        return String.format("Transacción %s guardada exitosamente en la base de datos.",
-                savedTransaction.getIdTransaccion());
+        return ResponseEntity.status(HttpStatus.CREATED) // Código de respuesta 201
+                .body(String.format("Transacción %s guardada exitosamente en la base de datos.",
+                        savedTransaction.getIdTransaccion()));
+    }
+
+    // Modo WAL: 202 en cuanto la transacción está en disco; se persiste en el próximo volcado
+    private ResponseEntity<String> ingestarEnWal(Transaccion transaction) {
+        String error = transactionService.validarIngesta(transaction);
+        if (error != null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, error);
+        }
+        try {
+            ingestaWal.registrar(transaction);
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(String.format("Transacción %s registrada; se guardará en la base de datos en breve.",
+                        transaction.getIdTransaccion()));
+    }
+
+    // ========================================
+    // INGESTA POR LOTES
+    // ========================================
+    /**
+     * Ingesta por lotes a partir de un arreglo JSON de transacciones.
+     * Devuelve un resultado por ítem; un ítem inválido no hace fallar el lote.
+     * El arreglo se recorre a mano para guardar en raw_json los bytes originales de cada ítem.
+     */
+    @PostMapping(value = "/ingest/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public List<ResultadoIngesta> ingestBatch(HttpServletRequest request) throws IOException {
+        byte[] cuerpo = leerCuerpo(request);
+        List<Transaccion> transacciones = new ArrayList<>();
+        try (JsonParser parser = objectMapper.createParser(cuerpo)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Se esperaba un arreglo JSON de transacciones");
+            }
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                verificarTamanioLote(transacciones.size() + 1);
+                int desde = (int) parser.currentTokenLocation().getByteOffset();
+                Transaccion tx = parser.readValueAs(Transaccion.class);
+                if (tx != null) {
+                    tx.setPayloadOriginal(Arrays.copyOfRange(cuerpo, desde, (int) parser.currentLocation().getByteOffset()));
+                }
+                transacciones.add(tx);
+            }
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "JSON inválido: " + mensaje(e), e);
+        }
+        return transactionService.ingestBatch(transacciones);
+    }
+
+    /**
+     * Ingesta por lotes a partir de NDJSON (una transacción por línea, como requests.jsonl).
+     * Las líneas que no se pueden parsear se informan como rechazadas con su número de línea.
+     */
+    @PostMapping(value = "/ingest/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public List<ResultadoIngesta> ingestBatchNdjson(HttpServletRequest request) throws IOException {
+        List<Transaccion> parseadas = new ArrayList<>();
+        List<Integer> lineas = new ArrayList<>();
+        Map<Integer, String> erroresDeParseo = new HashMap<>();
+
+        byte[] cuerpo = leerCuerpo(request);
+        int numero = 0;
+        for (int inicio = 0; inicio < cuerpo.length; ) {
+            int fin = inicio;
+            while (fin < cuerpo.length && cuerpo[fin] != '\n') {
+                fin++;
+            }
+            int desde = inicio;
+            inicio = fin + 1;
+            // Fin de línea CRLF
+            if (fin > desde && cuerpo[fin - 1] == '\r') {
+                fin--;
+            }
+            if (enBlanco(cuerpo, desde, fin)) {
+                continue;
+            }
+            verificarTamanioLote(numero + 1);
+            try {
+                Transaccion tx = objectMapper.readValue(cuerpo, desde, fin - desde, Transaccion.class);
+                tx.setPayloadOriginal(Arrays.copyOfRange(cuerpo, desde, fin));
+                parseadas.add(tx);
+                lineas.add(numero);
+            } catch (JsonProcessingException e) {
+                erroresDeParseo.put(numero, "JSON inválido: " + e.getOriginalMessage());
+            }
+            numero++;
+        }
+
+        // Reubicar los resultados del servicio en la posición original de cada línea
+        List<ResultadoIngesta> guardados = transactionService.ingestBatch(parseadas);
+        List<ResultadoIngesta> resultados = new ArrayList<>(numero);
+        int siguiente = 0;
+        for (int i = 0; i < numero; i++) {
+            String error = erroresDeParseo.get(i);
+            if (error != null) {
+                resultados.add(ResultadoIngesta.rechazada(i, null, error));
+            } else {
+                resultados.add(guardados.get(siguiente).conIndice(lineas.get(siguiente)));
+                siguiente++;
+            }
+        }
+        return resultados;
+    }
+
+    /**
+     * Ingesta en streaming de NDJSON sin límite de tamaño: el cuerpo se procesa a medida que
+     * llega y se responde una línea NDJSON con el resultado de cada transacción, en orden,
+     * a medida que se guardan (destino=base) o las confirma Kafka (destino=kafka).
+     */
+    @PostMapping(value = "/ingest/stream", consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void ingestStream(@RequestParam(defaultValue = "base") String destino,
+                             InputStream body, HttpServletResponse response) throws IOException {
+        if (!"base".equals(destino) && !"kafka".equals(destino)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "destino debe ser base o kafka");
+        }
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        ingestaStream.procesar(body, response.getOutputStream(), "kafka".equals(destino));
+    }
+
+    private static boolean enBlanco(byte[] datos, int desde, int hasta) {
+        for (int i = desde; i < hasta; i++) {
+            byte b = datos[i];
+            if (b != ' ' && b != '\t') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String mensaje(IOException e) {
+        return e instanceof JsonProcessingException jpe ? jpe.getOriginalMessage() : e.getMessage();
+    }
+
+    /**
+     * Lee el cuerpo de una ingesta por lotes con tope de {@code ingesta.batch.max-bytes}: si el
+     * Content-Length lo supera se responde 413 sin leer nada, y si el cuerpo viene sin largo
+     * (chunked) se deja de leer al pasarlo. Para más datos está /ingest/stream.
+     */
+    private byte[] leerCuerpo(HttpServletRequest request) throws IOException {
+        if (request.getContentLengthLong() > maxBytesPorLote) {
+            throw cuerpoDemasiadoGrande();
+        }
+        byte[] cuerpo = request.getInputStream().readNBytes(maxBytesPorLote + 1);
+        if (cuerpo.length > maxBytesPorLote) {
+            throw cuerpoDemasiadoGrande();
+        }
+        return cuerpo;
+    }
+
+    private ResponseStatusException cuerpoDemasiadoGrande() {
+        return new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                "El lote supera el máximo de " + maxBytesPorLote + " bytes; usar /transactions/ingest/stream");
+    }
+
+    private void verificarTamanioLote(int cantidad) {
+        if (cantidad > maxItemsPorLote) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "El lote supera el máximo de " + maxItemsPorLote + " transacciones");
+        }
     }
 
     // ========================================
     // NUEVOS ENDPOINTS PARA KAFKA
     // ========================================
     /**
-     * Endpoint para enviar transacciones a Kafka
+     * Endpoint para enviar transacciones a Kafka. Responde 202 cuando el broker confirmó el
+     * envío, sin ocupar el hilo del request mientras tanto; 429 si hay demasiados envíos
+     * pendientes y 503 si Kafka falla o no confirma a tiempo.
      */
     @PostMapping("/kafka")
-    public ResponseEntity<String> sendToKafka(@Valid @RequestBody TransactionDTO transaction) {
+    public CompletableFuture<ResponseEntity<String>> sendToKafka(@Valid @RequestBody TransactionDTO transaction) {
         // Generar ID si no viene
         if (transaction.getId() == null || transaction.getId().isEmpty()) {
-            transaction.setId(UUID.randomUUID().toString());
+            transaction.setId(idGenerator.nextId());
         }
 
         // Enviar a Kafka
-        transactionProducer.sendTransaction(transaction);
-
-        return ResponseEntity.status(HttpStatus.ACCEPTED)
-                .body("Transacción enviada a Kafka para procesamiento: " + transaction.getId());
+        return transactionProducer.sendTransactionAcotado(transaction)
+                .orTimeout(timeoutEnvioMs, TimeUnit.MILLISECONDS)
+                .handle((result, ex) -> {
+                    if (ex != null) {
+                        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                                .body("No se pudo enviar la transacción " + transaction.getId() + " a Kafka");
+                    }
+                    return ResponseEntity.status(HttpStatus.ACCEPTED)
+                            .body("Transacción enviada a Kafka para procesamiento: " + transaction.getId());
+                });
     }
-}
\ No newline at end of file
+}
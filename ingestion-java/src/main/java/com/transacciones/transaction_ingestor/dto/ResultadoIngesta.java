@@ -0,0 +1,56 @@
+package com.transacciones.transaction_ingestor.dto;
+
+import com.transacciones.transaction_ingestor.model.enums.Bandera;
+
+/**
+ * Resultado de un ítem dentro de una ingesta por lotes.
+ * El índice corresponde a la posición del ítem en el arreglo o a la línea del NDJSON.
+ * Las transacciones guardadas llevan la bandera de la decisión de reglas y modelo; si una
+ * regla la bloqueó, {@code error} trae el motivo. Las duplicadas llevan la decisión con la
+ * que se guardó el original, así un reenvío de una bloqueada sigue bloqueado.
+ */
+public record ResultadoIngesta(
+        int indice,
+        String idTransaccion,
+        String estado, // GUARDADA, DUPLICADA, RECHAZADA, ENVIADA
+        String error,
+        Bandera bandera
+) {
+
+    public static final String GUARDADA = "GUARDADA";
+    public static final String DUPLICADA = "DUPLICADA";
+    public static final String RECHAZADA = "RECHAZADA";
+    // Publicada en el topic de entrada de Kafka (confirmada por el broker)
+    public static final String ENVIADA = "ENVIADA";
+
+    public static ResultadoIngesta guardada(int indice, String idTransaccion, Bandera bandera, String motivo) {
+        return new ResultadoIngesta(indice, idTransaccion, GUARDADA, motivo, bandera);
+    }
+
+    public static ResultadoIngesta duplicada(int indice, String idTransaccion) {
+        return new ResultadoIngesta(indice, idTransaccion, DUPLICADA, "La transacción ya existe", null);
+    }
+
+    /** Duplicada de una transacción guardada con {@code bandera}; si estaba bloqueada trae el motivo. */
+    public static ResultadoIngesta duplicada(int indice, String idTransaccion, Bandera bandera, String motivo) {
+        return new ResultadoIngesta(indice, idTransaccion, DUPLICADA,
+                bandera == Bandera.bloqueado && motivo != null ? motivo : "La transacción ya existe", bandera);
+    }
+
+    public static ResultadoIngesta rechazada(int indice, String idTransaccion, String error) {
+        return new ResultadoIngesta(indice, idTransaccion, RECHAZADA, error, null);
+    }
+
+    public static ResultadoIngesta enviada(int indice, String idTransaccion) {
+        return new ResultadoIngesta(indice, idTransaccion, ENVIADA, null, null);
+    }
+
+    public ResultadoIngesta conIndice(int otroIndice) {
+        return new ResultadoIngesta(otroIndice, idTransaccion, estado, error, bandera);
+    }
+
+    /** Guardada (o duplicada de una guardada) pero bloqueada por una regla eliminatoria. */
+    public boolean bloqueada() {
+        return bandera == Bandera.bloqueado;
+    }
+}
@@ -1,6 +1,8 @@
 package com.transacciones.transaction_ingestor.dto;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.transacciones.transaction_ingestor.metricas.Traza;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
@@ -32,6 +34,14 @@ public class TransactionDTO {
 
     private String rejectionReason;
 
+    // Valor del registro de Kafka tal como llegó; no viaja en los mensajes que se publican
+    @JsonIgnore
+    private transient byte[] payloadOriginal;
+
+    // Marcas de tiempo si la transacción fue muestreada; viajan en un header, no en el valor
+    @JsonIgnore
+    private transient Traza traza;
+
     // Constructors
     public TransactionDTO() {
         this.timestamp = LocalDateTime.now();
@@ -111,6 +121,24 @@ public class TransactionDTO {
         this.rejectionReason = rejectionReason;
     }
 
+    @JsonIgnore
+    public byte[] getPayloadOriginal() {
+        return payloadOriginal;
+    }
+
+    public void setPayloadOriginal(byte[] payloadOriginal) {
+        this.payloadOriginal = payloadOriginal;
+    }
+
+    @JsonIgnore
+    public Traza getTraza() {
+        return traza;
+    }
+
+    public void setTraza(Traza traza) {
+        this.traza = traza;
+    }
+
     @Override
     public String toString() {
         return "TransactionDTO{" +
@@ -0,0 +1,247 @@
+package com.transacciones.transaction_ingestor.features;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Features de velocidad por cuenta en memoria: cantidad, suma y monto máximo de las
+ * transacciones del último minuto, la última hora y las últimas 24 horas, más la cantidad
+ * de países distintos en cada ventana. Reemplaza consultar el historial en MySQL por evento.
+ * <p>
+ * Cada ventana es un ring buffer de buckets sobre arrays primitivos, así registrar y leer
+ * cuestan O(cantidad de buckets), independiente del volumen de la cuenta. Las cuentas se
+ * reparten en segmentos con su propio lock (striping) y cada segmento es un LRU acotado:
+ * la memoria total queda limitada por {@code features.velocity.max-cuentas}.
+ * <p>
+ * El tiempo es el de ingesta (reloj del servidor), no el timestamp informado por el evento.
+ * Como se registra al commitear, las transacciones de un mismo lote no se ven entre sí.
+ */
+@Component
+public class VelocityFeatureStore {
+
+    // Índices del array de features que llena leer()
+    public static final int CANTIDAD_1M = 0;
+    public static final int SUMA_1M = 1;
+    public static final int MAXIMO_1M = 2;
+    public static final int PAISES_1M = 3;
+    public static final int CANTIDAD_1H = 4;
+    public static final int SUMA_1H = 5;
+    public static final int MAXIMO_1H = 6;
+    public static final int PAISES_1H = 7;
+    public static final int CANTIDAD_24H = 8;
+    public static final int SUMA_24H = 9;
+    public static final int MAXIMO_24H = 10;
+    public static final int PAISES_24H = 11;
+    public static final int CANTIDAD_FEATURES = 12;
+
+    private static final List<String> NOMBRES_FEATURES = List.of(
+            "CANTIDAD_1M", "SUMA_1M", "MAXIMO_1M", "PAISES_1M",
+            "CANTIDAD_1H", "SUMA_1H", "MAXIMO_1H", "PAISES_1H",
+            "CANTIDAD_24H", "SUMA_24H", "MAXIMO_24H", "PAISES_24H");
+
+    private static final int FEATURES_POR_VENTANA = 4;
+
+    // Ventanas: 1 min en buckets de 5 s, 1 h en buckets de 5 min, 24 h en buckets de 1 h
+    private static final long[] ANCHO_BUCKET_MS = {5_000L, 300_000L, 3_600_000L};
+    private static final int[] BUCKETS = {12, 12, 24};
+    private static final int[] OFFSET = {0, 12, 24};
+    private static final int TOTAL_BUCKETS = 48;
+
+    private final Segmento[] segmentos;
+
+    public VelocityFeatureStore(@Value("${features.velocity.max-cuentas:50000}") int maxCuentas,
+                                @Value("${features.velocity.segmentos:64}") int cantidadSegmentos) {
+        if (maxCuentas <= 0 || cantidadSegmentos <= 0) {
+            throw new IllegalArgumentException("max-cuentas y segmentos deben ser positivos");
+        }
+        int capacidadSegmento = Math.max(1, maxCuentas / cantidadSegmentos);
+        this.segmentos = new Segmento[cantidadSegmentos];
+        for (int i = 0; i < cantidadSegmentos; i++) {
+            segmentos[i] = new Segmento(capacidadSegmento);
+        }
+    }
+
+    /**
+     * Registra una transacción de la cuenta en las tres ventanas. Dentro de una transacción
+     * de base se aplica recién después del commit, así un lote con rollback (que después se
+     * reintenta fila por fila) no cuenta dos veces.
+     * @param pais código de país, puede ser null si el origen no lo informa
+     */
+    public void registrar(String cuenta, BigDecimal monto, String pais) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    registrar(cuenta, monto, pais, System.currentTimeMillis());
+                }
+            });
+        } else {
+            registrar(cuenta, monto, pais, System.currentTimeMillis());
+        }
+    }
+
+    public void registrar(String cuenta, BigDecimal monto, String pais, long ahoraMs) {
+        if (cuenta == null || monto == null) {
+            return;
+        }
+        long centavos = monto.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+        long bitPais = pais == null || pais.isBlank() ? 0L : 1L << (pais.hashCode() & 63);
+
+        Segmento segmento = segmento(cuenta);
+        segmento.lock.lock();
+        try {
+            Contadores contadores = segmento.cuentas.get(cuenta);
+            if (contadores == null) {
+                contadores = new Contadores();
+                segmento.cuentas.put(cuenta, contadores);
+            }
+            contadores.sumar(ahoraMs, centavos, bitPais);
+        } finally {
+            segmento.lock.unlock();
+        }
+    }
+
+    /**
+     * Llena {@code destino} (largo {@link #CANTIDAD_FEATURES}) con las features de la cuenta;
+     * sumas y máximos en unidades de moneda. No reserva memoria: apto para el camino caliente.
+     * Una cuenta sin historial deja todas las features en 0.
+     */
+    public void leer(String cuenta, double[] destino) {
+        leer(cuenta, System.currentTimeMillis(), destino);
+    }
+
+    public void leer(String cuenta, long ahoraMs, double[] destino) {
+        leer(cuenta, ahoraMs, destino, 0);
+    }
+
+    /**
+     * Igual que {@link #leer(String, double[])} pero escribe a partir de {@code desde},
+     * para armar vectores de features más largos sin copiar.
+     */
+    public void leer(String cuenta, long ahoraMs, double[] destino, int desde) {
+        Arrays.fill(destino, desde, desde + CANTIDAD_FEATURES, 0d);
+        if (cuenta == null) {
+            return;
+        }
+        Segmento segmento = segmento(cuenta);
+        segmento.lock.lock();
+        try {
+            // get() en un LinkedHashMap en orden de acceso también cuenta como uso para el LRU
+            Contadores contadores = segmento.cuentas.get(cuenta);
+            if (contadores != null) {
+                contadores.leer(ahoraMs, destino, desde);
+            }
+        } finally {
+            segmento.lock.unlock();
+        }
+    }
+
+    /**
+     * Índice de una feature a partir de su nombre (p.ej. "CANTIDAD_1M"), o -1 si no existe.
+     */
+    public static int indiceFeature(String nombre) {
+        return NOMBRES_FEATURES.indexOf(nombre);
+    }
+
+    /** Cantidad de cuentas con estado en memoria. */
+    public int cuentas() {
+        int total = 0;
+        for (Segmento segmento : segmentos) {
+            segmento.lock.lock();
+            try {
+                total += segmento.cuentas.size();
+            } finally {
+                segmento.lock.unlock();
+            }
+        }
+        return total;
+    }
+
+    private Segmento segmento(String cuenta) {
+        int h = cuenta.hashCode();
+        return segmentos[Math.floorMod(h ^ (h >>> 16), segmentos.length)];
+    }
+
+    private static final class Segmento {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<String, Contadores> cuentas;
+
+        Segmento(int capacidad) {
+            this.cuentas = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Contadores> eldest) {
+                    return size() > capacidad;
+                }
+            };
+        }
+    }
+
+    /**
+     * Buckets de las tres ventanas de una cuenta, en arrays paralelos. Un bucket cuyo
+     * número de época quedó atrás se reinicia al reutilizarse (ring buffer).
+     */
+    private static final class Contadores {
+        private final long[] epoca = new long[TOTAL_BUCKETS];
+        private final int[] cantidad = new int[TOTAL_BUCKETS];
+        private final long[] suma = new long[TOTAL_BUCKETS];
+        private final long[] maximo = new long[TOTAL_BUCKETS];
+        private final long[] paises = new long[TOTAL_BUCKETS];
+
+        Contadores() {
+            Arrays.fill(epoca, -1L);
+        }
+
+        void sumar(long ahoraMs, long centavos, long bitPais) {
+            for (int v = 0; v < BUCKETS.length; v++) {
+                long actual = ahoraMs / ANCHO_BUCKET_MS[v];
+                int i = OFFSET[v] + (int) (actual % BUCKETS[v]);
+                if (epoca[i] != actual) {
+                    epoca[i] = actual;
+                    cantidad[i] = 0;
+                    suma[i] = 0;
+                    maximo[i] = 0;
+                    paises[i] = 0;
+                }
+                cantidad[i]++;
+                suma[i] += centavos;
+                maximo[i] = Math.max(maximo[i], centavos);
+                paises[i] |= bitPais;
+            }
+        }
+
+        void leer(long ahoraMs, double[] destino, int desde) {
+            for (int v = 0; v < BUCKETS.length; v++) {
+                long actual = ahoraMs / ANCHO_BUCKET_MS[v];
+                long primera = actual - BUCKETS[v];
+                long n = 0;
+                long s = 0;
+                long max = 0;
+                long p = 0;
+                for (int i = OFFSET[v]; i < OFFSET[v] + BUCKETS[v]; i++) {
+                    if (epoca[i] > primera && epoca[i] <= actual) {
+                        n += cantidad[i];
+                        s += suma[i];
+                        max = Math.max(max, maximo[i]);
+                        p |= paises[i];
+                    }
+                }
+                int base = desde + v * FEATURES_POR_VENTANA;
+                destino[base] = n;
+                destino[base + 1] = s / 100d;
+                destino[base + 2] = max / 100d;
+                // Aproximado: dos países pueden caer en el mismo bit de la máscara
+                destino[base + 3] = Long.bitCount(p);
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.transacciones.transaction_ingestor.handler;
+
+import com.transacciones.transaction_ingestor.model.Transaccion;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+
+/**
+ * Conserva el cuerpo de los requests que se leen como {@link Transaccion} para guardarlo
+ * tal cual en raw_json, en lugar de volver a serializar la entidad.
+ */
+@ControllerAdvice
+public class CapturaCuerpoAdvice extends RequestBodyAdviceAdapter {
+
+    @Override
+    public boolean supports(MethodParameter methodParameter, Type targetType,
+                            Class<? extends HttpMessageConverter<?>> converterType) {
+        return targetType == Transaccion.class;
+    }
+
+    @Override
+    public HttpInputMessage beforeBodyRead(HttpInputMessage inputMessage, MethodParameter parameter,
+                                           Type targetType, Class<? extends HttpMessageConverter<?>> converterType)
+            throws IOException {
+        return new CuerpoLeido(inputMessage.getBody().readAllBytes(), inputMessage.getHeaders());
+    }
+
+    @Override
+    public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter,
+                                Type targetType, Class<? extends HttpMessageConverter<?>> converterType) {
+        if (body instanceof Transaccion tx && inputMessage instanceof CuerpoLeido leido) {
+            tx.setPayloadOriginal(leido.bytes);
+        }
+        return body;
+    }
+
+    private static final class CuerpoLeido implements HttpInputMessage {
+        private final byte[] bytes;
+        private final HttpHeaders headers;
+
+        CuerpoLeido(byte[] bytes, HttpHeaders headers) {
+            this.bytes = bytes;
+            this.headers = headers;
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(bytes);
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+}
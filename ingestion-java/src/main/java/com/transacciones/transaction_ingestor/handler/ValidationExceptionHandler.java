@@ -1,5 +1,8 @@
 package com.transacciones.transaction_ingestor.handler;
 
+import com.transacciones.transaction_ingestor.kafka.EnviosSaturadosException;
+import com.transacciones.transaction_ingestor.service.CuentaNoActivaException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -41,5 +44,22 @@ public class ValidationExceptionHandler {
         // 4. Devolver una respuesta con el estado HTTP 400 (Bad Request) y el cuerpo JSON de errores
         return new ResponseEntity<>(errors, HttpStatus.BAD_REQUEST);
     }
-}
 
+    /**
+     * Transacción de una cuenta suspendida o cerrada: 422 con el motivo.
+     */
+    @ExceptionHandler(CuentaNoActivaException.class)
+    public ResponseEntity<Object> handleCuentaNoActiva(CuentaNoActivaException ex) {
+        return new ResponseEntity<>(Map.of("error", ex.getMessage()), HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
+    /**
+     * Demasiados envíos a Kafka pendientes: 429 para que el cliente reintente más tarde.
+     */
+    @ExceptionHandler(EnviosSaturadosException.class)
+    public ResponseEntity<Object> handleEnviosSaturados(EnviosSaturadosException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", ex.getMessage()));
+    }
+}
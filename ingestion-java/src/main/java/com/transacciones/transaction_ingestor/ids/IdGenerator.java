@@ -0,0 +1,10 @@
+package com.transacciones.transaction_ingestor.ids;
+
+/**
+ * Genera los IDs de las transacciones que llegan sin uno. La implementación se elige con
+ * {@code ids.generador} ({@code tsid} por defecto, {@code uuid} para el comportamiento anterior).
+ */
+public interface IdGenerator {
+
+    String nextId();
+}
@@ -0,0 +1,105 @@
+package com.transacciones.transaction_ingestor.ids;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * IDs de 64 bits ordenados por tiempo (estilo TSID/Snowflake), sin coordinación entre nodos:
+ * 42 bits de milisegundos desde 2024-01-01, 10 bits de nodo y 12 bits de contador.
+ * Se codifican en 13 caracteres Crockford base32 de ancho fijo, así el orden del texto es
+ * el mismo que el numérico y los INSERT van siempre al final del índice de la clave primaria.
+ * <p>
+ * Los IDs de un mismo nodo son estrictamente crecientes: si en un milisegundo se agotan los
+ * 4096 valores del contador, o si el reloj retrocede, se sigue desde el último milisegundo
+ * usado en lugar de repetir.
+ */
+@Component
+@ConditionalOnProperty(name = "ids.generador", havingValue = "tsid", matchIfMissing = true)
+public class TsidGenerator implements IdGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(TsidGenerator.class);
+
+    static final long EPOCH = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    private static final int BITS_NODO = 10;
+    private static final int BITS_CONTADOR = 12;
+    private static final int MAX_NODO = (1 << BITS_NODO) - 1;
+    private static final char[] ALFABETO = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    static final int LARGO = 13;
+
+    private final long nodo;
+    // (milisegundo << BITS_CONTADOR) | contador del último ID emitido
+    private final AtomicLong ultimo = new AtomicLong();
+
+    /**
+     * @param nodo ids.nodo, o negativo para derivarlo del host y el pid
+     * @param instancias ids.instancias: con más de una el nodo derivado podría repetirse
+     *                   (colisiones de ID), así que ids.nodo pasa a ser obligatorio
+     */
+    @Autowired
+    public TsidGenerator(@Value("${ids.nodo:-1}") int nodo,
+                         @Value("${ids.instancias:1}") int instancias) {
+        if (nodo > MAX_NODO) {
+            throw new IllegalArgumentException("ids.nodo debe estar entre 0 y " + MAX_NODO);
+        }
+        if (nodo < 0 && instancias > 1) {
+            throw new IllegalStateException("ids.instancias=" + instancias
+                    + ": hay que asignar a cada instancia un ids.nodo distinto (0-" + MAX_NODO + ")");
+        }
+        if (nodo >= 0) {
+            this.nodo = nodo;
+            log.info("Generador de IDs TSID con nodo {} (ids.nodo)", this.nodo);
+        } else {
+            this.nodo = nodoPorDefecto();
+            log.warn("Generador de IDs TSID con nodo {} derivado del host y el pid; con más de una "
+                    + "instancia configurar ids.nodo", this.nodo);
+        }
+    }
+
+    public TsidGenerator(int nodo) {
+        this(nodo, 1);
+    }
+
+    @Override
+    public String nextId() {
+        return codificar(siguiente());
+    }
+
+    long siguiente() {
+        long ahora = (System.currentTimeMillis() - EPOCH) << BITS_CONTADOR;
+        long estado = ultimo.updateAndGet(anterior -> Math.max(anterior + 1, ahora));
+        long milis = estado >>> BITS_CONTADOR;
+        long contador = estado & ((1 << BITS_CONTADOR) - 1);
+        return (milis << (BITS_NODO + BITS_CONTADOR)) | (nodo << BITS_CONTADOR) | contador;
+    }
+
+    static String codificar(long id) {
+        char[] texto = new char[LARGO];
+        for (int i = LARGO - 1; i >= 0; i--) {
+            texto[i] = ALFABETO[(int) (id & 0x1F)];
+            id >>>= 5;
+        }
+        return new String(texto);
+    }
+
+    // Sin ids.nodo: hash de host + pid, para que dos instancias en la misma máquina no coincidan
+    private static long nodoPorDefecto() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "";
+        }
+        String proceso = host + "/" + ManagementFactory.getRuntimeMXBean().getName();
+        return (proceso.hashCode() & 0x7FFFFFFF) % (MAX_NODO + 1);
+    }
+}
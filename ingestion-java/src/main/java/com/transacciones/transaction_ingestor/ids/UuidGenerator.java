@@ -0,0 +1,20 @@
+package com.transacciones.transaction_ingestor.ids;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * UUID v4 aleatorio de 36 caracteres. No es ordenable: cada INSERT cae en una página
+ * distinta del índice de la clave primaria.
+ */
+@Component
+@ConditionalOnProperty(name = "ids.generador", havingValue = "uuid")
+public class UuidGenerator implements IdGenerator {
+
+    @Override
+    public String nextId() {
+        return UUID.randomUUID().toString();
+    }
+}
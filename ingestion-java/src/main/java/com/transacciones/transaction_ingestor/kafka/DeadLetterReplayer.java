@@ -0,0 +1,148 @@
+package com.transacciones.transaction_ingestor.kafka;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.kafka.KafkaException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Reinyecta en bloque los registros del dead-letter topic en el topic de entrada.
+ * Trabaja con bytes crudos (no deserializa), así sirve también para registros veneno
+ * una vez corregido el problema. Los offsets del DLT se commitean en un grupo propio
+ * sólo después de que el broker confirmó el reenvío.
+ */
+@Component
+public class DeadLetterReplayer {
+
+    private static final Logger log = LoggerFactory.getLogger(DeadLetterReplayer.class);
+
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(2);
+    private static final long SEND_TIMEOUT_SECONDS = 30;
+
+    private final TransactionRetryRouter retryRouter;
+    private final KafkaProperties kafkaProperties;
+    private final AtomicBoolean enCurso = new AtomicBoolean(false);
+
+    @Value("${kafka.topics.transaction-input}")
+    private String transactionInputTopic;
+
+    @Value("${spring.kafka.consumer.group-id}")
+    private String groupId;
+
+    public DeadLetterReplayer(TransactionRetryRouter retryRouter, KafkaProperties kafkaProperties) {
+        this.retryRouter = retryRouter;
+        this.kafkaProperties = kafkaProperties;
+    }
+
+    /**
+     * Reinyecta hasta {@code maximo} registros pendientes del DLT.
+     * @return cantidad de registros reinyectados
+     * @throws IllegalStateException si ya hay un replay en curso
+     */
+    public int replay(int maximo) {
+        if (!enCurso.compareAndSet(false, true)) {
+            throw new IllegalStateException("Ya hay un replay del DLT en curso");
+        }
+        try (KafkaConsumer<String, byte[]> consumer = new KafkaConsumer<>(consumerProperties(maximo))) {
+            List<TopicPartition> particiones = consumer.partitionsFor(retryRouter.getDeadLetterTopic()).stream()
+                    .map(p -> new TopicPartition(p.topic(), p.partition()))
+                    .toList();
+            consumer.assign(particiones);
+            // Sólo se reinyecta lo que había al empezar: lo que vuelva a fallar durante
+            // el replay llega de nuevo al DLT y no debe releerse en esta misma pasada
+            Map<TopicPartition, Long> limites = consumer.endOffsets(particiones);
+
+            int reinyectados = 0;
+            while (reinyectados < maximo && !alcanzoLimites(consumer, limites)) {
+                ConsumerRecords<String, byte[]> records = consumer.poll(POLL_TIMEOUT);
+                if (records.isEmpty()) {
+                    break;
+                }
+
+                List<CompletableFuture<?>> envios = new ArrayList<>(records.count());
+                Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+                for (ConsumerRecord<String, byte[]> record : records) {
+                    TopicPartition particion = new TopicPartition(record.topic(), record.partition());
+                    if (reinyectados + envios.size() >= maximo || record.offset() >= limites.get(particion)) {
+                        continue;
+                    }
+                    envios.add(retryRouter.rawKafkaTemplate().send(new ProducerRecord<>(
+                            transactionInputTopic, null, record.key(), record.value(), headersOriginales(record))));
+                    offsets.put(particion, new OffsetAndMetadata(record.offset() + 1));
+                }
+                if (envios.isEmpty()) {
+                    break;
+                }
+
+                CompletableFuture.allOf(envios.toArray(CompletableFuture[]::new))
+                        .get(SEND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                consumer.commitSync(offsets);
+                reinyectados += envios.size();
+            }
+
+            log.info("Replay del DLT: {} registros reinyectados en {}", reinyectados, transactionInputTopic);
+            return reinyectados;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KafkaException("Replay del DLT interrumpido", e);
+        } catch (Exception e) {
+            throw new KafkaException("Error en el replay del DLT: " + e.getMessage(), e);
+        } finally {
+            enCurso.set(false);
+        }
+    }
+
+    private static boolean alcanzoLimites(KafkaConsumer<String, byte[]> consumer, Map<TopicPartition, Long> limites) {
+        for (Map.Entry<TopicPartition, Long> limite : limites.entrySet()) {
+            if (consumer.position(limite.getKey()) < limite.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Map<String, Object> consumerProperties(int maximo) {
+        Map<String, Object> props = kafkaProperties.buildConsumerProperties(null);
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId + "-dlt-replay");
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, Math.min(maximo, 500));
+        return props;
+    }
+
+    // Se descartan los headers del fallo: el registro vuelve a entrar como nuevo
+    private static List<Header> headersOriginales(ConsumerRecord<String, byte[]> record) {
+        List<Header> headers = new ArrayList<>();
+        for (Header h : record.headers()) {
+            if (!h.key().startsWith("x-retry-") && !h.key().startsWith("x-failure-")
+                    && !h.key().startsWith("x-original-")) {
+                headers.add(h);
+            }
+        }
+        return headers;
+    }
+}
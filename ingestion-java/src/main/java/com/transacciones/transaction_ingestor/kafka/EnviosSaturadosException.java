@@ -0,0 +1,13 @@
+package com.transacciones.transaction_ingestor.kafka;
+
+/**
+ * Hay demasiados envíos a Kafka sin confirmar por el broker; el cliente debe reintentar.
+ */
+public class EnviosSaturadosException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public EnviosSaturadosException(int maxEnVuelo) {
+        super("Hay " + maxEnVuelo + " envíos a Kafka sin confirmar; reintentar en unos segundos");
+    }
+}
@@ -0,0 +1,125 @@
+package com.transacciones.transaction_ingestor.kafka;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Pool acotado de "carriles" de un solo hilo. Cada clave (accountId) se asigna siempre
+ * al mismo carril, así las tareas de una misma cuenta se ejecutan en orden mientras
+ * cuentas distintas avanzan en paralelo.
+ * <p>
+ * {@link #submit} nunca bloquea: cuando la cola de un carril llega a su capacidad el
+ * executor queda {@link #saturado()} y el llamador debe dejar de entregar tareas (el
+ * consumer pausa el contenedor). Al bajar todos los carriles a la mitad de su capacidad
+ * se avisa con el callback de {@link #alDescongestionar}.
+ */
+public class KeyOrderedExecutor implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(KeyOrderedExecutor.class);
+
+    private final BlockingQueue<Runnable>[] colas;
+    // 1 si el carril llegó a su capacidad; sin monitores, el llamador puede ser un hilo virtual
+    private final AtomicIntegerArray llenos;
+    private final Thread[] hilos;
+    private final int capacidadPorCarril;
+    private final AtomicInteger carrilesLlenos = new AtomicInteger();
+    private volatile Runnable alDescongestionar = () -> { };
+    private volatile boolean activo = true;
+
+    @SuppressWarnings("unchecked")
+    public KeyOrderedExecutor(String nombre, int carriles, int capacidadPorCarril) {
+        if (carriles <= 0 || capacidadPorCarril <= 0) {
+            throw new IllegalArgumentException("carriles y capacidadPorCarril deben ser positivos");
+        }
+        this.capacidadPorCarril = capacidadPorCarril;
+        this.colas = (BlockingQueue<Runnable>[]) new BlockingQueue<?>[carriles];
+        this.llenos = new AtomicIntegerArray(carriles);
+        this.hilos = new Thread[carriles];
+        for (int i = 0; i < carriles; i++) {
+            // Sin límite: el tope lo impone el llamador al ver saturado(); lo que ya trajo
+            // el poll en curso (hasta max-poll-records) entra igual
+            BlockingQueue<Runnable> cola = new LinkedBlockingQueue<>();
+            colas[i] = cola;
+            int carril = i;
+            hilos[i] = new Thread(() -> ejecutar(carril), nombre + "-" + i);
+            hilos[i].setDaemon(true);
+            hilos[i].start();
+        }
+    }
+
+    /**
+     * Encola la tarea en el carril de la clave, sin bloquear.
+     */
+    public void submit(String clave, Runnable tarea) {
+        if (!activo) {
+            throw new IllegalStateException("El executor está detenido");
+        }
+        int carril = Math.floorMod(clave == null ? 0 : clave.hashCode(), colas.length);
+        BlockingQueue<Runnable> cola = colas[carril];
+        cola.add(tarea);
+        if (cola.size() >= capacidadPorCarril && llenos.compareAndSet(carril, 0, 1)) {
+            carrilesLlenos.incrementAndGet();
+        }
+    }
+
+    /** Algún carril llegó a su capacidad: no conviene entregar más tareas. */
+    public boolean saturado() {
+        return carrilesLlenos.get() > 0;
+    }
+
+    /** Se ejecuta (en el hilo de un carril) cuando deja de estar {@link #saturado()}. */
+    public void alDescongestionar(Runnable callback) {
+        this.alDescongestionar = callback;
+    }
+
+    private void ejecutar(int carril) {
+        BlockingQueue<Runnable> cola = colas[carril];
+        while (activo || !cola.isEmpty()) {
+            try {
+                Runnable tarea = cola.poll(100, TimeUnit.MILLISECONDS);
+                if (tarea != null) {
+                    tarea.run();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Throwable t) {
+                // Una tarea fallida no debe matar el carril
+                log.error("Error no controlado en {}", Thread.currentThread().getName(), t);
+            }
+            liberar(carril);
+        }
+    }
+
+    private void liberar(int carril) {
+        if (colas[carril].size() > capacidadPorCarril / 2) {
+            return;
+        }
+        // Si submit vuelve a llenarlo en el medio, lo marca de nuevo en el próximo envío
+        if (llenos.compareAndSet(carril, 1, 0) && carrilesLlenos.decrementAndGet() == 0) {
+            alDescongestionar.run();
+        }
+    }
+
+    /**
+     * Deja de aceptar tareas y espera a que los carriles terminen lo encolado.
+     */
+    @Override
+    public void close() {
+        activo = false;
+        for (Thread hilo : hilos) {
+            try {
+                hilo.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.transacciones.transaction_ingestor.kafka;
+
+import com.transacciones.transaction_ingestor.dto.TransactionDTO;
+import com.transacciones.transaction_ingestor.metricas.MetricasIngesta;
+import com.transacciones.transaction_ingestor.metricas.Traza;
+import com.transacciones.transaction_ingestor.metricas.TrazasLentas;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.springframework.kafka.support.LoggingProducerListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listener del KafkaTemplate (reemplaza al LoggingProducerListener por defecto y sigue
+ * logueando los errores). Mide la latencia de confirmación de cada envío con el timestamp
+ * que el producer le pone al registro en send(), sin agregar un callback por envío. Con la
+ * confirmación de la publicación en validadas/rechazadas cierra las trazas muestreadas.
+ */
+@Component
+public class MetricasProducerListener extends LoggingProducerListener<Object, Object> {
+
+    private final MetricasIngesta metricas;
+    private final TrazasLentas trazasLentas;
+
+    public MetricasProducerListener(MetricasIngesta metricas, TrazasLentas trazasLentas) {
+        this.metricas = metricas;
+        this.trazasLentas = trazasLentas;
+    }
+
+    @Override
+    public void onSuccess(ProducerRecord<Object, Object> producerRecord, RecordMetadata recordMetadata) {
+        if (recordMetadata.hasTimestamp()) {
+            metricas.confirmado(System.currentTimeMillis() - recordMetadata.timestamp());
+        }
+        if (producerRecord.value() instanceof TransactionDTO transaction && transaction.getTraza() != null
+                && transaction.getTraza().tiene(Traza.Marca.PUBLICADA)) {
+            Traza traza = transaction.getTraza();
+            traza.marcar(Traza.Marca.CONFIRMADA);
+            trazasLentas.registrar(transaction.getId(), traza);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.transacciones.transaction_ingestor.kafka;
+
+import com.transacciones.transaction_ingestor.dto.TransactionDTO;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Formato binario de {@link TransactionDTO} para Kafka (versión 1):
+ * <pre>
+ * magic(1) | version(1) | presentes(1) | campos presentes en orden de declaración
+ * </pre>
+ * Los strings van como varint(longitud) + UTF-8, el monto como varint zigzag del valor
+ * sin escala + varint de la escala, y el timestamp como varint zigzag de epoch millis (UTC).
+ * El byte mágico nunca es '{', así el deserializer distingue este formato del JSON.
+ */
+final class TransactionBinaryCodec {
+
+    static final byte MAGIC = (byte) 0xB7;
+    static final byte VERSION = 1;
+
+    private static final int HEADER_LENGTH = 3;
+    private static final int MAX_VARINT_LENGTH = 10;
+
+    // Bits del byte de campos presentes
+    private static final int ID = 1;
+    private static final int ACCOUNT_ID = 1 << 1;
+    private static final int AMOUNT = 1 << 2;
+    private static final int TYPE = 1 << 3;
+    private static final int DESCRIPTION = 1 << 4;
+    private static final int TIMESTAMP = 1 << 5;
+    private static final int STATUS = 1 << 6;
+    private static final int REJECTION_REASON = 1 << 7;
+
+    private static final BigInteger LONG_MIN = BigInteger.valueOf(Long.MIN_VALUE);
+    private static final BigInteger LONG_MAX = BigInteger.valueOf(Long.MAX_VALUE);
+
+    private TransactionBinaryCodec() {
+    }
+
+    static byte[] encode(TransactionDTO dto) {
+        byte[] id = utf8(dto.getId());
+        byte[] accountId = utf8(dto.getAccountId());
+        byte[] type = utf8(dto.getType());
+        byte[] description = utf8(dto.getDescription());
+        byte[] status = utf8(dto.getStatus());
+        byte[] rejectionReason = utf8(dto.getRejectionReason());
+
+        int presentes = presente(id, ID) | presente(accountId, ACCOUNT_ID) | presente(dto.getAmount(), AMOUNT)
+                | presente(type, TYPE) | presente(description, DESCRIPTION) | presente(dto.getTimestamp(), TIMESTAMP)
+                | presente(status, STATUS) | presente(rejectionReason, REJECTION_REASON);
+        // Cota superior: cada varint ocupa a lo sumo MAX_VARINT_LENGTH bytes
+        int longitud = HEADER_LENGTH
+                + cota(id) + cota(accountId) + cota(type) + cota(description) + cota(status) + cota(rejectionReason)
+                + (dto.getAmount() != null ? 2 * MAX_VARINT_LENGTH : 0)
+                + (dto.getTimestamp() != null ? MAX_VARINT_LENGTH : 0);
+
+        ByteBuffer buffer = ByteBuffer.allocate(longitud);
+        buffer.put(MAGIC).put(VERSION).put((byte) presentes);
+        writeBytes(buffer, id);
+        writeBytes(buffer, accountId);
+        if (dto.getAmount() != null) {
+            BigDecimal amount = dto.getAmount();
+            BigInteger unscaled = amount.unscaledValue();
+            if (unscaled.compareTo(LONG_MIN) < 0 || unscaled.compareTo(LONG_MAX) > 0) {
+                throw new SerializationException("Monto fuera de rango para el formato binario: " + amount);
+            }
+            writeVarLong(buffer, zigzag(unscaled.longValue()));
+            writeVarLong(buffer, zigzag(amount.scale()));
+        }
+        writeBytes(buffer, type);
+        writeBytes(buffer, description);
+        if (dto.getTimestamp() != null) {
+            writeVarLong(buffer, zigzag(dto.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli()));
+        }
+        writeBytes(buffer, status);
+        writeBytes(buffer, rejectionReason);
+
+        byte[] resultado = new byte[buffer.position()];
+        System.arraycopy(buffer.array(), 0, resultado, 0, resultado.length);
+        return resultado;
+    }
+
+    static TransactionDTO decode(byte[] data) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            if (buffer.get() != MAGIC) {
+                throw new SerializationException("El mensaje no está en formato binario de TransactionDTO");
+            }
+            byte version = buffer.get();
+            if (version != VERSION) {
+                throw new SerializationException("Versión de formato binario no soportada: " + version);
+            }
+            int presentes = buffer.get() & 0xFF;
+
+            TransactionDTO dto = new TransactionDTO();
+            // El constructor asigna timestamp y status por defecto; se respeta lo que vino en el mensaje
+            dto.setTimestamp(null);
+            dto.setStatus(null);
+            if ((presentes & ID) != 0) {
+                dto.setId(readString(buffer));
+            }
+            if ((presentes & ACCOUNT_ID) != 0) {
+                dto.setAccountId(readString(buffer));
+            }
+            if ((presentes & AMOUNT) != 0) {
+                long unscaled = unzigzag(readVarLong(buffer));
+                int scale = (int) unzigzag(readVarLong(buffer));
+                dto.setAmount(BigDecimal.valueOf(unscaled, scale));
+            }
+            if ((presentes & TYPE) != 0) {
+                dto.setType(readString(buffer));
+            }
+            if ((presentes & DESCRIPTION) != 0) {
+                dto.setDescription(readString(buffer));
+            }
+            if ((presentes & TIMESTAMP) != 0) {
+                long epochMillis = unzigzag(readVarLong(buffer));
+                dto.setTimestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC));
+            }
+            if ((presentes & STATUS) != 0) {
+                dto.setStatus(readString(buffer));
+            }
+            if ((presentes & REJECTION_REASON) != 0) {
+                dto.setRejectionReason(readString(buffer));
+            }
+            return dto;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new SerializationException("Mensaje binario de TransactionDTO truncado", e);
+        }
+    }
+
+    private static int presente(Object valor, int bit) {
+        return valor != null ? bit : 0;
+    }
+
+    private static int cota(byte[] valor) {
+        return valor != null ? MAX_VARINT_LENGTH + valor.length : 0;
+    }
+
+    private static byte[] utf8(String valor) {
+        return valor == null ? null : valor.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void writeBytes(ByteBuffer buffer, byte[] valor) {
+        if (valor != null) {
+            writeVarLong(buffer, valor.length);
+            buffer.put(valor);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        long longitud = readVarLong(buffer);
+        if (longitud < 0 || longitud > buffer.remaining()) {
+            throw new SerializationException("Longitud de string inválida: " + longitud);
+        }
+        String valor = new String(buffer.array(), buffer.position(), (int) longitud, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + (int) longitud);
+        return valor;
+    }
+
+    private static void writeVarLong(ByteBuffer buffer, long valor) {
+        while ((valor & ~0x7FL) != 0) {
+            buffer.put((byte) ((valor & 0x7F) | 0x80));
+            valor >>>= 7;
+        }
+        buffer.put((byte) valor);
+    }
+
+    private static long readVarLong(ByteBuffer buffer) {
+        long valor = 0;
+        for (int desplazamiento = 0; desplazamiento < 64; desplazamiento += 7) {
+            byte b = buffer.get();
+            valor |= (long) (b & 0x7F) << desplazamiento;
+            if ((b & 0x80) == 0) {
+                return valor;
+            }
+        }
+        throw new SerializationException("Varint mal formado");
+    }
+
+    private static long zigzag(long valor) {
+        return (valor << 1) ^ (valor >> 63);
+    }
+
+    private static long unzigzag(long valor) {
+        return (valor >>> 1) ^ -(valor & 1);
+    }
+}
@@ -0,0 +1,44 @@
+package com.transacciones.transaction_ingestor.kafka;
+
+import com.transacciones.transaction_ingestor.dto.TransactionDTO;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+/**
+ * Deserializa {@link TransactionDTO} desde el formato binario de {@link TransactionBinaryCodec}.
+ * Los mensajes que empiezan con '{' se leen como JSON, así los consumers pueden pasar a
+ * este deserializer antes que los producers y leer los mensajes viejos que sigan en los topics.
+ * El valor recibido queda en {@link TransactionDTO#getPayloadOriginal()} para raw_json.
+ */
+public class TransactionBinaryDeserializer implements Deserializer<TransactionDTO> {
+
+    // Tipo fijo y sin headers de tipo: no necesita trusted.packages ni type.mapping
+    private final JsonDeserializer<TransactionDTO> jsonDeserializer =
+            new JsonDeserializer<>(TransactionDTO.class, false);
+
+    @Override
+    public TransactionDTO deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        TransactionDTO dto = data.length > 0 && data[0] == '{'
+                ? jsonDeserializer.deserialize(topic, data)
+                : TransactionBinaryCodec.decode(data);
+        if (dto != null) {
+            dto.setPayloadOriginal(data);
+        }
+        return dto;
+    }
+
+    @Override
+    public TransactionDTO deserialize(String topic, Headers headers, byte[] data) {
+        // Se ignoran los headers de tipo (__TypeId__): el tipo es siempre TransactionDTO
+        return deserialize(topic, data);
+    }
+
+    @Override
+    public void close() {
+        jsonDeserializer.close();
+    }
+}
@@ -0,0 +1,17 @@
+package com.transacciones.transaction_ingestor.kafka;
+
+import com.transacciones.transaction_ingestor.dto.TransactionDTO;
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Serializa {@link TransactionDTO} en el formato binario versionado de
+ * {@link TransactionBinaryCodec}. Se activa con
+ * {@code spring.kafka.producer.value-serializer}.
+ */
+public class TransactionBinarySerializer implements Serializer<TransactionDTO> {
+
+    @Override
+    public byte[] serialize(String topic, TransactionDTO data) {
+        return data == null ? null : TransactionBinaryCodec.encode(data);
+    }
+}
@@ -1,68 +1,464 @@
 package com.transacciones.transaction_ingestor.kafka;
 
+import com.transacciones.transaction_ingestor.dto.ResultadoIngesta;
 import com.transacciones.transaction_ingestor.dto.TransactionDTO;
+import com.transacciones.transaction_ingestor.metricas.Traza;
+import com.transacciones.transaction_ingestor.metricas.TrazasLentas;
 import com.transacciones.transaction_ingestor.service.KafkaTransactionService;
-import com.transacciones.transaction_ingestor.service.TransactionService;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.record.TimestampType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.listener.MessageListenerContainer;
 import org.springframework.kafka.support.Acknowledgment;
-import org.springframework.kafka.support.KafkaHeaders;
-import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.kafka.support.serializer.DeserializationException;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
 @Service
-public class TransactionConsumer {
+public class TransactionConsumer implements AutoCloseable {
 
     private static final Logger log = LoggerFactory.getLogger(TransactionConsumer.class);
 
-    private final TransactionService transactionService;
+    // Tiempo máximo de espera de los acks del broker al publicar (un registro o un lote)
+    private static final long PUBLISH_TIMEOUT_SECONDS = 30;
+
+    private static final String PARALELO = "transaction-input-parallel";
+
     private final KafkaTransactionService kafkaTransactionService;
     private final TransactionProducer transactionProducer;
+    // Sólo existe en modo paralelo (kafka.consumer.mode=parallel)
+    private final ObjectProvider<KeyOrderedExecutor> keyOrderedExecutor;
+    private final TransactionRetryRouter retryRouter;
+    private final TrazasLentas trazasLentas;
+    private final KafkaListenerEndpointRegistry registry;
+    // Reanuda las particiones de reintento pausadas hasta que vence su delay
+    private final ScheduledExecutorService reanudaciones;
 
-    public TransactionConsumer(TransactionService transactionService,
-                               KafkaTransactionService kafkaTransactionService,
-                               TransactionProducer transactionProducer) {
-        this.transactionService = transactionService;
+    public TransactionConsumer(KafkaTransactionService kafkaTransactionService,
+                               TransactionProducer transactionProducer,
+                               ObjectProvider<KeyOrderedExecutor> keyOrderedExecutor,
+                               TransactionRetryRouter retryRouter,
+                               TrazasLentas trazasLentas,
+                               KafkaListenerEndpointRegistry registry) {
         this.kafkaTransactionService = kafkaTransactionService;
         this.transactionProducer = transactionProducer;
+        this.keyOrderedExecutor = keyOrderedExecutor;
+        this.retryRouter = retryRouter;
+        this.trazasLentas = trazasLentas;
+        this.registry = registry;
+        this.reanudaciones = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "kafka-reintentos");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        keyOrderedExecutor.ifAvailable(executor -> executor.alDescongestionar(this::reanudarParalelo));
     }
 
+    /**
+     * Modo registro (por defecto): un mensaje por llamada, ack individual cuando el broker
+     * confirmó la publicación. Si algo falla la excepción llega al DefaultErrorHandler, que
+     * deriva el registro a reintento/DLT y recién entonces confirma el offset.
+     */
     @KafkaListener(
+        id = "transaction-input-record",
         topics = "${kafka.topics.transaction-input}",
         groupId = "${spring.kafka.consumer.group-id}",
-        containerFactory = "kafkaListenerContainerFactory"
+        containerFactory = "kafkaListenerContainerFactory",
+        autoStartup = "#{'${kafka.consumer.mode:record}' == 'record'}"
     )
     public void consumeTransaction(
-            @Payload TransactionDTO transaction,
-            @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
-            @Header(KafkaHeaders.OFFSET) long offset,
+            ConsumerRecord<String, TransactionDTO> record,
+            Acknowledgment acknowledgment) throws Exception {
+
+        TransactionDTO transaction = record.value();
+        log.debug("Recibida transacción de partition: {} offset: {} - {}", record.partition(), record.offset(), transaction);
+        trazar(record);
+
+        esperarEnvio(processTransaction(transaction));
+        acknowledgment.acknowledge();
+    }
+
+    /**
+     * Modo lote (kafka.consumer.mode=batch): recibe el poll completo, lo ingesta con una
+     * única llamada al camino de escritura común (validación, modelo, persistencia y alertas
+     * en una transacción), publica validadas y rechazadas en grupo y confirma una sola vez
+     * el lote entero. Los registros que fallan individualmente se derivan a reintento/DLT
+     * sin frenar al resto del lote.
+     * <p>
+     * Cada registro termina con un envío (al topic de salida o al de reintento). Si el broker
+     * rechaza la publicación de un registro ya guardado, sólo ése se deriva a reintento (que
+     * lo vuelve a publicar con la decisión guardada) y el resto del lote sigue. Si un envío
+     * no se confirma a tiempo, o falla también la derivación, se lanza
+     * {@link BatchListenerFailedException} con ese registro: el error handler commitea los
+     * anteriores, lo deriva a reintento y vuelve a entregar los siguientes. Nada se confirma
+     * sin haber salido del topic de entrada.
+     * <p>
+     * La salida es at-least-once: los registros reentregados que ya se habían publicado se
+     * publican de nuevo, como duplicados con la misma decisión (bloqueados siguen en REJECTED).
+     */
+    @KafkaListener(
+        id = "transaction-input-batch",
+        topics = "${kafka.topics.transaction-input}",
+        groupId = "${spring.kafka.consumer.group-id}",
+        containerFactory = "batchKafkaListenerContainerFactory",
+        autoStartup = "#{'${kafka.consumer.mode:record}' == 'batch'}"
+    )
+    public void consumeTransactionBatch(
+            List<ConsumerRecord<String, TransactionDTO>> records,
             Acknowledgment acknowledgment) {
-        
-        log.info("Recibida transacción de partition: {} offset: {} - {}", partition, offset, transaction);
 
+        log.info("Recibido lote de {} transacciones", records.size());
+
+        // Envío que cierra cada registro, por posición en el lote
+        List<CompletableFuture<?>> envios = new ArrayList<>(Collections.nCopies(records.size(), null));
+        List<Integer> recibidas = new ArrayList<>(records.size());
+        int derivadas = 0;
+
+        // 1) Los registros que no se pudieron deserializar van al DLT
+        for (int i = 0; i < records.size(); i++) {
+            ConsumerRecord<String, TransactionDTO> record = records.get(i);
+            if (record.value() == null) {
+                envios.set(i, derivar(record,
+                        new DeserializationException("Registro no deserializable", null, false, null)));
+                derivadas++;
+            } else {
+                trazar(record);
+                recibidas.add(i);
+            }
+        }
+
+        // 2) Ingesta en una sola transacción con batching JDBC. Si el lote falla se
+        //    reintenta fila por fila para aislar el registro problemático
+        List<Integer> procesadas = new ArrayList<>(recibidas.size());
+        List<TransactionDTO> lote = new ArrayList<>(recibidas.size());
+        recibidas.forEach(i -> lote.add(records.get(i).value()));
         try {
-            // Validar la transacción
-            boolean isValid = transactionService.validateTransaction(transaction);
-
-            if (isValid) {
-                transaction.setStatus("VALIDATED");
-                kafkaTransactionService.saveTransaction(transaction);
-                transactionProducer.sendValidatedTransaction(transaction);
-                log.info("Transacción validada y guardada: {}", transaction.getId());
+            marcar(lote, Traza.Marca.INICIADA);
+            kafkaTransactionService.ingestar(lote);
+            marcar(lote, Traza.Marca.PERSISTIDA);
+            procesadas.addAll(recibidas);
+        } catch (Exception e) {
+            log.warn("Falló la ingesta del lote de {} transacciones, se reintenta fila por fila", lote.size(), e);
+            for (int i : recibidas) {
+                ConsumerRecord<String, TransactionDTO> record = records.get(i);
+                try {
+                    kafkaTransactionService.ingestar(List.of(record.value()));
+                    marcar(List.of(record.value()), Traza.Marca.PERSISTIDA);
+                    procesadas.add(i);
+                } catch (Exception errorFila) {
+                    envios.set(i, derivar(record, errorFila));
+                    derivadas++;
+                }
+            }
+        }
+
+        // 3) Publicación en grupo: el productor agrupa los envíos en batches por partición
+        int rechazadas = 0;
+        boolean[] publicacion = new boolean[records.size()];
+        for (int i : procesadas) {
+            publicacion[i] = true;
+            TransactionDTO transaction = records.get(i).value();
+            boolean rechazada = "REJECTED".equals(transaction.getStatus());
+            if (rechazada) {
+                rechazadas++;
+            }
+            envios.set(i, enviar(() -> rechazada
+                    ? transactionProducer.sendRejectedTransaction(transaction)
+                    : transactionProducer.sendValidatedTransaction(transaction)));
+        }
+
+        // 4) Se espera el ack del broker de cada envío, en orden, antes del único commit
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(PUBLISH_TIMEOUT_SECONDS);
+        for (int i = 0; i < records.size(); i++) {
+            ConsumerRecord<String, TransactionDTO> record = records.get(i);
+            Throwable fallo = confirmacion(envios.get(i), limite, record, i);
+            if (fallo != null && publicacion[i]) {
+                log.warn("No se pudo publicar la transacción {} del lote, se deriva a reintento",
+                        record.value().getId(), fallo);
+                publicacion[i] = false;
+                if ("REJECTED".equals(record.value().getStatus())) {
+                    rechazadas--;
+                }
+                derivadas++;
+                fallo = confirmacion(derivar(record, fallo instanceof Exception e ? e : new RuntimeException(fallo)),
+                        limite, record, i);
+            }
+            if (fallo != null) {
+                throw new BatchListenerFailedException("No se confirmó el envío del registro " + i + " del lote",
+                        fallo, record);
+            }
+        }
+        acknowledgment.acknowledge();
+        int publicadas = 0;
+        for (boolean publicada : publicacion) {
+            if (publicada) {
+                publicadas++;
+            }
+        }
+        log.info("Lote procesado: {} validadas, {} rechazadas, {} a reintento/DLT",
+                publicadas - rechazadas, rechazadas, derivadas);
+    }
+
+    /**
+     * Espera la confirmación de un envío del lote hasta {@code limite} (System.nanoTime).
+     * @return la causa si el broker rechazó el envío, o null si se confirmó
+     * @throws BatchListenerFailedException si venció la espera o se interrumpió el hilo
+     */
+    private static Throwable confirmacion(CompletableFuture<?> envio, long limite,
+                                          ConsumerRecord<?, ?> record, int indice) {
+        try {
+            envio.get(Math.max(0, limite - System.nanoTime()), TimeUnit.NANOSECONDS);
+            return null;
+        } catch (ExecutionException e) {
+            return e.getCause();
+        } catch (TimeoutException e) {
+            throw new BatchListenerFailedException("Venció la espera del envío del registro " + indice + " del lote",
+                    e, record);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BatchListenerFailedException("Interrumpido esperando el envío del lote", e, record);
+        }
+    }
+
+    /**
+     * Modo paralelo (kafka.consumer.mode=parallel): cada registro se encola en el carril
+     * de su clave (accountId), así una cuenta se procesa en orden y cuentas distintas en
+     * paralelo. El ack se hace cuando el broker confirma la publicación (o el envío a
+     * reintento); el contenedor (asyncAcks) commitea sólo hasta el menor offset contiguo
+     * ya confirmado de la partición.
+     * <p>
+     * El hilo del consumer nunca bloquea: si un carril se llena se pausa el contenedor (sigue
+     * haciendo poll sin traer registros, dentro de max.poll.interval.ms) y se reanuda cuando
+     * los carriles se vacían a la mitad.
+     */
+    @KafkaListener(
+        id = PARALELO,
+        topics = "${kafka.topics.transaction-input}",
+        groupId = "${spring.kafka.consumer.group-id}",
+        containerFactory = "parallelKafkaListenerContainerFactory",
+        autoStartup = "#{'${kafka.consumer.mode:record}' == 'parallel'}"
+    )
+    public void consumeTransactionParallel(
+            ConsumerRecord<String, TransactionDTO> record,
+            Acknowledgment acknowledgment) {
+
+        TransactionDTO transaction = record.value();
+        String clave = record.key() != null ? record.key() : transaction.getAccountId();
+        trazar(record);
+
+        KeyOrderedExecutor executor = keyOrderedExecutor.getObject();
+        executor.submit(clave, () -> procesarODerivar(record).whenComplete((resultado, error) -> {
+            if (error == null) {
+                acknowledgment.acknowledge();
             } else {
-                transaction.setStatus("REJECTED");
-                transactionProducer.sendRejectedTransaction(transaction);
-                log.warn("Transacción rechazada: {}", transaction.getId());
+                // Sin ack: los commits de la partición se detienen en este offset y el
+                // registro se vuelve a entregar tras un rebalance o reinicio
+                log.error("No se pudo publicar ni derivar a reintento la transacción de partition: {} offset: {} - {}",
+                        record.partition(), record.offset(), transaction, error);
+            }
+        }));
+
+        if (executor.saturado()) {
+            MessageListenerContainer contenedor = registry.getListenerContainer(PARALELO);
+            if (contenedor != null && !contenedor.isPauseRequested()) {
+                log.debug("Carriles llenos, se pausa el consumo de {}", PARALELO);
+                contenedor.pause();
+                // Pudo descongestionarse entre saturado() y pause()
+                if (!executor.saturado()) {
+                    reanudarParalelo();
+                }
+            }
+        }
+    }
+
+    private void reanudarParalelo() {
+        MessageListenerContainer contenedor = registry.getListenerContainer(PARALELO);
+        if (contenedor != null && contenedor.isPauseRequested()) {
+            log.debug("Carriles descongestionados, se reanuda el consumo de {}", PARALELO);
+            contenedor.resume();
+        }
+    }
+
+    /**
+     * Ingesta y publica; si algo falla lo deriva a reintento/DLT.
+     * @return future que se completa cuando el registro salió del topic de entrada
+     */
+    private CompletableFuture<?> procesarODerivar(ConsumerRecord<String, TransactionDTO> record) {
+        CompletableFuture<?> envio;
+        try {
+            envio = processTransaction(record.value());
+        } catch (Exception e) {
+            return derivar(record, e);
+        }
+        return envio.handle((resultado, error) -> error == null
+                        ? CompletableFuture.completedFuture(resultado)
+                        : derivar(record, error instanceof Exception e ? e : new RuntimeException(error)))
+                .thenCompose(future -> future);
+    }
+
+    // ========================================
+    // TOPICS DE REINTENTO
+    // ========================================
+    // Un listener por nivel: cada uno espera su propio delay sin frenar a los demás
+
+    @KafkaListener(
+        id = "transaction-retry-1",
+        topics = "${kafka.topics.transaction-retry-1}",
+        groupId = "${spring.kafka.consumer.group-id}-retry"
+    )
+    public void consumeRetry1(ConsumerRecord<String, TransactionDTO> record,
+                               Acknowledgment acknowledgment) throws Exception {
+        retryTransaction("transaction-retry-1", record, acknowledgment);
+    }
+
+    @KafkaListener(
+        id = "transaction-retry-2",
+        topics = "${kafka.topics.transaction-retry-2}",
+        groupId = "${spring.kafka.consumer.group-id}-retry"
+    )
+    public void consumeRetry2(ConsumerRecord<String, TransactionDTO> record,
+                               Acknowledgment acknowledgment) throws Exception {
+        retryTransaction("transaction-retry-2", record, acknowledgment);
+    }
+
+    @KafkaListener(
+        id = "transaction-retry-3",
+        topics = "${kafka.topics.transaction-retry-3}",
+        groupId = "${spring.kafka.consumer.group-id}-retry"
+    )
+    public void consumeRetry3(ConsumerRecord<String, TransactionDTO> record,
+                               Acknowledgment acknowledgment) throws Exception {
+        retryTransaction("transaction-retry-3", record, acknowledgment);
+    }
+
+    /**
+     * Si el delay del nivel todavía no venció se pausa sólo la partición del registro y se
+     * lo vuelve a buscar (nack sin espera); el contenedor sigue haciendo poll del resto y la
+     * partición se reanuda al vencer el delay. Los registros de un mismo topic de reintento
+     * llegan en orden de vencimiento. Los fallos siguen el camino del modo registro.
+     */
+    private void retryTransaction(String contenedor, ConsumerRecord<String, TransactionDTO> record,
+                                  Acknowledgment acknowledgment) throws Exception {
+        long espera = retryRouter.remainingDelayMs(record);
+        if (espera > 0) {
+            posponer(contenedor, record, espera);
+            acknowledgment.nack(Duration.ZERO);
+            return;
+        }
+
+        log.info("Reintentando transacción de {} offset: {} - {}", record.topic(), record.offset(), record.value());
+        esperarEnvio(processTransaction(record.value()));
+        acknowledgment.acknowledge();
+    }
+
+    private void posponer(String id, ConsumerRecord<?, ?> record, long esperaMs) {
+        MessageListenerContainer contenedor = registry.getListenerContainer(id);
+        if (contenedor == null) {
+            return;
+        }
+        TopicPartition particion = new TopicPartition(record.topic(), record.partition());
+        contenedor.pausePartition(particion);
+        reanudaciones.schedule(() -> contenedor.resumePartition(particion), esperaMs, TimeUnit.MILLISECONDS);
+    }
+
+    private static void esperarEnvio(CompletableFuture<?> envio) throws Exception {
+        try {
+            envio.get(PUBLISH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception causa ? causa : e;
+        }
+    }
+
+    /**
+     * Ingesta y publica una transacción (camino común a los modos registro y paralelo).
+     * @return future que se completa con la confirmación del broker de la publicación
+     */
+    private CompletableFuture<?> processTransaction(TransactionDTO transaction) {
+        Traza traza = transaction.getTraza();
+        if (traza != null) {
+            traza.marcar(Traza.Marca.INICIADA);
+        }
+        ResultadoIngesta resultado = kafkaTransactionService.ingestar(List.of(transaction)).get(0);
+        if (traza != null) {
+            traza.marcar(Traza.Marca.PERSISTIDA);
+        }
+
+        if ("REJECTED".equals(transaction.getStatus())) {
+            log.warn("Transacción rechazada: {} - {}", transaction.getId(), transaction.getRejectionReason());
+            return transactionProducer.sendRejectedTransaction(transaction);
+        }
+        log.debug("Transacción validada: {} ({})", transaction.getId(), resultado.estado());
+        return transactionProducer.sendValidatedTransaction(transaction);
+    }
+
+    /**
+     * Continúa la traza del header o, si el registro llegó sin traza (producers externos),
+     * decide el muestreo acá y toma como envío el timestamp del registro. Los topics de
+     * reintento no se trazan: su delay taparía al resto de las etapas.
+     */
+    private void trazar(ConsumerRecord<String, TransactionDTO> record) {
+        if (record.value() == null) {
+            return;
+        }
+        Header header = record.headers().lastHeader(Traza.HEADER);
+        Traza traza;
+        if (header != null) {
+            traza = Traza.desdeBytes(header.value());
+        } else if (record.timestampType() == TimestampType.CREATE_TIME && trazasLentas.muestrear()) {
+            traza = new Traza();
+            traza.marcar(Traza.Marca.ENVIADA, record.timestamp() * 1_000);
+        } else {
+            return;
+        }
+        if (traza == null) {
+            return;
+        }
+        if (record.timestampType() == TimestampType.LOG_APPEND_TIME) {
+            traza.marcar(Traza.Marca.ANEXADA, record.timestamp() * 1_000);
+        }
+        traza.marcar(Traza.Marca.RECIBIDA);
+        record.value().setTraza(traza);
+    }
+
+    private static void marcar(List<TransactionDTO> transactions, Traza.Marca marca) {
+        long ahora = Traza.ahoraMicros();
+        for (TransactionDTO transaction : transactions) {
+            if (transaction.getTraza() != null) {
+                transaction.getTraza().marcar(marca, ahora);
             }
+        }
+    }
 
-            // Confirmar el procesamiento del mensaje
-            acknowledgment.acknowledge();
+    private CompletableFuture<?> derivar(ConsumerRecord<String, TransactionDTO> record, Exception error) {
+        return enviar(() -> retryRouter.route(record, error));
+    }
 
+    // Un send que falla antes de devolver el future (buffer lleno, serialización) cuenta
+    // como un envío fallido de ese registro, no del lote
+    private static CompletableFuture<?> enviar(Supplier<CompletableFuture<?>> envio) {
+        try {
+            return envio.get();
         } catch (Exception e) {
-            log.error("Error procesando transacción: {}", transaction, e);
-            // En caso de error, no hacemos acknowledge para que se reintente
+            return CompletableFuture.failedFuture(e);
         }
     }
 
@@ -81,4 +477,9 @@ public class TransactionConsumer {
     public void consumeRejectedTransaction(@Payload TransactionDTO transaction) {
         log.info("Procesando transacción rechazada: {}", transaction);
     }
-}
\ No newline at end of file
+
+    @Override
+    public void close() {
+        reanudaciones.shutdownNow();
+    }
+}
@@ -1,6 +1,11 @@
 package com.transacciones.transaction_ingestor.kafka;
 
 import com.transacciones.transaction_ingestor.dto.TransactionDTO;
+import com.transacciones.transaction_ingestor.metricas.MetricasIngesta;
+import com.transacciones.transaction_ingestor.metricas.Traza;
+import com.transacciones.transaction_ingestor.metricas.TrazasLentas;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.internals.RecordHeader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -9,13 +14,20 @@ import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
-public class TransactionProducer {
+public class TransactionProducer implements AutoCloseable {
 
     private static final Logger log = LoggerFactory.getLogger(TransactionProducer.class);
 
     private final KafkaTemplate<String, TransactionDTO> kafkaTemplate;
+    private final MetricasIngesta metricas;
+    private final TrazasLentas trazasLentas;
 
     @Value("${kafka.topics.transaction-input}")
     private String transactionInputTopic;
@@ -26,34 +38,133 @@ public class TransactionProducer {
     @Value("${kafka.topics.transaction-rejected}")
     private String transactionRejectedTopic;
 
-    public TransactionProducer(KafkaTemplate<String, TransactionDTO> kafkaTemplate) {
+    // Envíos de sendTransactionAcotado() sin confirmar por el broker
+    private final Semaphore enviosEnVuelo;
+    private final int maxEnVuelo;
+    // send() puede bloquear hasta max.block.ms (buffer lleno, sin metadata): se llama desde
+    // estos hilos y no desde el del request. Con uno solo, un send() bloqueado frenaba todos
+    // los envíos acotados detrás de él hasta el 503 de kafka.envio.timeout-ms. La cola no
+    // crece más que maxEnVuelo: el semáforo se toma antes de encolar
+    private final ExecutorService hilosEnvio;
+
+    public TransactionProducer(KafkaTemplate<String, TransactionDTO> kafkaTemplate,
+                               MetricasIngesta metricas,
+                               TrazasLentas trazasLentas,
+                               @Value("${kafka.envio.max-en-vuelo:1000}") int maxEnVuelo,
+                               @Value("${kafka.envio.hilos:4}") int hilos) {
+        if (maxEnVuelo <= 0 || hilos <= 0) {
+            throw new IllegalArgumentException("kafka.envio.max-en-vuelo y kafka.envio.hilos deben ser positivos");
+        }
         this.kafkaTemplate = kafkaTemplate;
+        this.metricas = metricas;
+        this.trazasLentas = trazasLentas;
+        this.maxEnVuelo = maxEnVuelo;
+        this.enviosEnVuelo = new Semaphore(maxEnVuelo);
+        AtomicInteger contador = new AtomicInteger();
+        this.hilosEnvio = Executors.newFixedThreadPool(hilos, r -> {
+            Thread hilo = new Thread(r, "kafka-envio-" + contador.getAndIncrement());
+            hilo.setDaemon(true);
+            return hilo;
+        });
     }
 
-    public void sendTransaction(TransactionDTO transaction) {
-        log.info("Enviando transacción al topic {}: {}", transactionInputTopic, transaction);
-        
-        CompletableFuture<SendResult<String, TransactionDTO>> future = 
-            kafkaTemplate.send(transactionInputTopic, transaction.getAccountId(), transaction);
+    /**
+     * Publica la transacción en el topic de entrada.
+     * @return future que se completa con la confirmación del broker
+     */
+    public CompletableFuture<SendResult<String, TransactionDTO>> sendTransaction(TransactionDTO transaction) {
+        log.debug("Enviando transacción al topic {}: {}", transactionInputTopic, transaction);
+        muestrear(transaction);
+
+        CompletableFuture<SendResult<String, TransactionDTO>> future = enviar(transactionInputTopic, transaction);
         
         future.whenComplete((result, ex) -> {
             if (ex == null) {
-                log.info("Transacción enviada exitosamente: [{}] con offset: [{}]", 
+                log.debug("Transacción enviada exitosamente: [{}] con offset: [{}]", 
                     transaction.getId(), 
                     result.getRecordMetadata().offset());
             } else {
                 log.error("Error al enviar transacción: [{}]", transaction.getId(), ex);
             }
         });
+        return future;
+    }
+
+    /**
+     * Como {@link #sendTransaction} pero sin bloquear al llamador y con un máximo de
+     * {@code kafka.envio.max-en-vuelo} envíos sin confirmar. El lugar se libera cuando el
+     * broker confirma o el envío falla, no cuando el llamador deja de esperar. Los envíos
+     * corren en {@code kafka.envio.hilos} hilos, así que el orden entre requests concurrentes
+     * no está garantizado (tampoco lo estaba entre requests HTTP).
+     * @return future que se completa con la confirmación del broker
+     * @throws EnviosSaturadosException si ya se alcanzó el máximo
+     */
+    public CompletableFuture<SendResult<String, TransactionDTO>> sendTransactionAcotado(TransactionDTO transaction) {
+        if (!enviosEnVuelo.tryAcquire()) {
+            throw new EnviosSaturadosException(maxEnVuelo);
+        }
+        // Antes de encolar: la espera de los hilos de envío entra en la traza
+        muestrear(transaction);
+        CompletableFuture<SendResult<String, TransactionDTO>> envio;
+        try {
+            envio = CompletableFuture.supplyAsync(() -> sendTransaction(transaction), hilosEnvio)
+                    .thenCompose(future -> future);
+        } catch (RejectedExecutionException e) {
+            enviosEnVuelo.release();
+            throw e;
+        }
+        envio.whenComplete((result, ex) -> enviosEnVuelo.release());
+        // Copia: un timeout del llamador no debe liberar el lugar antes de tiempo
+        return envio.copy();
+    }
+
+    /**
+     * Publica la transacción en el topic de validadas.
+     * @return future que se completa con la confirmación del broker
+     */
+    public CompletableFuture<SendResult<String, TransactionDTO>> sendValidatedTransaction(TransactionDTO transaction) {
+        log.debug("Enviando transacción validada al topic {}: {}", transactionValidatedTopic, transaction);
+        return enviar(transactionValidatedTopic, transaction);
+    }
+
+    /**
+     * Publica la transacción en el topic de rechazadas.
+     * @return future que se completa con la confirmación del broker
+     */
+    public CompletableFuture<SendResult<String, TransactionDTO>> sendRejectedTransaction(TransactionDTO transaction) {
+        log.debug("Enviando transacción rechazada al topic {}: {}", transactionRejectedTopic, transaction);
+        return enviar(transactionRejectedTopic, transaction);
+    }
+
+    // Decisión de muestreo en la cabecera: sólo las transacciones muestreadas llevan traza
+    private void muestrear(TransactionDTO transaction) {
+        if (transaction.getTraza() == null && trazasLentas.muestrear()) {
+            Traza traza = new Traza();
+            traza.marcar(Traza.Marca.CREADA);
+            transaction.setTraza(traza);
+        }
     }
 
-    public void sendValidatedTransaction(TransactionDTO transaction) {
-        log.info("Enviando transacción validada al topic {}: {}", transactionValidatedTopic, transaction);
-        kafkaTemplate.send(transactionValidatedTopic, transaction.getAccountId(), transaction);
+    // La confirmación del broker la mide MetricasProducerListener, que también cierra las trazas
+    private CompletableFuture<SendResult<String, TransactionDTO>> enviar(String topic, TransactionDTO transaction) {
+        long inicio = System.nanoTime();
+        Traza traza = transaction.getTraza();
+        CompletableFuture<SendResult<String, TransactionDTO>> future;
+        if (traza == null) {
+            future = kafkaTemplate.send(topic, transaction.getAccountId(), transaction);
+        } else {
+            traza.marcar(topic.equals(transactionInputTopic) ? Traza.Marca.ENVIADA : Traza.Marca.PUBLICADA);
+            ProducerRecord<String, TransactionDTO> record =
+                    new ProducerRecord<>(topic, transaction.getAccountId(), transaction);
+            record.headers().add(new RecordHeader(Traza.HEADER, traza.aBytes()));
+            future = kafkaTemplate.send(record);
+        }
+        metricas.publicado(inicio);
+        return future;
     }
 
-    public void sendRejectedTransaction(TransactionDTO transaction) {
-        log.info("Enviando transacción rechazada al topic {}: {}", transactionRejectedTopic, transaction);
-        kafkaTemplate.send(transactionRejectedTopic, transaction.getAccountId(), transaction);
+    @Override
+    public void close() {
+        hilosEnvio.shutdownNow();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,279 @@
+package com.transacciones.transaction_ingestor.kafka;
+
+import com.transacciones.transaction_ingestor.dto.TransactionDTO;
+import jakarta.validation.ConstraintViolationException;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.core.log.LogAccessor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Saca de la partición "caliente" los registros que fallaron: los publica en el siguiente
+ * topic de reintento (delays crecientes) o, si son veneno o agotaron los reintentos,
+ * en el dead-letter topic. Lleva contadores por motivo de fallo.
+ */
+@Component
+public class TransactionRetryRouter implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionRetryRouter.class);
+    private static final LogAccessor logAccessor = new LogAccessor(TransactionRetryRouter.class);
+
+    // Headers propios de los topics de reintento / DLT
+    public static final String HEADER_ATTEMPT = "x-retry-attempt";
+    public static final String HEADER_NOT_BEFORE = "x-retry-not-before";
+    public static final String HEADER_REASON = "x-failure-reason";
+    public static final String HEADER_MESSAGE = "x-failure-message";
+    public static final String HEADER_ORIGINAL_TOPIC = "x-original-topic";
+    public static final String HEADER_ORIGINAL_PARTITION = "x-original-partition";
+    public static final String HEADER_ORIGINAL_OFFSET = "x-original-offset";
+
+    private static final int MAX_MESSAGE_LENGTH = 500;
+    private static final long SEND_TIMEOUT_SECONDS = 30;
+
+    /** Motivo de fallo; los "veneno" van directo al DLT sin pasar por los reintentos. */
+    public enum MotivoFallo {
+        DESERIALIZACION(true),
+        DATOS_INVALIDOS(true),
+        BASE_DE_DATOS(false),
+        PUBLICACION(false),
+        DESCONOCIDO(false);
+
+        private final boolean veneno;
+
+        MotivoFallo(boolean veneno) {
+            this.veneno = veneno;
+        }
+
+        public boolean isVeneno() {
+            return veneno;
+        }
+    }
+
+    private final KafkaTemplate<String, TransactionDTO> kafkaTemplate;
+    // Template de bytes crudos: registros que no se pudieron deserializar y replay del DLT
+    private final DefaultKafkaProducerFactory<String, byte[]> rawProducerFactory;
+    private final KafkaTemplate<String, byte[]> rawKafkaTemplate;
+
+    private final List<String> retryTopics;
+    private final long[] retryDelaysMs;
+    private final String deadLetterTopic;
+
+    private final Map<MotivoFallo, LongAdder> reintentosPorMotivo = new EnumMap<>(MotivoFallo.class);
+    private final Map<MotivoFallo, LongAdder> dltPorMotivo = new EnumMap<>(MotivoFallo.class);
+
+    public TransactionRetryRouter(KafkaTemplate<String, TransactionDTO> kafkaTemplate,
+                                  KafkaProperties kafkaProperties,
+                                  @Value("${kafka.topics.transaction-retry-1}") String retryTopic1,
+                                  @Value("${kafka.topics.transaction-retry-2}") String retryTopic2,
+                                  @Value("${kafka.topics.transaction-retry-3}") String retryTopic3,
+                                  @Value("${kafka.retry.delay-1-ms}") long delay1,
+                                  @Value("${kafka.retry.delay-2-ms}") long delay2,
+                                  @Value("${kafka.retry.delay-3-ms}") long delay3,
+                                  @Value("${kafka.topics.transaction-dlt}") String deadLetterTopic) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.rawProducerFactory = new DefaultKafkaProducerFactory<>(
+                kafkaProperties.buildProducerProperties(null), new StringSerializer(), new ByteArraySerializer());
+        this.rawKafkaTemplate = new KafkaTemplate<>(rawProducerFactory);
+        this.retryTopics = List.of(retryTopic1, retryTopic2, retryTopic3);
+        this.retryDelaysMs = new long[] {delay1, delay2, delay3};
+        this.deadLetterTopic = deadLetterTopic;
+        for (MotivoFallo motivo : MotivoFallo.values()) {
+            reintentosPorMotivo.put(motivo, new LongAdder());
+            dltPorMotivo.put(motivo, new LongAdder());
+        }
+    }
+
+    /**
+     * Envía el registro fallido al siguiente nivel de reintento o al DLT y espera el ack
+     * del broker, de modo que el llamador pueda confirmar el offset original sin perderlo.
+     */
+    public void handleFailure(ConsumerRecord<?, ?> record, Exception error) {
+        route(record, error).join();
+    }
+
+    /**
+     * Variante asíncrona para lotes: el llamador espera todos los futures juntos.
+     */
+    public CompletableFuture<?> route(ConsumerRecord<?, ?> record, Exception error) {
+        MotivoFallo motivo = clasificar(error);
+        int intento = intValue(record.headers(), HEADER_ATTEMPT);
+        boolean aDlt = motivo.isVeneno() || intento >= retryTopics.size();
+
+        String destino = aDlt ? deadLetterTopic : retryTopics.get(intento);
+        long notBefore = aDlt ? 0 : System.currentTimeMillis() + retryDelaysMs[intento];
+        (aDlt ? dltPorMotivo : reintentosPorMotivo).get(motivo).increment();
+
+        log.warn("Transacción de {}-{}@{} enviada a {} (motivo: {}, intento: {}): {}",
+                record.topic(), record.partition(), record.offset(), destino, motivo, intento + 1,
+                error.getMessage());
+
+        List<Header> headers = headersDeFallo(record, motivo, error, intento + 1, notBefore);
+        Object valor = record.value();
+        String clave = record.key() != null ? record.key().toString() : null;
+
+        CompletableFuture<?> envio;
+        if (valor instanceof TransactionDTO dto) {
+            envio = kafkaTemplate.send(new ProducerRecord<>(destino, null, clave, dto, headers));
+        } else {
+            // No se pudo deserializar: se reenvían los bytes originales tal cual
+            envio = rawKafkaTemplate.send(new ProducerRecord<>(destino, null, clave, datosCrudos(record, error), headers));
+        }
+        return envio.orTimeout(SEND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Milisegundos que faltan para que un registro de un topic de reintento pueda procesarse.
+     */
+    public long remainingDelayMs(ConsumerRecord<?, ?> record) {
+        Header header = record.headers().lastHeader(HEADER_NOT_BEFORE);
+        if (header == null || header.value().length != Long.BYTES) {
+            return 0;
+        }
+        return ByteBuffer.wrap(header.value()).getLong() - System.currentTimeMillis();
+    }
+
+    /**
+     * Contadores de reintentos y envíos al DLT, por motivo.
+     */
+    public Map<String, Map<String, Long>> estadisticas() {
+        Map<String, Map<String, Long>> stats = new LinkedHashMap<>();
+        stats.put("reintentos", sumar(reintentosPorMotivo));
+        stats.put("dlt", sumar(dltPorMotivo));
+        return stats;
+    }
+
+    public String getDeadLetterTopic() {
+        return deadLetterTopic;
+    }
+
+    KafkaTemplate<String, byte[]> rawKafkaTemplate() {
+        return rawKafkaTemplate;
+    }
+
+    static MotivoFallo clasificar(Throwable error) {
+        // Las excepciones de Kafka suelen envolver la causa real (ListenerExecutionFailedException),
+        // así que sólo cuentan como fallo de publicación si no hay una causa más específica
+        boolean publicacion = false;
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof DeserializationException) {
+                return MotivoFallo.DESERIALIZACION;
+            }
+            if (t instanceof DataIntegrityViolationException
+                    || t instanceof ConstraintViolationException
+                    || t instanceof IllegalArgumentException
+                    || t instanceof NullPointerException
+                    || t instanceof ClassCastException) {
+                return MotivoFallo.DATOS_INVALIDOS;
+            }
+            if (t instanceof DataAccessException
+                    || t instanceof TransactionException
+                    || t instanceof SQLException) {
+                // Las no transitorias restantes (p.ej. SQL inválido) tampoco se arreglan reintentando
+                return t instanceof NonTransientDataAccessException
+                        ? MotivoFallo.DATOS_INVALIDOS : MotivoFallo.BASE_DE_DATOS;
+            }
+            if (t instanceof KafkaException || t instanceof org.apache.kafka.common.KafkaException) {
+                publicacion = true;
+            }
+        }
+        return publicacion ? MotivoFallo.PUBLICACION : MotivoFallo.DESCONOCIDO;
+    }
+
+    private List<Header> headersDeFallo(ConsumerRecord<?, ?> record, MotivoFallo motivo, Exception error,
+                                        int intento, long notBefore) {
+        List<Header> headers = new ArrayList<>();
+        // Se conservan los headers originales (p.ej. __TypeId__) salvo los del fallo anterior
+        for (Header h : record.headers()) {
+            if (!h.key().startsWith("x-retry-") && !h.key().startsWith("x-failure-")
+                    && !h.key().equals(SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER)) {
+                headers.add(h);
+            }
+        }
+        headers.add(header(HEADER_ATTEMPT, ByteBuffer.allocate(Integer.BYTES).putInt(intento).array()));
+        if (notBefore > 0) {
+            headers.add(header(HEADER_NOT_BEFORE, ByteBuffer.allocate(Long.BYTES).putLong(notBefore).array()));
+        }
+        headers.add(header(HEADER_REASON, motivo.name().getBytes(StandardCharsets.UTF_8)));
+        String mensaje = String.valueOf(error.getMessage());
+        if (mensaje.length() > MAX_MESSAGE_LENGTH) {
+            mensaje = mensaje.substring(0, MAX_MESSAGE_LENGTH);
+        }
+        headers.add(header(HEADER_MESSAGE, mensaje.getBytes(StandardCharsets.UTF_8)));
+        if (record.headers().lastHeader(HEADER_ORIGINAL_TOPIC) == null) {
+            headers.add(header(HEADER_ORIGINAL_TOPIC, record.topic().getBytes(StandardCharsets.UTF_8)));
+            headers.add(header(HEADER_ORIGINAL_PARTITION,
+                    ByteBuffer.allocate(Integer.BYTES).putInt(record.partition()).array()));
+            headers.add(header(HEADER_ORIGINAL_OFFSET,
+                    ByteBuffer.allocate(Long.BYTES).putLong(record.offset()).array()));
+        }
+        return headers;
+    }
+
+    private static byte[] datosCrudos(ConsumerRecord<?, ?> record, Exception error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof DeserializationException de && de.getData() != null) {
+                return de.getData();
+            }
+        }
+        DeserializationException enHeader = SerializationUtils.getExceptionFromHeader(
+                record, SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER, logAccessor);
+        if (enHeader != null && enHeader.getData() != null) {
+            return enHeader.getData();
+        }
+        return record.value() instanceof byte[] bytes ? bytes : new byte[0];
+    }
+
+    private static int intValue(Headers headers, String key) {
+        Header header = headers.lastHeader(key);
+        if (header == null || header.value().length != Integer.BYTES) {
+            return 0;
+        }
+        return ByteBuffer.wrap(header.value()).getInt();
+    }
+
+    private static Header header(String key, byte[] value) {
+        return new RecordHeader(key, value);
+    }
+
+    private static Map<String, Long> sumar(Map<MotivoFallo, LongAdder> contadores) {
+        Map<String, Long> resultado = new LinkedHashMap<>();
+        contadores.forEach((motivo, contador) -> resultado.put(motivo.name(), contador.sum()));
+        return resultado;
+    }
+
+    @Override
+    public void destroy() {
+        rawProducerFactory.destroy();
+    }
+}
@@ -0,0 +1,99 @@
+package com.transacciones.transaction_ingestor.metricas;
+
+import com.transacciones.transaction_ingestor.rules.DefinicionRegla;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencias por etapa de la ingesta y de la publicación en Kafka, con histogramas de
+ * percentiles exportados en /actuator/prometheus. Todos los medidores se registran al
+ * arrancar y se guardan en arreglos indexados por canal y etapa: registrar una medición no
+ * busca tags ni reserva memoria.
+ * <p>
+ * El lag por partición del consumer lo publica el cliente de Kafka
+ * ({@code kafka_consumer_fetch_manager_records_lag}).
+ */
+@Component
+public class MetricasIngesta {
+
+    /** Etapas del camino de escritura común ({@code ingesta_etapa_seconds}). */
+    public enum Etapa {
+        VALIDAR, SCORING, USUARIOS, PERSISTIR, DECIDIR
+    }
+
+    private final Timer[][] etapas;
+    private final DistributionSummary[] lotes;
+    private final Timer publicar;
+    private final Timer ack;
+    private final Timer lagEvento;
+
+    public MetricasIngesta(MeterRegistry registry) {
+        DefinicionRegla.Canal[] canales = DefinicionRegla.Canal.values();
+        Etapa[] nombres = Etapa.values();
+        this.etapas = new Timer[canales.length][nombres.length];
+        this.lotes = new DistributionSummary[canales.length];
+        for (DefinicionRegla.Canal canal : canales) {
+            for (Etapa etapa : nombres) {
+                etapas[canal.ordinal()][etapa.ordinal()] = Timer.builder("ingesta.etapa")
+                        .description("Duración de cada etapa de la ingesta, por lote")
+                        .tag("canal", canal.name())
+                        .tag("etapa", etapa.name().toLowerCase(Locale.ROOT))
+                        .publishPercentileHistogram()
+                        .maximumExpectedValue(Duration.ofSeconds(30))
+                        .register(registry);
+            }
+            lotes[canal.ordinal()] = DistributionSummary.builder("ingesta.lote.tamanio")
+                    .description("Transacciones por llamada al camino de escritura")
+                    .tag("canal", canal.name())
+                    .publishPercentileHistogram()
+                    .maximumExpectedValue(10_000d)
+                    .register(registry);
+        }
+        this.publicar = Timer.builder("ingesta.kafka.publicar")
+                .description("Tiempo dentro de send(): serialización y espera de lugar en el buffer")
+                .publishPercentileHistogram()
+                .maximumExpectedValue(Duration.ofSeconds(60))
+                .register(registry);
+        this.ack = Timer.builder("ingesta.kafka.ack")
+                .description("Desde el send() hasta la confirmación del broker")
+                .publishPercentileHistogram()
+                .maximumExpectedValue(Duration.ofSeconds(120))
+                .register(registry);
+        this.lagEvento = Timer.builder("ingesta.lag.evento")
+                .description("Desde el timestamp del evento de Kafka hasta el commit en la base")
+                .publishPercentileHistogram()
+                .maximumExpectedValue(Duration.ofHours(1))
+                .register(registry);
+    }
+
+    /** Registra la etapa iniciada en {@code desdeNanos} (System.nanoTime()). */
+    public void etapa(DefinicionRegla.Canal canal, Etapa etapa, long desdeNanos) {
+        duracion(canal, etapa, System.nanoTime() - desdeNanos);
+    }
+
+    public void duracion(DefinicionRegla.Canal canal, Etapa etapa, long nanos) {
+        etapas[canal.ordinal()][etapa.ordinal()].record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void lote(DefinicionRegla.Canal canal, int tamanio) {
+        lotes[canal.ordinal()].record(tamanio);
+    }
+
+    public void publicado(long desdeNanos) {
+        publicar.record(System.nanoTime() - desdeNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void confirmado(long millis) {
+        ack.record(Math.max(millis, 0), TimeUnit.MILLISECONDS);
+    }
+
+    public void lagEvento(long millis) {
+        lagEvento.record(Math.max(millis, 0), TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,166 @@
+package com.transacciones.transaction_ingestor.metricas;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Marcas de tiempo de una transacción muestreada a lo largo del camino de Kafka. Viaja en el
+ * header {@link #HEADER} de los registros (entrada, validadas y rechazadas) en binario:
+ * versión, base en microsegundos desde epoch y, por marca presente, su número y el delta
+ * desde la base en varint. Con las ocho marcas ocupa unos 40 bytes.
+ * <p>
+ * Las marcas se toman con el reloj de pared de cada proceso: si el producer corre en otra
+ * máquina, la etapa que cruza procesos incluye el desfasaje de los relojes.
+ */
+public final class Traza {
+
+    public static final String HEADER = "ingesta-traza";
+    private static final byte VERSION = 1;
+
+    /** Cada marca cierra la etapa que empezó en la marca presente anterior. */
+    public enum Marca {
+        CREADA(null),
+        ENVIADA("cola_envio"),
+        // Timestamp del broker; sólo si el topic usa LogAppendTime
+        ANEXADA("broker"),
+        RECIBIDA("espera_consumo"),
+        INICIADA("cola_consumidor"),
+        PERSISTIDA("base"),
+        PUBLICADA("decision"),
+        CONFIRMADA("ack_publicacion");
+
+        private final String etapa;
+
+        Marca(String etapa) {
+            this.etapa = etapa;
+        }
+
+        public String etapa() {
+            return etapa;
+        }
+    }
+
+    private static final Marca[] MARCAS = Marca.values();
+
+    // Microsegundos desde epoch; 0 = marca ausente
+    private final long[] marcas = new long[MARCAS.length];
+
+    public void marcar(Marca marca) {
+        marcar(marca, ahoraMicros());
+    }
+
+    public void marcar(Marca marca, long epochMicros) {
+        marcas[marca.ordinal()] = epochMicros;
+    }
+
+    public boolean tiene(Marca marca) {
+        return marcas[marca.ordinal()] != 0;
+    }
+
+    /** Desde la primera hasta la última marca presente, en microsegundos. */
+    public long totalMicros() {
+        long primera = 0;
+        long ultima = 0;
+        for (long marca : marcas) {
+            if (marca != 0) {
+                if (primera == 0) {
+                    primera = marca;
+                }
+                ultima = marca;
+            }
+        }
+        return ultima - primera;
+    }
+
+    /** Duración de cada etapa en microsegundos, en orden; las etapas sin marcas no aparecen. */
+    public Map<String, Long> etapasMicros() {
+        Map<String, Long> etapas = new LinkedHashMap<>();
+        long anterior = 0;
+        for (Marca marca : MARCAS) {
+            long instante = marcas[marca.ordinal()];
+            if (instante == 0) {
+                continue;
+            }
+            if (anterior != 0) {
+                etapas.put(marca.etapa(), instante - anterior);
+            }
+            anterior = instante;
+        }
+        return etapas;
+    }
+
+    public long inicioMicros() {
+        for (long marca : marcas) {
+            if (marca != 0) {
+                return marca;
+            }
+        }
+        return 0;
+    }
+
+    public byte[] aBytes() {
+        long base = inicioMicros();
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 8 + MARCAS.length * 11);
+        buffer.put(VERSION).putLong(base);
+        for (Marca marca : MARCAS) {
+            long instante = marcas[marca.ordinal()];
+            if (instante != 0) {
+                buffer.put((byte) marca.ordinal());
+                // Con relojes desfasados una marca puede quedar antes de la base
+                escribirVarint(buffer, Math.max(instante - base, 0));
+            }
+        }
+        byte[] bytes = new byte[buffer.position()];
+        buffer.flip().get(bytes);
+        return bytes;
+    }
+
+    /** @return la traza del header, o null si no se reconoce el formato */
+    public static Traza desdeBytes(byte[] bytes) {
+        if (bytes == null || bytes.length < 9 || bytes[0] != VERSION) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, bytes.length - 1);
+        long base = buffer.getLong();
+        Traza traza = new Traza();
+        while (buffer.hasRemaining()) {
+            int ordinal = buffer.get();
+            long delta = leerVarint(buffer);
+            if (ordinal < 0 || ordinal >= MARCAS.length || delta < 0) {
+                return null;
+            }
+            traza.marcas[ordinal] = base + delta;
+        }
+        return traza;
+    }
+
+    public static long ahoraMicros() {
+        Instant ahora = Instant.now();
+        return ahora.getEpochSecond() * 1_000_000 + ahora.getNano() / 1_000;
+    }
+
+    private static void escribirVarint(ByteBuffer buffer, long valor) {
+        while ((valor & ~0x7FL) != 0) {
+            buffer.put((byte) ((valor & 0x7F) | 0x80));
+            valor >>>= 7;
+        }
+        buffer.put((byte) valor);
+    }
+
+    private static long leerVarint(ByteBuffer buffer) {
+        long valor = 0;
+        for (int desplazamiento = 0; desplazamiento < 64; desplazamiento += 7) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            byte b = buffer.get();
+            valor |= (long) (b & 0x7F) << desplazamiento;
+            if ((b & 0x80) == 0) {
+                return valor;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,36 @@
+package com.transacciones.transaction_ingestor.metricas;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Diagnóstico de latencia de punta a punta: las trazas muestreadas más lentas con el
+ * desglose por etapa (cola de envío, broker, espera del consumer, base, publicación).
+ */
+@RestController
+@RequestMapping("/diagnostico")
+public class TrazasController {
+
+    private static final int MAX_TRAZAS = 1000;
+
+    private final TrazasLentas trazasLentas;
+
+    public TrazasController(TrazasLentas trazasLentas) {
+        this.trazasLentas = trazasLentas;
+    }
+
+    @GetMapping("/trazas")
+    public ResponseEntity<Object> peores(@RequestParam(defaultValue = "20") int n) {
+        if (n <= 0 || n > MAX_TRAZAS) {
+            return ResponseEntity.badRequest().body(Map.of("error", "n debe estar entre 1 y " + MAX_TRAZAS));
+        }
+        return ResponseEntity.ok(Map.of(
+                "registradas", trazasLentas.registradas(),
+                "trazas", trazasLentas.peores(n)));
+    }
+}
@@ -0,0 +1,83 @@
+package com.transacciones.transaction_ingestor.metricas;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Trazas completas de las transacciones muestreadas, en un buffer circular de tamaño fijo:
+ * las más nuevas pisan a las más viejas y registrar no toma locks. El muestreo es en la
+ * cabecera (producer, o consumer si el registro llega sin traza): las transacciones no
+ * muestreadas no llevan header ni toman marcas.
+ */
+@Component
+public class TrazasLentas {
+
+    /** Traza terminada, lista para GET /diagnostico/trazas. */
+    public record ResumenTraza(String idTransaccion, Instant inicio, double totalMs, Map<String, Double> etapasMs) {
+    }
+
+    private final double muestreo;
+    private final long umbralMicros;
+    private final AtomicReferenceArray<ResumenTraza> buffer;
+    private final AtomicLong siguiente = new AtomicLong();
+
+    public TrazasLentas(@Value("${kafka.traza.muestreo:0.01}") double muestreo,
+                        @Value("${kafka.traza.capacidad:1024}") int capacidad,
+                        @Value("${kafka.traza.umbral-ms:0}") long umbralMs) {
+        if (muestreo < 0 || muestreo > 1) {
+            throw new IllegalArgumentException("kafka.traza.muestreo debe estar entre 0 y 1");
+        }
+        if (capacidad <= 0) {
+            throw new IllegalArgumentException("kafka.traza.capacidad debe ser positiva");
+        }
+        this.muestreo = muestreo;
+        this.umbralMicros = umbralMs * 1_000;
+        this.buffer = new AtomicReferenceArray<>(capacidad);
+    }
+
+    /** Decisión de muestreo para una transacción que todavía no tiene traza. */
+    public boolean muestrear() {
+        return muestreo > 0 && ThreadLocalRandom.current().nextDouble() < muestreo;
+    }
+
+    /** Guarda la traza terminada si supera kafka.traza.umbral-ms. */
+    public void registrar(String idTransaccion, Traza traza) {
+        long total = traza.totalMicros();
+        if (total < umbralMicros) {
+            return;
+        }
+        Map<String, Double> etapas = new LinkedHashMap<>();
+        traza.etapasMicros().forEach((etapa, micros) -> etapas.put(etapa, micros / 1_000.0));
+        ResumenTraza resumen = new ResumenTraza(idTransaccion,
+                Instant.EPOCH.plus(traza.inicioMicros(), ChronoUnit.MICROS), total / 1_000.0, etapas);
+        buffer.set((int) (siguiente.getAndIncrement() % buffer.length()), resumen);
+    }
+
+    /** Las {@code n} trazas más lentas que siguen en el buffer, de mayor a menor. */
+    public List<ResumenTraza> peores(int n) {
+        List<ResumenTraza> trazas = new ArrayList<>(buffer.length());
+        for (int i = 0; i < buffer.length(); i++) {
+            ResumenTraza traza = buffer.get(i);
+            if (traza != null) {
+                trazas.add(traza);
+            }
+        }
+        trazas.sort(Comparator.comparingDouble(ResumenTraza::totalMs).reversed());
+        return trazas.subList(0, Math.min(n, trazas.size()));
+    }
+
+    public long registradas() {
+        return siguiente.get();
+    }
+}
@@ -23,7 +23,10 @@ import java.time.LocalDateTime;
 public class Alerta {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Secuencia con pooled optimizer (tabla alertas_seq en MySQL): a diferencia de IDENTITY
+    // permite que Hibernate agrupe los INSERT en batches JDBC
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "alertas_seq")
+    @SequenceGenerator(name = "alertas_seq", sequenceName = "alertas_seq", allocationSize = 100)
     @Column(name = "id_alerta")
     private Long idAlerta;
 
@@ -8,7 +8,9 @@ import java.sql.Timestamp;
 public class Auditoria {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Igual que en Alerta: secuencia en vez de IDENTITY para poder batchear los INSERT
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "auditoria_seq")
+    @SequenceGenerator(name = "auditoria_seq", sequenceName = "auditoria_seq", allocationSize = 100)
     @Column(name = "id_auditoria")
     private Long idAuditoria;
 
@@ -0,0 +1,104 @@
+package com.transacciones.transaction_ingestor.model;
+
+import com.transacciones.transaction_ingestor.model.enums.Granularidad;
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Objects;
+
+/**
+ * Checkpoint de un bucket de estadísticas (minuto, hora o día) de un nodo. Los valores vivos
+ * están en memoria (RollupEstadisticas); esta tabla permite recuperarlos al reiniciar, sumar
+ * los de las otras instancias y consultar días fuera de la retención en memoria.
+ */
+@Entity
+@Table(name = "estadisticas_rollup")
+@IdClass(EstadisticaRollup.Clave.class)
+public class EstadisticaRollup {
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "granularidad", length = 8)
+    private Granularidad granularidad;
+
+    /** Inicio del bucket */
+    @Id
+    @Column(name = "inicio")
+    private Timestamp inicio;
+
+    /** Instancia que contó el bucket (ids.nodo) */
+    @Id
+    @Column(name = "nodo")
+    private int nodo;
+
+    @Column(name = "transacciones", nullable = false)
+    private long transacciones;
+
+    @Column(name = "monto_total", nullable = false, precision = 18, scale = 2)
+    private BigDecimal montoTotal;
+
+    /** Alertas por bandera: {"sospechoso":{"cantidad":3,"monto":1520.75}, ...} */
+    @Column(name = "alertas_json", length = 512)
+    private String alertasJson;
+
+    /** Histograma de puntajes del modelo en 10 intervalos de 0.1: [n0, ..., n9] */
+    @Column(name = "histograma_json", length = 256)
+    private String histogramaJson;
+
+    @Column(name = "actualizado_en", nullable = false)
+    private Timestamp actualizadoEn;
+
+    public static class Clave implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private Granularidad granularidad;
+        private Timestamp inicio;
+        private int nodo;
+
+        public Clave() { }
+
+        public Clave(Granularidad granularidad, Timestamp inicio, int nodo) {
+            this.granularidad = granularidad;
+            this.inicio = inicio;
+            this.nodo = nodo;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Clave c && granularidad == c.granularidad && Objects.equals(inicio, c.inicio)
+                    && nodo == c.nodo;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(granularidad, inicio, nodo);
+        }
+    }
+
+    // Getters y setters
+    public Granularidad getGranularidad() { return granularidad; }
+    public void setGranularidad(Granularidad granularidad) { this.granularidad = granularidad; }
+
+    public Timestamp getInicio() { return inicio; }
+    public void setInicio(Timestamp inicio) { this.inicio = inicio; }
+
+    public int getNodo() { return nodo; }
+    public void setNodo(int nodo) { this.nodo = nodo; }
+
+    public long getTransacciones() { return transacciones; }
+    public void setTransacciones(long transacciones) { this.transacciones = transacciones; }
+
+    public BigDecimal getMontoTotal() { return montoTotal; }
+    public void setMontoTotal(BigDecimal montoTotal) { this.montoTotal = montoTotal; }
+
+    public String getAlertasJson() { return alertasJson; }
+    public void setAlertasJson(String alertasJson) { this.alertasJson = alertasJson; }
+
+    public String getHistogramaJson() { return histogramaJson; }
+    public void setHistogramaJson(String histogramaJson) { this.histogramaJson = histogramaJson; }
+
+    public Timestamp getActualizadoEn() { return actualizadoEn; }
+    public void setActualizadoEn(Timestamp actualizadoEn) { this.actualizadoEn = actualizadoEn; }
+}
@@ -1,5 +1,6 @@
 package com.transacciones.transaction_ingestor.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -12,6 +13,17 @@ import java.time.LocalDateTime;
 @Table(name = "transacciones")
 public class Transaccion {
 
+    // En MySQL la PK es (id_transaccion, timestamp_transaccion) desde V2 (la tabla particionada
+    // exige la columna de particionado en toda clave única), así que la base no rechaza el
+    // mismo ID con otro timestamp. La unicidad la sostiene la aplicación:
+    //  * los IDs que asigna el servicio (IdGenerator: TSID con un ids.nodo por instancia, o UUID)
+    //    no se repiten
+    //  * TransactionService.ingestar descarta los repetidos dentro del lote y, en la misma
+    //    transacción que el INSERT, los que ya están en la base (findExistingIds)
+    //  * los eventos de Kafka con la misma clave se procesan de a uno (KeyOrderedExecutor),
+    //    así un redelivery no corre en paralelo con el original
+    // Quedan fuera dos requests HTTP simultáneos con el mismo ID y distinto timestamp, y un
+    // reenvío de un ID cuya partición ya se archivó (findExistingIds sólo mira la base)
     @Id
     @Column(name = "id_transaccion", length = 64)
     @NotBlank
@@ -33,22 +45,48 @@ public class Transaccion {
     @NotNull
     private LocalDateTime timestampTransaccion;
 
-    @Column(precision = 10, scale = 6, nullable = false)
+    // Obligatorias por HTTP; los eventos de Kafka no traen ubicación
+    @Column(precision = 10, scale = 6)
     private BigDecimal latitud;
 
-    @Column(precision = 10, scale = 6, nullable = false)
+    @Column(precision = 10, scale = 6)
     private BigDecimal longitud;
 
     @Column(length = 4)
     private String pais;
 
+    // ===== Datos de los eventos de Kafka (null por HTTP) =====
+    @Column(length = 50)
+    private String tipo;
+
+    @Column(length = 500)
+    private String descripcion;
+
+    // Punto de entrada: HTTP o KAFKA
+    @Column(length = 8)
+    private String canal;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
-    @Column(name = "raw_json", columnDefinition = "json", nullable = false)
+    // Texto y no JSON: MySQL normaliza las columnas JSON (espacios, orden y duplicados de
+    // claves) y acá va el payload tal como llegó
+    @Lob
+    @Column(name = "raw_json", length = 16_777_215, nullable = false)
     private String rawJson;
 
+    // Payload original cuando no va en raw_json (binario o comprimido); ver CapturaPayload
+    @Lob
+    @JsonIgnore
+    @Column(name = "raw_payload", length = 16_777_215)
+    private byte[] rawPayload;
+
+    // Bytes tal como llegaron (HTTP o Kafka), para raw_json/raw_payload; no se persiste
+    @Transient
+    @JsonIgnore
+    private byte[] payloadOriginal;
+
     // ===== Getters/Setters =====
     public String getIdTransaccion() { return idTransaccion; }
     public void setIdTransaccion(String idTransaccion) { this.idTransaccion = idTransaccion; }
@@ -74,9 +112,24 @@ public class Transaccion {
     public String getPais() { return pais; }
     public void setPais(String pais) { this.pais = pais; }
 
+    public String getTipo() { return tipo; }
+    public void setTipo(String tipo) { this.tipo = tipo; }
+
+    public String getDescripcion() { return descripcion; }
+    public void setDescripcion(String descripcion) { this.descripcion = descripcion; }
+
+    public String getCanal() { return canal; }
+    public void setCanal(String canal) { this.canal = canal; }
+
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 
     public String getRawJson() { return rawJson; }
     public void setRawJson(String rawJson) { this.rawJson = rawJson; }
-}
\ No newline at end of file
+
+    public byte[] getRawPayload() { return rawPayload; }
+    public void setRawPayload(byte[] rawPayload) { this.rawPayload = rawPayload; }
+
+    public byte[] getPayloadOriginal() { return payloadOriginal; }
+    public void setPayloadOriginal(byte[] payloadOriginal) { this.payloadOriginal = payloadOriginal; }
+}
@@ -1,5 +1,5 @@
 package com.transacciones.transaction_ingestor.model.enums;
 
 public enum Bandera {
-    ok, sospechoso, bloqueado
+    ok, review, sospechoso, bloqueado
 }
\ No newline at end of file
@@ -0,0 +1,5 @@
+package com.transacciones.transaction_ingestor.model.enums;
+
+public enum Granularidad {
+    minuto, hora, dia
+}
@@ -1,8 +1,16 @@
 package com.transacciones.transaction_ingestor.repository;
 
+import com.transacciones.transaction_ingestor.alerts.DecisionGuardada;
+import com.transacciones.transaction_ingestor.alerts.FilaAlerta;
 import com.transacciones.transaction_ingestor.model.Alerta;
+import com.transacciones.transaction_ingestor.model.enums.Bandera;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.sql.Timestamp;
+import java.util.Collection;
 import java.util.List;
 
 public interface AlertaRepository extends JpaRepository<Alerta, Long> {
@@ -12,4 +20,41 @@ public interface AlertaRepository extends JpaRepository<Alerta, Long> {
 
     // Si NO tenés createdAt, usá el ID (ajusta el nombre exacto del campo):
     // List<Alerta> findTop100ByOrderByIdAlertaDesc();
-}
\ No newline at end of file
+
+    // Transacciones de la lista que ya tienen alerta (uk_alert_tx), en una sola consulta IN
+    @Query("SELECT a.transaccion.idTransaccion FROM Alerta a WHERE a.transaccion.idTransaccion IN :ids")
+    List<String> findIdsTransaccionConAlerta(@Param("ids") Collection<String> ids);
+
+    // Decisión guardada de las transacciones de la lista que tienen alerta (las que no tienen
+    // quedaron en ok), con el motivo de la auditoría automática, en una sola consulta IN
+    @Query("""
+            SELECT new com.transacciones.transaction_ingestor.alerts.DecisionGuardada(
+                a.transaccion.idTransaccion, a.bandera, au.descripcionAccion)
+            FROM Alerta a LEFT JOIN Auditoria au ON au.alerta = a AND au.accion = 'auto_creada'
+            WHERE a.transaccion.idTransaccion IN :ids
+            """)
+    List<DecisionGuardada> findDecisiones(@Param("ids") Collection<String> ids);
+
+    // Página del panel: proyección con un solo JOIN (sin entidades ni N+1), orden
+    // (created_at, id_alerta) desc sobre idx_alert_created y cursor keyset (antesDe, antesId).
+    // Los filtros en null no aplican. LEFT JOIN: las alertas de transacciones ya archivadas
+    // (RetencionTransacciones) siguen apareciendo, sin la ubicación
+    @Query("""
+            SELECT new com.transacciones.transaction_ingestor.alerts.FilaAlerta(
+                a.idAlerta, a.createdAt, a.transaccion.idTransaccion, a.monto, a.fechaOnly, a.horaOnly,
+                t.pais, t.latitud, t.longitud, a.bandera)
+            FROM Alerta a LEFT JOIN a.transaccion t
+            WHERE (:bandera IS NULL OR a.bandera = :bandera)
+              AND (:desde IS NULL OR a.createdAt >= :desde)
+              AND (:hasta IS NULL OR a.createdAt < :hasta)
+              AND (:antesDe IS NULL OR a.createdAt < :antesDe
+                   OR (a.createdAt = :antesDe AND a.idAlerta < :antesId))
+            ORDER BY a.createdAt DESC, a.idAlerta DESC
+            """)
+    List<FilaAlerta> findPagina(@Param("bandera") Bandera bandera,
+                                @Param("desde") Timestamp desde,
+                                @Param("hasta") Timestamp hasta,
+                                @Param("antesDe") Timestamp antesDe,
+                                @Param("antesId") Long antesId,
+                                Limit limit);
+}
@@ -0,0 +1,34 @@
+package com.transacciones.transaction_ingestor.repository;
+
+import com.transacciones.transaction_ingestor.model.EstadisticaRollup;
+import com.transacciones.transaction_ingestor.model.enums.Granularidad;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+public interface EstadisticaRollupRepository extends JpaRepository<EstadisticaRollup, EstadisticaRollup.Clave> {
+
+    // Buckets de una granularidad en [desde, hasta), de todos los nodos
+    @Query("SELECT e FROM EstadisticaRollup e WHERE e.granularidad = :granularidad"
+            + " AND e.inicio >= :desde AND e.inicio < :hasta")
+    List<EstadisticaRollup> findRango(@Param("granularidad") Granularidad granularidad,
+                                      @Param("desde") Timestamp desde,
+                                      @Param("hasta") Timestamp hasta);
+
+    // Los mismos, sólo los que guardó un nodo (los que recupera al arrancar)
+    @Query("SELECT e FROM EstadisticaRollup e WHERE e.granularidad = :granularidad AND e.nodo = :nodo"
+            + " AND e.inicio >= :desde AND e.inicio < :hasta")
+    List<EstadisticaRollup> findRangoDelNodo(@Param("granularidad") Granularidad granularidad,
+                                             @Param("nodo") int nodo,
+                                             @Param("desde") Timestamp desde,
+                                             @Param("hasta") Timestamp hasta);
+
+    // Poda de buckets viejos en un solo DELETE (sin cargar las entidades)
+    @Modifying
+    @Query("DELETE FROM EstadisticaRollup e WHERE e.granularidad = :granularidad AND e.inicio < :limite")
+    int deleteAnteriores(@Param("granularidad") Granularidad granularidad, @Param("limite") Timestamp limite);
+}
@@ -6,10 +6,10 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
-public interface TransactionRepository extends JpaRepository<Transaccion, String> {
+public interface TransactionRepository extends JpaRepository<Transaccion, String>, TransactionRepositoryCustom {
 
     // Últimas 100 transacciones por fecha/hora descendente
     List<Transaccion> findTop100ByOrderByTimestampTransaccionDesc();
@@ -17,14 +17,14 @@ public interface TransactionRepository extends JpaRepository<Transaccion, String
     // Transacciones recientes de un usuario
     List<Transaccion> findByUsuario_IdUsuarioOrderByTimestampTransaccionDesc(String idUsuario);
 
-    // Transacciones en un rango de tiempo
-    List<Transaccion> findByTimestampTransaccionBetweenOrderByTimestampTransaccionDesc(
-            LocalDateTime desde, LocalDateTime hasta
-    );
-
-    // Ejemplo con @Query: mínimo monto + orden por fecha
+    // Ejemplo con @Query: mínimo monto + orden por fecha. Sólo la base: lo archivado no es reciente
     @Query("SELECT t FROM Transaccion t WHERE t.monto >= :min ORDER BY t.timestampTransaccion DESC")
     List<Transaccion> findRecentWithMinAmount(@Param("min") BigDecimal min);
+
+    // IDs que ya existen dentro de un lote (una sola consulta IN, sin cargar raw_json). Con la
+    // tabla particionada es lo que evita IDs repetidos: ver el comentario de Transaccion.idTransaccion
+    @Query("SELECT t.idTransaccion FROM Transaccion t WHERE t.idTransaccion IN :ids")
+    List<String> findExistingIds(@Param("ids") Collection<String> ids);
     // ========================================
     // NUEVOS MÉTODOS PARA KAFKA - AGREGAR AQUÍ
     // ========================================
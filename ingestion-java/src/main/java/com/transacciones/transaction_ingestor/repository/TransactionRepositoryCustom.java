@@ -0,0 +1,18 @@
+package com.transacciones.transaction_ingestor.repository;
+
+import com.transacciones.transaction_ingestor.model.Transaccion;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface TransactionRepositoryCustom {
+
+    /**
+     * Transacciones en un rango de tiempo, de la más nueva a la más vieja. La parte del rango
+     * que ya salió de la base (particiones archivadas por RetencionTransacciones) se lee del
+     * archivo local; las archivadas vuelven sin la relación usuario (sólo idUsuario) y sin
+     * raw_payload.
+     */
+    List<Transaccion> findByTimestampTransaccionBetweenOrderByTimestampTransaccionDesc(
+            LocalDateTime desde, LocalDateTime hasta);
+}
@@ -0,0 +1,53 @@
+package com.transacciones.transaction_ingestor.repository;
+
+import com.transacciones.transaction_ingestor.archivo.ArchivoTransacciones;
+import com.transacciones.transaction_ingestor.model.Transaccion;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Consultas por rango sobre la base (con poda de particiones por timestamp_transaccion) más
+ * el archivo de las particiones vencidas.
+ */
+class TransactionRepositoryImpl implements TransactionRepositoryCustom {
+
+    private static final String ENTRE = "SELECT t FROM Transaccion t "
+            + "WHERE t.timestampTransaccion BETWEEN :desde AND :hasta ORDER BY t.timestampTransaccion DESC";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ArchivoTransacciones archivo;
+
+    TransactionRepositoryImpl(ArchivoTransacciones archivo) {
+        this.archivo = archivo;
+    }
+
+    @Override
+    public List<Transaccion> findByTimestampTransaccionBetweenOrderByTimestampTransaccionDesc(
+            LocalDateTime desde, LocalDateTime hasta) {
+        List<Transaccion> enBase = entityManager.createQuery(ENTRE, Transaccion.class)
+                .setParameter("desde", desde)
+                .setParameter("hasta", hasta)
+                .getResultList();
+        // Sin archivos que se solapen con el rango, no toca el disco
+        List<Transaccion> archivadas = archivo.leer(desde, hasta);
+        if (archivadas.isEmpty()) {
+            return enBase;
+        }
+        // Una partición exportada y todavía no borrada (caída antes del DROP) está en los
+        // dos lados: gana la base
+        Map<String, Transaccion> porId = new LinkedHashMap<>();
+        enBase.forEach(tx -> porId.put(tx.getIdTransaccion(), tx));
+        archivadas.forEach(tx -> porId.putIfAbsent(tx.getIdTransaccion(), tx));
+        return porId.values().stream()
+                .sorted(Comparator.comparing(Transaccion::getTimestampTransaccion).reversed())
+                .toList();
+    }
+}
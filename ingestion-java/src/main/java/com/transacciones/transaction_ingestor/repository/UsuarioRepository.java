@@ -1,7 +1,18 @@
 package com.transacciones.transaction_ingestor.repository;
 
 import com.transacciones.transaction_ingestor.model.Usuario;
+import com.transacciones.transaction_ingestor.usuarios.EstadoCuenta;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface UsuarioRepository extends JpaRepository<Usuario, String> {
-}
\ No newline at end of file
+import java.util.Collection;
+import java.util.List;
+
+public interface UsuarioRepository extends JpaRepository<Usuario, String>, UsuarioRepositoryCustom {
+
+    // Estado de cuenta de varios usuarios en una sola consulta, sin cargar las entidades
+    @Query("SELECT new com.transacciones.transaction_ingestor.usuarios.EstadoCuenta(u.idUsuario, u.estadoCuenta) "
+            + "FROM Usuario u WHERE u.idUsuario IN :ids")
+    List<EstadoCuenta> findEstados(@Param("ids") Collection<String> ids);
+}
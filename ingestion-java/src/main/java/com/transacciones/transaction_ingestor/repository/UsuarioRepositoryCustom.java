@@ -0,0 +1,15 @@
+package com.transacciones.transaction_ingestor.repository;
+
+import com.transacciones.transaction_ingestor.model.Usuario;
+
+import java.util.Collection;
+
+public interface UsuarioRepositoryCustom {
+
+    /**
+     * Inserta los usuarios que no existen y deja intactos los que ya existen, en un solo
+     * batch de upserts atómicos: dos ingestas concurrentes del mismo usuario nuevo no chocan
+     * contra la clave primaria.
+     */
+    void insertarSiNoExisten(Collection<Usuario> usuarios);
+}
@@ -0,0 +1,37 @@
+package com.transacciones.transaction_ingestor.repository;
+
+import com.transacciones.transaction_ingestor.model.Usuario;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+
+/**
+ * Upsert nativo de usuarios (MySQL y H2 en modo MySQL). Corre con la conexión de la
+ * transacción JPA en curso.
+ */
+class UsuarioRepositoryImpl implements UsuarioRepositoryCustom {
+
+    private static final String UPSERT = "INSERT INTO usuarios (id_usuario, pais, estado_cuenta, fecha_creacion) "
+            + "VALUES (?, ?, ?, ?) ON DUPLICATE KEY UPDATE id_usuario = id_usuario";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    UsuarioRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insertarSiNoExisten(Collection<Usuario> usuarios) {
+        if (usuarios.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPSERT, usuarios, usuarios.size(), (ps, u) -> {
+            ps.setString(1, u.getIdUsuario());
+            ps.setString(2, u.getPais());
+            ps.setString(3, u.getEstadoCuenta());
+            ps.setTimestamp(4, u.getFechaCreacion() != null
+                    ? u.getFechaCreacion() : new Timestamp(System.currentTimeMillis()));
+        });
+    }
+}
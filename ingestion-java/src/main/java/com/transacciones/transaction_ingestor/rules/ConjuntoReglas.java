@@ -0,0 +1,14 @@
+package com.transacciones.transaction_ingestor.rules;
+
+import java.util.List;
+
+/**
+ * Conjunto de reglas versionado que se compila y se activa como una unidad.
+ * @param umbralRiesgo puntaje (0 a 1) a partir del cual una transacción se marca sospechosa
+ */
+public record ConjuntoReglas(
+        String version,
+        Double umbralRiesgo,
+        List<DefinicionRegla> reglas
+) {
+}
@@ -0,0 +1,36 @@
+package com.transacciones.transaction_ingestor.rules;
+
+import com.transacciones.transaction_ingestor.features.VelocityFeatureStore;
+
+import java.math.BigDecimal;
+
+/**
+ * Datos de la transacción que leen las reglas. Es mutable para poder reutilizarse
+ * entre evaluaciones del mismo hilo sin reservar memoria.
+ */
+public final class ContextoReglas {
+
+    String cuenta;
+    boolean tieneMonto;
+    double monto;
+    String tipo;
+    String pais;
+    DefinicionRegla.Canal canal;
+    final double[] features = new double[VelocityFeatureStore.CANTIDAD_FEATURES];
+
+    public ContextoReglas cargar(String cuenta, BigDecimal monto, String tipo, String pais,
+                                 DefinicionRegla.Canal canal) {
+        this.cuenta = cuenta;
+        this.tieneMonto = monto != null;
+        this.monto = monto != null ? monto.doubleValue() : 0d;
+        this.tipo = tipo;
+        this.pais = pais;
+        this.canal = canal;
+        return this;
+    }
+
+    /** Features de velocidad de la cuenta (previas a esta transacción). */
+    public double[] features() {
+        return features;
+    }
+}
@@ -0,0 +1,44 @@
+package com.transacciones.transaction_ingestor.rules;
+
+import java.util.List;
+
+/**
+ * Definición de una regla tal como se carga desde JSON.
+ * @param id identificador estable; es lo que se guarda en Alerta.reasonsJson
+ * @param tipo qué evalúa la regla
+ * @param accion RECHAZAR (eliminatoria) o ALERTAR
+ * @param canal KAFKA, HTTP o null para ambos
+ * @param umbral límite para MONTO_MAXIMO y VELOCIDAD (dispara si el valor lo supera)
+ * @param valores tipos permitidos (TIPO_PERMITIDO) o países bloqueados (PAIS_BLOQUEADO)
+ * @param feature feature de velocidad para VELOCIDAD, p.ej. CANTIDAD_1M o PAISES_1H
+ * @param descripcion texto del motivo (rejectionReason / log)
+ * @param activa false para deshabilitar la regla sin borrarla; null equivale a true
+ */
+public record DefinicionRegla(
+        String id,
+        Tipo tipo,
+        Accion accion,
+        Canal canal,
+        Double umbral,
+        List<String> valores,
+        String feature,
+        String descripcion,
+        Boolean activa
+) {
+
+    public enum Tipo {
+        MONTO_MAXIMO, TIPO_PERMITIDO, CUENTA_REQUERIDA, PAIS_BLOQUEADO, VELOCIDAD
+    }
+
+    public enum Accion {
+        RECHAZAR, ALERTAR
+    }
+
+    public enum Canal {
+        KAFKA, HTTP
+    }
+
+    public boolean estaActiva() {
+        return activa == null || activa;
+    }
+}
@@ -0,0 +1,108 @@
+package com.transacciones.transaction_ingestor.rules;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.transacciones.transaction_ingestor.features.VelocityFeatureStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+
+/**
+ * Motor de reglas de validación/alerta. Las reglas se cargan desde JSON
+ * ({@code reglas.archivo}) y se compilan a un {@link PlanReglas}; un conjunto nuevo se
+ * activa reemplazando la referencia al plan, así las evaluaciones en curso terminan con
+ * el plan anterior y el camino de lectura no toma locks.
+ */
+@Component
+public class MotorReglas {
+
+    private static final Logger log = LoggerFactory.getLogger(MotorReglas.class);
+
+    private final VelocityFeatureStore velocityFeatureStore;
+    private final ObjectMapper objectMapper;
+    private final ResourceLoader resourceLoader;
+    private final String archivo;
+
+    // Un contexto reutilizable por hilo: evaluar no reserva memoria si no dispara ninguna regla
+    private final ThreadLocal<ContextoReglas> contextos = ThreadLocal.withInitial(ContextoReglas::new);
+
+    private volatile PlanReglas plan;
+
+    public MotorReglas(VelocityFeatureStore velocityFeatureStore,
+                       ObjectMapper objectMapper,
+                       ResourceLoader resourceLoader,
+                       @Value("${reglas.archivo:classpath:reglas/reglas-default.json}") String archivo) {
+        this.velocityFeatureStore = velocityFeatureStore;
+        this.objectMapper = objectMapper;
+        this.resourceLoader = resourceLoader;
+        this.archivo = archivo;
+        recargar();
+    }
+
+    /**
+     * Evalúa las reglas activas sobre una transacción.
+     * @param canal canal de entrada; las reglas de otro canal se ignoran
+     */
+    public ResultadoReglas evaluar(String cuenta, BigDecimal monto, String tipo, String pais,
+                                   DefinicionRegla.Canal canal) {
+        PlanReglas actual = plan;
+        ContextoReglas contexto = contextos.get().cargar(cuenta, monto, tipo, pais, canal);
+        if (actual.usaVelocidad()) {
+            velocityFeatureStore.leer(cuenta, contexto.features());
+        }
+        return actual.resultado(actual.evaluar(contexto), contexto);
+    }
+
+    /**
+     * Como {@link #evaluar(String, BigDecimal, String, String, DefinicionRegla.Canal)} pero con
+     * las features de velocidad ya leídas para el modelo, así reglas y modelo deciden sobre la
+     * misma lectura.
+     * @param velocidad vector con las features de velocidad a partir de {@code offset}
+     */
+    public ResultadoReglas evaluar(String cuenta, BigDecimal monto, String tipo, String pais,
+                                   DefinicionRegla.Canal canal, double[] velocidad, int offset) {
+        PlanReglas actual = plan;
+        ContextoReglas contexto = contextos.get().cargar(cuenta, monto, tipo, pais, canal);
+        System.arraycopy(velocidad, offset, contexto.features(), 0, VelocityFeatureStore.CANTIDAD_FEATURES);
+        return actual.resultado(actual.evaluar(contexto), contexto);
+    }
+
+    /**
+     * Compila y activa un conjunto de reglas.
+     * @throws IllegalArgumentException si el conjunto es inválido (el plan activo no cambia)
+     */
+    public ConjuntoReglas activar(ConjuntoReglas conjunto) {
+        PlanReglas nuevo = PlanReglas.compilar(conjunto);
+        plan = nuevo;
+        log.info("Reglas activadas: versión {} ({} reglas)", conjunto.version(), conjunto.reglas().size());
+        return conjunto;
+    }
+
+    /**
+     * Vuelve a leer {@code reglas.archivo} y lo activa.
+     */
+    public ConjuntoReglas recargar() {
+        Resource recurso = resourceLoader.getResource(archivo);
+        try (InputStream in = recurso.getInputStream()) {
+            return activar(objectMapper.readValue(in, ConjuntoReglas.class));
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer el archivo de reglas " + archivo, e);
+        }
+    }
+
+    public ConjuntoReglas definicionActual() {
+        return plan.definicion();
+    }
+
+    /** Umbral de riesgo del conjunto activo, o null si no está definido. */
+    public Double umbralRiesgo() {
+        return plan.definicion().umbralRiesgo();
+    }
+}
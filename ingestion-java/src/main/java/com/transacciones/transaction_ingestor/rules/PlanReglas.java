@@ -0,0 +1,187 @@
+package com.transacciones.transaction_ingestor.rules;
+
+import com.transacciones.transaction_ingestor.features.VelocityFeatureStore;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Conjunto de reglas compilado: cada definición se traduce una sola vez a una condición
+ * sobre campos primitivos del {@link ContextoReglas}. Evaluar recorre un array y arma una
+ * máscara de bits, sin reservar memoria salvo cuando alguna regla dispara. Es inmutable,
+ * así se puede publicar con una sola escritura y leer sin locks.
+ */
+final class PlanReglas {
+
+    static final int MAX_REGLAS = 64;
+
+    @FunctionalInterface
+    private interface Condicion {
+        boolean dispara(ContextoReglas c);
+    }
+
+    private final ConjuntoReglas definicion;
+    private final String[] ids;
+    private final String[] descripciones;
+    private final DefinicionRegla.Tipo[] tipos;
+    private final boolean[] rechaza;
+    private final DefinicionRegla.Canal[] canales;
+    private final Condicion[] condiciones;
+    private final boolean usaVelocidad;
+
+    private PlanReglas(ConjuntoReglas definicion, List<DefinicionRegla> activas) {
+        int n = activas.size();
+        this.definicion = definicion;
+        this.ids = new String[n];
+        this.descripciones = new String[n];
+        this.tipos = new DefinicionRegla.Tipo[n];
+        this.rechaza = new boolean[n];
+        this.canales = new DefinicionRegla.Canal[n];
+        this.condiciones = new Condicion[n];
+        boolean velocidad = false;
+        for (int i = 0; i < n; i++) {
+            DefinicionRegla regla = activas.get(i);
+            ids[i] = regla.id();
+            descripciones[i] = regla.descripcion() != null ? regla.descripcion() : regla.id();
+            tipos[i] = regla.tipo();
+            rechaza[i] = regla.accion() == DefinicionRegla.Accion.RECHAZAR;
+            canales[i] = regla.canal();
+            condiciones[i] = compilar(regla);
+            velocidad |= regla.tipo() == DefinicionRegla.Tipo.VELOCIDAD;
+        }
+        this.usaVelocidad = velocidad;
+    }
+
+    /**
+     * Valida y compila un conjunto de reglas.
+     * @throws IllegalArgumentException si alguna definición es inválida
+     */
+    static PlanReglas compilar(ConjuntoReglas definicion) {
+        if (definicion == null || definicion.reglas() == null) {
+            throw new IllegalArgumentException("El conjunto de reglas no tiene reglas");
+        }
+        if (definicion.umbralRiesgo() != null && (definicion.umbralRiesgo() < 0 || definicion.umbralRiesgo() > 1)) {
+            throw new IllegalArgumentException("umbralRiesgo debe estar entre 0 y 1");
+        }
+        Set<String> ids = new HashSet<>();
+        List<DefinicionRegla> activas = new ArrayList<>();
+        for (DefinicionRegla regla : definicion.reglas()) {
+            if (regla == null || regla.id() == null || regla.id().isBlank() || regla.tipo() == null
+                    || regla.accion() == null) {
+                throw new IllegalArgumentException("Cada regla necesita id, tipo y accion");
+            }
+            if (!ids.add(regla.id())) {
+                throw new IllegalArgumentException("Id de regla repetido: " + regla.id());
+            }
+            if (regla.estaActiva()) {
+                activas.add(regla);
+            }
+        }
+        if (activas.size() > MAX_REGLAS) {
+            throw new IllegalArgumentException("Máximo " + MAX_REGLAS + " reglas activas");
+        }
+        return new PlanReglas(definicion, activas);
+    }
+
+    ConjuntoReglas definicion() {
+        return definicion;
+    }
+
+    boolean usaVelocidad() {
+        return usaVelocidad;
+    }
+
+    /**
+     * Evalúa todas las reglas del canal del contexto.
+     * @return máscara con el bit i encendido si disparó la regla i
+     */
+    long evaluar(ContextoReglas contexto) {
+        long disparadas = 0L;
+        for (int i = 0; i < condiciones.length; i++) {
+            if ((canales[i] == null || canales[i] == contexto.canal) && condiciones[i].dispara(contexto)) {
+                disparadas |= 1L << i;
+            }
+        }
+        return disparadas;
+    }
+
+    /** Traduce la máscara de {@link #evaluar} a un resultado (sólo se llama si disparó algo). */
+    ResultadoReglas resultado(long disparadas, ContextoReglas contexto) {
+        if (disparadas == 0L) {
+            return ResultadoReglas.NINGUNA;
+        }
+        List<String> reglas = new ArrayList<>(Long.bitCount(disparadas));
+        int primera = -1;
+        int primeraEliminatoria = -1;
+        for (int i = 0; i < ids.length; i++) {
+            if ((disparadas & (1L << i)) != 0) {
+                reglas.add(ids[i]);
+                if (primera < 0) {
+                    primera = i;
+                }
+                if (rechaza[i] && primeraEliminatoria < 0) {
+                    primeraEliminatoria = i;
+                }
+            }
+        }
+        int motivo = primeraEliminatoria >= 0 ? primeraEliminatoria : primera;
+        return new ResultadoReglas(List.copyOf(reglas), primeraEliminatoria >= 0,
+                motivo(motivo, contexto), definicion.version());
+    }
+
+    private String motivo(int i, ContextoReglas contexto) {
+        return switch (tipos[i]) {
+            case TIPO_PERMITIDO -> descripciones[i] + ": " + contexto.tipo;
+            case PAIS_BLOQUEADO -> descripciones[i] + ": " + contexto.pais;
+            default -> descripciones[i];
+        };
+    }
+
+    private static Condicion compilar(DefinicionRegla regla) {
+        return switch (regla.tipo()) {
+            case MONTO_MAXIMO -> {
+                double umbral = umbral(regla);
+                yield c -> c.tieneMonto && c.monto > umbral;
+            }
+            case TIPO_PERMITIDO -> {
+                Set<String> permitidos = Set.copyOf(valores(regla));
+                yield c -> c.tipo == null || !permitidos.contains(c.tipo);
+            }
+            case CUENTA_REQUERIDA -> c -> c.cuenta == null || c.cuenta.isEmpty();
+            case PAIS_BLOQUEADO -> {
+                Set<String> bloqueados = Set.copyOf(valores(regla));
+                yield c -> c.pais != null && bloqueados.contains(c.pais);
+            }
+            case VELOCIDAD -> {
+                int indice = indiceFeature(regla);
+                double umbral = umbral(regla);
+                yield c -> c.features[indice] > umbral;
+            }
+        };
+    }
+
+    private static double umbral(DefinicionRegla regla) {
+        if (regla.umbral() == null) {
+            throw new IllegalArgumentException("La regla " + regla.id() + " necesita umbral");
+        }
+        return regla.umbral();
+    }
+
+    private static List<String> valores(DefinicionRegla regla) {
+        if (regla.valores() == null || regla.valores().isEmpty()) {
+            throw new IllegalArgumentException("La regla " + regla.id() + " necesita valores");
+        }
+        return regla.valores();
+    }
+
+    private static int indiceFeature(DefinicionRegla regla) {
+        int indice = VelocityFeatureStore.indiceFeature(regla.feature());
+        if (indice < 0) {
+            throw new IllegalArgumentException("Feature de velocidad desconocida en la regla " + regla.id()
+                    + ": " + regla.feature());
+        }
+        return indice;
+    }
+}
@@ -0,0 +1,74 @@
+package com.transacciones.transaction_ingestor.rules;
+
+import com.transacciones.transaction_ingestor.config.TokenAdmin;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Consulta y reemplazo en caliente del conjunto de reglas activo.
+ * <p>
+ * PUT /rules y POST /rules/reload cambian qué transacciones se rechazan: sólo están
+ * habilitados si se configura {@code reglas.admin.token}, y exigen ese valor en el header
+ * {@value TokenAdmin#HEADER} ({@link TokenAdmin}). Sin token responden 404. CORS sólo se
+ * abre para la consulta.
+ */
+@RestController
+@RequestMapping("/rules")
+@CrossOrigin(origins = "*", methods = RequestMethod.GET)
+public class ReglasController {
+
+    private final MotorReglas motorReglas;
+    private final TokenAdmin tokenAdmin;
+
+    public ReglasController(MotorReglas motorReglas, TokenAdmin tokenAdmin) {
+        this.motorReglas = motorReglas;
+        this.tokenAdmin = tokenAdmin;
+    }
+
+    @GetMapping
+    public ConjuntoReglas actual() {
+        return motorReglas.definicionActual();
+    }
+
+    /**
+     * Activa un conjunto nuevo sin reiniciar. No se persiste: un reinicio o un
+     * /rules/reload vuelven a las reglas del archivo.
+     */
+    @PutMapping
+    public ResponseEntity<Object> reemplazar(@RequestHeader(name = TokenAdmin.HEADER, required = false) String token,
+                                             @RequestBody ConjuntoReglas conjunto) {
+        return autorizado(token, () -> motorReglas.activar(conjunto));
+    }
+
+    /**
+     * Vuelve a cargar las reglas desde reglas.archivo.
+     */
+    @PostMapping("/reload")
+    public ResponseEntity<Object> recargar(@RequestHeader(name = TokenAdmin.HEADER, required = false) String token) {
+        return autorizado(token, motorReglas::recargar);
+    }
+
+    private ResponseEntity<Object> autorizado(String token, Supplier<ConjuntoReglas> cambio) {
+        ResponseEntity<Object> rechazo = tokenAdmin.rechazo(token);
+        if (rechazo != null) {
+            return rechazo;
+        }
+        try {
+            return ResponseEntity.ok(cambio.get());
+        } catch (IllegalArgumentException | UncheckedIOException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.transacciones.transaction_ingestor.rules;
+
+import java.util.List;
+
+/**
+ * Reglas que dispararon para una transacción.
+ * @param reglas ids de las reglas disparadas, en orden de evaluación
+ * @param rechazar true si alguna regla eliminatoria disparó
+ * @param motivo descripción de la primera regla eliminatoria, o de la primera regla si no hubo ninguna
+ * @param version versión del conjunto de reglas que tomó la decisión
+ */
+public record ResultadoReglas(List<String> reglas, boolean rechazar, String motivo, String version) {
+
+    /** Resultado compartido cuando no dispara ninguna regla (no reserva memoria). */
+    public static final ResultadoReglas NINGUNA = new ResultadoReglas(List.of(), false, null, null);
+
+    public boolean disparo() {
+        return !reglas.isEmpty();
+    }
+}
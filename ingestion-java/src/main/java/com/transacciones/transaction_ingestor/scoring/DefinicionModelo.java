@@ -0,0 +1,25 @@
+package com.transacciones.transaction_ingestor.scoring;
+
+import java.util.List;
+
+/**
+ * Modelo de regresión logística tal como se guarda en el archivo JSON.
+ * El puntaje es {@code 1 / (1 + e^-z)} con {@code z = intercepto + Σ peso_i * (x_i - media_i) / escala_i}.
+ * @param features nombres de {@link FeaturesScoring}, en el orden de los pesos
+ * @param media media de cada feature para estandarizar (null = 0)
+ * @param escala desvío de cada feature para estandarizar (null = 1)
+ * @param umbralReview puntaje a partir del cual la transacción va a revisión
+ * @param umbralSospechoso puntaje a partir del cual es sospechosa (si el conjunto de reglas
+ *                         define umbralRiesgo, tiene prioridad)
+ */
+public record DefinicionModelo(
+        String version,
+        double intercepto,
+        List<String> features,
+        List<Double> pesos,
+        List<Double> media,
+        List<Double> escala,
+        double umbralReview,
+        double umbralSospechoso
+) {
+}
@@ -0,0 +1,54 @@
+package com.transacciones.transaction_ingestor.scoring;
+
+import com.transacciones.transaction_ingestor.features.VelocityFeatureStore;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Layout del vector de features que recibe el modelo: features propias de la transacción
+ * seguidas de las de velocidad de {@link VelocityFeatureStore} (mismos nombres).
+ */
+public final class FeaturesScoring {
+
+    public static final int MONTO = 0;
+    public static final int LOG_MONTO = 1;
+    public static final int HORA = 2;
+    public static final int NOCTURNA = 3;
+    public static final int RATIO_MAXIMO_24H = 4;
+    /** Inicio de las features de velocidad dentro del vector. */
+    public static final int VELOCIDAD = 5;
+    public static final int CANTIDAD = VELOCIDAD + VelocityFeatureStore.CANTIDAD_FEATURES;
+
+    // Tope del ratio monto / máximo de 24 h, para que una cuenta nueva no domine el puntaje
+    static final double MAX_RATIO = 10d;
+
+    private static final List<String> NOMBRES;
+
+    static {
+        List<String> nombres = new ArrayList<>(List.of("MONTO", "LOG_MONTO", "HORA", "NOCTURNA", "RATIO_MAXIMO_24H"));
+        for (int i = 0; i < VelocityFeatureStore.CANTIDAD_FEATURES; i++) {
+            nombres.add(null);
+        }
+        for (String nombre : List.of("CANTIDAD", "SUMA", "MAXIMO", "PAISES")) {
+            for (String ventana : List.of("1M", "1H", "24H")) {
+                String completo = nombre + "_" + ventana;
+                nombres.set(VELOCIDAD + VelocityFeatureStore.indiceFeature(completo), completo);
+            }
+        }
+        NOMBRES = Collections.unmodifiableList(nombres);
+    }
+
+    private FeaturesScoring() {
+    }
+
+    /** Índice de la feature por nombre, o -1 si no existe. */
+    public static int indice(String nombre) {
+        return NOMBRES.indexOf(nombre);
+    }
+
+    public static String nombre(int indice) {
+        return NOMBRES.get(indice);
+    }
+}
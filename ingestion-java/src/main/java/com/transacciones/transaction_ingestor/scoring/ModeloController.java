@@ -0,0 +1,54 @@
+package com.transacciones.transaction_ingestor.scoring;
+
+import com.transacciones.transaction_ingestor.config.TokenAdmin;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+/**
+ * Consulta y recarga en caliente del modelo de scoring. La recarga, como los cambios de
+ * reglas, exige el token de administración en {@value TokenAdmin#HEADER} ({@link TokenAdmin});
+ * CORS sólo se abre para la consulta.
+ */
+@RestController
+@RequestMapping("/model")
+@CrossOrigin(origins = "*", methods = RequestMethod.GET)
+public class ModeloController {
+
+    private final MotorScoring motorScoring;
+    private final TokenAdmin tokenAdmin;
+
+    public ModeloController(MotorScoring motorScoring, TokenAdmin tokenAdmin) {
+        this.motorScoring = motorScoring;
+        this.tokenAdmin = tokenAdmin;
+    }
+
+    @GetMapping
+    public DefinicionModelo actual() {
+        return motorScoring.definicionActual();
+    }
+
+    /**
+     * Vuelve a cargar el modelo desde scoring.modelo (404 si no hay token configurado).
+     */
+    @PostMapping("/reload")
+    public ResponseEntity<Object> recargar(@RequestHeader(name = TokenAdmin.HEADER, required = false) String token) {
+        ResponseEntity<Object> rechazo = tokenAdmin.rechazo(token);
+        if (rechazo != null) {
+            return rechazo;
+        }
+        try {
+            return ResponseEntity.ok(motorScoring.recargar());
+        } catch (IllegalArgumentException | UncheckedIOException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
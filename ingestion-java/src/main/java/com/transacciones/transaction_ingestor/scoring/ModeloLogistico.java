@@ -0,0 +1,120 @@
+package com.transacciones.transaction_ingestor.scoring;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Regresión logística compilada a arrays primitivos. Puntuar no reserva memoria y
+ * {@link #puntuarLote} recorre una matriz row-major, para puntuar un lote completo
+ * en un solo llamado. Inmutable.
+ */
+final class ModeloLogistico {
+
+    private final DefinicionModelo definicion;
+    private final int[] indices;
+    private final double[] pesos;
+    private final double[] media;
+    private final double[] inversaEscala;
+    private final double intercepto;
+
+    private ModeloLogistico(DefinicionModelo definicion, int[] indices, double[] pesos,
+                            double[] media, double[] inversaEscala) {
+        this.definicion = definicion;
+        this.indices = indices;
+        this.pesos = pesos;
+        this.media = media;
+        this.inversaEscala = inversaEscala;
+        this.intercepto = definicion.intercepto();
+    }
+
+    /**
+     * Valida la definición y la traduce a arrays.
+     * @throws IllegalArgumentException si faltan pesos, hay features desconocidas o umbrales fuera de rango
+     */
+    static ModeloLogistico compilar(DefinicionModelo definicion) {
+        if (definicion == null || definicion.features() == null || definicion.pesos() == null
+                || definicion.features().size() != definicion.pesos().size()) {
+            throw new IllegalArgumentException("El modelo necesita la misma cantidad de features y pesos");
+        }
+        if (definicion.umbralReview() < 0 || definicion.umbralReview() > definicion.umbralSospechoso()
+                || definicion.umbralSospechoso() > 1) {
+            throw new IllegalArgumentException("Se espera 0 <= umbralReview <= umbralSospechoso <= 1");
+        }
+        int n = definicion.features().size();
+        int[] indices = new int[n];
+        double[] pesos = new double[n];
+        double[] media = new double[n];
+        double[] inversaEscala = new double[n];
+        for (int i = 0; i < n; i++) {
+            String nombre = definicion.features().get(i);
+            indices[i] = FeaturesScoring.indice(nombre);
+            if (indices[i] < 0) {
+                throw new IllegalArgumentException("Feature desconocida en el modelo: " + nombre);
+            }
+            pesos[i] = definicion.pesos().get(i);
+            media[i] = valor(definicion.media(), i, 0d);
+            double escala = valor(definicion.escala(), i, 1d);
+            if (escala <= 0) {
+                throw new IllegalArgumentException("La escala de " + nombre + " debe ser positiva");
+            }
+            inversaEscala[i] = 1d / escala;
+        }
+        return new ModeloLogistico(definicion, indices, pesos, media, inversaEscala);
+    }
+
+    DefinicionModelo definicion() {
+        return definicion;
+    }
+
+    /** Puntaje (0 a 1) del vector que empieza en {@code offset}. */
+    double puntuar(double[] x, int offset) {
+        return 1d / (1d + Math.exp(-margen(x, offset)));
+    }
+
+    /**
+     * Puntúa {@code filas} vectores consecutivos de {@link FeaturesScoring#CANTIDAD} valores.
+     */
+    void puntuarLote(double[] matriz, int filas, double[] salida) {
+        for (int f = 0, offset = 0; f < filas; f++, offset += FeaturesScoring.CANTIDAD) {
+            salida[f] = puntuar(matriz, offset);
+        }
+    }
+
+    /**
+     * Nombres de las {@code k} features que más empujaron el puntaje hacia arriba
+     * (sólo se usa al generar una alerta).
+     */
+    List<String> principalesContribuciones(double[] x, int offset, int k) {
+        double[] aporte = new double[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            aporte[i] = pesos[i] * (x[offset + indices[i]] - media[i]) * inversaEscala[i];
+        }
+        List<String> principales = new ArrayList<>(k);
+        for (int elegido = 0; elegido < k; elegido++) {
+            int mejor = -1;
+            for (int i = 0; i < aporte.length; i++) {
+                if (aporte[i] > 0 && (mejor < 0 || aporte[i] > aporte[mejor])) {
+                    mejor = i;
+                }
+            }
+            if (mejor < 0) {
+                break;
+            }
+            principales.add(FeaturesScoring.nombre(indices[mejor]));
+            aporte[mejor] = 0;
+        }
+        return principales;
+    }
+
+    private double margen(double[] x, int offset) {
+        double z = intercepto;
+        for (int i = 0; i < indices.length; i++) {
+            z += pesos[i] * (x[offset + indices[i]] - media[i]) * inversaEscala[i];
+        }
+        return z;
+    }
+
+    private static double valor(List<Double> valores, int i, double defecto) {
+        return valores != null && i < valores.size() && valores.get(i) != null ? valores.get(i) : defecto;
+    }
+}
@@ -0,0 +1,155 @@
+package com.transacciones.transaction_ingestor.scoring;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.transacciones.transaction_ingestor.features.VelocityFeatureStore;
+import com.transacciones.transaction_ingestor.model.Transaccion;
+import com.transacciones.transaction_ingestor.model.enums.Bandera;
+import com.transacciones.transaction_ingestor.rules.MotorReglas;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Scoring de fraude embebido: arma el vector de features de la transacción (incluidas las de
+ * velocidad) y lo puntúa con el modelo cargado desde {@code scoring.modelo}. Los vectores los
+ * provee el llamador, que los reutiliza entre el puntaje y la explicación. El modelo se
+ * reemplaza en caliente con {@link #recargar()}.
+ */
+@Component
+public class MotorScoring {
+
+    private static final Logger log = LoggerFactory.getLogger(MotorScoring.class);
+    private static final int MOTIVOS_POR_ALERTA = 3;
+
+    private final VelocityFeatureStore velocityFeatureStore;
+    private final MotorReglas motorReglas;
+    private final ObjectMapper objectMapper;
+    private final ResourceLoader resourceLoader;
+    private final String archivo;
+
+    private volatile ModeloLogistico modelo;
+
+    public MotorScoring(VelocityFeatureStore velocityFeatureStore,
+                        MotorReglas motorReglas,
+                        ObjectMapper objectMapper,
+                        ResourceLoader resourceLoader,
+                        @Value("${scoring.modelo:classpath:modelo/modelo-default.json}") String archivo) {
+        this.velocityFeatureStore = velocityFeatureStore;
+        this.motorReglas = motorReglas;
+        this.objectMapper = objectMapper;
+        this.resourceLoader = resourceLoader;
+        this.archivo = archivo;
+        recargar();
+    }
+
+    /**
+     * Arma el vector de features de una transacción (con las de velocidad previas a ella) en
+     * {@code x[offset .. offset + FeaturesScoring.CANTIDAD)}. Se calcula una sola vez por
+     * transacción y se pasa tal cual a {@link #puntuar} y a {@link #explicar}, así el puntaje
+     * y su explicación ven las mismas features.
+     */
+    public void features(String cuenta, BigDecimal monto, LocalDateTime timestamp, double[] x, int offset) {
+        llenar(x, offset, cuenta, monto, timestamp, System.currentTimeMillis());
+    }
+
+    /**
+     * Puntaje (0 a 1) de un vector armado con {@link #features}.
+     */
+    public double puntuar(double[] x, int offset) {
+        return modelo.puntuar(x, offset);
+    }
+
+    /**
+     * Arma las features de todas las transacciones de un lote (con el mismo instante de
+     * lectura) y las puntúa en un solo recorrido.
+     * @param features matriz de al menos {@code lote.size() * FeaturesScoring.CANTIDAD}
+     *                 posiciones; la fila f queda en el offset {@code f * FeaturesScoring.CANTIDAD}
+     * @param salida array de al menos {@code lote.size()} posiciones para los puntajes
+     */
+    public void puntuarLote(List<Transaccion> lote, double[] features, double[] salida) {
+        ModeloLogistico actual = modelo;
+        int filas = lote.size();
+        long ahora = System.currentTimeMillis();
+        for (int f = 0; f < filas; f++) {
+            Transaccion tx = lote.get(f);
+            llenar(features, f * FeaturesScoring.CANTIDAD, tx.getIdUsuario(), tx.getMonto(), tx.getTimestampTransaccion(), ahora);
+        }
+        actual.puntuarLote(features, filas, salida);
+    }
+
+    /**
+     * Puntaje, bandera y features que más pesaron de un vector armado con {@link #features}
+     * o {@link #puntuarLote}; reserva memoria, para el camino de alertas.
+     */
+    public ResultadoScoring explicar(double[] x, int offset) {
+        ModeloLogistico actual = modelo;
+        double puntaje = actual.puntuar(x, offset);
+        return new ResultadoScoring(puntaje, bandera(puntaje),
+                actual.principalesContribuciones(x, offset, MOTIVOS_POR_ALERTA), actual.definicion().version());
+    }
+
+    /**
+     * ok / review / sospechoso según los umbrales del modelo; el umbralRiesgo del conjunto
+     * de reglas, si está definido, reemplaza al umbral de sospechoso.
+     */
+    public Bandera bandera(double puntaje) {
+        DefinicionModelo definicion = modelo.definicion();
+        Double umbralRiesgo = motorReglas.umbralRiesgo();
+        double umbralSospechoso = umbralRiesgo != null ? umbralRiesgo : definicion.umbralSospechoso();
+        if (puntaje >= umbralSospechoso) {
+            return Bandera.sospechoso;
+        }
+        return puntaje >= Math.min(definicion.umbralReview(), umbralSospechoso) ? Bandera.review : Bandera.ok;
+    }
+
+    /**
+     * Compila y activa un modelo.
+     * @throws IllegalArgumentException si la definición es inválida (el modelo activo no cambia)
+     */
+    public DefinicionModelo activar(DefinicionModelo definicion) {
+        modelo = ModeloLogistico.compilar(definicion);
+        log.info("Modelo de scoring activado: versión {} ({} features)", definicion.version(),
+                definicion.features().size());
+        return definicion;
+    }
+
+    /**
+     * Vuelve a leer {@code scoring.modelo} y lo activa.
+     */
+    public DefinicionModelo recargar() {
+        Resource recurso = resourceLoader.getResource(archivo);
+        try (InputStream in = recurso.getInputStream()) {
+            return activar(objectMapper.readValue(in, DefinicionModelo.class));
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer el modelo " + archivo, e);
+        }
+    }
+
+    public DefinicionModelo definicionActual() {
+        return modelo.definicion();
+    }
+
+    private void llenar(double[] x, int offset, String cuenta, BigDecimal monto, LocalDateTime timestamp,
+                        long ahora) {
+        double valor = monto != null ? monto.doubleValue() : 0d;
+        int hora = timestamp != null ? timestamp.getHour() : LocalDateTime.now().getHour();
+        x[offset + FeaturesScoring.MONTO] = valor;
+        x[offset + FeaturesScoring.LOG_MONTO] = Math.log1p(Math.max(valor, 0d));
+        x[offset + FeaturesScoring.HORA] = hora;
+        x[offset + FeaturesScoring.NOCTURNA] = hora < 6 ? 1d : 0d;
+        velocityFeatureStore.leer(cuenta, ahora, x, offset + FeaturesScoring.VELOCIDAD);
+        double maximo24h = x[offset + FeaturesScoring.VELOCIDAD + VelocityFeatureStore.MAXIMO_24H];
+        x[offset + FeaturesScoring.RATIO_MAXIMO_24H] = maximo24h > 0
+                ? Math.min(valor / maximo24h, FeaturesScoring.MAX_RATIO) : 1d;
+    }
+}
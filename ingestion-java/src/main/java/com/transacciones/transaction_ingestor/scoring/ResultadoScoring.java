@@ -0,0 +1,11 @@
+package com.transacciones.transaction_ingestor.scoring;
+
+import com.transacciones.transaction_ingestor.model.enums.Bandera;
+
+import java.util.List;
+
+/**
+ * Puntaje del modelo con su bandera y las features que más pesaron.
+ */
+public record ResultadoScoring(double puntaje, Bandera bandera, List<String> motivos, String version) {
+}
@@ -0,0 +1,133 @@
+package com.transacciones.transaction_ingestor.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.transacciones.transaction_ingestor.alerts.DecisionGuardada;
+import com.transacciones.transaction_ingestor.model.Alerta;
+import com.transacciones.transaction_ingestor.model.Auditoria;
+import com.transacciones.transaction_ingestor.model.Transaccion;
+import com.transacciones.transaction_ingestor.model.enums.Bandera;
+import com.transacciones.transaction_ingestor.model.enums.DecisionSource;
+import com.transacciones.transaction_ingestor.repository.AlertaRepository;
+import com.transacciones.transaction_ingestor.rules.ResultadoReglas;
+import com.transacciones.transaction_ingestor.scoring.ResultadoScoring;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Arma las alertas (y su auditoría) que generan las decisiones sobre transacciones y las
+ * entrega al {@link AlertaWriter}, que las persiste en segundo plano.
+ */
+@Service
+public class AlertaService {
+
+    private static final Logger log = LoggerFactory.getLogger(AlertaService.class);
+
+    // Largo de auditoria.descripcion_accion
+    private static final int MAX_DESCRIPCION = 255;
+
+    private final AlertaWriter alertaWriter;
+    private final ObjectMapper objectMapper;
+    private final AlertaRepository alertaRepository;
+
+    public AlertaService(AlertaWriter alertaWriter, ObjectMapper objectMapper, AlertaRepository alertaRepository) {
+        this.alertaWriter = alertaWriter;
+        this.objectMapper = objectMapper;
+        this.alertaRepository = alertaRepository;
+    }
+
+    /**
+     * Decisiones con las que se guardaron transacciones que ya existían (reenvíos), para
+     * devolver la misma en vez de tratarlas como aprobadas. Las que no tienen alerta no
+     * figuran: quedaron en ok, o su alerta todavía está en la cola del {@link AlertaWriter}
+     * (un reenvío dentro de {@code alertas.writer.max-espera-ms} del commit original).
+     * @return decisión por id de transacción
+     */
+    public Map<String, DecisionGuardada> decisionesGuardadas(Collection<String> idsTransaccion) {
+        Map<String, DecisionGuardada> decisiones = new HashMap<>();
+        if (!idsTransaccion.isEmpty()) {
+            alertaRepository.findDecisiones(idsTransaccion).forEach(d -> decisiones.put(d.idTransaccion(), d));
+        }
+        return decisiones;
+    }
+
+    /**
+     * Crea la alerta de una transacción ya persistida a partir de la decisión de reglas y modelo.
+     * Una regla eliminatoria bloquea (puntaje 1.0); una regla de alerta marca la transacción como
+     * sospechosa con el puntaje del modelo; si no disparó ninguna regla decide el modelo.
+     * No espera a la base de datos: la alerta se escribe en el próximo commit en grupo.
+     * @param scoring resultado del modelo; null si una regla eliminatoria ya decidió
+     */
+    public void registrarDecision(Transaccion transaccion, ResultadoReglas reglas, ResultadoScoring scoring) {
+        Alerta alerta = new Alerta();
+        alerta.setTransaccion(transaccion);
+        alerta.setIdUsuario(transaccion.getUsuario() != null
+                ? transaccion.getUsuario().getIdUsuario() : transaccion.getIdUsuario());
+        alerta.setMonto(transaccion.getMonto());
+        LocalDateTime momento = transaccion.getTimestampTransaccion() != null
+                ? transaccion.getTimestampTransaccion() : LocalDateTime.now();
+        alerta.setFechaOnly(momento.toLocalDate());
+        alerta.setHoraOnly(momento.toLocalTime());
+
+        List<String> motivos = new ArrayList<>(reglas.reglas());
+        String descripcion;
+        if (reglas.rechazar()) {
+            alerta.setBandera(Bandera.bloqueado);
+            alerta.setPuntuacionFinal(BigDecimal.ONE);
+            alerta.setOrigenFiltro(DecisionSource.rule);
+            descripcion = reglas.motivo();
+        } else if (reglas.disparo()) {
+            alerta.setBandera(Bandera.sospechoso);
+            alerta.setPuntuacionFinal(puntuacion(scoring));
+            alerta.setOrigenFiltro(DecisionSource.rule);
+            descripcion = reglas.motivo();
+        } else {
+            alerta.setBandera(scoring.bandera());
+            alerta.setPuntuacionFinal(puntuacion(scoring));
+            alerta.setOrigenFiltro(DecisionSource.model);
+            descripcion = String.format("Puntaje %.4f del modelo %s", scoring.puntaje(), scoring.version());
+        }
+        if (scoring != null) {
+            scoring.motivos().forEach(m -> motivos.add("modelo:" + m));
+        }
+        alerta.setReasonsJson(reasonsJson(motivos));
+        alerta.setCreatedAt(Timestamp.valueOf(LocalDateTime.now()));
+        Auditoria auditoria = new Auditoria();
+        auditoria.setAlerta(alerta);
+        auditoria.setDescripcionAccion(recortar(descripcion, MAX_DESCRIPCION));
+        auditoria.setTimestampAccion(alerta.getCreatedAt());
+        alertaWriter.encolar(alerta, auditoria);
+
+        log.info("Alerta {} encolada para la transacción {}: {}", alerta.getBandera(),
+                transaccion.getIdTransaccion(), motivos);
+    }
+
+    private static String recortar(String texto, int max) {
+        return texto != null && texto.length() > max ? texto.substring(0, max) : texto;
+    }
+
+    private static BigDecimal puntuacion(ResultadoScoring scoring) {
+        return scoring != null ? BigDecimal.valueOf(scoring.puntaje()).setScale(4, RoundingMode.HALF_UP) : null;
+    }
+
+    private String reasonsJson(List<String> motivos) {
+        try {
+            return objectMapper.writeValueAsString(motivos);
+        } catch (JsonProcessingException e) {
+            // Una lista de strings siempre se puede serializar; por las dudas no se pierde la alerta
+            log.warn("No se pudo serializar reasons_json", e);
+            return "[]";
+        }
+    }
+}
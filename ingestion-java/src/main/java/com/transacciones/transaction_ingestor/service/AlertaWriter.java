@@ -0,0 +1,238 @@
+package com.transacciones.transaction_ingestor.service;
+
+import com.transacciones.transaction_ingestor.alerts.Alert;
+import com.transacciones.transaction_ingestor.alerts.AlertStream;
+import com.transacciones.transaction_ingestor.model.Alerta;
+import com.transacciones.transaction_ingestor.model.Auditoria;
+import com.transacciones.transaction_ingestor.model.Transaccion;
+import com.transacciones.transaction_ingestor.repository.AlertaRepository;
+import com.transacciones.transaction_ingestor.stats.RollupEstadisticas;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Persiste alertas y auditorías fuera del hilo de ingesta. Las alertas se encolan en una
+ * cola acotada y un único hilo las escribe en grupos (group commit): un commit cada
+ * {@code alertas.writer.tamanio-grupo} alertas o cada {@code alertas.writer.max-espera-ms},
+ * lo que ocurra primero, con los INSERT en batches JDBC.
+ * <p>
+ * Encolar nunca bloquea: si la cola está llena la alerta se descarta, se registra en el log
+ * y se cuenta en {@code alertas.descartadas}; {@code alertas.writer.pendientes} expone cuánto
+ * hay encolado.
+ * Si el llamador está dentro de una transacción, la alerta se encola recién después del
+ * commit, así no se escribe una alerta de una transacción que terminó en rollback.
+ * Las alertas efectivamente escritas se publican en el {@link AlertStream} y se suman a las
+ * estadísticas tras cada commit.
+ */
+@Component
+public class AlertaWriter implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(AlertaWriter.class);
+
+    private static final long POLL_MS = 100;
+
+    private final AlertaRepository alertaRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final AlertStream alertStream;
+    private final RollupEstadisticas rollupEstadisticas;
+    private final BlockingQueue<Pendiente> cola;
+    private final int tamanioGrupo;
+    private final long maxEsperaNanos;
+    private final AtomicLong descartadas = new AtomicLong();
+    private Thread hilo;
+    private volatile boolean activo = true;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public AlertaWriter(AlertaRepository alertaRepository,
+                        TransactionTemplate transactionTemplate,
+                        AlertStream alertStream,
+                        RollupEstadisticas rollupEstadisticas,
+                        MeterRegistry registry,
+                        @Value("${alertas.writer.capacidad:10000}") int capacidad,
+                        @Value("${alertas.writer.tamanio-grupo:${spring.jpa.properties.hibernate.jdbc.batch_size:100}}") int tamanioGrupo,
+                        @Value("${alertas.writer.max-espera-ms:50}") long maxEsperaMs) {
+        if (capacidad <= 0 || tamanioGrupo <= 0 || maxEsperaMs < 0) {
+            throw new IllegalArgumentException("capacidad y tamanio-grupo deben ser positivos y max-espera-ms no negativo");
+        }
+        this.alertaRepository = alertaRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.alertStream = alertStream;
+        this.rollupEstadisticas = rollupEstadisticas;
+        this.cola = new ArrayBlockingQueue<>(capacidad);
+        this.tamanioGrupo = tamanioGrupo;
+        this.maxEsperaNanos = TimeUnit.MILLISECONDS.toNanos(maxEsperaMs);
+        FunctionCounter.builder("alertas.descartadas", descartadas, AtomicLong::get)
+                .description("Alertas descartadas por cola llena o escritor detenido")
+                .register(registry);
+        Gauge.builder("alertas.writer.pendientes", cola, BlockingQueue::size)
+                .description("Alertas encoladas sin escribir")
+                .register(registry);
+    }
+
+    // El hilo arranca con el bean ya construido e inyectado (usa el EntityManager)
+    @PostConstruct
+    void iniciar() {
+        hilo = new Thread(this::drenar, "alertas-writer");
+        hilo.start();
+    }
+
+    /**
+     * Encola una alerta y su auditoría. No bloquea ni espera a la base de datos.
+     */
+    public void encolar(Alerta alerta, Auditoria auditoria) {
+        // El DTO del stream se arma acá, mientras la transacción asociada está cargada
+        Pendiente pendiente = new Pendiente(alerta, auditoria, Alert.de(alerta));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    ofrecer(pendiente);
+                }
+            });
+        } else {
+            ofrecer(pendiente);
+        }
+    }
+
+    private void ofrecer(Pendiente pendiente) {
+        if (!activo || !cola.offer(pendiente)) {
+            log.error("Cola de alertas llena o detenida: se descarta la alerta de la transacción {} ({} descartadas)",
+                    pendiente.idTransaccion(), descartadas.incrementAndGet());
+        }
+    }
+
+    private void drenar() {
+        List<Pendiente> grupo = new ArrayList<>(tamanioGrupo);
+        while (activo || !cola.isEmpty()) {
+            try {
+                Pendiente primero = cola.poll(POLL_MS, TimeUnit.MILLISECONDS);
+                if (primero == null) {
+                    continue;
+                }
+                grupo.add(primero);
+                // Se completa el grupo hasta el tamaño máximo o hasta vencer la espera
+                long limite = System.nanoTime() + maxEsperaNanos;
+                while (grupo.size() < tamanioGrupo) {
+                    cola.drainTo(grupo, tamanioGrupo - grupo.size());
+                    long resto = limite - System.nanoTime();
+                    if (grupo.size() >= tamanioGrupo || resto <= 0) {
+                        break;
+                    }
+                    Pendiente siguiente = cola.poll(resto, TimeUnit.NANOSECONDS);
+                    if (siguiente == null) {
+                        break;
+                    }
+                    grupo.add(siguiente);
+                }
+                escribir(grupo);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Throwable t) {
+                // Un error inesperado no debe matar el hilo escritor
+                log.error("Error no controlado en el escritor de alertas", t);
+            } finally {
+                grupo.clear();
+            }
+        }
+    }
+
+    private void escribir(List<Pendiente> grupo) {
+        try {
+            publicar(transactionTemplate.execute(status -> insertar(grupo)));
+        } catch (RuntimeException e) {
+            // Se reintenta de a una para no perder el grupo entero por una sola alerta
+            log.warn("Falló el commit de un grupo de {} alertas, se reintenta de a una", grupo.size(), e);
+            for (Pendiente pendiente : grupo) {
+                try {
+                    publicar(transactionTemplate.execute(status -> insertar(List.of(pendiente))));
+                } catch (RuntimeException ex) {
+                    log.error("No se pudo guardar la alerta de la transacción {}", pendiente.idTransaccion(), ex);
+                }
+            }
+        }
+    }
+
+    private void publicar(List<Pendiente> escritas) {
+        List<Alert> dtos = new ArrayList<>(escritas.size());
+        for (Pendiente pendiente : escritas) {
+            Alerta alerta = pendiente.alerta();
+            rollupEstadisticas.registrarAlerta(alerta.getBandera(), alerta.getMonto(), alerta.getCreatedAt().getTime());
+            dtos.add(pendiente.dto());
+        }
+        alertStream.publicar(dtos);
+    }
+
+    private List<Pendiente> insertar(List<Pendiente> grupo) {
+        Set<String> ids = new HashSet<>(grupo.size());
+        grupo.forEach(p -> ids.add(p.idTransaccion()));
+        // Idempotencia (uk_alert_tx): una sola consulta IN por grupo, más los repetidos dentro del grupo
+        Set<String> conAlerta = new HashSet<>(alertaRepository.findIdsTransaccionConAlerta(ids));
+        List<Pendiente> insertadas = new ArrayList<>(grupo.size());
+
+        for (Pendiente pendiente : grupo) {
+            String idTransaccion = pendiente.idTransaccion();
+            if (!conAlerta.add(idTransaccion)) {
+                log.debug("La transacción {} ya tiene alerta, se omite", idTransaccion);
+                continue;
+            }
+            Alerta alerta = pendiente.alerta();
+            // IDs en null: un intento anterior fallido pudo haberlos asignado
+            alerta.setIdAlerta(null);
+            alerta.setTransaccion(entityManager.getReference(Transaccion.class, idTransaccion));
+            entityManager.persist(alerta);
+            pendiente.auditoria().setIdAuditoria(null);
+            entityManager.persist(pendiente.auditoria());
+            insertadas.add(pendiente);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return insertadas;
+    }
+
+    /**
+     * Deja de aceptar alertas y espera a que se escriba lo encolado.
+     */
+    @Override
+    public void close() {
+        activo = false;
+        if (hilo != null) {
+            try {
+                hilo.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (!cola.isEmpty()) {
+            log.warn("Quedaron {} alertas sin escribir al detener el escritor", cola.size());
+        }
+    }
+
+    private record Pendiente(Alerta alerta, Auditoria auditoria, Alert dto) {
+        String idTransaccion() {
+            return alerta.getTransaccion().getIdTransaccion();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.transacciones.transaction_ingestor.service;
+
+import com.transacciones.transaction_ingestor.model.Transaccion;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Guarda el payload tal como se recibió (cuerpo HTTP, línea NDJSON o valor del registro de
+ * Kafka) en lugar de volver a serializar la entidad:
+ * <ul>
+ *   <li>JSON en UTF-8 menor a {@code ingesta.raw.comprimir-desde}: se guarda tal cual en
+ *       raw_json, una columna de texto (V6), así que se lee byte a byte igual.</li>
+ *   <li>JSON más grande, que no es UTF-8 válido, o formato binario de Kafka: los bytes van a
+ *       raw_payload (con gzip desde ese tamaño) y raw_json lleva un descriptor
+ *       {@code {"formato":..,"bytes":..}}.</li>
+ *   <li>Mayor a {@code ingesta.raw.max-bytes}: no se guarda; sólo el descriptor.</li>
+ * </ul>
+ */
+@Component
+public class CapturaPayload {
+
+    static final String JSON_GZIP = "json+gzip";
+    static final String BINARIO = "binario";
+    static final String BINARIO_GZIP = "binario+gzip";
+    static final String OMITIDO = "omitido";
+
+    private final int comprimirDesde;
+    private final int maxBytes;
+
+    public CapturaPayload(@Value("${ingesta.raw.comprimir-desde:8192}") int comprimirDesde,
+                          @Value("${ingesta.raw.max-bytes:1048576}") int maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("ingesta.raw.max-bytes debe ser positivo");
+        }
+        // 0 o negativo: nunca comprimir
+        this.comprimirDesde = comprimirDesde > 0 ? comprimirDesde : Integer.MAX_VALUE;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Completa raw_json (y raw_payload si corresponde) a partir del payload original.
+     * @return false si la transacción no trae payload original
+     */
+    public boolean aplicar(Transaccion tx) {
+        byte[] payload = tx.getPayloadOriginal();
+        if (payload == null) {
+            return false;
+        }
+        int largo = payload.length;
+        if (largo > maxBytes) {
+            tx.setRawJson(descriptor(OMITIDO, largo));
+            tx.setRawPayload(null);
+        } else if (esJson(payload)) {
+            String texto = largo < comprimirDesde ? utf8(payload) : null;
+            if (texto != null) {
+                tx.setRawJson(texto);
+                tx.setRawPayload(null);
+            } else if (largo < comprimirDesde) {
+                tx.setRawJson(descriptor(BINARIO, largo));
+                tx.setRawPayload(payload);
+            } else {
+                tx.setRawJson(descriptor(JSON_GZIP, largo));
+                tx.setRawPayload(gzip(payload));
+            }
+        } else if (largo < comprimirDesde) {
+            tx.setRawJson(descriptor(BINARIO, largo));
+            tx.setRawPayload(payload);
+        } else {
+            tx.setRawJson(descriptor(BINARIO_GZIP, largo));
+            tx.setRawPayload(gzip(payload));
+        }
+        // Ya copiado: no hace falta retenerlo hasta el clear del contexto de persistencia
+        tx.setPayloadOriginal(null);
+        return true;
+    }
+
+    // El formato binario de Kafka empieza con un byte mágico que nunca es '{'
+    private static boolean esJson(byte[] payload) {
+        for (byte b : payload) {
+            if (b != ' ' && b != '\t' && b != '\r' && b != '\n') {
+                return b == '{';
+            }
+        }
+        return false;
+    }
+
+    // Decodificación estricta: con bytes inválidos new String() los reemplazaría por U+FFFD
+    private static String utf8(byte[] payload) {
+        try {
+            return StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(payload))
+                    .toString();
+        } catch (CharacterCodingException e) {
+            return null;
+        }
+    }
+
+    private static String descriptor(String formato, int bytes) {
+        return "{\"formato\":\"" + formato + "\",\"bytes\":" + bytes + "}";
+    }
+
+    private static byte[] gzip(byte[] datos) {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream(datos.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(salida)) {
+            gzip.write(datos);
+        } catch (IOException e) {
+            // En memoria no ocurre
+            throw new UncheckedIOException(e);
+        }
+        return salida.toByteArray();
+    }
+}
@@ -0,0 +1,17 @@
+package com.transacciones.transaction_ingestor.service;
+
+/**
+ * La transacción pertenece a una cuenta suspendida o cerrada.
+ */
+public class CuentaNoActivaException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public CuentaNoActivaException(String idUsuario, String estadoCuenta) {
+        super(mensaje(idUsuario, estadoCuenta));
+    }
+
+    static String mensaje(String idUsuario, String estadoCuenta) {
+        return "La cuenta " + idUsuario + " no está activa (" + estadoCuenta + ")";
+    }
+}
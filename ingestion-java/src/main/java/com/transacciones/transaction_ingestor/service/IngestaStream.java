@@ -0,0 +1,359 @@
+package com.transacciones.transaction_ingestor.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.transacciones.transaction_ingestor.dto.ResultadoIngesta;
+import com.transacciones.transaction_ingestor.dto.TransactionDTO;
+import com.transacciones.transaction_ingestor.ids.IdGenerator;
+import com.transacciones.transaction_ingestor.kafka.TransactionProducer;
+import com.transacciones.transaction_ingestor.model.Transaccion;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.Collectors;
+
+/**
+ * Ingesta en streaming de NDJSON (POST /transactions/ingest/stream). El cuerpo se lee línea por
+ * línea con un buffer fijo, las líneas se agrupan en lotes de {@code ingesta.stream.lote} y cada
+ * lote se guarda con {@link TransactionService#ingestBatch} o se publica en el topic de entrada
+ * de Kafka. Los resultados se escriben como NDJSON, en el orden de las líneas, a medida que
+ * termina cada lote.
+ * <p>
+ * Cada request tiene como mucho {@code ingesta.stream.lotes-en-vuelo} lotes pendientes: al
+ * llegar al límite se deja de leer el cuerpo hasta que termine el más viejo, así la memoria no
+ * depende del tamaño de la carga y un cliente más rápido que la base queda frenado por TCP.
+ * Los lotes de un mismo request se guardan de a uno y en orden; mientras tanto se parsea el
+ * siguiente.
+ */
+@Component
+public class IngestaStream implements AutoCloseable {
+
+    private final TransactionService transactionService;
+    private final TransactionProducer transactionProducer;
+    private final IdGenerator idGenerator;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader lectorTransaccion;
+    private final ObjectReader lectorDto;
+    private final int tamanioLote;
+    private final int lotesEnVuelo;
+    private final int maxLineaBytes;
+    private final ExecutorService guardado;
+
+    public IngestaStream(TransactionService transactionService,
+                         TransactionProducer transactionProducer,
+                         IdGenerator idGenerator,
+                         Validator validator,
+                         ObjectMapper objectMapper,
+                         @Value("${ingesta.stream.lote:500}") int tamanioLote,
+                         @Value("${ingesta.stream.lotes-en-vuelo:4}") int lotesEnVuelo,
+                         @Value("${ingesta.stream.hilos:4}") int hilos,
+                         @Value("${ingesta.stream.max-linea-bytes:65536}") int maxLineaBytes) {
+        if (tamanioLote <= 0 || lotesEnVuelo <= 0 || hilos <= 0 || maxLineaBytes <= 0) {
+            throw new IllegalArgumentException("lote, lotes-en-vuelo, hilos y max-linea-bytes deben ser positivos");
+        }
+        this.transactionService = transactionService;
+        this.transactionProducer = transactionProducer;
+        this.idGenerator = idGenerator;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.lectorTransaccion = objectMapper.readerFor(Transaccion.class);
+        this.lectorDto = objectMapper.readerFor(TransactionDTO.class);
+        this.tamanioLote = tamanioLote;
+        this.lotesEnVuelo = lotesEnVuelo;
+        this.maxLineaBytes = maxLineaBytes;
+        AtomicInteger contador = new AtomicInteger();
+        this.guardado = Executors.newFixedThreadPool(hilos, r -> {
+            Thread hilo = new Thread(r, "ingesta-stream-" + contador.getAndIncrement());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+
+    /**
+     * Procesa el NDJSON de {@code entrada} hasta el final y escribe en {@code salida} un
+     * {@link ResultadoIngesta} por línea no vacía. El índice es el número de línea sin contar
+     * las vacías, como en la ingesta por lotes.
+     * @param aKafka true para publicar en el topic de entrada en lugar de guardar en la base
+     */
+    public void procesar(InputStream entrada, OutputStream salida, boolean aKafka) throws IOException {
+        Procesamiento p = new Procesamiento(salida, aKafka);
+        byte[] buffer = new byte[maxLineaBytes];
+        int inicio = 0;
+        int revisado = 0;
+        int fin = 0;
+        // Resto de una línea que superó el máximo: se descarta hasta el próximo fin de línea
+        boolean descartando = false;
+        while (true) {
+            int nl = buscarFinDeLinea(buffer, revisado, fin);
+            if (nl >= 0) {
+                if (descartando) {
+                    descartando = false;
+                } else {
+                    p.linea(buffer, inicio, nl);
+                }
+                inicio = revisado = nl + 1;
+                continue;
+            }
+            if (descartando) {
+                inicio = fin = 0;
+            } else if (inicio > 0) {
+                System.arraycopy(buffer, inicio, buffer, 0, fin - inicio);
+                fin -= inicio;
+                inicio = 0;
+            } else if (fin == buffer.length) {
+                p.rechazar("La línea supera el máximo de " + maxLineaBytes + " bytes");
+                descartando = true;
+                fin = 0;
+            }
+            revisado = fin;
+            int leidos = entrada.read(buffer, fin, buffer.length - fin);
+            if (leidos < 0) {
+                break;
+            }
+            fin += leidos;
+        }
+        // Última línea sin fin de línea
+        if (!descartando && fin > inicio) {
+            p.linea(buffer, inicio, fin);
+        }
+        p.terminar();
+    }
+
+    private static int buscarFinDeLinea(byte[] datos, int desde, int hasta) {
+        for (int i = desde; i < hasta; i++) {
+            if (datos[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean enBlanco(byte[] datos, int desde, int hasta) {
+        for (int i = desde; i < hasta; i++) {
+            byte b = datos[i];
+            if (b != ' ' && b != '\t') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String mensaje(Throwable e) {
+        Throwable causa = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        return causa.getMessage() != null ? causa.getMessage() : causa.getClass().getSimpleName();
+    }
+
+    @Override
+    public void close() {
+        guardado.shutdownNow();
+    }
+
+    /** Estado de un request: lote en armado y lotes pendientes, en orden. */
+    private final class Procesamiento {
+        private final OutputStream salida;
+        private final boolean aKafka;
+        private final ArrayDeque<Lote> enVuelo = new ArrayDeque<>(lotesEnVuelo);
+        // Último lote enviado a la base: el siguiente se guarda cuando termina
+        private CompletableFuture<?> ultimoGuardado = CompletableFuture.completedFuture(null);
+        private int numero;
+        private Lote actual;
+
+        Procesamiento(OutputStream salida, boolean aKafka) {
+            this.salida = salida;
+            this.aKafka = aKafka;
+            this.actual = new Lote(0, tamanioLote);
+        }
+
+        void linea(byte[] buffer, int desde, int hasta) throws IOException {
+            // Fin de línea CRLF
+            if (hasta > desde && buffer[hasta - 1] == '\r') {
+                hasta--;
+            }
+            if (enBlanco(buffer, desde, hasta)) {
+                return;
+            }
+            int indice = numero++;
+            try {
+                if (aKafka) {
+                    TransactionDTO dto = lectorDto.readValue(buffer, desde, hasta - desde);
+                    String error = validar(dto);
+                    if (error != null) {
+                        actual.resultado(indice, ResultadoIngesta.rechazada(indice, dto.getId(), error));
+                    } else {
+                        actual.agregar(indice, dto);
+                    }
+                } else {
+                    Transaccion tx = lectorTransaccion.readValue(buffer, desde, hasta - desde);
+                    tx.setPayloadOriginal(Arrays.copyOfRange(buffer, desde, hasta));
+                    actual.agregar(indice, tx);
+                }
+            } catch (JsonProcessingException e) {
+                actual.resultado(indice, ResultadoIngesta.rechazada(indice, null, "JSON inválido: " + e.getOriginalMessage()));
+            }
+            if (actual.cantidad == tamanioLote) {
+                despachar();
+            }
+        }
+
+        void rechazar(String error) throws IOException {
+            int indice = numero++;
+            actual.resultado(indice, ResultadoIngesta.rechazada(indice, null, error));
+            if (actual.cantidad == tamanioLote) {
+                despachar();
+            }
+        }
+
+        void terminar() throws IOException {
+            if (actual.cantidad > 0) {
+                despachar();
+            }
+            while (!enVuelo.isEmpty()) {
+                escribir(enVuelo.poll());
+            }
+            salida.flush();
+        }
+
+        private String validar(TransactionDTO dto) {
+            Set<ConstraintViolation<TransactionDTO>> violaciones = validator.validate(dto);
+            if (!violaciones.isEmpty()) {
+                return violaciones.stream()
+                        .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining("; "));
+            }
+            if (dto.getId() == null || dto.getId().isEmpty()) {
+                dto.setId(idGenerator.nextId());
+            }
+            return null;
+        }
+
+        private void despachar() throws IOException {
+            Lote lote = actual;
+            actual = new Lote(numero, tamanioLote);
+            lote.listo = aKafka ? publicar(lote) : guardar(lote);
+
+            // Backpressure: con el máximo de lotes pendientes se espera al más viejo
+            if (enVuelo.size() == lotesEnVuelo) {
+                escribir(enVuelo.poll());
+            }
+            enVuelo.add(lote);
+            // Resultados ya disponibles, sin esperar
+            boolean escrito = false;
+            while (!enVuelo.isEmpty() && enVuelo.peek().listo.isDone()) {
+                escribir(enVuelo.poll());
+                escrito = true;
+            }
+            if (escrito) {
+                salida.flush();
+            }
+        }
+
+        private CompletableFuture<Void> guardar(Lote lote) {
+            if (lote.items.isEmpty()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            List<Transaccion> transacciones = new ArrayList<>(lote.items.size());
+            lote.items.forEach(item -> transacciones.add((Transaccion) item));
+            CompletableFuture<Void> listo = ultimoGuardado
+                    .handle((r, e) -> null)
+                    .thenApplyAsync(v -> transactionService.ingestBatch(transacciones), guardado)
+                    .handle((resultados, e) -> {
+                        for (int k = 0; k < transacciones.size(); k++) {
+                            int indice = lote.posiciones.get(k);
+                            lote.resultado(indice, e == null
+                                    ? resultados.get(k).conIndice(indice)
+                                    : ResultadoIngesta.rechazada(indice, transacciones.get(k).getIdTransaccion(),
+                                            "No se pudo guardar el lote: " + mensaje(e)));
+                        }
+                        return null;
+                    });
+            ultimoGuardado = listo;
+            return listo;
+        }
+
+        private CompletableFuture<Void> publicar(Lote lote) {
+            CompletableFuture<?>[] envios = new CompletableFuture<?>[lote.items.size()];
+            for (int k = 0; k < envios.length; k++) {
+                int indice = lote.posiciones.get(k);
+                TransactionDTO dto = (TransactionDTO) lote.items.get(k);
+                CompletableFuture<?> envio;
+                try {
+                    envio = transactionProducer.sendTransaction(dto);
+                } catch (RuntimeException e) {
+                    envio = CompletableFuture.failedFuture(e);
+                }
+                envios[k] = envio.handle((r, e) -> {
+                    lote.resultado(indice, e == null
+                            ? ResultadoIngesta.enviada(indice, dto.getId())
+                            : ResultadoIngesta.rechazada(indice, dto.getId(), "No se pudo enviar a Kafka: " + mensaje(e)));
+                    return null;
+                });
+            }
+            return CompletableFuture.allOf(envios);
+        }
+
+        private void escribir(Lote lote) throws IOException {
+            lote.listo.join();
+            for (int k = 0; k < lote.cantidad; k++) {
+                salida.write(objectMapper.writeValueAsBytes(lote.resultados.get(k)));
+                salida.write('\n');
+            }
+            salida.flush();
+        }
+    }
+
+    /**
+     * Líneas consecutivas de un request. Los rechazos de parseo o validación se resuelven al
+     * leerlos; el resto se completa cuando termina el guardado o la publicación del lote.
+     */
+    private static final class Lote {
+        private final int primero;
+        // Tamaño fijo: las escrituras concurrentes tocan posiciones distintas y nunca la estructura
+        private final AtomicReferenceArray<ResultadoIngesta> resultados;
+        private final List<Integer> posiciones = new ArrayList<>();
+        private final List<Object> items = new ArrayList<>();
+        // Líneas del lote; sólo la modifica el hilo del request, antes de despachar
+        private int cantidad;
+        private CompletableFuture<Void> listo;
+
+        Lote(int primero, int tamanio) {
+            this.primero = primero;
+            this.resultados = new AtomicReferenceArray<>(tamanio);
+        }
+
+        void agregar(int indice, Object item) {
+            resultado(indice, null);
+            posiciones.add(indice);
+            items.add(item);
+        }
+
+        // Lo llaman el hilo del request (al leer la línea) y, después de despachar, el de
+        // guardado o los callbacks de envío de Kafka, que pueden correr a la vez que el
+        // request sigue publicando el resto del lote; listo ordena todo antes de escribir
+        void resultado(int indice, ResultadoIngesta resultado) {
+            int posicion = indice - primero;
+            if (posicion == cantidad) {
+                cantidad++;
+            }
+            resultados.set(posicion, resultado);
+        }
+    }
+}
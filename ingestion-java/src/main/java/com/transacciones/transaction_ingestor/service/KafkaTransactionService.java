@@ -1,47 +1,89 @@
 package com.transacciones.transaction_ingestor.service;
 
+import com.transacciones.transaction_ingestor.dto.ResultadoIngesta;
 import com.transacciones.transaction_ingestor.dto.TransactionDTO;
-import com.transacciones.transaction_ingestor.entity.Transaction;
-import com.transacciones.transaction_ingestor.repository.KafkaTransactionRepository;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import com.transacciones.transaction_ingestor.ids.IdGenerator;
+import com.transacciones.transaction_ingestor.metricas.MetricasIngesta;
+import com.transacciones.transaction_ingestor.model.Transaccion;
+import com.transacciones.transaction_ingestor.rules.DefinicionRegla;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.util.UUID;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * Adaptador de los eventos de Kafka al camino de escritura común: convierte cada
+ * TransactionDTO en una Transaccion y la ingesta con {@link TransactionService#ingestar},
+ * igual que las que llegan por HTTP (misma tabla, mismas reglas, modelo y alertas).
+ */
 @Service
 public class KafkaTransactionService {
 
-    private static final Logger log = LoggerFactory.getLogger(KafkaTransactionService.class);
-    private final KafkaTransactionRepository kafkaTransactionRepository;
+    private final TransactionService transactionService;
+    private final IdGenerator idGenerator;
+    private final MetricasIngesta metricas;
 
-    public KafkaTransactionService(KafkaTransactionRepository kafkaTransactionRepository) {
-        this.kafkaTransactionRepository = kafkaTransactionRepository;
+    public KafkaTransactionService(TransactionService transactionService, IdGenerator idGenerator,
+                                   MetricasIngesta metricas) {
+        this.transactionService = transactionService;
+        this.idGenerator = idGenerator;
+        this.metricas = metricas;
     }
 
-    @Transactional
-    public Transaction saveTransaction(TransactionDTO dto) {
-        Transaction transaction = new Transaction();
-        
-        if (dto.getId() == null || dto.getId().isEmpty()) {
-            transaction.setId(UUID.randomUUID().toString());
-        } else {
-            transaction.setId(dto.getId());
+    /**
+     * Ingesta un lote de eventos en una sola transacción de BD y deja en cada DTO el estado
+     * con el que se publica: VALIDATED si quedó guardado y REJECTED con su motivo si no pasó
+     * la validación o lo bloqueó una regla eliminatoria. Un redelivery de un evento ya guardado
+     * (retry topic, DLT o lote reentregado) se publica con la decisión original.
+     * @return un resultado por DTO, en el mismo orden
+     */
+    public List<ResultadoIngesta> ingestar(List<TransactionDTO> dtos) {
+        if (dtos.isEmpty()) {
+            return List.of();
+        }
+        List<Transaccion> lote = new ArrayList<>(dtos.size());
+        for (TransactionDTO dto : dtos) {
+            lote.add(aTransaccion(dto));
+        }
+        List<ResultadoIngesta> resultados = transactionService.ingestar(lote, DefinicionRegla.Canal.KAFKA);
+        // ingestar() ya commiteó: lag desde el timestamp del evento (hora local del emisor)
+        long ahora = System.currentTimeMillis();
+        ZoneOffset offset = ZoneId.systemDefault().getRules().getOffset(Instant.ofEpochMilli(ahora));
+        for (int i = 0; i < dtos.size(); i++) {
+            TransactionDTO dto = dtos.get(i);
+            ResultadoIngesta resultado = resultados.get(i);
+            if (ResultadoIngesta.RECHAZADA.equals(resultado.estado()) || resultado.bloqueada()) {
+                dto.setStatus("REJECTED");
+                dto.setRejectionReason(resultado.error());
+            } else {
+                dto.setStatus("VALIDATED");
+            }
+            if (ResultadoIngesta.GUARDADA.equals(resultado.estado()) && dto.getTimestamp() != null) {
+                LocalDateTime ts = dto.getTimestamp();
+                metricas.lagEvento(ahora - ts.toEpochSecond(offset) * 1000 - ts.getNano() / 1_000_000);
+            }
         }
-        
-        transaction.setAccountId(dto.getAccountId());
-        transaction.setAmount(dto.getAmount());
-        transaction.setType(dto.getType());
-        transaction.setDescription(dto.getDescription());
-        transaction.setTimestamp(dto.getTimestamp());
-        transaction.setStatus(dto.getStatus());
-        transaction.setRejectionReason(dto.getRejectionReason());
+        return resultados;
+    }
 
-        Transaction saved = kafkaTransactionRepository.save(transaction);
-        log.info("Transacción guardada en BD: {}", saved.getId());
-        
-        dto.setId(saved.getId());
-        return saved;
+    /** Asigna el id si el evento no trae uno; queda también en el DTO que se publica. */
+    private Transaccion aTransaccion(TransactionDTO dto) {
+        if (dto.getId() == null || dto.getId().isEmpty()) {
+            dto.setId(idGenerator.nextId());
+        }
+        Transaccion tx = new Transaccion();
+        tx.setIdTransaccion(dto.getId());
+        tx.setIdUsuario(dto.getAccountId());
+        tx.setMonto(dto.getAmount());
+        tx.setTimestampTransaccion(dto.getTimestamp() != null ? dto.getTimestamp() : LocalDateTime.now());
+        tx.setTipo(dto.getType());
+        tx.setDescripcion(dto.getDescription());
+        // raw_json con el valor del registro tal como llegó (si el deserializer lo conservó)
+        tx.setPayloadOriginal(dto.getPayloadOriginal());
+        return tx;
     }
-}
\ No newline at end of file
+}
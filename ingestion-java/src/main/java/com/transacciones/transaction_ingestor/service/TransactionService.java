@@ -1,54 +1,105 @@
 package com.transacciones.transaction_ingestor.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.transacciones.transaction_ingestor.dto.TransactionDTO;
+import com.transacciones.transaction_ingestor.alerts.DecisionGuardada;
+import com.transacciones.transaction_ingestor.dto.ResultadoIngesta;
+import com.transacciones.transaction_ingestor.features.VelocityFeatureStore;
+import com.transacciones.transaction_ingestor.metricas.MetricasIngesta;
+import com.transacciones.transaction_ingestor.metricas.MetricasIngesta.Etapa;
 import com.transacciones.transaction_ingestor.model.Transaccion;
 import com.transacciones.transaction_ingestor.model.Usuario;
+import com.transacciones.transaction_ingestor.model.enums.Bandera;
 import com.transacciones.transaction_ingestor.repository.TransactionRepository;
 import com.transacciones.transaction_ingestor.repository.UsuarioRepository;
+import com.transacciones.transaction_ingestor.rules.DefinicionRegla;
+import com.transacciones.transaction_ingestor.rules.MotorReglas;
+import com.transacciones.transaction_ingestor.rules.ResultadoReglas;
+import com.transacciones.transaction_ingestor.scoring.FeaturesScoring;
+import com.transacciones.transaction_ingestor.scoring.MotorScoring;
+import com.transacciones.transaction_ingestor.scoring.ResultadoScoring;
+import com.transacciones.transaction_ingestor.stats.RollupEstadisticas;
+import com.transacciones.transaction_ingestor.usuarios.CacheUsuarios;
+import com.transacciones.transaction_ingestor.usuarios.EstadoCuenta;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
-import java.util.UUID;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 public class TransactionService {
 
     private static final Logger log = LoggerFactory.getLogger(TransactionService.class);
-    private static final BigDecimal MAX_TRANSACTION_AMOUNT = new BigDecimal("10000.00");
 
 
     private final TransactionRepository transactionRepository;
     private final UsuarioRepository usuarioRepository;
     private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final VelocityFeatureStore velocityFeatureStore;
+    private final MotorReglas motorReglas;
+    private final MotorScoring motorScoring;
+    private final AlertaService alertaService;
+    private final RollupEstadisticas rollupEstadisticas;
+    private final CacheUsuarios cacheUsuarios;
+    private final CapturaPayload capturaPayload;
+    private final MetricasIngesta metricas;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Cada cuántos inserts se hace flush/clear; coincide con hibernate.jdbc.batch_size
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}")
+    private int tamanioBatchJdbc;
 
     public TransactionService(TransactionRepository transactionRepository,
                               UsuarioRepository usuarioRepository,
-                              ObjectMapper objectMapper) {
+                              ObjectMapper objectMapper,
+                              Validator validator,
+                              VelocityFeatureStore velocityFeatureStore,
+                              MotorReglas motorReglas,
+                              MotorScoring motorScoring,
+                              AlertaService alertaService,
+                              RollupEstadisticas rollupEstadisticas,
+                              CacheUsuarios cacheUsuarios,
+                              CapturaPayload capturaPayload,
+                              MetricasIngesta metricas) {
         this.transactionRepository = transactionRepository;
         this.usuarioRepository = usuarioRepository;
         this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.velocityFeatureStore = velocityFeatureStore;
+        this.motorReglas = motorReglas;
+        this.motorScoring = motorScoring;
+        this.alertaService = alertaService;
+        this.rollupEstadisticas = rollupEstadisticas;
+        this.cacheUsuarios = cacheUsuarios;
+        this.capturaPayload = capturaPayload;
+        this.metricas = metricas;
     }
 
     @Transactional
     public Transaccion ingestAndSave(Transaccion transaction) {
-        // Log “streaming” (tu salida actual)
-        System.out.println("\n---------------------------------------------");
-        System.out.printf("🛰️  SIMULACIÓN DE STREAMING DE DATOS RECIBIDA:%n" +
-                "ID: %s | User: %s | Monto: %s | Ubicación: %s%n",
-                transaction.getIdTransaccion(),
-                transaction.getIdUsuario(),
-                transaction.getMonto(),
-                (transaction.getLatitud() != null && transaction.getLongitud() != null)
-                        ? transaction.getLatitud() + "," + transaction.getLongitud()
-                        : "N/A");
-        System.out.println("✅  Datos validados y listos para persistencia.");
-        System.out.println("---------------------------------------------\n");
+        log.debug("Transacción recibida: id {} | usuario {} | monto {} | ubicación {},{}",
+                transaction.getIdTransaccion(), transaction.getIdUsuario(), transaction.getMonto(),
+                transaction.getLatitud(), transaction.getLongitud());
+        metricas.lote(DefinicionRegla.Canal.HTTP, 1);
 
         // 1) Resolver/crear Usuario a partir de idUsuario (del JSON)
         String idUsuario = transaction.getIdUsuario();
@@ -56,93 +107,286 @@ public class TransactionService {
             throw new IllegalArgumentException("idUsuario es obligatorio");
         }
 
-        Usuario usuario = usuarioRepository.findById(idUsuario)
-                .orElseGet(() -> {
-                    Usuario u = new Usuario();
-                    u.setIdUsuario(idUsuario);
-                    // Defaults simples; podés ajustarlos
-                    u.setPais(transaction.getPais()); // o "AR" si viene null
-                    u.setFechaCreacion(Timestamp.valueOf(LocalDateTime.now()));
-                    u.setEstadoCuenta("activa");
-                    return usuarioRepository.save(u);
-                });
-
-        // 2) Setear la relación en la Transaccion
-        transaction.setUsuario(usuario);
+        // 2) Usuario conocido (caché) o creado con un upsert; las cuentas no activas se rechazan
+        long inicio = System.nanoTime();
+        String estado = resolverUsuarios(Collections.singletonMap(idUsuario, transaction.getPais())).get(idUsuario);
+        metricas.etapa(DefinicionRegla.Canal.HTTP, Etapa.USUARIOS, inicio);
+        if (!EstadoCuenta.ACTIVA.equals(estado)) {
+            throw new CuentaNoActivaException(idUsuario, estado);
+        }
 
-        // 3) Guardar el JSON crudo (útil para auditoría)
-        try {
-            transaction.setRawJson(objectMapper.writeValueAsString(transaction));
-        } catch (Exception ignore) {
-            /* opcional: loggear */ }
+        // 3) Guardar el payload crudo (útil para auditoría), antes de enlazar el usuario
+        transaction.setCanal(DefinicionRegla.Canal.HTTP.name());
+        guardarRaw(transaction);
+        transaction.setUsuario(entityManager.getReference(Usuario.class, idUsuario));
 
         // 4) Persistir
-        return transactionRepository.save(transaction);
+        inicio = System.nanoTime();
+        Transaccion guardada = transactionRepository.save(transaction);
+        metricas.etapa(DefinicionRegla.Canal.HTTP, Etapa.PERSISTIR, inicio);
+
+        // 5) Reglas + modelo y alerta si corresponde (se evalúa sobre la entrada: la copia
+        //    que devuelve save() no trae el idUsuario transitorio)
+        inicio = System.nanoTime();
+        double[] features = new double[FeaturesScoring.CANTIDAD];
+        motorScoring.features(idUsuario, transaction.getMonto(), transaction.getTimestampTransaccion(), features, 0);
+        decidir(transaction, guardada, DefinicionRegla.Canal.HTTP, Double.NaN, features, 0);
+        metricas.etapa(DefinicionRegla.Canal.HTTP, Etapa.DECIDIR, inicio);
+        return guardada;
+    }
+
+    /**
+     * Ingesta por lotes del canal HTTP (JSON, NDJSON y volcado del WAL).
+     * @see #ingestar(List, DefinicionRegla.Canal)
+     */
+    @Transactional
+    public List<ResultadoIngesta> ingestBatch(List<Transaccion> lote) {
+        return ingestar(lote, DefinicionRegla.Canal.HTTP);
     }
-    // ========================================
-    // NUEVOS MÉTODOS PARA KAFKA
-    // ========================================
-    
+
     /**
-     * Valida una transacción recibida desde Kafka
-     * @param dto TransactionDTO recibido del topic de Kafka
-     * @return true si es válida, false si debe rechazarse
+     * Camino de escritura único para HTTP y Kafka: valida cada ítem en memoria, puntúa el lote
+     * con el modelo en un solo recorrido, resuelve todos los usuarios con una sola consulta IN,
+     * persiste las transacciones con batching JDBC de Hibernate y evalúa reglas y alertas.
+     * Un ítem inválido o duplicado no hace fallar al resto del lote.
+     * @param lote transacciones recibidas
+     * @param canal punto de entrada; define qué reglas aplican y qué datos son obligatorios
+     * @return un resultado por ítem, en el mismo orden que el lote
      */
-    public boolean validateTransaction(TransactionDTO dto) {
-        log.debug("Validando transacción desde Kafka: {}", dto);
+    @Transactional
+    public List<ResultadoIngesta> ingestar(List<Transaccion> lote, DefinicionRegla.Canal canal) {
+        ResultadoIngesta[] resultados = new ResultadoIngesta[lote.size()];
+        metricas.lote(canal, lote.size());
 
-        // Validación 1: Monto no excede el límite
-        if (dto.getAmount() != null && dto.getAmount().compareTo(MAX_TRANSACTION_AMOUNT) > 0) {
-            log.warn("Transacción rechazada: monto excede el límite permitido");
-            dto.setRejectionReason("Monto excede el límite de " + MAX_TRANSACTION_AMOUNT);
-            return false;
+        // 1) Validación en memoria (Bean Validation + reglas del endpoint individual)
+        long inicio = System.nanoTime();
+        List<Integer> aceptados = new ArrayList<>(lote.size());
+        // Primera aparición de cada id; las repeticiones toman al final el resultado de ésa
+        Map<String, Integer> primeroPorId = new HashMap<>();
+        List<Integer> repetidos = new ArrayList<>();
+        for (int i = 0; i < lote.size(); i++) {
+            Transaccion tx = lote.get(i);
+            String error = validarIngesta(tx, canal);
+            if (error != null) {
+                resultados[i] = ResultadoIngesta.rechazada(i, tx != null ? tx.getIdTransaccion() : null, error);
+            } else if (primeroPorId.putIfAbsent(tx.getIdTransaccion(), i) != null) {
+                repetidos.add(i);
+            } else {
+                aceptados.add(i);
+            }
         }
+        metricas.etapa(canal, Etapa.VALIDAR, inicio);
+
+        if (!aceptados.isEmpty()) {
+            // 2) Modelo sobre todo el lote con las features previas a él; las mismas features
+            //    se usan después para explicar las alertas
+            List<Transaccion> aPuntuar = new ArrayList<>(aceptados.size());
+            aceptados.forEach(i -> aPuntuar.add(lote.get(i)));
+            double[] puntajes = new double[aPuntuar.size()];
+            double[] features = new double[aPuntuar.size() * FeaturesScoring.CANTIDAD];
+            inicio = System.nanoTime();
+            motorScoring.puntuarLote(aPuntuar, features, puntajes);
+            metricas.etapa(canal, Etapa.SCORING, inicio);
+
+            // 3) Transacciones ya guardadas (idempotencia ante reenvíos) en una sola consulta,
+            //    y la decisión con la que se guardaron en otra: un reenvío devuelve la misma
+            long inicioPersistir = System.nanoTime();
+            Set<String> existentes = new HashSet<>(transactionRepository.findExistingIds(primeroPorId.keySet()));
+            Map<String, DecisionGuardada> decisionesGuardadas = alertaService.decisionesGuardadas(existentes);
+
+            // 4) Usuarios del lote: los conocidos salen de la caché, el resto se crea con un
+            //    upsert y se lee en una sola consulta
+            Map<String, String> paisPorUsuario = new HashMap<>();
+            aceptados.forEach(i -> paisPorUsuario.putIfAbsent(lote.get(i).getIdUsuario(), lote.get(i).getPais()));
+            inicio = System.nanoTime();
+            Map<String, String> estados = resolverUsuarios(paisPorUsuario);
+            long usuariosNanos = System.nanoTime() - inicio;
+            metricas.duracion(canal, Etapa.USUARIOS, usuariosNanos);
+
+            // 5) Persistir con persist() (IDs asignados: save() haría un SELECT previo por fila)
+            int pendientes = 0;
+            long decidirNanos = 0;
+            for (int k = 0; k < aceptados.size(); k++) {
+                int i = aceptados.get(k);
+                Transaccion tx = lote.get(i);
+                if (existentes.contains(tx.getIdTransaccion())) {
+                    DecisionGuardada guardada = decisionesGuardadas.get(tx.getIdTransaccion());
+                    resultados[i] = guardada == null
+                            ? ResultadoIngesta.duplicada(i, tx.getIdTransaccion(), Bandera.ok, null)
+                            : ResultadoIngesta.duplicada(i, tx.getIdTransaccion(), guardada.bandera(), guardada.motivo());
+                    continue;
+                }
 
-        // Validación 2: Tipo de transacción válido
-        if (!isValidTransactionType(dto.getType())) {
-            log.warn("Transacción rechazada: tipo de transacción inválido");
-            dto.setRejectionReason("Tipo de transacción inválido: " + dto.getType());
-            return false;
+                String estado = estados.get(tx.getIdUsuario());
+                if (!EstadoCuenta.ACTIVA.equals(estado)) {
+                    resultados[i] = ResultadoIngesta.rechazada(i, tx.getIdTransaccion(),
+                            CuentaNoActivaException.mensaje(tx.getIdUsuario(), estado));
+                    continue;
+                }
+                // raw_json antes de enlazar el usuario: la referencia es un proxy no serializable
+                tx.setCanal(canal.name());
+                guardarRaw(tx);
+                tx.setUsuario(entityManager.getReference(Usuario.class, tx.getIdUsuario()));
+                entityManager.persist(tx);
+                inicio = System.nanoTime();
+                Decision decision = decidir(tx, tx, canal, puntajes[k], features, k * FeaturesScoring.CANTIDAD);
+                decidirNanos += System.nanoTime() - inicio;
+                resultados[i] = ResultadoIngesta.guardada(i, tx.getIdTransaccion(), decision.bandera(), decision.motivo());
+
+                if (++pendientes % tamanioBatchJdbc == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+            entityManager.flush();
+            entityManager.clear();
+            // Persistir: consulta de existentes, persist y flush, sin usuarios ni reglas
+            metricas.duracion(canal, Etapa.DECIDIR, decidirNanos);
+            metricas.duracion(canal, Etapa.PERSISTIR, System.nanoTime() - inicioPersistir - usuariosNanos - decidirNanos);
         }
 
-        // Validación 3: Campos obligatorios
-        if (dto.getAccountId() == null || dto.getAccountId().isEmpty()) {
-            log.warn("Transacción rechazada: ID de cuenta vacío");
-            dto.setRejectionReason("ID de cuenta es requerido");
-            return false;
+        for (int i : repetidos) {
+            Transaccion tx = lote.get(i);
+            ResultadoIngesta primero = resultados[primeroPorId.get(tx.getIdTransaccion())];
+            resultados[i] = ResultadoIngesta.RECHAZADA.equals(primero.estado())
+                    ? ResultadoIngesta.rechazada(i, tx.getIdTransaccion(), primero.error())
+                    : ResultadoIngesta.duplicada(i, tx.getIdTransaccion(), primero.bandera(), primero.error());
         }
 
-        return true;
+        if (log.isDebugEnabled()) {
+            log.debug("Lote {} de {} transacciones procesado: {} guardadas", canal, lote.size(),
+                    Arrays.stream(resultados).filter(r -> ResultadoIngesta.GUARDADA.equals(r.estado())).count());
+        }
+        return Arrays.asList(resultados);
     }
 
     /**
-     * Convierte TransactionDTO (de Kafka) a Transaccion (entity) y guarda
-     * @param dto TransactionDTO validado
-     * @return Transaccion guardada
+     * Evalúa reglas y modelo con las features de velocidad previas a la transacción, actualiza
+     * las features de la cuenta y las estadísticas, y registra la alerta si alguna regla disparó
+     * o el modelo no dio ok.
+     * @param entrada transacción recibida (trae idUsuario)
+     * @param persistida entidad gestionada a la que se asocia la alerta
+     * @param puntaje puntaje ya calculado por lote, o NaN para calcularlo acá
+     * @param features vector de features del modelo de la transacción (en {@code offset});
+     *                 reglas, puntaje y explicación de la alerta salen del mismo vector
      */
-    @Transactional
-    public Transaccion saveTransactionFromDTO(TransactionDTO dto) {
-        log.info("Guardando transacción desde Kafka: {}", dto);
-
-        // Crear nueva transacción
-        Transaccion transaction = new Transaccion();
-        
-        if (dto.getId() == null || dto.getId().isEmpty()) {
-            transaction.setIdTransaccion(UUID.randomUUID().toString());
+    private Decision decidir(Transaccion entrada, Transaccion persistida, DefinicionRegla.Canal canal,
+                             double puntaje, double[] features, int offset) {
+        String idUsuario = entrada.getIdUsuario();
+        ResultadoReglas reglas = motorReglas.evaluar(idUsuario, entrada.getMonto(), entrada.getTipo(),
+                entrada.getPais(), canal, features, offset + FeaturesScoring.VELOCIDAD);
+        ResultadoScoring scoring = null;
+        Bandera bandera;
+        if (reglas.rechazar()) {
+            puntaje = Double.NaN;
+            bandera = Bandera.bloqueado;
         } else {
-            transaction.setIdTransaccion(dto.getId());
+            if (Double.isNaN(puntaje)) {
+                puntaje = motorScoring.puntuar(features, offset);
+            }
+            bandera = reglas.disparo() ? Bandera.sospechoso : motorScoring.bandera(puntaje);
+            // El detalle del modelo sólo se arma cuando va a haber alerta
+            if (bandera != Bandera.ok) {
+                scoring = motorScoring.explicar(features, offset);
+                if (!reglas.disparo()) {
+                    // La alerta del modelo lleva la bandera de explicar()
+                    bandera = scoring.bandera();
+                }
+            }
         }
+        velocityFeatureStore.registrar(idUsuario, entrada.getMonto(), entrada.getPais());
+        rollupEstadisticas.registrarTransaccion(entrada.getMonto(), puntaje);
+        if (reglas.disparo() || scoring != null) {
+            alertaService.registrarDecision(persistida, reglas, scoring);
+        }
+        return new Decision(bandera, reglas.rechazar() ? reglas.motivo() : null);
+    }
 
-        // Mapear campos del DTO a la entidad
-        transaction.setIdUsuario(dto.getAccountId());
-        transaction.setMonto(dto.getAmount());
-        
-        // Usar el método original para guardar (reutilizar lógica existente)
-        return ingestAndSave(transaction);
+    /**
+     * Valida una transacción de entrada sin persistirla.
+     * @return el motivo del rechazo, o null si es válida
+     */
+    public String validarIngesta(Transaccion tx) {
+        return validarIngesta(tx, DefinicionRegla.Canal.HTTP);
+    }
+
+    private String validarIngesta(Transaccion tx, DefinicionRegla.Canal canal) {
+        if (tx == null) {
+            return "Registro vacío";
+        }
+        Set<ConstraintViolation<Transaccion>> violaciones = validator.validate(tx);
+        if (!violaciones.isEmpty()) {
+            return violaciones.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        if (tx.getIdUsuario() == null || tx.getIdUsuario().isBlank()) {
+            return "idUsuario es obligatorio";
+        }
+        // Sólo lo que ya está en caché; el resto se verifica al resolver el usuario
+        String estado = cacheUsuarios.consultar(tx.getIdUsuario());
+        if (estado != null && !EstadoCuenta.ACTIVA.equals(estado)) {
+            return CuentaNoActivaException.mensaje(tx.getIdUsuario(), estado);
+        }
+        // Los eventos de Kafka no traen ubicación
+        if (canal == DefinicionRegla.Canal.HTTP && (tx.getLatitud() == null || tx.getLongitud() == null)) {
+            return "latitud y longitud son obligatorias";
+        }
+        return null;
+    }
+
+    /**
+     * Estado de cuenta de cada usuario. Los que están en caché no tocan la base; el resto se
+     * inserta con un upsert (no-op si ya existía, sin carrera entre ingestas concurrentes) y
+     * se lee en una sola consulta IN.
+     * @param paisPorUsuario país con el que se crea cada usuario nuevo
+     */
+    private Map<String, String> resolverUsuarios(Map<String, String> paisPorUsuario) {
+        Map<String, String> estados = new HashMap<>(paisPorUsuario.size());
+        List<Usuario> desconocidos = new ArrayList<>();
+        paisPorUsuario.forEach((id, pais) -> {
+            String estado = cacheUsuarios.estado(id);
+            if (estado != null) {
+                estados.put(id, estado);
+            } else {
+                desconocidos.add(nuevoUsuario(id, pais));
+            }
+        });
+        if (!desconocidos.isEmpty()) {
+            usuarioRepository.insertarSiNoExisten(desconocidos);
+            List<EstadoCuenta> leidos = usuarioRepository.findEstados(
+                    desconocidos.stream().map(Usuario::getIdUsuario).toList());
+            for (EstadoCuenta leido : leidos) {
+                estados.put(leido.idUsuario(), leido.activa() ? EstadoCuenta.ACTIVA : leido.estadoCuenta());
+            }
+            cacheUsuarios.registrar(leidos);
+        }
+        return estados;
+    }
+
+    private Usuario nuevoUsuario(String idUsuario, String pais) {
+        Usuario u = new Usuario();
+        u.setIdUsuario(idUsuario);
+        u.setPais(pais);
+        u.setFechaCreacion(Timestamp.valueOf(LocalDateTime.now()));
+        u.setEstadoCuenta("activa");
+        return u;
+    }
+
+    // Payload original tal como llegó; si no lo hay (p. ej. una entidad armada a mano) se serializa
+    private void guardarRaw(Transaccion tx) {
+        if (capturaPayload.aplicar(tx)) {
+            return;
+        }
+        try {
+            tx.setRawJson(objectMapper.writeValueAsString(tx));
+        } catch (Exception e) {
+            log.warn("No se pudo serializar raw_json de la transacción {}", tx.getIdTransaccion(), e);
+            tx.setRawJson("{}");
+        }
     }
 
-    private boolean isValidTransactionType(String type) {
-        return type != null && 
-               (type.equals("DEPOSIT") || type.equals("WITHDRAWAL") || type.equals("TRANSFER"));
+    private record Decision(Bandera bandera, String motivo) {
     }
 }
@@ -0,0 +1,48 @@
+package com.transacciones.transaction_ingestor.stats;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Estadísticas de fraude para el panel, calculadas sobre los rollups en memoria
+ * (nunca recorre la tabla de transacciones).
+ */
+@RestController
+@RequestMapping("/stats")
+@CrossOrigin(origins = "*")
+public class EstadisticasController {
+
+    private final RollupEstadisticas rollupEstadisticas;
+
+    public EstadisticasController(RollupEstadisticas rollupEstadisticas) {
+        this.rollupEstadisticas = rollupEstadisticas;
+    }
+
+    /**
+     * Totales, alertas por bandera e histograma de puntajes en [desde, hasta).
+     * Por defecto, las últimas 24 horas; como máximo {@code estadisticas.max-rango-dias}.
+     */
+    @GetMapping
+    public ResponseEntity<Object> resumen(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta) {
+        LocalDateTime fin = hasta != null ? hasta : LocalDateTime.now();
+        LocalDateTime inicio = desde != null ? desde : fin.minusDays(1);
+        if (!inicio.isBefore(fin)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "desde debe ser anterior a hasta"));
+        }
+        if (inicio.plusDays(rollupEstadisticas.maxRangoDias()).isBefore(fin)) {
+            return ResponseEntity.badRequest().body(Map.of("error",
+                    "El rango no puede superar " + rollupEstadisticas.maxRangoDias() + " días"));
+        }
+        return ResponseEntity.ok(rollupEstadisticas.resumen(inicio, fin));
+    }
+}
@@ -0,0 +1,28 @@
+package com.transacciones.transaction_ingestor.stats;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estadísticas de un rango de tiempo armadas con los buckets de rollup.
+ * @param desde inicio del rango efectivamente cubierto (puede ser anterior al pedido si hubo
+ *              que usar buckets más gruesos por retención)
+ * @param hasta fin (exclusivo) del rango efectivamente cubierto
+ * @param porBandera cantidad y monto por bandera; "ok" son las transacciones sin alerta
+ * @param histograma puntajes del modelo en intervalos de 0.1 (de [0, 0.1) a [0.9, 1])
+ */
+public record ResumenEstadisticas(
+        LocalDateTime desde,
+        LocalDateTime hasta,
+        long transacciones,
+        BigDecimal montoTotal,
+        Map<String, Conteo> porBandera,
+        double tasaAlertas,
+        List<Long> histograma
+) {
+
+    public record Conteo(long cantidad, BigDecimal monto) {
+    }
+}
@@ -0,0 +1,615 @@
+package com.transacciones.transaction_ingestor.stats;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.transacciones.transaction_ingestor.model.EstadisticaRollup;
+import com.transacciones.transaction_ingestor.model.enums.Bandera;
+import com.transacciones.transaction_ingestor.model.enums.Granularidad;
+import com.transacciones.transaction_ingestor.repository.EstadisticaRollupRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Rollups incrementales de estadísticas de fraude: buckets por minuto, hora y día con la
+ * cantidad y el monto de transacciones, las alertas por bandera y el histograma de puntajes
+ * del modelo. Se actualizan al ingerir (después del commit) y al escribir cada alerta.
+ * <p>
+ * Los buckets recientes viven en memoria (un ring buffer por granularidad) y se guardan cada
+ * {@code estadisticas.checkpoint-ms} en {@code estadisticas_rollup}, de donde se recuperan al
+ * arrancar. Un rango se responde combinando los buckets más gruesos que entran completos:
+ * días, después horas y minutos en los bordes. Los minutos y horas fuera de la retención se
+ * reemplazan por el bucket más grueso que los contiene; los días viejos se leen de la tabla.
+ * El rango de una consulta se limita a {@code estadisticas.max-rango-dias}.
+ * <p>
+ * Con varias instancias ({@code ids.instancias} > 1) cada una guarda sus propios buckets,
+ * con su {@code ids.nodo} en la clave, y recupera sólo los suyos al arrancar. Una consulta
+ * suma a lo propio en memoria los buckets de los demás nodos guardados en la tabla (al día
+ * con su último checkpoint), y los días viejos de todos los nodos.
+ */
+@Component
+public class RollupEstadisticas implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(RollupEstadisticas.class);
+
+    public static final int INTERVALOS_HISTOGRAMA = 10;
+
+    private static final long MINUTO_MS = 60_000L;
+    private static final long HORA_MS = 3_600_000L;
+    private static final Bandera[] BANDERAS = Bandera.values();
+
+    private final EstadisticaRollupRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ZoneId zona;
+    private final Serie[] series;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final long checkpointMs;
+    private final int maxRangoDias;
+    private final int nodo;
+    private final boolean variosNodos;
+    private ScheduledExecutorService checkpoints;
+
+    // Día actual cacheado: evita convertir a fecha local en cada transacción (protegido por lock)
+    private long diaIndice = Long.MIN_VALUE;
+    private long diaDesde;
+    private long diaHasta;
+
+    public RollupEstadisticas(EstadisticaRollupRepository repository,
+                              TransactionTemplate transactionTemplate,
+                              ObjectMapper objectMapper,
+                              @Value("${estadisticas.retencion.minutos:1440}") int minutos,
+                              @Value("${estadisticas.retencion.horas:744}") int horas,
+                              @Value("${estadisticas.retencion.dias:400}") int dias,
+                              @Value("${estadisticas.checkpoint-ms:60000}") long checkpointMs,
+                              @Value("${estadisticas.max-rango-dias:3660}") int maxRangoDias,
+                              @Value("${estadisticas.zona:}") String zona,
+                              @Value("${ids.nodo:0}") int nodo,
+                              @Value("${ids.instancias:1}") int instancias) {
+        if (minutos <= 0 || horas <= 0 || dias <= 0 || checkpointMs <= 0 || maxRangoDias <= 0) {
+            throw new IllegalArgumentException("retenciones, checkpoint-ms y max-rango-dias deben ser positivos");
+        }
+        this.checkpointMs = checkpointMs;
+        this.maxRangoDias = maxRangoDias;
+        // Sin ids.nodo (una sola instancia) se usa el nodo 0, el mismo en cada reinicio
+        this.nodo = Math.max(0, nodo);
+        this.variosNodos = instancias > 1;
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.zona = zona == null || zona.isBlank() ? ZoneId.systemDefault() : ZoneId.of(zona);
+        this.series = new Serie[]{
+                new Serie(Granularidad.minuto, minutos),
+                new Serie(Granularidad.hora, horas),
+                new Serie(Granularidad.dia, dias)};
+    }
+
+    // La lectura de la tabla y el hilo de checkpoints arrancan con el bean ya construido
+    @PostConstruct
+    void iniciar() {
+        cargar();
+        this.checkpoints = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "estadisticas-checkpoint");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        checkpoints.scheduleWithFixedDelay(this::checkpoint, checkpointMs, checkpointMs, TimeUnit.MILLISECONDS);
+    }
+
+    /** Rango más largo que acepta {@link #resumen}. */
+    public int maxRangoDias() {
+        return maxRangoDias;
+    }
+
+    /**
+     * Suma una transacción ingerida. Dentro de una transacción de base se aplica recién
+     * después del commit, así un lote con rollback no cuenta.
+     * @param puntaje puntaje del modelo, o NaN si no se puntuó (rechazada por reglas)
+     */
+    public void registrarTransaccion(BigDecimal monto, double puntaje) {
+        long centavos = centavos(monto);
+        int intervalo = Double.isNaN(puntaje) ? -1 : intervalo(puntaje);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    sumarTransaccion(System.currentTimeMillis(), centavos, intervalo);
+                }
+            });
+        } else {
+            sumarTransaccion(System.currentTimeMillis(), centavos, intervalo);
+        }
+    }
+
+    /**
+     * Suma una alerta ya persistida.
+     * @param momentoMs momento de la decisión (created_at de la alerta)
+     */
+    public void registrarAlerta(Bandera bandera, BigDecimal monto, long momentoMs) {
+        if (bandera == null) {
+            return;
+        }
+        long centavos = centavos(monto);
+        lock.lock();
+        try {
+            for (Serie serie : series) {
+                Bucket bucket = bucket(serie, momentoMs);
+                if (bucket != null) {
+                    bucket.alertas[bandera.ordinal()]++;
+                    bucket.montoAlertas[bandera.ordinal()] += centavos;
+                    bucket.sucio = true;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void sumarTransaccion(long momentoMs, long centavos, int intervalo) {
+        lock.lock();
+        try {
+            for (Serie serie : series) {
+                Bucket bucket = bucket(serie, momentoMs);
+                if (bucket != null) {
+                    bucket.transacciones++;
+                    bucket.montoCentavos += centavos;
+                    if (intervalo >= 0) {
+                        bucket.histograma[intervalo]++;
+                    }
+                    bucket.sucio = true;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Combina los buckets que cubren [desde, hasta), redondeado a minutos. El recorrido del
+     * rango se arma sin el lock; el lock de la ingesta se toma sólo para sumar los buckets
+     * en memoria, que son a lo sumo los de la retención. Con varios nodos se suman además
+     * los buckets de los demás guardados en la tabla, una consulta por granularidad.
+     * @throws IllegalArgumentException si el rango supera {@code estadisticas.max-rango-dias}
+     */
+    public ResumenEstadisticas resumen(LocalDateTime desde, LocalDateTime hasta) {
+        if (desde.plusDays(maxRangoDias).isBefore(hasta)) {
+            throw new IllegalArgumentException("El rango no puede superar " + maxRangoDias + " días");
+        }
+        long d = Math.floorDiv(aMs(desde), MINUTO_MS) * MINUTO_MS;
+        long h = -Math.floorDiv(-aMs(hasta), MINUTO_MS) * MINUTO_MS;
+        Bucket total = new Bucket();
+        List<Tramo> enMemoria = new ArrayList<>();
+        Set<Long> diasEnTabla = new HashSet<>();
+        long cubiertoDesde = Long.MAX_VALUE;
+        long cubiertoHasta = Long.MIN_VALUE;
+
+        long ahora = System.currentTimeMillis();
+        long t = d;
+        while (t < h) {
+            Tramo tramo = tramo(t, h, ahora);
+            Serie serie = tramo.serie();
+            if (serie.granularidad == Granularidad.dia && !enMemoria(serie, tramo.indice(), ahora)) {
+                diasEnTabla.add(tramo.inicio());
+            } else {
+                enMemoria.add(tramo);
+            }
+            cubiertoDesde = Math.min(cubiertoDesde, tramo.inicio());
+            cubiertoHasta = Math.max(cubiertoHasta, tramo.fin());
+            t = tramo.fin();
+        }
+
+        lock.lock();
+        try {
+            for (Tramo tramo : enMemoria) {
+                Bucket bucket = tramo.serie().slots[slot(tramo.serie(), tramo.indice())];
+                if (bucket.indice == tramo.indice()) {
+                    total.sumar(bucket);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        // Inicios de los buckets en memoria por granularidad: lo de los demás nodos está en la tabla
+        Map<Granularidad, Set<Long>> deOtrosNodos = new LinkedHashMap<>();
+        if (variosNodos) {
+            for (Tramo tramo : enMemoria) {
+                deOtrosNodos.computeIfAbsent(tramo.serie().granularidad, g -> new HashSet<>()).add(tramo.inicio());
+            }
+        }
+        for (Granularidad granularidad : Granularidad.values()) {
+            Set<Long> todos = granularidad == Granularidad.dia ? diasEnTabla : Set.of();
+            Set<Long> otros = deOtrosNodos.getOrDefault(granularidad, Set.of());
+            if (todos.isEmpty() && otros.isEmpty()) {
+                continue;
+            }
+            long primero = Math.min(minimo(todos), minimo(otros));
+            long ultimo = Math.max(maximo(todos), maximo(otros));
+            for (EstadisticaRollup fila : repository.findRango(granularidad,
+                    new Timestamp(primero), new Timestamp(ultimo + 1))) {
+                long inicio = fila.getInicio().getTime();
+                if (todos.contains(inicio) || (fila.getNodo() != nodo && otros.contains(inicio))) {
+                    total.sumar(desdeFila(fila));
+                }
+            }
+        }
+        return armarResumen(total, cubiertoDesde, cubiertoHasta);
+    }
+
+    private static long minimo(Set<Long> valores) {
+        return valores.stream().mapToLong(Long::longValue).min().orElse(Long.MAX_VALUE);
+    }
+
+    private static long maximo(Set<Long> valores) {
+        return valores.stream().mapToLong(Long::longValue).max().orElse(Long.MIN_VALUE);
+    }
+
+    // Bucket más grueso que empieza en t y entra completo en [t, h); si el minuto de t ya salió
+    // de la retención se usa la hora (o el día) que lo contiene aunque exceda el rango
+    private Tramo tramo(long t, long h, long ahora) {
+        Serie minutos = series[Granularidad.minuto.ordinal()];
+        Serie horas = series[Granularidad.hora.ordinal()];
+        Serie dias = series[Granularidad.dia.ordinal()];
+        long dia = indiceDia(t);
+        long inicioDia = inicio(Granularidad.dia, dia);
+        long finDia = inicio(Granularidad.dia, dia + 1);
+        long hora = Math.floorDiv(t, HORA_MS);
+        long minuto = Math.floorDiv(t, MINUTO_MS);
+
+        if (inicioDia == t && finDia <= h) {
+            return new Tramo(dias, dia, inicioDia, finDia);
+        }
+        if (hora * HORA_MS == t && t + HORA_MS <= h && enMemoria(horas, hora, ahora)) {
+            return new Tramo(horas, hora, t, t + HORA_MS);
+        }
+        if (enMemoria(minutos, minuto, ahora)) {
+            return new Tramo(minutos, minuto, t, t + MINUTO_MS);
+        }
+        if (enMemoria(horas, hora, ahora)) {
+            return new Tramo(horas, hora, hora * HORA_MS, (hora + 1) * HORA_MS);
+        }
+        return new Tramo(dias, dia, inicioDia, finDia);
+    }
+
+    private ResumenEstadisticas armarResumen(Bucket total, long desde, long hasta) {
+        Map<String, ResumenEstadisticas.Conteo> porBandera = new LinkedHashMap<>();
+        long alertas = 0;
+        long montoAlertas = 0;
+        for (Bandera bandera : BANDERAS) {
+            if (bandera != Bandera.ok) {
+                alertas += total.alertas[bandera.ordinal()];
+                montoAlertas += total.montoAlertas[bandera.ordinal()];
+            }
+        }
+        // Una transacción sin alerta cuenta como ok
+        porBandera.put(Bandera.ok.name(), new ResumenEstadisticas.Conteo(
+                Math.max(0, total.transacciones - alertas),
+                moneda(Math.max(0, total.montoCentavos - montoAlertas))));
+        for (Bandera bandera : BANDERAS) {
+            if (bandera != Bandera.ok) {
+                porBandera.put(bandera.name(), new ResumenEstadisticas.Conteo(
+                        total.alertas[bandera.ordinal()], moneda(total.montoAlertas[bandera.ordinal()])));
+            }
+        }
+        List<Long> histograma = Arrays.stream(total.histograma).boxed().toList();
+        return new ResumenEstadisticas(
+                aFecha(desde),
+                aFecha(hasta),
+                total.transacciones,
+                moneda(total.montoCentavos),
+                porBandera,
+                total.transacciones > 0 ? (double) alertas / total.transacciones : 0d,
+                histograma);
+    }
+
+    /**
+     * Guarda en la tabla los buckets de este nodo modificados desde el último checkpoint y
+     * poda los minutos y horas que ya salieron de la retención (de todos los nodos).
+     */
+    void checkpoint() {
+        List<Bucket> sucios = new ArrayList<>();
+        List<Granularidad> granularidades = new ArrayList<>();
+        Map<Granularidad, Timestamp> limitesPoda = new LinkedHashMap<>();
+        long ahora = System.currentTimeMillis();
+        lock.lock();
+        try {
+            for (Serie serie : series) {
+                if (serie.granularidad != Granularidad.dia) {
+                    long primero = indice(serie.granularidad, ahora) - serie.slots.length + 1;
+                    limitesPoda.put(serie.granularidad, new Timestamp(inicio(serie.granularidad, primero)));
+                }
+                for (Bucket bucket : serie.slots) {
+                    if (bucket.sucio) {
+                        sucios.add(bucket.copia());
+                        granularidades.add(serie.granularidad);
+                        bucket.sucio = false;
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            List<EstadisticaRollup> filas = new ArrayList<>(sucios.size());
+            lock.lock();
+            try {
+                // aFila usa inicio(), que para días lee la caché protegida por el lock
+                for (int i = 0; i < sucios.size(); i++) {
+                    filas.add(aFila(granularidades.get(i), sucios.get(i), ahora));
+                }
+            } finally {
+                lock.unlock();
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                repository.saveAll(filas);
+                limitesPoda.forEach(repository::deleteAnteriores);
+            });
+        } catch (RuntimeException e) {
+            log.warn("No se pudo guardar el checkpoint de estadísticas ({} buckets), se reintenta en el próximo",
+                    sucios.size(), e);
+            lock.lock();
+            try {
+                for (int i = 0; i < sucios.size(); i++) {
+                    Serie serie = series[granularidades.get(i).ordinal()];
+                    Bucket bucket = serie.slots[slot(serie, sucios.get(i).indice)];
+                    if (bucket.indice == sucios.get(i).indice) {
+                        bucket.sucio = true;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void cargar() {
+        long ahora = System.currentTimeMillis();
+        int cargados = 0;
+        try {
+            for (Serie serie : series) {
+                long actual = indice(serie.granularidad, ahora);
+                List<EstadisticaRollup> filas = repository.findRangoDelNodo(serie.granularidad, nodo,
+                        new Timestamp(inicio(serie.granularidad, actual - serie.slots.length + 1)),
+                        new Timestamp(inicio(serie.granularidad, actual + 1)));
+                for (EstadisticaRollup fila : filas) {
+                    Bucket leido = desdeFila(fila);
+                    long indice = indice(serie.granularidad, fila.getInicio().getTime());
+                    Bucket bucket = serie.slots[slot(serie, indice)];
+                    bucket.reiniciar(indice);
+                    bucket.sumar(leido);
+                    cargados++;
+                }
+            }
+            log.info("Estadísticas: {} buckets del nodo {} recuperados del último checkpoint", cargados, nodo);
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron recuperar las estadísticas guardadas, se arranca de cero", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (checkpoints == null) {
+            return;
+        }
+        checkpoints.shutdownNow();
+        checkpoint();
+    }
+
+    // ===== Buckets e índices =====
+
+    private Bucket bucket(Serie serie, long momentoMs) {
+        long indice = indice(serie.granularidad, momentoMs);
+        Bucket bucket = serie.slots[slot(serie, indice)];
+        if (bucket.indice == indice) {
+            return bucket;
+        }
+        if (bucket.indice > indice) {
+            // Más viejo que la retención en memoria
+            return null;
+        }
+        bucket.reiniciar(indice);
+        return bucket;
+    }
+
+    // Sin la caché del día actual: se usa fuera del lock
+    private boolean enMemoria(Serie serie, long indice, long ahora) {
+        long actual = serie.granularidad == Granularidad.dia ? indiceDia(ahora) : indice(serie.granularidad, ahora);
+        return indice > actual - serie.slots.length;
+    }
+
+    private static int slot(Serie serie, long indice) {
+        return (int) Math.floorMod(indice, (long) serie.slots.length);
+    }
+
+    private long indice(Granularidad granularidad, long ms) {
+        switch (granularidad) {
+            case minuto:
+                return Math.floorDiv(ms, MINUTO_MS);
+            case hora:
+                return Math.floorDiv(ms, HORA_MS);
+            default:
+                if (ms >= diaDesde && ms < diaHasta) {
+                    return diaIndice;
+                }
+                diaIndice = indiceDia(ms);
+                diaDesde = inicio(Granularidad.dia, diaIndice);
+                diaHasta = inicio(Granularidad.dia, diaIndice + 1);
+                return diaIndice;
+        }
+    }
+
+    private long indiceDia(long ms) {
+        return Instant.ofEpochMilli(ms).atZone(zona).toLocalDate().toEpochDay();
+    }
+
+    private long inicio(Granularidad granularidad, long indice) {
+        switch (granularidad) {
+            case minuto:
+                return indice * MINUTO_MS;
+            case hora:
+                return indice * HORA_MS;
+            default:
+                return LocalDate.ofEpochDay(indice).atStartOfDay(zona).toInstant().toEpochMilli();
+        }
+    }
+
+    private long aMs(LocalDateTime fecha) {
+        return fecha.atZone(zona).toInstant().toEpochMilli();
+    }
+
+    private LocalDateTime aFecha(long ms) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(ms), zona);
+    }
+
+    private static int intervalo(double puntaje) {
+        int i = (int) (puntaje * INTERVALOS_HISTOGRAMA);
+        return Math.max(0, Math.min(INTERVALOS_HISTOGRAMA - 1, i));
+    }
+
+    private static long centavos(BigDecimal monto) {
+        return monto == null ? 0L : monto.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+    }
+
+    private static BigDecimal moneda(long centavos) {
+        return BigDecimal.valueOf(centavos, 2);
+    }
+
+    // ===== Conversión a y desde la tabla =====
+
+    private EstadisticaRollup aFila(Granularidad granularidad, Bucket bucket, long ahora) {
+        ObjectNode alertas = objectMapper.createObjectNode();
+        for (Bandera bandera : BANDERAS) {
+            if (bucket.alertas[bandera.ordinal()] > 0) {
+                alertas.putObject(bandera.name())
+                        .put("cantidad", bucket.alertas[bandera.ordinal()])
+                        .put("monto", moneda(bucket.montoAlertas[bandera.ordinal()]));
+            }
+        }
+        ArrayNode histograma = objectMapper.createArrayNode();
+        for (long n : bucket.histograma) {
+            histograma.add(n);
+        }
+
+        EstadisticaRollup fila = new EstadisticaRollup();
+        fila.setGranularidad(granularidad);
+        fila.setInicio(new Timestamp(inicio(granularidad, bucket.indice)));
+        fila.setNodo(nodo);
+        fila.setTransacciones(bucket.transacciones);
+        fila.setMontoTotal(moneda(bucket.montoCentavos));
+        fila.setAlertasJson(alertas.toString());
+        fila.setHistogramaJson(histograma.toString());
+        fila.setActualizadoEn(new Timestamp(ahora));
+        return fila;
+    }
+
+    private Bucket desdeFila(EstadisticaRollup fila) {
+        Bucket bucket = new Bucket();
+        bucket.transacciones = fila.getTransacciones();
+        bucket.montoCentavos = centavos(fila.getMontoTotal());
+        try {
+            if (fila.getAlertasJson() != null) {
+                JsonNode alertas = objectMapper.readTree(fila.getAlertasJson());
+                for (Bandera bandera : BANDERAS) {
+                    JsonNode conteo = alertas.get(bandera.name());
+                    if (conteo != null) {
+                        bucket.alertas[bandera.ordinal()] = conteo.path("cantidad").asLong();
+                        bucket.montoAlertas[bandera.ordinal()] = centavos(conteo.path("monto").decimalValue());
+                    }
+                }
+            }
+            if (fila.getHistogramaJson() != null) {
+                JsonNode histograma = objectMapper.readTree(fila.getHistogramaJson());
+                for (int i = 0; i < INTERVALOS_HISTOGRAMA && i < histograma.size(); i++) {
+                    bucket.histograma[i] = histograma.get(i).asLong();
+                }
+            }
+        } catch (JsonProcessingException e) {
+            log.warn("Bucket {} {} con JSON inválido, se usan sólo los totales",
+                    fila.getGranularidad(), fila.getInicio(), e);
+        }
+        return bucket;
+    }
+
+    private record Tramo(Serie serie, long indice, long inicio, long fin) {
+    }
+
+    private static final class Serie {
+        private final Granularidad granularidad;
+        private final Bucket[] slots;
+
+        Serie(Granularidad granularidad, int retencion) {
+            this.granularidad = granularidad;
+            this.slots = new Bucket[retencion];
+            for (int i = 0; i < retencion; i++) {
+                slots[i] = new Bucket();
+            }
+        }
+    }
+
+    private static final class Bucket {
+        private long indice = Long.MIN_VALUE;
+        private long transacciones;
+        private long montoCentavos;
+        private final long[] alertas = new long[BANDERAS.length];
+        private final long[] montoAlertas = new long[BANDERAS.length];
+        private final long[] histograma = new long[INTERVALOS_HISTOGRAMA];
+        private boolean sucio;
+
+        void reiniciar(long nuevoIndice) {
+            indice = nuevoIndice;
+            transacciones = 0;
+            montoCentavos = 0;
+            Arrays.fill(alertas, 0);
+            Arrays.fill(montoAlertas, 0);
+            Arrays.fill(histograma, 0);
+            sucio = false;
+        }
+
+        void sumar(Bucket otro) {
+            transacciones += otro.transacciones;
+            montoCentavos += otro.montoCentavos;
+            for (int i = 0; i < alertas.length; i++) {
+                alertas[i] += otro.alertas[i];
+                montoAlertas[i] += otro.montoAlertas[i];
+            }
+            for (int i = 0; i < histograma.length; i++) {
+                histograma[i] += otro.histograma[i];
+            }
+        }
+
+        Bucket copia() {
+            Bucket copia = new Bucket();
+            copia.indice = indice;
+            copia.sumar(this);
+            return copia;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.transacciones.transaction_ingestor.usuarios;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Usuarios ya existentes en la base y su estado de cuenta, para que la ingesta no consulte
+ * usuarios en cada transacción. Acotada por tamaño (desaloja los menos usados) y por TTL:
+ * un cambio de estado hecho fuera de este servicio se ve al invalidar la entrada con
+ * {@code DELETE /usuarios/cache/{idUsuario}}, o a más tardar al vencer.
+ */
+@Component
+public class CacheUsuarios {
+
+    private final Cache<String, String> estados;
+
+    public CacheUsuarios(@Value("${usuarios.cache.max-entradas:100000}") long maxEntradas,
+                         @Value("${usuarios.cache.ttl-segundos:600}") long ttlSegundos) {
+        if (maxEntradas <= 0 || ttlSegundos <= 0) {
+            throw new IllegalArgumentException("max-entradas y ttl-segundos deben ser positivos");
+        }
+        this.estados = Caffeine.newBuilder()
+                .maximumSize(maxEntradas)
+                .expireAfterWrite(Duration.ofSeconds(ttlSegundos))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @return el estado de cuenta conocido, o null si el usuario no está en caché
+     */
+    public String estado(String idUsuario) {
+        return estados.getIfPresent(idUsuario);
+    }
+
+    /**
+     * Como {@link #estado} pero sin contar como acierto o fallo (validaciones previas).
+     */
+    public String consultar(String idUsuario) {
+        return estados.policy().getIfPresentQuietly(idUsuario);
+    }
+
+    /**
+     * Agrega usuarios leídos de la base. Dentro de una transacción las cuentas activas se
+     * agregan recién después del commit: pueden ser usuarios recién insertados que no existen
+     * si hay rollback. Las no activas ya existían (los usuarios nuevos se crean activos) y se
+     * agregan enseguida, así se rechazan aunque la ingesta que las leyó termine en error.
+     */
+    public void registrar(Collection<EstadoCuenta> usuarios) {
+        if (usuarios.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            agregar(usuarios);
+            return;
+        }
+        List<EstadoCuenta> activas = new ArrayList<>(usuarios.size());
+        for (EstadoCuenta usuario : usuarios) {
+            if (usuario.activa()) {
+                activas.add(usuario);
+            } else {
+                agregar(List.of(usuario));
+            }
+        }
+        if (!activas.isEmpty()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    agregar(activas);
+                }
+            });
+        }
+    }
+
+    private void agregar(Collection<EstadoCuenta> usuarios) {
+        for (EstadoCuenta usuario : usuarios) {
+            estados.put(usuario.idUsuario(),
+                    usuario.estadoCuenta() != null ? usuario.estadoCuenta() : EstadoCuenta.ACTIVA);
+        }
+    }
+
+    /** Descarta un usuario tras un cambio de su estado de cuenta ({@link UsuariosController}). */
+    public void invalidar(String idUsuario) {
+        estados.invalidate(idUsuario);
+    }
+
+    public long tamanio() {
+        return estados.estimatedSize();
+    }
+
+    public CacheStats estadisticas() {
+        return estados.stats();
+    }
+}
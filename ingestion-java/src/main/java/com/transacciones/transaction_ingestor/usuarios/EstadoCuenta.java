@@ -0,0 +1,13 @@
+package com.transacciones.transaction_ingestor.usuarios;
+
+/**
+ * Id y estado de cuenta de un usuario (proyección de usuarios, sin cargar la entidad).
+ */
+public record EstadoCuenta(String idUsuario, String estadoCuenta) {
+
+    public static final String ACTIVA = "activa";
+
+    public boolean activa() {
+        return estadoCuenta == null || ACTIVA.equals(estadoCuenta);
+    }
+}
@@ -0,0 +1,50 @@
+package com.transacciones.transaction_ingestor.usuarios;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Estado de la caché de usuarios de la ingesta. El estado de cuenta lo cambian otros
+ * sistemas: después de suspender o cerrar una cuenta llaman a
+ * {@code DELETE /usuarios/cache/{idUsuario}} para que la ingesta la rechace enseguida y no
+ * recién al vencer la entrada.
+ */
+@RestController
+@RequestMapping("/usuarios")
+@CrossOrigin(origins = "*")
+public class UsuariosController {
+
+    private final CacheUsuarios cacheUsuarios;
+
+    public UsuariosController(CacheUsuarios cacheUsuarios) {
+        this.cacheUsuarios = cacheUsuarios;
+    }
+
+    @GetMapping("/cache")
+    public Map<String, Object> cache() {
+        CacheStats stats = cacheUsuarios.estadisticas();
+        return Map.of(
+                "entradas", cacheUsuarios.tamanio(),
+                "aciertos", stats.hitCount(),
+                "fallos", stats.missCount(),
+                "tasaAciertos", stats.hitRate(),
+                "desalojos", stats.evictionCount());
+    }
+
+    /**
+     * Descarta el estado de cuenta cacheado del usuario; la próxima transacción lo lee de la base.
+     */
+    @DeleteMapping("/cache/{idUsuario}")
+    public ResponseEntity<Void> invalidar(@PathVariable String idUsuario) {
+        cacheUsuarios.invalidar(idUsuario);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,260 @@
+package com.transacciones.transaction_ingestor.wal;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.transacciones.transaction_ingestor.dto.ResultadoIngesta;
+import com.transacciones.transaction_ingestor.model.Transaccion;
+import com.transacciones.transaction_ingestor.service.TransactionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.TransactionSystemException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Modo de ingesta con write-ahead log ({@code ingesta.modo=wal}). POST /transactions/ingest
+ * responde en cuanto la transacción está sincronizada en el WAL local, sin esperar a la base;
+ * un hilo de volcado lee el log en lotes grandes y los persiste con
+ * {@link TransactionService#ingestBatch}, que también evalúa reglas, scoring y alertas.
+ * <p>
+ * El checkpoint se mueve sólo después del commit del lote, así que ante una caída se relee
+ * desde el último lote confirmado; los reenvíos son inocuos porque la ingesta por lotes
+ * descarta las transacciones ya guardadas.
+ * <p>
+ * Si un lote falla por algo que no es una caída de la base, se reintenta de a una
+ * transacción; las que vuelven a fallar, las que la ingesta rechaza (el cliente ya recibió
+ * el 202) y los registros ilegibles se apartan en {@code cuarentena.ndjson}, dentro del
+ * directorio del WAL, con el motivo y el payload original, y el checkpoint avanza igual:
+ * un registro que no se puede guardar no frena el volcado del resto.
+ */
+@Service
+@ConditionalOnProperty(name = "ingesta.modo", havingValue = "wal")
+public class IngestaWal implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestaWal.class);
+
+    private static final long ESPERA_ERROR_MS = 5_000;
+    private static final String CUARENTENA = "cuarentena.ndjson";
+
+    private final TransactionService transactionService;
+    private final ObjectMapper objectMapper;
+    private final WriteAheadLog wal;
+    private final Path cuarentena;
+    private final int tamanioLote;
+    private final long flushMs;
+    private final Thread volcador;
+    private volatile boolean activo = true;
+
+    public IngestaWal(TransactionService transactionService,
+                      ObjectMapper objectMapper,
+                      @Value("${ingesta.wal.directorio:./data/wal}") String directorio,
+                      @Value("${ingesta.wal.segmento-bytes:67108864}") int segmentoBytes,
+                      @Value("${ingesta.wal.max-segmentos:16}") int maxSegmentos,
+                      @Value("${ingesta.wal.lote:1000}") int tamanioLote,
+                      @Value("${ingesta.wal.flush-ms:200}") long flushMs) throws IOException {
+        if (tamanioLote <= 0 || flushMs <= 0) {
+            throw new IllegalArgumentException("lote y flush-ms deben ser positivos");
+        }
+        this.transactionService = transactionService;
+        this.objectMapper = objectMapper;
+        this.wal = new WriteAheadLog(Path.of(directorio), segmentoBytes, maxSegmentos);
+        this.cuarentena = Path.of(directorio).resolve(CUARENTENA);
+        this.tamanioLote = tamanioLote;
+        this.flushMs = flushMs;
+        this.volcador = new Thread(this::volcar, "wal-volcado");
+        volcador.start();
+        log.info("Ingesta en modo WAL: directorio {}, lotes de {}", directorio, tamanioLote);
+    }
+
+    /**
+     * Agrega la transacción al WAL y espera a que esté en disco. Debe venir validada.
+     * Se escribe el payload tal como llegó si está disponible; si no, la entidad serializada.
+     * @throws IllegalStateException si el WAL está lleno o cerrado
+     */
+    public void registrar(Transaccion transaccion) {
+        byte[] payload = transaccion.getPayloadOriginal();
+        if (payload == null) {
+            try {
+                payload = objectMapper.writeValueAsBytes(transaccion);
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("No se pudo serializar la transacción", e);
+            }
+        }
+        try {
+            wal.esperarDurable(wal.agregar(payload));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido esperando el fsync del WAL", e);
+        }
+    }
+
+    private void volcar() {
+        long posicion = wal.posicionConfirmada();
+        while (activo) {
+            try {
+                WriteAheadLog.Lectura lectura = wal.leer(posicion, tamanioLote);
+                if (!lectura.registros().isEmpty()) {
+                    persistir(lectura.registros());
+                }
+                if (lectura.siguiente() != posicion) {
+                    wal.confirmar(lectura.siguiente());
+                    posicion = lectura.siguiente();
+                }
+                // Lote incompleto: el log está al día, se espera a que se acumule más
+                if (lectura.registros().size() < tamanioLote) {
+                    TimeUnit.MILLISECONDS.sleep(flushMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // Base caída u otro error: se reintenta el mismo lote (el checkpoint no se movió)
+                log.error("Falló el volcado del WAL, se reintenta en {} ms", ESPERA_ERROR_MS, e);
+                try {
+                    TimeUnit.MILLISECONDS.sleep(ESPERA_ERROR_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void persistir(List<byte[]> registros) {
+        // Se escriben al final: si la base se cae a mitad del lote, el reintento no los duplica
+        List<Apartado> apartados = new ArrayList<>();
+        List<Transaccion> lote = new ArrayList<>(registros.size());
+        for (byte[] registro : registros) {
+            try {
+                Transaccion tx = objectMapper.readValue(registro, Transaccion.class);
+                // raw_json con el payload original, sin volver a serializar
+                tx.setPayloadOriginal(registro);
+                lote.add(tx);
+            } catch (IOException e) {
+                // El CRC garantiza que es lo que se escribió: no debería ocurrir
+                log.error("Registro del WAL ilegible, se aparta en cuarentena", e);
+                apartados.add(new Apartado(registro, "Registro ilegible: " + e.getMessage()));
+            }
+        }
+        try {
+            for (ResultadoIngesta resultado : transactionService.ingestBatch(lote)) {
+                apartarSiRechazada(resultado, lote.get(resultado.indice()), apartados);
+            }
+        } catch (RuntimeException e) {
+            if (caidaDeLaBase(e)) {
+                throw e;
+            }
+            log.warn("Falló el volcado de un lote de {} transacciones, se reintenta de a una", lote.size(), e);
+            for (Transaccion tx : lote) {
+                try {
+                    apartarSiRechazada(transactionService.ingestBatch(List.of(tx)).get(0), tx, apartados);
+                } catch (RuntimeException ex) {
+                    if (caidaDeLaBase(ex)) {
+                        // Lo ya guardado se vuelve a descartar como duplicado al reintentar el lote
+                        throw ex;
+                    }
+                    log.error("Transacción {} del WAL no se pudo guardar, se aparta en cuarentena",
+                            tx.getIdTransaccion(), ex);
+                    apartados.add(new Apartado(tx.getPayloadOriginal(), ex.toString()));
+                }
+            }
+        }
+        if (!apartados.isEmpty()) {
+            apartar(apartados);
+        }
+    }
+
+    // El cliente ya recibió el 202: una rechazada al volcar (p. ej. la cuenta se desactivó
+    // entre el POST y el volcado) no se puede devolver, queda en la cuarentena con el motivo
+    private static void apartarSiRechazada(ResultadoIngesta resultado, Transaccion tx, List<Apartado> apartados) {
+        if (ResultadoIngesta.RECHAZADA.equals(resultado.estado())) {
+            log.warn("Transacción {} del WAL rechazada al volcar, se aparta en cuarentena: {}",
+                    resultado.idTransaccion(), resultado.error());
+            apartados.add(new Apartado(tx.getPayloadOriginal(), "Rechazada: " + resultado.error()));
+        }
+    }
+
+    // Base inaccesible: ninguna transacción se podría guardar, se reintenta el lote sin mover el checkpoint
+    private static boolean caidaDeLaBase(Throwable e) {
+        for (Throwable causa = e; causa != null; causa = causa.getCause()) {
+            if (causa instanceof CannotCreateTransactionException
+                    || causa instanceof TransactionSystemException
+                    || causa instanceof DataAccessResourceFailureException
+                    || causa instanceof TransientDataAccessException
+                    || causa instanceof RecoverableDataAccessException
+                    || causa instanceof SQLTransientException
+                    || causa instanceof SQLRecoverableException
+                    || causa instanceof SQLNonTransientConnectionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Agrega los registros a la cuarentena, una línea JSON cada uno, y la sincroniza en disco
+     * antes de que el checkpoint avance. Si no se puede escribir, el error corta el volcado y
+     * el lote se reintenta.
+     */
+    private void apartar(List<Apartado> apartados) {
+        StringBuilder lineas = new StringBuilder();
+        String momento = Instant.now().toString();
+        for (Apartado apartado : apartados) {
+            ObjectNode linea = objectMapper.createObjectNode()
+                    .put("momento", momento)
+                    .put("motivo", apartado.motivo())
+                    .put("payload", new String(apartado.registro(), StandardCharsets.UTF_8));
+            lineas.append(linea).append('\n');
+        }
+        try (FileChannel canal = FileChannel.open(cuarentena, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(lineas.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                canal.write(buffer);
+            }
+            canal.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir la cuarentena del WAL", e);
+        }
+    }
+
+    /**
+     * Detiene el volcado; lo que quede en el WAL se vuelca en el próximo arranque.
+     */
+    @Override
+    public void close() {
+        activo = false;
+        try {
+            // Se deja terminar el lote en curso; el hilo sólo se interrumpe si no termina a tiempo
+            volcador.join(TimeUnit.SECONDS.toMillis(10));
+            volcador.interrupt();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        wal.close();
+    }
+
+    private record Apartado(byte[] registro, String motivo) {
+    }
+}
@@ -0,0 +1,426 @@
+package com.transacciones.transaction_ingestor.wal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead log local en segmentos de tamaño fijo mapeados en memoria. Cada registro es
+ * {@code longitud(4) | crc32(4) | payload}; un registro con longitud 0 o CRC inválido marca
+ * el fin de los datos del segmento (escritura cortada por una caída).
+ * <p>
+ * Las escrituras sólo copian al mapeo; un hilo de sincronización hace el fsync de todo lo
+ * escrito desde la pasada anterior (group commit), así N escrituras concurrentes comparten
+ * un fsync. {@link #esperarDurable} bloquea hasta que el registro está en disco.
+ * <p>
+ * Las posiciones son LSN: id de segmento en los 32 bits altos y offset en los bajos.
+ * {@link #confirmar} guarda hasta dónde se consumió el log y borra los segmentos anteriores.
+ */
+public class WriteAheadLog implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteAheadLog.class);
+
+    private static final int CABECERA = 8;
+    private static final String PREFIJO = "wal-";
+    private static final String SUFIJO = ".log";
+    private static final String CHECKPOINT = "checkpoint";
+
+    private final Path directorio;
+    private final int tamanioSegmento;
+    private final int maxSegmentos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition hayEscrituras = lock.newCondition();
+    private final Condition sincronizo = lock.newCondition();
+
+    // Protegidos por lock
+    private final TreeMap<Long, Segmento> segmentos = new TreeMap<>();
+    private Segmento actual;
+    private long escrito;
+    private long sincronizado;
+    private boolean abierto = true;
+
+    private final long confirmadoAlAbrir;
+    private final Thread sincronizador;
+
+    /**
+     * Abre el log: recupera los segmentos existentes (para releerlos desde el último
+     * checkpoint) y empieza a escribir en un segmento nuevo.
+     */
+    public WriteAheadLog(Path directorio, int tamanioSegmento, int maxSegmentos) throws IOException {
+        if (tamanioSegmento <= CABECERA || maxSegmentos < 2) {
+            throw new IllegalArgumentException("segmento demasiado chico o menos de 2 segmentos");
+        }
+        this.directorio = directorio;
+        this.tamanioSegmento = tamanioSegmento;
+        this.maxSegmentos = maxSegmentos;
+        Files.createDirectories(directorio);
+
+        long confirmado = leerCheckpoint();
+        long ultimoId = -1;
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            for (Path archivo : archivos.toList()) {
+                long id = idSegmento(archivo);
+                if (id < 0) {
+                    continue;
+                }
+                if (id < segmento(confirmado)) {
+                    // Ya consumido: quedó de un borrado interrumpido
+                    Files.deleteIfExists(archivo);
+                    continue;
+                }
+                segmentos.put(id, new Segmento(id, archivo, mapear(archivo, Files.size(archivo))));
+                ultimoId = Math.max(ultimoId, id);
+            }
+        }
+        if (!segmentos.isEmpty()) {
+            log.info("WAL: {} segmentos recuperados en {} para releer desde {}", segmentos.size(), directorio,
+                    describir(confirmado));
+        }
+        this.actual = crearSegmento(Math.max(ultimoId + 1, segmento(confirmado)));
+        this.escrito = lsn(actual.id, 0);
+        this.sincronizado = escrito;
+        this.confirmadoAlAbrir = segmentos.firstKey() <= segmento(confirmado) ? confirmado : lsn(segmentos.firstKey(), 0);
+
+        this.sincronizador = new Thread(this::sincronizar, "wal-fsync");
+        sincronizador.setDaemon(true);
+        sincronizador.start();
+    }
+
+    /**
+     * Agrega un registro al log (sin esperar el fsync).
+     * @return LSN del final del registro, para {@link #esperarDurable}
+     * @throws IllegalStateException si el log está cerrado o alcanzó el máximo de segmentos
+     */
+    public long agregar(byte[] payload) {
+        int largo = CABECERA + payload.length;
+        if (largo > tamanioSegmento) {
+            throw new IllegalArgumentException("Registro de " + payload.length + " bytes mayor que el segmento");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        lock.lock();
+        try {
+            if (!abierto) {
+                throw new IllegalStateException("El WAL está cerrado");
+            }
+            if (actual.buffer.remaining() < largo) {
+                rotar();
+            }
+            actual.buffer.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+            escrito = lsn(actual.id, actual.buffer.position());
+            hayEscrituras.signal();
+            return escrito;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Bloquea hasta que el log esté sincronizado en disco al menos hasta {@code lsn}.
+     */
+    public void esperarDurable(long lsn) throws InterruptedException {
+        lock.lock();
+        try {
+            while (sincronizado < lsn && abierto) {
+                sincronizo.await();
+            }
+            if (sincronizado < lsn) {
+                throw new IllegalStateException("El WAL se cerró antes de sincronizar el registro");
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Posición desde la que hay que consumir el log al arrancar. */
+    public long posicionConfirmada() {
+        return confirmadoAlAbrir;
+    }
+
+    /**
+     * Lee hasta {@code maximo} registros ya sincronizados a partir de {@code desde}.
+     */
+    public Lectura leer(long desde, int maximo) {
+        Segmento segmento;
+        long limite;
+        lock.lock();
+        try {
+            limite = sincronizado;
+            Map.Entry<Long, Segmento> entrada = segmentos.ceilingEntry(segmento(desde));
+            segmento = entrada != null ? entrada.getValue() : null;
+        } finally {
+            lock.unlock();
+        }
+
+        List<byte[]> registros = new ArrayList<>();
+        long posicion = desde;
+        if (segmento != null && segmento.id != segmento(desde)) {
+            posicion = lsn(segmento.id, 0);
+        }
+        while (segmento != null && registros.size() < maximo && posicion < limite) {
+            int offset = offset(posicion);
+            byte[] payload = leerRegistro(segmento, offset);
+            if (payload != null) {
+                registros.add(payload);
+                posicion = lsn(segmento.id, offset + CABECERA + payload.length);
+                continue;
+            }
+            // Fin de los datos del segmento: se sigue en el próximo
+            lock.lock();
+            try {
+                Map.Entry<Long, Segmento> siguiente = segmentos.higherEntry(segmento.id);
+                segmento = siguiente != null ? siguiente.getValue() : null;
+            } finally {
+                lock.unlock();
+            }
+            if (segmento != null) {
+                posicion = lsn(segmento.id, 0);
+            }
+        }
+        return new Lectura(registros, posicion);
+    }
+
+    /**
+     * Registra que el log fue consumido hasta {@code lsn}: guarda el checkpoint y borra
+     * los segmentos anteriores al de esa posición.
+     */
+    public void confirmar(long lsn) {
+        try {
+            Path temporal = directorio.resolve(CHECKPOINT + ".tmp");
+            Files.writeString(temporal, Long.toString(lsn), StandardCharsets.US_ASCII);
+            try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.WRITE)) {
+                canal.force(true);
+            }
+            Files.move(temporal, directorio.resolve(CHECKPOINT),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo guardar el checkpoint del WAL", e);
+        }
+
+        List<Segmento> consumidos = new ArrayList<>();
+        lock.lock();
+        try {
+            while (!segmentos.isEmpty() && segmentos.firstKey() < segmento(lsn) && segmentos.firstKey() < actual.id) {
+                consumidos.add(segmentos.pollFirstEntry().getValue());
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (Segmento segmento : consumidos) {
+            try {
+                // El mapeo se libera cuando el GC recolecta el buffer; en Linux el borrado es inmediato
+                Files.deleteIfExists(segmento.archivo);
+            } catch (IOException e) {
+                log.warn("No se pudo borrar el segmento {} del WAL", segmento.archivo, e);
+            }
+        }
+    }
+
+    /** Cantidad de segmentos en disco (incluido el actual). */
+    public int segmentos() {
+        lock.lock();
+        try {
+            return segmentos.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (!abierto) {
+                return;
+            }
+            abierto = false;
+            actual.buffer.force();
+            sincronizado = escrito;
+            hayEscrituras.signalAll();
+            sincronizo.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            sincronizador.join(5_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ===== Hilo de sincronización (group commit) =====
+
+    private void sincronizar() {
+        while (true) {
+            Segmento segmento;
+            int desde;
+            long objetivo;
+            lock.lock();
+            try {
+                while (abierto && escrito == sincronizado) {
+                    hayEscrituras.awaitUninterruptibly();
+                }
+                if (!abierto) {
+                    return;
+                }
+                objetivo = escrito;
+                segmento = actual;
+                // Los segmentos anteriores ya se sincronizaron completos al rotar
+                desde = segmento(sincronizado) == segmento.id ? offset(sincronizado) : 0;
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                segmento.buffer.force(desde, offset(objetivo) - desde);
+            } catch (UncheckedIOException e) {
+                log.error("Falló el fsync del WAL, se reintenta", e);
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+                continue;
+            }
+
+            lock.lock();
+            try {
+                sincronizado = Math.max(sincronizado, objetivo);
+                sincronizo.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Con el lock tomado
+    private void rotar() {
+        if (segmentos.size() >= maxSegmentos) {
+            throw new IllegalStateException("El WAL alcanzó el máximo de " + maxSegmentos
+                    + " segmentos sin volcar a la base de datos");
+        }
+        actual.buffer.force();
+        sincronizado = Math.max(sincronizado, escrito);
+        sincronizo.signalAll();
+        try {
+            actual = crearSegmento(actual.id + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo crear un segmento del WAL", e);
+        }
+        escrito = lsn(actual.id, 0);
+    }
+
+    private Segmento crearSegmento(long id) throws IOException {
+        Path archivo = directorio.resolve(String.format("%s%020d%s", PREFIJO, id, SUFIJO));
+        Segmento segmento = new Segmento(id, archivo, mapear(archivo, tamanioSegmento));
+        segmentos.put(id, segmento);
+        return segmento;
+    }
+
+    private static MappedByteBuffer mapear(Path archivo, long tamanio) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return canal.map(FileChannel.MapMode.READ_WRITE, 0, tamanio);
+        }
+    }
+
+    private byte[] leerRegistro(Segmento segmento, int offset) {
+        ByteBuffer buffer = segmento.buffer;
+        if (offset + CABECERA > buffer.capacity()) {
+            return null;
+        }
+        int largo = buffer.getInt(offset);
+        // Sin sumar al offset: una longitud basura cercana a Integer.MAX_VALUE desbordaría
+        if (largo <= 0 || largo > buffer.capacity() - offset - CABECERA) {
+            return null;
+        }
+        byte[] payload = new byte[largo];
+        buffer.get(offset + CABECERA, payload);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+            log.warn("WAL: registro con CRC inválido en {} offset {}, se toma como fin del segmento",
+                    segmento.archivo.getFileName(), offset);
+            return null;
+        }
+        return payload;
+    }
+
+    private long leerCheckpoint() throws IOException {
+        Path archivo = directorio.resolve(CHECKPOINT);
+        if (!Files.exists(archivo)) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(Files.readString(archivo, StandardCharsets.US_ASCII).trim());
+        } catch (NumberFormatException e) {
+            log.warn("Checkpoint del WAL ilegible, se relee desde el primer segmento");
+            return 0L;
+        }
+    }
+
+    private static long idSegmento(Path archivo) {
+        String nombre = archivo.getFileName().toString();
+        if (!nombre.startsWith(PREFIJO) || !nombre.endsWith(SUFIJO)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(nombre.substring(PREFIJO.length(), nombre.length() - SUFIJO.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    static long lsn(long segmento, int offset) {
+        return (segmento << 32) | (offset & 0xFFFFFFFFL);
+    }
+
+    static long segmento(long lsn) {
+        return lsn >>> 32;
+    }
+
+    static int offset(long lsn) {
+        return (int) lsn;
+    }
+
+    private static String describir(long lsn) {
+        return "segmento " + segmento(lsn) + " offset " + offset(lsn);
+    }
+
+    /**
+     * Registros leídos y posición desde la que sigue la próxima lectura.
+     */
+    public record Lectura(List<byte[]> registros, long siguiente) {
+    }
+
+    private static final class Segmento {
+        private final long id;
+        private final Path archivo;
+        private final MappedByteBuffer buffer;
+
+        Segmento(long id, Path archivo, MappedByteBuffer buffer) {
+            this.id = id;
+            this.archivo = archivo;
+            this.buffer = buffer;
+        }
+    }
+}
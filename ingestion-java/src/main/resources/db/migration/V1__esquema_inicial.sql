@@ -0,0 +1,82 @@
+-- Esquema tal como lo generaba Hibernate con ddl-auto=update antes de Flyway. En bases
+-- existentes no se ejecuta: spring.flyway.baseline-on-migrate las marca en esta versión y
+-- siguen desde V2, así que todo cambio posterior va en una migración nueva y nunca acá.
+-- Los nombres de las FK son los que generaba Hibernate.
+
+CREATE TABLE usuarios (
+    pais           VARCHAR(2),
+    fecha_creacion TIMESTAMP   DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    estado_cuenta  VARCHAR(20),
+    id_usuario     VARCHAR(64) NOT NULL,
+    PRIMARY KEY (id_usuario)
+) ENGINE = InnoDB;
+
+CREATE TABLE transacciones (
+    latitud               DECIMAL(10, 6) NOT NULL,
+    longitud              DECIMAL(10, 6) NOT NULL,
+    monto                 DECIMAL(38, 2) NOT NULL,
+    pais                  VARCHAR(4),
+    created_at            DATETIME(6)    NOT NULL,
+    timestamp_transaccion DATETIME(6)    NOT NULL,
+    id_transaccion        VARCHAR(64)    NOT NULL,
+    id_usuario            VARCHAR(64)    NOT NULL,
+    raw_json              JSON           NOT NULL,
+    PRIMARY KEY (id_transaccion)
+) ENGINE = InnoDB;
+
+CREATE TABLE alertas (
+    fecha_only       DATE           NOT NULL,
+    hora_only        TIME(6)        NOT NULL,
+    monto            DECIMAL(18, 2) NOT NULL,
+    puntuacion_final DECIMAL(5, 4),
+    created_at       TIMESTAMP      DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    id_alerta        BIGINT         NOT NULL AUTO_INCREMENT,
+    id_transaccion   VARCHAR(64)    NOT NULL,
+    id_usuario       VARCHAR(64),
+    reasons_json     JSON,
+    bandera          ENUM ('bloqueado', 'ok', 'sospechoso') NOT NULL,
+    origen_filtro    ENUM ('manual', 'model', 'rule'),
+    PRIMARY KEY (id_alerta)
+) ENGINE = InnoDB;
+
+CREATE TABLE auditoria (
+    id_alerta          BIGINT       NOT NULL,
+    id_auditoria       BIGINT       NOT NULL AUTO_INCREMENT,
+    timestamp_accion   TIMESTAMP    DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    source             VARCHAR(32)  NOT NULL,
+    accion             VARCHAR(64)  NOT NULL,
+    actor              VARCHAR(64),
+    descripcion_accion VARCHAR(255),
+    PRIMARY KEY (id_auditoria)
+) ENGINE = InnoDB;
+
+-- Entidad de los eventos de Kafka anterior al camino de escritura común; la aplicación ya
+-- no la usa, pero las bases existentes la tienen (con datos)
+CREATE TABLE transactions (
+    amount           DECIMAL(19, 2) NOT NULL,
+    created_at       DATETIME(6),
+    timestamp        DATETIME(6)    NOT NULL,
+    status           VARCHAR(20)    NOT NULL,
+    type             VARCHAR(50)    NOT NULL,
+    description      VARCHAR(500)   NOT NULL,
+    rejection_reason VARCHAR(500),
+    account_id       VARCHAR(255)   NOT NULL,
+    id               VARCHAR(255)   NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE INDEX idx_alert_created ON alertas (created_at);
+
+CREATE INDEX idx_alert_flag ON alertas (bandera);
+
+ALTER TABLE alertas
+    ADD CONSTRAINT uk_alert_tx UNIQUE (id_transaccion);
+
+ALTER TABLE alertas
+    ADD CONSTRAINT FKji9tj2ml65wjj8vt15gkv1hvr FOREIGN KEY (id_transaccion) REFERENCES transacciones (id_transaccion);
+
+ALTER TABLE auditoria
+    ADD CONSTRAINT FK5qlesgavbht36dhoe2cb31f45 FOREIGN KEY (id_alerta) REFERENCES alertas (id_alerta);
+
+ALTER TABLE transacciones
+    ADD CONSTRAINT FKh3vhh328ket6ror66815bxwl5 FOREIGN KEY (id_usuario) REFERENCES usuarios (id_usuario);
@@ -0,0 +1,62 @@
+-- Particiona transacciones por mes de timestamp_transaccion (RANGE COLUMNS). Las particiones
+-- de los meses siguientes y el archivo de las vencidas los maneja RetencionTransacciones.
+--
+-- Restricciones de MySQL para tablas particionadas:
+--   * no admiten claves foráneas, ni propias ni de otras tablas que las referencien
+--     (alertas.id_transaccion): la integridad la garantiza el camino de escritura
+--   * toda clave única tiene que incluir la columna de particionado: la PK pasa a ser
+--     (id_transaccion, timestamp_transaccion); la unicidad del ID la controla la ingesta
+--     (findExistingIds) y el prefijo de la PK sigue sirviendo las búsquedas por ID
+--
+-- PARTITION BY reescribe la tabla completa: en bases grandes, correrla en una ventana de
+-- mantenimiento.
+
+DROP PROCEDURE IF EXISTS quitar_fks_transacciones;
+
+DELIMITER //
+CREATE PROCEDURE quitar_fks_transacciones()
+BEGIN
+    DECLARE terminado INT DEFAULT 0;
+    DECLARE tabla VARCHAR(64);
+    DECLARE restriccion VARCHAR(64);
+    -- Los nombres de las FK que generó Hibernate son aleatorios
+    DECLARE fks CURSOR FOR
+        SELECT TABLE_NAME, CONSTRAINT_NAME
+        FROM information_schema.REFERENTIAL_CONSTRAINTS
+        WHERE CONSTRAINT_SCHEMA = DATABASE()
+          AND (TABLE_NAME = 'transacciones' OR REFERENCED_TABLE_NAME = 'transacciones');
+    DECLARE CONTINUE HANDLER FOR NOT FOUND SET terminado = 1;
+
+    OPEN fks;
+    recorrer: LOOP
+        FETCH fks INTO tabla, restriccion;
+        IF terminado THEN
+            LEAVE recorrer;
+        END IF;
+        SET @sentencia = CONCAT('ALTER TABLE `', tabla, '` DROP FOREIGN KEY `', restriccion, '`');
+        PREPARE ejecutar FROM @sentencia;
+        EXECUTE ejecutar;
+        DEALLOCATE PREPARE ejecutar;
+    END LOOP;
+    CLOSE fks;
+END //
+DELIMITER ;
+
+CALL quitar_fks_transacciones();
+DROP PROCEDURE quitar_fks_transacciones;
+
+ALTER TABLE transacciones
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (id_transaccion, timestamp_transaccion),
+    ADD INDEX idx_tx_timestamp (timestamp_transaccion);
+
+-- Lo anterior al mes en curso queda en p_historico; p_futuro recibe lo demás hasta que
+-- RetencionTransacciones la divida en meses
+SET @corte = DATE_FORMAT(CURRENT_DATE, '%Y-%m-01 00:00:00');
+SET @sentencia = CONCAT(
+    'ALTER TABLE transacciones PARTITION BY RANGE COLUMNS (timestamp_transaccion) (',
+    'PARTITION p_historico VALUES LESS THAN (''', @corte, '''), ',
+    'PARTITION p_futuro VALUES LESS THAN (MAXVALUE))');
+PREPARE particionar FROM @sentencia;
+EXECUTE particionar;
+DEALLOCATE PREPARE particionar;
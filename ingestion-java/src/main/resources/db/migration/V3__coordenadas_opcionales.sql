@@ -0,0 +1,6 @@
+-- Los eventos de Kafka no traen ubicación: latitud y longitud pasan a aceptar NULL.
+-- El esquema original (V1, el de ddl-auto=update) las tenía NOT NULL y cada evento de
+-- Kafka fallaba al insertar.
+ALTER TABLE transacciones
+    MODIFY latitud DECIMAL(10, 6) NULL,
+    MODIFY longitud DECIMAL(10, 6) NULL;
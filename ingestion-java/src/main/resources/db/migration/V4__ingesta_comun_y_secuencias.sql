@@ -0,0 +1,39 @@
+-- Lo que agregaron las entidades sobre el esquema original (V1): corre igual en una base
+-- nueva que en una que venía de ddl-auto=update y se marcó como V1.
+
+-- Camino de escritura común: datos de los eventos de Kafka, punto de entrada y el payload
+-- recibido cuando no va en raw_json (CapturaPayload)
+ALTER TABLE transacciones
+    ADD COLUMN tipo        VARCHAR(50),
+    ADD COLUMN descripcion VARCHAR(500),
+    ADD COLUMN canal       VARCHAR(8),
+    ADD COLUMN raw_payload MEDIUMBLOB;
+
+-- Los ENUM que generaba Hibernate no admiten valores nuevos (review): texto, como mapean
+-- las entidades
+ALTER TABLE alertas
+    MODIFY bandera       VARCHAR(12) NOT NULL,
+    MODIFY origen_filtro VARCHAR(16);
+
+CREATE TABLE estadisticas_rollup (
+    granularidad    VARCHAR(8)     NOT NULL,
+    inicio          DATETIME(6)    NOT NULL,
+    transacciones   BIGINT         NOT NULL,
+    monto_total     DECIMAL(18, 2) NOT NULL,
+    alertas_json    VARCHAR(512),
+    histograma_json VARCHAR(256),
+    actualizado_en  DATETIME(6)    NOT NULL,
+    PRIMARY KEY (granularidad, inicio)
+) ENGINE = InnoDB;
+
+-- Alerta y Auditoria pasaron de IDENTITY a secuencias (allocationSize 100, para batchear
+-- los INSERT). MySQL no tiene secuencias y Hibernate las emula con una tabla de una fila.
+-- El optimizador pooled toma el valor leído como el último ID del bloque y entrega los 100
+-- anteriores (salvo en una tabla recién creada, donde vale 1): con filas previas de
+-- AUTO_INCREMENT se siembra con MAX + 100 para que el primer ID nuevo sea MAX + 1. Las
+-- columnas siguen con AUTO_INCREMENT, que no estorba porque los INSERT traen el ID.
+CREATE TABLE alertas_seq (next_val BIGINT) ENGINE = InnoDB;
+INSERT INTO alertas_seq SELECT COALESCE(MAX(id_alerta) + 100, 1) FROM alertas;
+
+CREATE TABLE auditoria_seq (next_val BIGINT) ENGINE = InnoDB;
+INSERT INTO auditoria_seq SELECT COALESCE(MAX(id_auditoria) + 100, 1) FROM auditoria;
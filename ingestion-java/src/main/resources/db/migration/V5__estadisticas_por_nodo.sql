@@ -0,0 +1,7 @@
+-- Cada instancia guarda sus propios buckets de estadísticas (ids.nodo en la clave) y las
+-- consultas los suman: con la clave anterior dos instancias se pisaban los totales. Los
+-- buckets ya guardados quedan en el nodo 0, el que usa una instancia sin ids.nodo.
+ALTER TABLE estadisticas_rollup
+    ADD COLUMN nodo INT NOT NULL DEFAULT 0,
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (granularidad, inicio, nodo);
@@ -0,0 +1,6 @@
+-- raw_json guarda el payload tal como llegó (CapturaPayload), pero una columna JSON de MySQL
+-- lo normaliza: reordena las claves, quita espacios y se queda con la última de una clave
+-- repetida. Como texto (utf8mb4 binario) se lee igual a lo recibido. No hay consultas con
+-- funciones JSON sobre la columna.
+ALTER TABLE transacciones
+    MODIFY raw_json MEDIUMTEXT CHARACTER SET utf8mb4 COLLATE utf8mb4_bin NOT NULL;
@@ -0,0 +1,141 @@
+package com.transacciones.transaction_ingestor.archivo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.transacciones.transaction_ingestor.model.Transaccion;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ArchivoTransaccionesTest {
+
+	private static final LocalDateTime ENERO = LocalDateTime.of(2025, 1, 10, 8, 30, 15, 123_456_000);
+
+	@TempDir
+	Path directorio;
+
+	private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+	private Connection conexion;
+	private ArchivoTransacciones archivo;
+
+	@BeforeEach
+	void crear() throws SQLException, IOException {
+		// Una tabla con las columnas de transacciones sólo para tener un ResultSet real
+		conexion = DriverManager.getConnection("jdbc:h2:mem:archivo_test;MODE=MySQL;DATABASE_TO_LOWER=TRUE");
+		try (Statement sentencia = conexion.createStatement()) {
+			sentencia.execute("""
+					CREATE TABLE transacciones (
+					    id_transaccion VARCHAR(64), id_usuario VARCHAR(64), monto DECIMAL(38, 2),
+					    timestamp_transaccion TIMESTAMP(6), latitud DECIMAL(10, 6), longitud DECIMAL(10, 6),
+					    pais VARCHAR(4), tipo VARCHAR(50), descripcion VARCHAR(500), canal VARCHAR(8),
+					    created_at TIMESTAMP(6), raw_json VARCHAR(1000), raw_payload VARBINARY(1000))
+					""");
+		}
+		archivo = new ArchivoTransacciones(objectMapper, directorio.toString());
+	}
+
+	@AfterEach
+	void cerrar() throws SQLException {
+		conexion.close();
+	}
+
+	@Test
+	void loExportadoSeLeeIgualPorRango() throws Exception {
+		insertar("tx-1", ENERO, new BigDecimal("1520.75"), new BigDecimal("-34.603722"), "AR", "HTTP");
+		insertar("tx-2", ENERO.plusDays(5), new BigDecimal("10.00"), null, null, "KAFKA");
+		insertar("tx-3", ENERO.plusDays(20), new BigDecimal("0.01"), null, null, "KAFKA");
+		archivo.registrar(exportar("p202501"));
+
+		List<Transaccion> todas = archivo.leer(ENERO.minusDays(1), ENERO.plusMonths(1));
+		assertThat(todas).extracting(Transaccion::getIdTransaccion).containsExactly("tx-1", "tx-2", "tx-3");
+		Transaccion primera = todas.get(0);
+		assertThat(primera.getIdUsuario()).isEqualTo("u-tx-1");
+		assertThat(primera.getMonto()).isEqualByComparingTo("1520.75");
+		assertThat(primera.getTimestampTransaccion()).isEqualTo(ENERO);
+		assertThat(primera.getLatitud()).isEqualByComparingTo("-34.603722");
+		assertThat(primera.getPais()).isEqualTo("AR");
+		assertThat(primera.getCanal()).isEqualTo("HTTP");
+		assertThat(primera.getCreatedAt()).isEqualTo(ENERO.plusSeconds(1));
+		assertThat(primera.getRawJson()).isEqualTo("{\"id\":\"tx-1\"}");
+		// raw_payload no se lee al consultar; los nulos vuelven nulos
+		assertThat(primera.getRawPayload()).isNull();
+		assertThat(todas.get(1).getLatitud()).isNull();
+		assertThat(todas.get(1).getPais()).isNull();
+
+		assertThat(archivo.leer(ENERO.plusDays(1), ENERO.plusDays(10)))
+				.extracting(Transaccion::getIdTransaccion).containsExactly("tx-2");
+		assertThat(archivo.leer(ENERO.plusMonths(2), ENERO.plusMonths(3))).isEmpty();
+	}
+
+	@Test
+	void elIndiceSobreviveAUnReinicioYUnaReexportacionReemplazaLaEntrada() throws Exception {
+		insertar("tx-1", ENERO, BigDecimal.ONE, null, null, "HTTP");
+		archivo.registrar(exportar("p202501"));
+		insertar("tx-2", ENERO.plusDays(1), BigDecimal.TEN, null, null, "HTTP");
+		archivo.registrar(exportar("p202501"));
+
+		ArchivoTransacciones reabierto = new ArchivoTransacciones(objectMapper, directorio.toString());
+
+		assertThat(reabierto.entradas()).singleElement().satisfies(entrada -> {
+			assertThat(entrada.particion()).isEqualTo("p202501");
+			assertThat(entrada.filas()).isEqualTo(2);
+			assertThat(entrada.minimo()).isEqualTo(ENERO);
+			assertThat(entrada.maximo()).isEqualTo(ENERO.plusDays(1));
+		});
+		assertThat(reabierto.leer(ENERO, ENERO.plusDays(1)))
+				.extracting(Transaccion::getIdTransaccion).containsExactly("tx-1", "tx-2");
+		// Sólo el archivo final y el índice: ningún temporal de columnas
+		try (var archivos = Files.list(directorio)) {
+			assertThat(archivos.map(p -> p.getFileName().toString()))
+					.containsExactlyInAnyOrder("p202501.tcol", ArchivoTransacciones.INDICE);
+		}
+	}
+
+	private ArchivoTransacciones.Entrada exportar(String particion) throws SQLException, IOException {
+		try (ArchivoTransacciones.Escritor escritor = archivo.escritor(particion);
+			 Statement sentencia = conexion.createStatement();
+			 ResultSet filas = sentencia.executeQuery("SELECT * FROM transacciones ORDER BY timestamp_transaccion")) {
+			while (filas.next()) {
+				escritor.agregar(filas);
+			}
+			return escritor.terminar();
+		}
+	}
+
+	private void insertar(String id, LocalDateTime timestamp, BigDecimal monto, BigDecimal latitud,
+						  String pais, String canal) throws SQLException {
+		try (PreparedStatement insert = conexion.prepareStatement(
+				"INSERT INTO transacciones VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+			insert.setString(1, id);
+			insert.setString(2, "u-" + id);
+			insert.setBigDecimal(3, monto);
+			insert.setObject(4, timestamp);
+			insert.setBigDecimal(5, latitud);
+			insert.setBigDecimal(6, latitud);
+			insert.setString(7, pais);
+			insert.setString(8, "DEPOSIT");
+			insert.setString(9, null);
+			insert.setString(10, canal);
+			insert.setObject(11, timestamp.plusSeconds(1));
+			insert.setString(12, "{\"id\":\"" + id + "\"}");
+			insert.setBytes(13, new byte[]{1, 2, 3});
+			insert.executeUpdate();
+		}
+	}
+}
@@ -0,0 +1,230 @@
+package com.transacciones.transaction_ingestor.archivo;
+
+import com.transacciones.transaction_ingestor.model.Alerta;
+import com.transacciones.transaction_ingestor.model.Auditoria;
+import com.transacciones.transaction_ingestor.model.Transaccion;
+import com.transacciones.transaction_ingestor.model.enums.Bandera;
+import com.transacciones.transaction_ingestor.repository.TransactionRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Migraciones contra un MySQL real (H2 no admite el particionado), con ddl-auto=validate
+ * como en producción: si el contexto levanta, las entidades coinciden con el esquema que
+ * dejó Flyway en una base nueva. Una base del esquema original (ddl-auto=update, marcada como
+ * V1) se prueba aparte. Sin Docker se saltea.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import(ArchivoTransacciones.class)
+// Los ALTER TABLE de la retención commitean solos: nada corre dentro de la transacción del test
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class MigracionesMySqlTest {
+
+	@Container
+	static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.4");
+
+	@TempDir
+	static Path archivos;
+
+	@DynamicPropertySource
+	static void propiedades(DynamicPropertyRegistry registro) {
+		registro.add("spring.datasource.url", MYSQL::getJdbcUrl);
+		registro.add("spring.datasource.username", MYSQL::getUsername);
+		registro.add("spring.datasource.password", MYSQL::getPassword);
+		registro.add("spring.datasource.driver-class-name", () -> "com.mysql.cj.jdbc.Driver");
+		registro.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.MySQLDialect");
+		registro.add("spring.flyway.enabled", () -> "true");
+		registro.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+		registro.add("ingesta.archivo.directorio", () -> archivos.toString());
+	}
+
+	@Autowired
+	private Flyway flyway;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Autowired
+	private DataSource dataSource;
+	@Autowired
+	private ArchivoTransacciones archivo;
+	@Autowired
+	private TransactionRepository transactionRepository;
+
+	@Test
+	void lasMigracionesDejanLaTablaParticionadaConLaPkCompuesta() {
+		assertThat(Arrays.stream(flyway.info().applied()).map(MigrationInfo::getVersion).map(Object::toString))
+				.containsExactly("1", "2", "3", "4", "5", "6");
+		assertThat(particiones()).contains("p_historico").last().isEqualTo("p_futuro");
+		assertThat(jdbcTemplate.queryForList("""
+				SELECT COLUMN_NAME FROM information_schema.KEY_COLUMN_USAGE
+				WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'transacciones' AND CONSTRAINT_NAME = 'PRIMARY'
+				ORDER BY ORDINAL_POSITION
+				""", String.class)).containsExactly("id_transaccion", "timestamp_transaccion");
+		// Sin FKs hacia ni desde la tabla particionada
+		assertThat(jdbcTemplate.queryForObject("""
+				SELECT COUNT(*) FROM information_schema.REFERENTIAL_CONSTRAINTS
+				WHERE CONSTRAINT_SCHEMA = DATABASE()
+				  AND (TABLE_NAME = 'transacciones' OR REFERENCED_TABLE_NAME = 'transacciones')
+				""", Integer.class)).isZero();
+		// V3: los eventos de Kafka no traen ubicación
+		assertThat(jdbcTemplate.queryForList("""
+				SELECT IS_NULLABLE FROM information_schema.COLUMNS
+				WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'transacciones'
+				  AND COLUMN_NAME IN ('latitud', 'longitud')
+				""", String.class)).containsOnly("YES");
+		// V6: raw_json es texto, lo recibido se lee sin normalizar
+		String raw = "{ \"id\":\"b\",  \"id\":\"a\" }";
+		jdbcTemplate.update("INSERT INTO usuarios (id_usuario, pais, estado_cuenta) VALUES ('u-raw', 'AR', 'ACTIVA')");
+		jdbcTemplate.update("""
+				INSERT INTO transacciones (id_transaccion, id_usuario, monto, timestamp_transaccion, canal,
+				                           created_at, raw_json)
+				VALUES ('tx-raw', 'u-raw', 1.00, NOW(6), 'HTTP', NOW(6), ?)
+				""", raw);
+		assertThat(jdbcTemplate.queryForObject("SELECT raw_json FROM transacciones WHERE id_transaccion = 'tx-raw'",
+				String.class)).isEqualTo(raw);
+	}
+
+	@Test
+	void laRetencionArchivaUnaParticionVencidaYLaConsultaPorRangoLaSigueViendo() throws Exception {
+		jdbcTemplate.update("INSERT INTO usuarios (id_usuario, pais, estado_cuenta) VALUES ('u-1', 'AR', 'ACTIVA')");
+		jdbcTemplate.update("""
+				INSERT INTO transacciones (id_transaccion, id_usuario, monto, timestamp_transaccion, canal,
+				                           created_at, raw_json)
+				VALUES ('tx-2000', 'u-1', 12.50, '2000-01-15 10:00:00', 'HTTP', NOW(6), '{}')
+				""");
+		// Separa enero de 2000 de p_historico para tener una partición vencida
+		String limiteHistorico = jdbcTemplate.queryForObject("""
+				SELECT PARTITION_DESCRIPTION FROM information_schema.PARTITIONS
+				WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'transacciones' AND PARTITION_NAME = 'p_historico'
+				""", String.class);
+		jdbcTemplate.execute("ALTER TABLE transacciones REORGANIZE PARTITION p_historico INTO ("
+				+ "PARTITION p200001 VALUES LESS THAN ('2000-02-01 00:00:00'), "
+				+ "PARTITION p_historico VALUES LESS THAN (" + limiteHistorico + "))");
+
+		try (RetencionTransacciones retencion = new RetencionTransacciones(jdbcTemplate, dataSource, archivo,
+				6, 2, 3_600_000)) {
+			retencion.mantener();
+		}
+
+		String mesActual = DateTimeFormatter.ofPattern("yyyyMM").format(LocalDate.now());
+		assertThat(particiones()).doesNotContain("p200001").contains("p" + mesActual).last().isEqualTo("p_futuro");
+		assertThat(archivo.entradas()).extracting(ArchivoTransacciones.Entrada::particion).containsExactly("p200001");
+		List<Transaccion> enero = transactionRepository.findByTimestampTransaccionBetweenOrderByTimestampTransaccionDesc(
+				LocalDateTime.of(2000, 1, 1, 0, 0), LocalDateTime.of(2000, 2, 1, 0, 0));
+		assertThat(enero).extracting(Transaccion::getIdTransaccion).containsExactly("tx-2000");
+		assertThat(enero.get(0).getMonto()).isEqualByComparingTo("12.50");
+	}
+
+	@Test
+	void unaBaseDelEsquemaOriginalSeMigraDesdeV1YValidaContraLasEntidades() throws Exception {
+		try (Connection root = DriverManager.getConnection(url(""), "root", MYSQL.getPassword())) {
+			root.createStatement().execute("CREATE DATABASE original");
+		}
+		DriverManagerDataSource original = new DriverManagerDataSource(url("original"), "root", MYSQL.getPassword());
+		// Lo que dejaba ddl-auto=update, con datos e IDs de AUTO_INCREMENT
+		try (Connection conexion = original.getConnection()) {
+			ScriptUtils.executeSqlScript(conexion, new ClassPathResource("db/migration/V1__esquema_inicial.sql"));
+			conexion.createStatement().execute("""
+					INSERT INTO usuarios (id_usuario, pais, estado_cuenta) VALUES ('u-1', 'AR', 'activa')""");
+			conexion.createStatement().execute("""
+					INSERT INTO transacciones (id_transaccion, id_usuario, monto, timestamp_transaccion, latitud,
+					                           longitud, pais, created_at, raw_json)
+					VALUES ('tx-viejo', 'u-1', 99.90, '2025-01-10 08:00:00', -34.6, -58.4, 'AR', NOW(6), '{}'),
+					       ('tx-sin-alerta', 'u-1', 10.00, '2025-01-11 09:00:00', -34.6, -58.4, 'AR', NOW(6), '{}')""");
+			conexion.createStatement().execute("""
+					INSERT INTO alertas (id_alerta, id_transaccion, id_usuario, monto, fecha_only, hora_only, bandera)
+					VALUES (41, 'tx-viejo', 'u-1', 99.90, '2025-01-10', '08:00:00', 'sospechoso')""");
+			conexion.createStatement().execute("""
+					INSERT INTO auditoria (id_auditoria, id_alerta, accion, source) VALUES (7, 41, 'auto_creada', 'system')""");
+		}
+
+		Flyway.configure().dataSource(original).baselineOnMigrate(true).baselineVersion("1").load().migrate();
+
+		assertThat(Arrays.stream(Flyway.configure().dataSource(original).load().info().applied())
+				.map(MigrationInfo::getVersion).map(Object::toString)).containsExactly("1", "2", "3", "4", "5", "6");
+		LocalContainerEntityManagerFactoryBean fabrica = new LocalContainerEntityManagerFactoryBean();
+		fabrica.setDataSource(original);
+		fabrica.setPackagesToScan(Transaccion.class.getPackageName());
+		fabrica.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+		fabrica.setJpaPropertyMap(Map.of(
+				"hibernate.hbm2ddl.auto", "validate",
+				"hibernate.dialect", "org.hibernate.dialect.MySQLDialect",
+				"hibernate.physical_naming_strategy", CamelCaseToUnderscoresNamingStrategy.class.getName()));
+		// Falla si las columnas o tablas que usan las entidades no están
+		fabrica.afterPropertiesSet();
+		try (EntityManagerFactory emf = fabrica.getObject(); EntityManager em = emf.createEntityManager()) {
+			em.getTransaction().begin();
+			Alerta alerta = new Alerta();
+			alerta.setTransaccion(em.getReference(Transaccion.class, "tx-sin-alerta"));
+			alerta.setMonto(BigDecimal.TEN);
+			alerta.setFechaOnly(LocalDate.of(2025, 1, 11));
+			alerta.setHoraOnly(LocalTime.of(9, 0));
+			alerta.setBandera(Bandera.review);
+			alerta.setCreatedAt(new Timestamp(System.currentTimeMillis()));
+			em.persist(alerta);
+			Auditoria auditoria = new Auditoria();
+			auditoria.setAlerta(alerta);
+			auditoria.setTimestampAccion(new Timestamp(System.currentTimeMillis()));
+			em.persist(auditoria);
+			em.getTransaction().commit();
+
+			// Las secuencias siguen después de los IDs de AUTO_INCREMENT
+			assertThat(alerta.getIdAlerta()).isEqualTo(42);
+			assertThat(auditoria.getIdAuditoria()).isEqualTo(8);
+		}
+	}
+
+	private static String url(String base) {
+		return "jdbc:mysql://" + MYSQL.getHost() + ":" + MYSQL.getMappedPort(MySQLContainer.MYSQL_PORT) + "/" + base;
+	}
+
+	private List<String> particiones() {
+		return jdbcTemplate.queryForList("""
+				SELECT PARTITION_NAME FROM information_schema.PARTITIONS
+				WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'transacciones'
+				ORDER BY PARTITION_ORDINAL_POSITION
+				""", String.class);
+	}
+}
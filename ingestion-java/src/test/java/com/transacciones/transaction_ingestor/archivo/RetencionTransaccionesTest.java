@@ -0,0 +1,88 @@
+package com.transacciones.transaction_ingestor.archivo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RetencionTransaccionesTest {
+
+	// Vencida con cualquier retención razonable; sin p_futuro no se crean particiones
+	private static final RetencionTransacciones.Particion VENCIDA =
+			new RetencionTransacciones.Particion("p200001", LocalDateTime.of(2000, 2, 1, 0, 0));
+	private static final String DROP = "ALTER TABLE transacciones DROP PARTITION p200001";
+
+	@TempDir
+	Path directorio;
+
+	private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+	private final JdbcTemplate lectura = mock(JdbcTemplate.class);
+	private ArchivoTransacciones archivo;
+	private RetencionTransacciones retencion;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void crear() throws IOException, SQLException {
+		archivo = new ArchivoTransacciones(new ObjectMapper().registerModule(new JavaTimeModule()), directorio.toString());
+		retencion = new RetencionTransacciones(jdbcTemplate, lectura, archivo, 6, 2, 60_000);
+		when(jdbcTemplate.query(startsWith("SELECT PARTITION_NAME"), any(RowMapper.class)))
+				.thenReturn(List.of(VENCIDA));
+
+		// La partición tiene una fila
+		ResultSet fila = mock(ResultSet.class);
+		when(fila.getString(anyString())).thenReturn("x");
+		when(fila.getBigDecimal(anyString())).thenReturn(BigDecimal.ONE);
+		when(fila.getObject(anyString(), eq(LocalDateTime.class))).thenReturn(LocalDateTime.of(2000, 1, 15, 12, 0));
+		doAnswer(invocacion -> {
+			invocacion.getArgument(1, RowCallbackHandler.class).processRow(fila);
+			return null;
+		}).when(lectura).query(startsWith("SELECT id_transaccion"), any(RowCallbackHandler.class));
+	}
+
+	@Test
+	void siElConteoNoCoincideNoSeRegistraNiSeBorra() {
+		// Entró otra fila entre la exportación y el conteo
+		when(jdbcTemplate.queryForObject(startsWith("SELECT COUNT(*)"), eq(Long.class))).thenReturn(2L);
+
+		retencion.mantener();
+
+		verify(jdbcTemplate, never()).execute(DROP);
+		assertThat(archivo.entradas()).isEmpty();
+	}
+
+	@Test
+	void conElConteoIgualRegistraYRecienDespuesBorra() {
+		when(jdbcTemplate.queryForObject(startsWith("SELECT COUNT(*)"), eq(Long.class))).thenReturn(1L);
+
+		retencion.mantener();
+
+		verify(jdbcTemplate).execute(DROP);
+		assertThat(archivo.entradas()).singleElement().satisfies(entrada -> {
+			assertThat(entrada.particion()).isEqualTo("p200001");
+			assertThat(entrada.filas()).isEqualTo(1);
+		});
+	}
+}
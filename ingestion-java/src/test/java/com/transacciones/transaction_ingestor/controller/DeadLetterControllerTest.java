@@ -0,0 +1,51 @@
+package com.transacciones.transaction_ingestor.controller;
+
+import com.transacciones.transaction_ingestor.config.TokenAdmin;
+import com.transacciones.transaction_ingestor.kafka.DeadLetterReplayer;
+import com.transacciones.transaction_ingestor.kafka.TransactionRetryRouter;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class DeadLetterControllerTest {
+
+	private final DeadLetterReplayer replayer = mock(DeadLetterReplayer.class);
+
+	@Test
+	void sinTokenConfiguradoElReplayNoEstaExpuesto() {
+		DeadLetterController controller = controller("");
+
+		assertThat(controller.replay("cualquiera", 10).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+		verifyNoInteractions(replayer);
+	}
+
+	@Test
+	void conTokenInvalidoOAusenteDa401() {
+		DeadLetterController controller = controller("secreto");
+
+		assertThat(controller.replay(null, 10).getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+		assertThat(controller.replay("otro", 10).getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+		verifyNoInteractions(replayer);
+	}
+
+	@Test
+	void conElTokenReinyecta() {
+		when(replayer.replay(10)).thenReturn(3);
+
+		ResponseEntity<Object> respuesta = controller("secreto").replay("secreto", 10);
+
+		assertThat(respuesta.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(respuesta.getBody()).isEqualTo(Map.of("reinyectados", 3));
+	}
+
+	private DeadLetterController controller(String token) {
+		return new DeadLetterController(mock(TransactionRetryRouter.class), replayer, new TokenAdmin(token));
+	}
+}
@@ -0,0 +1,119 @@
+package com.transacciones.transaction_ingestor.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.transacciones.transaction_ingestor.service.TransactionService;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class TransactionControllerTest {
+
+	private final TransactionService transactionService = mock(TransactionService.class);
+	@SuppressWarnings("unchecked")
+	private final TransactionController controller = new TransactionController(transactionService, null,
+			new ObjectMapper().registerModule(new JavaTimeModule()), null, null, mock(ObjectProvider.class));
+
+	TransactionControllerTest() {
+		ReflectionTestUtils.setField(controller, "maxItemsPorLote", 5000);
+		ReflectionTestUtils.setField(controller, "maxBytesPorLote", 64);
+	}
+
+	@Test
+	void unContentLengthMayorAlMaximoDa413SinLeerElCuerpo() throws Exception {
+		AtomicLong leidos = new AtomicLong();
+		HttpServletRequest request = request(1_000_000L, contando(new byte[1000], leidos));
+
+		assertThatThrownBy(() -> controller.ingestBatchNdjson(request))
+				.isInstanceOfSatisfying(ResponseStatusException.class,
+						e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE));
+		assertThat(leidos).hasValue(0);
+		verifyNoInteractions(transactionService);
+	}
+
+	@Test
+	void unCuerpoSinLargoSeCortaAlPasarElMaximo() throws Exception {
+		AtomicLong leidos = new AtomicLong();
+		// Chunked: sin Content-Length
+		HttpServletRequest request = request(-1L, contando(new byte[10_000], leidos));
+
+		assertThatThrownBy(() -> controller.ingestBatch(request))
+				.isInstanceOfSatisfying(ResponseStatusException.class,
+						e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE));
+		assertThat(leidos.get()).isLessThan(10_000);
+		verifyNoInteractions(transactionService);
+	}
+
+	@Test
+	void dentroDelMaximoSeIngesta() throws Exception {
+		when(transactionService.ingestBatch(anyList())).thenReturn(List.of());
+		byte[] cuerpo = "[]".getBytes(StandardCharsets.UTF_8);
+		HttpServletRequest request = request(cuerpo.length, contando(cuerpo, new AtomicLong()));
+
+		assertThat(controller.ingestBatch(request)).isEmpty();
+	}
+
+	private static HttpServletRequest request(long contentLength, ServletInputStream cuerpo) throws IOException {
+		HttpServletRequest request = mock(HttpServletRequest.class);
+		when(request.getContentLengthLong()).thenReturn(contentLength);
+		when(request.getInputStream()).thenReturn(cuerpo);
+		return request;
+	}
+
+	// Cuenta los bytes que se leen del cuerpo
+	private static ServletInputStream contando(byte[] datos, AtomicLong leidos) {
+		ByteArrayInputStream entrada = new ByteArrayInputStream(datos);
+		return new ServletInputStream() {
+			@Override
+			public int read() {
+				int b = entrada.read();
+				if (b >= 0) {
+					leidos.incrementAndGet();
+				}
+				return b;
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) {
+				int n = entrada.read(b, off, len);
+				if (n > 0) {
+					leidos.addAndGet(n);
+				}
+				return n;
+			}
+
+			@Override
+			public boolean isFinished() {
+				return entrada.available() == 0;
+			}
+
+			@Override
+			public boolean isReady() {
+				return true;
+			}
+
+			@Override
+			public void setReadListener(ReadListener listener) {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+}
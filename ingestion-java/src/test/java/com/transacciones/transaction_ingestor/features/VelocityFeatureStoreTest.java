@@ -0,0 +1,129 @@
+package com.transacciones.transaction_ingestor.features;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VelocityFeatureStoreTest {
+
+	// Alineado a la hora: coincide con el inicio de un bucket en las tres ventanas
+	private static final long T0 = 1_700_002_800_000L;
+
+	private final VelocityFeatureStore store = new VelocityFeatureStore(1000, 4);
+	private final double[] features = new double[VelocityFeatureStore.CANTIDAD_FEATURES];
+
+	@AfterEach
+	void limpiarSincronizacion() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	void cadaVentanaDejaDeContarAlPasarSuAncho() {
+		store.registrar("A", new BigDecimal("10.00"), "AR", T0);
+
+		store.leer("A", T0 + 59_999, features);
+		assertThat(features[VelocityFeatureStore.CANTIDAD_1M]).isEqualTo(1);
+
+		store.leer("A", T0 + 60_000, features);
+		assertThat(features[VelocityFeatureStore.CANTIDAD_1M]).isZero();
+		assertThat(features[VelocityFeatureStore.CANTIDAD_1H]).isEqualTo(1);
+
+		store.leer("A", T0 + 3_600_000, features);
+		assertThat(features[VelocityFeatureStore.CANTIDAD_1H]).isZero();
+		assertThat(features[VelocityFeatureStore.CANTIDAD_24H]).isEqualTo(1);
+
+		store.leer("A", T0 + 86_400_000, features);
+		assertThat(features[VelocityFeatureStore.CANTIDAD_24H]).isZero();
+	}
+
+	@Test
+	void laVentanaSeDesplazaPorBuckets() {
+		// Una transacción cada 20 s durante 2 minutos
+		for (int i = 0; i < 6; i++) {
+			store.registrar("A", BigDecimal.valueOf(i + 1), null, T0 + i * 20_000L);
+		}
+
+		// En T0+100s el último minuto abarca los buckets desde T0+45s: las de 60, 80 y 100 s
+		store.leer("A", T0 + 100_000, features);
+		assertThat(features[VelocityFeatureStore.CANTIDAD_1M]).isEqualTo(3);
+		assertThat(features[VelocityFeatureStore.SUMA_1M]).isEqualTo(4 + 5 + 6);
+		assertThat(features[VelocityFeatureStore.MAXIMO_1M]).isEqualTo(6);
+		assertThat(features[VelocityFeatureStore.CANTIDAD_1H]).isEqualTo(6);
+		assertThat(features[VelocityFeatureStore.SUMA_1H]).isEqualTo(21);
+	}
+
+	@Test
+	void unBucketReutilizadoEmpiezaDeCero() {
+		store.registrar("A", new BigDecimal("5"), null, T0);
+		// Mismo índice del ring buffer de 1 min, una vuelta después
+		store.registrar("A", new BigDecimal("7"), null, T0 + 60_000);
+
+		store.leer("A", T0 + 60_000, features);
+		assertThat(features[VelocityFeatureStore.CANTIDAD_1M]).isEqualTo(1);
+		assertThat(features[VelocityFeatureStore.SUMA_1M]).isEqualTo(7);
+		assertThat(features[VelocityFeatureStore.CANTIDAD_1H]).isEqualTo(2);
+	}
+
+	@Test
+	void cuentaPaisesDistintosYSeparaCuentas() {
+		store.registrar("A", BigDecimal.ONE, "AR", T0);
+		store.registrar("A", BigDecimal.ONE, "UY", T0 + 1);
+		store.registrar("A", BigDecimal.ONE, "AR", T0 + 2);
+		store.registrar("B", BigDecimal.TEN, "BR", T0);
+
+		store.leer("A", T0 + 10, features);
+		assertThat(features[VelocityFeatureStore.PAISES_1M]).isEqualTo(2);
+		assertThat(features[VelocityFeatureStore.CANTIDAD_1M]).isEqualTo(3);
+
+		store.leer("B", T0 + 10, features);
+		assertThat(features[VelocityFeatureStore.CANTIDAD_1M]).isEqualTo(1);
+		assertThat(features[VelocityFeatureStore.SUMA_1M]).isEqualTo(10);
+	}
+
+	@Test
+	void dentroDeUnaTransaccionSeRegistraRecienAlCommitear() {
+		TransactionSynchronizationManager.initSynchronization();
+		store.registrar("A", BigDecimal.TEN, null);
+
+		store.leer("A", features);
+		assertThat(features[VelocityFeatureStore.CANTIDAD_1M]).isZero();
+
+		TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+		store.leer("A", features);
+		assertThat(features[VelocityFeatureStore.CANTIDAD_1M]).isEqualTo(1);
+	}
+
+	@Test
+	void conRollbackNoSeRegistra() {
+		TransactionSynchronizationManager.initSynchronization();
+		store.registrar("A", BigDecimal.TEN, null);
+		TransactionSynchronizationManager.getSynchronizations()
+				.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+		TransactionSynchronizationManager.clearSynchronization();
+
+		store.leer("A", features);
+		assertThat(features[VelocityFeatureStore.CANTIDAD_24H]).isZero();
+	}
+
+	@Test
+	void descartaLaCuentaMenosUsadaAlSuperarElMaximo() {
+		VelocityFeatureStore chico = new VelocityFeatureStore(2, 1);
+		chico.registrar("A", BigDecimal.ONE, null, T0);
+		chico.registrar("B", BigDecimal.ONE, null, T0);
+		chico.leer("A", T0, features);
+		chico.registrar("C", BigDecimal.ONE, null, T0);
+
+		assertThat(chico.cuentas()).isEqualTo(2);
+		chico.leer("B", T0, features);
+		assertThat(features[VelocityFeatureStore.CANTIDAD_1M]).isZero();
+		chico.leer("A", T0, features);
+		assertThat(features[VelocityFeatureStore.CANTIDAD_1M]).isEqualTo(1);
+	}
+}
@@ -0,0 +1,102 @@
+package com.transacciones.transaction_ingestor.ids;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TsidGeneratorTest {
+
+	private static final int HILOS = 4;
+	private static final int POR_HILO = 50_000;
+
+	@Test
+	void idsEstrictamenteCrecientesEnUnHilo() {
+		TsidGenerator generador = new TsidGenerator(7);
+
+		// Más de 4096 por milisegundo: obliga a pasar al milisegundo siguiente
+		String anterior = generador.nextId();
+		for (int i = 0; i < 100_000; i++) {
+			String id = generador.nextId();
+			assertThat(id).hasSize(TsidGenerator.LARGO);
+			assertThat(id).isGreaterThan(anterior);
+			anterior = id;
+		}
+	}
+
+	@Test
+	void idsUnicosYCrecientesPorHiloBajoConcurrencia() throws Exception {
+		TsidGenerator generador = new TsidGenerator(7);
+		ExecutorService pool = Executors.newFixedThreadPool(HILOS);
+		CountDownLatch largada = new CountDownLatch(1);
+		try {
+			List<Future<List<String>>> resultados = new ArrayList<>();
+			for (int h = 0; h < HILOS; h++) {
+				resultados.add(pool.submit(() -> {
+					largada.await();
+					List<String> ids = new ArrayList<>(POR_HILO);
+					for (int i = 0; i < POR_HILO; i++) {
+						ids.add(generador.nextId());
+					}
+					return ids;
+				}));
+			}
+			largada.countDown();
+
+			Set<String> todos = new HashSet<>();
+			for (Future<List<String>> resultado : resultados) {
+				List<String> ids = resultado.get();
+				for (int i = 1; i < ids.size(); i++) {
+					assertThat(ids.get(i)).isGreaterThan(ids.get(i - 1));
+				}
+				todos.addAll(ids);
+			}
+			assertThat(todos).hasSize(HILOS * POR_HILO);
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	@Test
+	void elNodoQuedaEnLosBitsDelId() {
+		long id = new TsidGenerator(1023).siguiente();
+
+		assertThat((id >>> 12) & 0x3FF).isEqualTo(1023);
+	}
+
+	@Test
+	void nodosDistintosNoColisionanEnElMismoMilisegundo() {
+		TsidGenerator a = new TsidGenerator(1);
+		TsidGenerator b = new TsidGenerator(2);
+		Set<String> ids = new HashSet<>();
+		for (int i = 0; i < 10_000; i++) {
+			ids.add(a.nextId());
+			ids.add(b.nextId());
+		}
+
+		assertThat(ids).hasSize(20_000);
+	}
+
+	@Test
+	void codificaEnBase32DeAnchoFijo() {
+		assertThat(TsidGenerator.codificar(0)).isEqualTo("0000000000000");
+		assertThat(TsidGenerator.codificar(-1)).isEqualTo("FZZZZZZZZZZZZ");
+		assertThat(TsidGenerator.codificar(31)).isEqualTo("000000000000Z");
+	}
+
+	@Test
+	void exigeNodoConVariasInstancias() {
+		assertThatThrownBy(() -> new TsidGenerator(-1, 3)).isInstanceOf(IllegalStateException.class);
+		assertThatThrownBy(() -> new TsidGenerator(1024, 1)).isInstanceOf(IllegalArgumentException.class);
+		assertThat(new TsidGenerator(5, 3).siguiente()).isPositive();
+	}
+}
@@ -0,0 +1,55 @@
+package com.transacciones.transaction_ingestor.kafka;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeyOrderedExecutorTest {
+
+	@Test
+	void mismaClaveEnOrden() throws Exception {
+		List<Integer> orden = Collections.synchronizedList(new ArrayList<>());
+		CountDownLatch fin = new CountDownLatch(100);
+		try (KeyOrderedExecutor executor = new KeyOrderedExecutor("prueba", 4, 1000)) {
+			for (int i = 0; i < 100; i++) {
+				int n = i;
+				executor.submit("A", () -> {
+					orden.add(n);
+					fin.countDown();
+				});
+			}
+			assertThat(fin.await(10, TimeUnit.SECONDS)).isTrue();
+		}
+		assertThat(orden).isSorted().hasSize(100);
+	}
+
+	@Test
+	void seSaturaAlLlenarUnCarrilYAvisaAlDescongestionar() throws Exception {
+		CountDownLatch liberar = new CountDownLatch(1);
+		CountDownLatch descongestionado = new CountDownLatch(1);
+		try (KeyOrderedExecutor executor = new KeyOrderedExecutor("prueba", 1, 2)) {
+			executor.alDescongestionar(descongestionado::countDown);
+			executor.submit("A", () -> {
+				try {
+					liberar.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			});
+			executor.submit("A", () -> { });
+			executor.submit("A", () -> { });
+			assertThat(executor.saturado()).isTrue();
+
+			liberar.countDown();
+
+			assertThat(descongestionado.await(10, TimeUnit.SECONDS)).isTrue();
+			assertThat(executor.saturado()).isFalse();
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package com.transacciones.transaction_ingestor.kafka;
+
+import com.transacciones.transaction_ingestor.dto.TransactionDTO;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TransactionBinaryCodecTest {
+
+	@Test
+	void idaYVueltaConTodosLosCampos() {
+		TransactionDTO dto = completa();
+
+		TransactionDTO leida = TransactionBinaryCodec.decode(TransactionBinaryCodec.encode(dto));
+
+		assertThat(leida).usingRecursiveComparison().isEqualTo(dto);
+	}
+
+	@Test
+	void idaYVueltaConCamposNulos() {
+		TransactionDTO dto = new TransactionDTO();
+		dto.setTimestamp(null);
+		dto.setStatus(null);
+		dto.setAccountId("ACC-1");
+
+		TransactionDTO leida = TransactionBinaryCodec.decode(TransactionBinaryCodec.encode(dto));
+
+		assertThat(leida).usingRecursiveComparison().isEqualTo(dto);
+		assertThat(leida.getTimestamp()).isNull();
+		assertThat(leida.getStatus()).isNull();
+	}
+
+	@Test
+	void conservaEscalaYSignoDelMonto() {
+		for (String monto : new String[] {"0", "-1", "0.001", "12345678901234.56", "-9223372036854775808", "1E+3"}) {
+			TransactionDTO dto = completa();
+			dto.setAmount(new BigDecimal(monto));
+
+			BigDecimal leido = TransactionBinaryCodec.decode(TransactionBinaryCodec.encode(dto)).getAmount();
+
+			assertThat(leido).isEqualTo(dto.getAmount());
+			assertThat(leido.scale()).isEqualTo(dto.getAmount().scale());
+		}
+	}
+
+	@Test
+	void montoFueraDeRangoNoSeCodifica() {
+		TransactionDTO dto = completa();
+		dto.setAmount(new BigDecimal("92233720368547758080"));
+
+		assertThatThrownBy(() -> TransactionBinaryCodec.encode(dto)).isInstanceOf(SerializationException.class);
+	}
+
+	@Test
+	void cualquierPrefijoTruncadoFallaConSerializationException() {
+		byte[] completo = TransactionBinaryCodec.encode(completa());
+
+		for (int largo = 0; largo < completo.length; largo++) {
+			byte[] truncado = Arrays.copyOf(completo, largo);
+			assertThatThrownBy(() -> TransactionBinaryCodec.decode(truncado))
+					.as("prefijo de %d bytes", largo)
+					.isInstanceOf(SerializationException.class);
+		}
+	}
+
+	@Test
+	void rechazaMagicYVersionDesconocidos() {
+		byte[] datos = TransactionBinaryCodec.encode(completa());
+
+		byte[] json = datos.clone();
+		json[0] = '{';
+		assertThatThrownBy(() -> TransactionBinaryCodec.decode(json)).isInstanceOf(SerializationException.class);
+
+		byte[] otraVersion = datos.clone();
+		otraVersion[1] = TransactionBinaryCodec.VERSION + 1;
+		assertThatThrownBy(() -> TransactionBinaryCodec.decode(otraVersion)).isInstanceOf(SerializationException.class);
+	}
+
+	@Test
+	void rechazaLongitudDeStringMayorQueElMensaje() {
+		byte[] datos = TransactionBinaryCodec.encode(completa());
+		// Primer campo (id): varint de la longitud justo después de la cabecera
+		datos[3] = 0x7F;
+
+		assertThatThrownBy(() -> TransactionBinaryCodec.decode(datos)).isInstanceOf(SerializationException.class);
+	}
+
+	private static TransactionDTO completa() {
+		TransactionDTO dto = new TransactionDTO("ACC-ñandú-42", new BigDecimal("1520.75"), "TRANSFER", "Pago de alquiler €");
+		dto.setId("0HZXY3K7T1B2C");
+		dto.setTimestamp(LocalDateTime.of(2025, 3, 14, 15, 9, 26, 535_000_000));
+		dto.setStatus("REJECTED");
+		dto.setRejectionReason("Monto superior al máximo");
+		return dto;
+	}
+}
@@ -0,0 +1,79 @@
+package com.transacciones.transaction_ingestor.kafka;
+
+import com.transacciones.transaction_ingestor.dto.TransactionDTO;
+import com.transacciones.transaction_ingestor.metricas.TrazasLentas;
+import com.transacciones.transaction_ingestor.service.KafkaTransactionService;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.errors.RecordTooLargeException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TransactionConsumerTest {
+
+	private final KafkaTransactionService kafkaTransactionService = mock(KafkaTransactionService.class);
+	private final TransactionProducer producer = mock(TransactionProducer.class);
+	private final TransactionRetryRouter retryRouter = mock(TransactionRetryRouter.class);
+	private final Acknowledgment acknowledgment = mock(Acknowledgment.class);
+	@SuppressWarnings("unchecked")
+	private final TransactionConsumer consumer = new TransactionConsumer(kafkaTransactionService, producer,
+			mock(ObjectProvider.class), retryRouter, mock(TrazasLentas.class), mock(KafkaListenerEndpointRegistry.class));
+
+	private final List<ConsumerRecord<String, TransactionDTO>> lote = List.of(registro(0), registro(1), registro(2));
+
+	@AfterEach
+	void cerrar() {
+		consumer.close();
+	}
+
+	@Test
+	void unaPublicacionRechazadaSeDerivaSolaYElLoteSeConfirma() {
+		when(producer.sendValidatedTransaction(any())).thenReturn(CompletableFuture.completedFuture(null));
+		when(producer.sendValidatedTransaction(lote.get(1).value()))
+				.thenReturn(CompletableFuture.failedFuture(new RecordTooLargeException("muy grande")));
+		when(retryRouter.route(eq(lote.get(1)), any())).thenAnswer(i -> CompletableFuture.completedFuture(null));
+
+		consumer.consumeTransactionBatch(lote, acknowledgment);
+
+		// Los siguientes no se reentregan: no se vuelven a publicar como duplicados
+		verify(retryRouter).route(eq(lote.get(1)), any(RecordTooLargeException.class));
+		verify(retryRouter, never()).route(eq(lote.get(2)), any());
+		verify(acknowledgment).acknowledge();
+	}
+
+	@Test
+	void siTambienFallaLaDerivacionElLoteFallaEnEseRegistro() {
+		when(producer.sendValidatedTransaction(any())).thenReturn(CompletableFuture.completedFuture(null));
+		when(producer.sendValidatedTransaction(lote.get(1).value()))
+				.thenReturn(CompletableFuture.failedFuture(new RecordTooLargeException("muy grande")));
+		when(retryRouter.route(eq(lote.get(1)), any()))
+				.thenAnswer(i -> CompletableFuture.failedFuture(new IllegalStateException("sin broker")));
+
+		assertThatThrownBy(() -> consumer.consumeTransactionBatch(lote, acknowledgment))
+				.isInstanceOfSatisfying(BatchListenerFailedException.class,
+						e -> assertThat(e.getRecord()).isSameAs(lote.get(1)));
+		verify(acknowledgment, never()).acknowledge();
+	}
+
+	private static ConsumerRecord<String, TransactionDTO> registro(int offset) {
+		TransactionDTO dto = new TransactionDTO("cuenta-" + offset, BigDecimal.TEN, "DEPOSIT", "test");
+		dto.setId("tx-" + offset);
+		return new ConsumerRecord<>("transaction-input-topic", 0, offset, dto.getAccountId(), dto);
+	}
+}
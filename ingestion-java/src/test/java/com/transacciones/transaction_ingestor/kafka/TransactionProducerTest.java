@@ -0,0 +1,83 @@
+package com.transacciones.transaction_ingestor.kafka;
+
+import com.transacciones.transaction_ingestor.dto.TransactionDTO;
+import com.transacciones.transaction_ingestor.metricas.MetricasIngesta;
+import com.transacciones.transaction_ingestor.metricas.TrazasLentas;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TransactionProducerTest {
+
+	@SuppressWarnings("unchecked")
+	private final KafkaTemplate<String, TransactionDTO> kafkaTemplate = mock(KafkaTemplate.class);
+	private final CountDownLatch liberar = new CountDownLatch(1);
+	private TransactionProducer producer;
+
+	@AfterEach
+	void cerrar() {
+		liberar.countDown();
+		producer.close();
+	}
+
+	@Test
+	void unSendBloqueadoNoFrenaLosEnviosDeLosOtrosHilos() throws Exception {
+		// send() de la cuenta "trabada" bloquea como sin metadata (max.block.ms)
+		when(kafkaTemplate.send(anyString(), eq("trabada"), any(TransactionDTO.class))).thenAnswer(invocacion -> {
+			liberar.await(10, TimeUnit.SECONDS);
+			return confirmado();
+		});
+		when(kafkaTemplate.send(anyString(), eq("libre"), any(TransactionDTO.class))).thenAnswer(invocacion -> confirmado());
+		producer = producer(10, 2);
+
+		CompletableFuture<SendResult<String, TransactionDTO>> trabado = producer.sendTransactionAcotado(transaccion("trabada"));
+		CompletableFuture<SendResult<String, TransactionDTO>> libre = producer.sendTransactionAcotado(transaccion("libre"));
+
+		libre.get(2, TimeUnit.SECONDS);
+		assertThat(trabado).isNotDone();
+	}
+
+	@Test
+	void conElMaximoEnVueloFallaSinEncolar() {
+		when(kafkaTemplate.send(anyString(), anyString(), any(TransactionDTO.class))).thenReturn(new CompletableFuture<>());
+		producer = producer(2, 2);
+		producer.sendTransactionAcotado(transaccion("a"));
+		producer.sendTransactionAcotado(transaccion("b"));
+
+		assertThatThrownBy(() -> producer.sendTransactionAcotado(transaccion("c")))
+				.isInstanceOf(EnviosSaturadosException.class);
+	}
+
+	private TransactionProducer producer(int maxEnVuelo, int hilos) {
+		TransactionProducer nuevo = new TransactionProducer(kafkaTemplate, mock(MetricasIngesta.class),
+				mock(TrazasLentas.class), maxEnVuelo, hilos);
+		ReflectionTestUtils.setField(nuevo, "transactionInputTopic", "transaction-input-topic");
+		return nuevo;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static CompletableFuture<SendResult<String, TransactionDTO>> confirmado() {
+		return CompletableFuture.completedFuture(mock(SendResult.class));
+	}
+
+	private static TransactionDTO transaccion(String cuenta) {
+		TransactionDTO dto = new TransactionDTO(cuenta, new BigDecimal("10.00"), "DEPOSIT", "test");
+		dto.setId("tx-" + cuenta);
+		return dto;
+	}
+}
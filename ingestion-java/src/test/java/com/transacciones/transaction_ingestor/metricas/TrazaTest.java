@@ -0,0 +1,135 @@
+package com.transacciones.transaction_ingestor.metricas;
+
+import com.transacciones.transaction_ingestor.metricas.Traza.Marca;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrazaTest {
+
+	private static final long BASE = 1_760_000_000_000_000L;
+
+	@Test
+	void idaYVueltaConservaLasMarcasPresentes() {
+		Traza traza = new Traza();
+		traza.marcar(Marca.CREADA, BASE);
+		traza.marcar(Marca.ENVIADA, BASE + 100);
+		// Delta de varios bytes de varint
+		traza.marcar(Marca.RECIBIDA, BASE + 3_000_000);
+		traza.marcar(Marca.PERSISTIDA, BASE + 3_000_000 + 250_000);
+		traza.marcar(Marca.CONFIRMADA, BASE + 86_400_000_000L);
+
+		Traza leida = Traza.desdeBytes(traza.aBytes());
+
+		assertThat(leida).isNotNull();
+		for (Marca marca : Marca.values()) {
+			assertThat(leida.tiene(marca)).as(marca.name()).isEqualTo(traza.tiene(marca));
+		}
+		assertThat(leida.inicioMicros()).isEqualTo(BASE);
+		assertThat(leida.etapasMicros()).isEqualTo(traza.etapasMicros());
+		assertThat(leida.totalMicros()).isEqualTo(86_400_000_000L);
+	}
+
+	@Test
+	void elFormatoEsVersionBaseYOrdinalConDeltaEnVarint() {
+		Traza traza = new Traza();
+		traza.marcar(Marca.ENVIADA, BASE);
+		traza.marcar(Marca.RECIBIDA, BASE + 300);
+
+		byte[] bytes = traza.aBytes();
+
+		// 300 = 0b10_0101100: 0xAC 0x02
+		assertThat(bytes).hasSize(1 + 8 + 2 + 3);
+		assertThat(bytes[0]).isEqualTo((byte) 1);
+		assertThat(Arrays.copyOfRange(bytes, 9, bytes.length)).containsExactly(
+				Marca.ENVIADA.ordinal(), 0,
+				Marca.RECIBIDA.ordinal(), 0xAC, 0x02);
+	}
+
+	@Test
+	void unaMarcaAnteriorALaBaseQuedaEnLaBase() {
+		// Relojes desfasados entre procesos: la ENVIADA del producer es posterior a la RECIBIDA
+		Traza traza = new Traza();
+		traza.marcar(Marca.ENVIADA, BASE);
+		traza.marcar(Marca.RECIBIDA, BASE + 1_000);
+		traza.marcar(Marca.CREADA, BASE + 5_000);
+
+		Traza leida = Traza.desdeBytes(traza.aBytes());
+
+		assertThat(leida).isNotNull();
+		assertThat(leida.inicioMicros()).isEqualTo(BASE + 5_000);
+		assertThat(leida.etapasMicros()).containsEntry("cola_envio", 0L);
+	}
+
+	@Test
+	void sinMarcasSeLeeUnaTrazaVacia() {
+		Traza leida = Traza.desdeBytes(new Traza().aBytes());
+
+		assertThat(leida).isNotNull();
+		assertThat(leida.inicioMicros()).isZero();
+		assertThat(leida.etapasMicros()).isEmpty();
+	}
+
+	@Test
+	void unHeaderTruncadoDaNullOLasMarcasCompletas() {
+		Traza traza = new Traza();
+		traza.marcar(Marca.CREADA, BASE);
+		traza.marcar(Marca.ENVIADA, BASE + 200);
+		traza.marcar(Marca.RECIBIDA, BASE + 2_000_000);
+		byte[] bytes = traza.aBytes();
+		// Fin de cada marca: ordinal y varint de 1, 2 y 3 bytes
+		int[] finDeMarca = {9 + 2, 9 + 2 + 3, 9 + 2 + 3 + 4};
+		assertThat(bytes).hasSize(finDeMarca[2]);
+
+		for (int largo = 0; largo < bytes.length; largo++) {
+			Traza leida = Traza.desdeBytes(Arrays.copyOf(bytes, largo));
+			int completas = 0;
+			boolean enUnLimite = largo == 9;
+			for (int fin : finDeMarca) {
+				if (fin <= largo) {
+					completas++;
+				}
+				enUnLimite |= fin == largo;
+			}
+			if (!enUnLimite) {
+				assertThat(leida).as("largo %d", largo).isNull();
+				continue;
+			}
+			assertThat(leida).as("largo %d", largo).isNotNull();
+			assertThat(leida.tiene(Marca.CREADA)).isEqualTo(completas >= 1);
+			assertThat(leida.tiene(Marca.ENVIADA)).isEqualTo(completas >= 2);
+			assertThat(leida.tiene(Marca.RECIBIDA)).isFalse();
+		}
+	}
+
+	@Test
+	void unHeaderMalFormadoDaNull() {
+		Traza traza = new Traza();
+		traza.marcar(Marca.CREADA, BASE);
+		byte[] valido = traza.aBytes();
+
+		byte[] otraVersion = valido.clone();
+		otraVersion[0] = 2;
+		byte[] ordinalFueraDeRango = valido.clone();
+		ordinalFueraDeRango[9] = (byte) Marca.values().length;
+		byte[] ordinalNegativo = valido.clone();
+		ordinalNegativo[9] = (byte) 0xFF;
+		// Varint sin fin: diez bytes con el bit de continuación
+		byte[] varintSinFin = Arrays.copyOf(valido, 10 + 10);
+		Arrays.fill(varintSinFin, 10, varintSinFin.length, (byte) 0x80);
+		// Varint de diez bytes que no entra en un long positivo
+		byte[] deltaNegativo = Arrays.copyOf(valido, 10 + 10);
+		Arrays.fill(deltaNegativo, 10, 19, (byte) 0xFF);
+		deltaNegativo[19] = 0x01;
+
+		assertThat(Traza.desdeBytes(null)).isNull();
+		assertThat(Traza.desdeBytes(new byte[0])).isNull();
+		assertThat(Traza.desdeBytes(otraVersion)).isNull();
+		assertThat(Traza.desdeBytes(ordinalFueraDeRango)).isNull();
+		assertThat(Traza.desdeBytes(ordinalNegativo)).isNull();
+		assertThat(Traza.desdeBytes(varintSinFin)).isNull();
+		assertThat(Traza.desdeBytes(deltaNegativo)).isNull();
+	}
+}
@@ -0,0 +1,72 @@
+package com.transacciones.transaction_ingestor.repository;
+
+import com.transacciones.transaction_ingestor.archivo.ArchivoTransacciones;
+import com.transacciones.transaction_ingestor.model.Transaccion;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TransactionRepositoryImplTest {
+
+	private static final LocalDateTime DESDE = LocalDateTime.of(2025, 1, 1, 0, 0);
+	private static final LocalDateTime HASTA = LocalDateTime.of(2025, 2, 1, 0, 0);
+
+	private final ArchivoTransacciones archivo = mock(ArchivoTransacciones.class);
+	private final TypedQuery<Transaccion> consulta = mock();
+	private final TransactionRepositoryImpl repository = new TransactionRepositoryImpl(archivo);
+
+	@BeforeEach
+	void crear() {
+		EntityManager entityManager = mock(EntityManager.class);
+		when(entityManager.createQuery(anyString(), eq(Transaccion.class))).thenReturn(consulta);
+		when(consulta.setParameter(anyString(), any())).thenReturn(consulta);
+		ReflectionTestUtils.setField(repository, "entityManager", entityManager);
+	}
+
+	@Test
+	void unaFilaQueEstaEnLaBaseYEnElArchivoSeDevuelveUnaVezDesdeLaBase() {
+		// Partición exportada pero todavía no borrada (caída antes del DROP)
+		Transaccion enBase = transaccion("tx-1", DESDE.plusDays(3), "10.00");
+		Transaccion archivadaDuplicada = transaccion("tx-1", DESDE.plusDays(3), "99.00");
+		Transaccion soloArchivada = transaccion("tx-0", DESDE.plusDays(1), "5.00");
+		Transaccion soloEnBase = transaccion("tx-2", DESDE.plusDays(7), "7.00");
+		when(consulta.getResultList()).thenReturn(List.of(soloEnBase, enBase));
+		when(archivo.leer(DESDE, HASTA)).thenReturn(List.of(soloArchivada, archivadaDuplicada));
+
+		List<Transaccion> resultado = repository.findByTimestampTransaccionBetweenOrderByTimestampTransaccionDesc(DESDE, HASTA);
+
+		assertThat(resultado).containsExactly(soloEnBase, enBase, soloArchivada);
+		assertThat(resultado.get(1).getMonto()).isEqualByComparingTo("10.00");
+	}
+
+	@Test
+	void sinArchivosEnElRangoDevuelveLaListaDeLaBase() {
+		List<Transaccion> enBase = List.of(transaccion("tx-1", DESDE.plusDays(3), "10.00"));
+		when(consulta.getResultList()).thenReturn(enBase);
+		when(archivo.leer(DESDE, HASTA)).thenReturn(List.of());
+
+		assertThat(repository.findByTimestampTransaccionBetweenOrderByTimestampTransaccionDesc(DESDE, HASTA))
+				.isSameAs(enBase);
+	}
+
+	private static Transaccion transaccion(String id, LocalDateTime timestamp, String monto) {
+		Transaccion tx = new Transaccion();
+		tx.setIdTransaccion(id);
+		tx.setTimestampTransaccion(timestamp);
+		tx.setMonto(new BigDecimal(monto));
+		return tx;
+	}
+}
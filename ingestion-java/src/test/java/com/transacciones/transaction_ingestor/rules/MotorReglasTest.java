@@ -0,0 +1,122 @@
+package com.transacciones.transaction_ingestor.rules;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.transacciones.transaction_ingestor.features.VelocityFeatureStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MotorReglasTest {
+
+	private static final String TOPE_100 = """
+			{"version": "1", "reglas": [
+			  {"id": "tope", "tipo": "MONTO_MAXIMO", "accion": "RECHAZAR", "umbral": 100}
+			]}
+			""";
+
+	@TempDir
+	Path directorio;
+
+	private Path archivo;
+	private VelocityFeatureStore velocity;
+	private MotorReglas motor;
+
+	@BeforeEach
+	void crearMotor() throws IOException {
+		archivo = directorio.resolve("reglas.json");
+		Files.writeString(archivo, TOPE_100);
+		velocity = new VelocityFeatureStore(100, 1);
+		motor = new MotorReglas(velocity, new ObjectMapper(), new DefaultResourceLoader(), "file:" + archivo);
+	}
+
+	@Test
+	void recargaElArchivoEnCaliente() throws IOException {
+		assertThat(motor.evaluar("A", new BigDecimal("150"), "DEPOSIT", null, DefinicionRegla.Canal.HTTP).rechazar())
+				.isTrue();
+
+		Files.writeString(archivo, TOPE_100.replace("\"version\": \"1\"", "\"version\": \"2\"").replace("100", "1000"));
+		motor.recargar();
+
+		ResultadoReglas resultado = motor.evaluar("A", new BigDecimal("150"), "DEPOSIT", null, DefinicionRegla.Canal.HTTP);
+		assertThat(resultado.disparo()).isFalse();
+		assertThat(motor.definicionActual().version()).isEqualTo("2");
+	}
+
+	@Test
+	void unArchivoInvalidoNoReemplazaAlPlanActivo() throws IOException {
+		Files.writeString(archivo, """
+				{"version": "2", "reglas": [{"id": "sin_umbral", "tipo": "MONTO_MAXIMO", "accion": "RECHAZAR"}]}
+				""");
+		assertThatThrownBy(motor::recargar).isInstanceOf(IllegalArgumentException.class);
+
+		Files.writeString(archivo, "{ no es json");
+		assertThatThrownBy(motor::recargar).isInstanceOf(UncheckedIOException.class);
+
+		assertThat(motor.definicionActual().version()).isEqualTo("1");
+		assertThat(motor.evaluar("A", new BigDecimal("150"), "DEPOSIT", null, DefinicionRegla.Canal.KAFKA).rechazar())
+				.isTrue();
+	}
+
+	@Test
+	void activarReemplazaElConjuntoSinTocarElArchivo() {
+		motor.activar(new ConjuntoReglas("http", 0.5, List.of(new DefinicionRegla("tope_http",
+				DefinicionRegla.Tipo.MONTO_MAXIMO, DefinicionRegla.Accion.RECHAZAR, DefinicionRegla.Canal.HTTP,
+				10d, null, null, null, null))));
+
+		assertThat(motor.evaluar("A", new BigDecimal("50"), "DEPOSIT", null, DefinicionRegla.Canal.HTTP).reglas())
+				.containsExactly("tope_http");
+		assertThat(motor.evaluar("A", new BigDecimal("50"), "DEPOSIT", null, DefinicionRegla.Canal.KAFKA).disparo())
+				.isFalse();
+		assertThat(motor.umbralRiesgo()).isEqualTo(0.5);
+
+		motor.recargar();
+		assertThat(motor.definicionActual().version()).isEqualTo("1");
+	}
+
+	@Test
+	void lasReglasDeVelocidadVenLasTransaccionesRegistradas() {
+		motor.activar(new ConjuntoReglas("v", null, List.of(new DefinicionRegla("rafaga",
+				DefinicionRegla.Tipo.VELOCIDAD, DefinicionRegla.Accion.ALERTAR, null, 2d, null, "CANTIDAD_1M",
+				null, null))));
+
+		for (int i = 0; i < 3; i++) {
+			assertThat(motor.evaluar("A", BigDecimal.ONE, "DEPOSIT", null, DefinicionRegla.Canal.HTTP).disparo())
+					.isFalse();
+			velocity.registrar("A", BigDecimal.ONE, null);
+		}
+		assertThat(motor.evaluar("A", BigDecimal.ONE, "DEPOSIT", null, DefinicionRegla.Canal.HTTP).reglas())
+				.containsExactly("rafaga");
+		assertThat(motor.evaluar("B", BigDecimal.ONE, "DEPOSIT", null, DefinicionRegla.Canal.HTTP).disparo())
+				.isFalse();
+	}
+
+	@Test
+	void conLasFeaturesDelModeloNoVuelveALeerLaVelocidad() {
+		motor.activar(new ConjuntoReglas("v", null, List.of(new DefinicionRegla("rafaga",
+				DefinicionRegla.Tipo.VELOCIDAD, DefinicionRegla.Accion.ALERTAR, null, 2d, null, "CANTIDAD_1M",
+				null, null))));
+		for (int i = 0; i < 3; i++) {
+			velocity.registrar("A", BigDecimal.ONE, null);
+		}
+		// Vector del modelo leído antes de esas tres: la regla decide sobre él
+		double[] vector = new double[5 + VelocityFeatureStore.CANTIDAD_FEATURES];
+
+		assertThat(motor.evaluar("A", BigDecimal.ONE, "DEPOSIT", null, DefinicionRegla.Canal.HTTP, vector, 5)
+				.disparo()).isFalse();
+
+		vector[5 + VelocityFeatureStore.indiceFeature("CANTIDAD_1M")] = 3;
+		assertThat(motor.evaluar("B", BigDecimal.ONE, "DEPOSIT", null, DefinicionRegla.Canal.HTTP, vector, 5)
+				.reglas()).containsExactly("rafaga");
+	}
+}
@@ -0,0 +1,138 @@
+package com.transacciones.transaction_ingestor.rules;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.transacciones.transaction_ingestor.features.VelocityFeatureStore;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.transacciones.transaction_ingestor.rules.DefinicionRegla.Accion.ALERTAR;
+import static com.transacciones.transaction_ingestor.rules.DefinicionRegla.Accion.RECHAZAR;
+import static com.transacciones.transaction_ingestor.rules.DefinicionRegla.Canal.HTTP;
+import static com.transacciones.transaction_ingestor.rules.DefinicionRegla.Canal.KAFKA;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PlanReglasTest {
+
+	private final ContextoReglas contexto = new ContextoReglas();
+
+	@Test
+	void lasReglasDeOtroCanalNoSeEvaluan() {
+		PlanReglas plan = PlanReglas.compilar(conjunto(
+				regla("monto_kafka", DefinicionRegla.Tipo.MONTO_MAXIMO, RECHAZAR, KAFKA, 100d, null, null),
+				regla("monto_http", DefinicionRegla.Tipo.MONTO_MAXIMO, ALERTAR, HTTP, 200d, null, null),
+				regla("cuenta", DefinicionRegla.Tipo.CUENTA_REQUERIDA, RECHAZAR, null, null, null, null)));
+
+		ResultadoReglas kafka = evaluar(plan, null, "500", KAFKA);
+		assertThat(kafka.reglas()).containsExactly("monto_kafka", "cuenta");
+		assertThat(kafka.rechazar()).isTrue();
+
+		ResultadoReglas http = evaluar(plan, null, "500", HTTP);
+		assertThat(http.reglas()).containsExactly("monto_http", "cuenta");
+	}
+
+	@Test
+	void elMotivoEsLaPrimeraEliminatoria() {
+		PlanReglas plan = PlanReglas.compilar(conjunto(
+				regla("alto", DefinicionRegla.Tipo.MONTO_MAXIMO, ALERTAR, null, 10d, null, null),
+				regla("pais", DefinicionRegla.Tipo.PAIS_BLOQUEADO, RECHAZAR, null, null, List.of("KP"), null)));
+
+		contexto.cargar("A", new BigDecimal("50"), "DEPOSIT", "KP", HTTP);
+		ResultadoReglas resultado = plan.resultado(plan.evaluar(contexto), contexto);
+
+		assertThat(resultado.reglas()).containsExactly("alto", "pais");
+		assertThat(resultado.rechazar()).isTrue();
+		assertThat(resultado.motivo()).endsWith(": KP");
+		assertThat(resultado.version()).isEqualTo("t");
+	}
+
+	@Test
+	void sinEliminatoriasSoloAlerta() {
+		PlanReglas plan = PlanReglas.compilar(conjunto(
+				regla("alto", DefinicionRegla.Tipo.MONTO_MAXIMO, ALERTAR, null, 10d, null, null)));
+
+		ResultadoReglas resultado = evaluar(plan, "A", "50", KAFKA);
+		assertThat(resultado.disparo()).isTrue();
+		assertThat(resultado.rechazar()).isFalse();
+		assertThat(resultado.motivo()).isEqualTo("alto");
+
+		assertThat(evaluar(plan, "A", "5", KAFKA)).isSameAs(ResultadoReglas.NINGUNA);
+	}
+
+	@Test
+	void reglaDeVelocidadLeeLaFeatureConfigurada() {
+		PlanReglas plan = PlanReglas.compilar(conjunto(
+				regla("rafaga", DefinicionRegla.Tipo.VELOCIDAD, ALERTAR, null, 2d, null, "CANTIDAD_1M")));
+		assertThat(plan.usaVelocidad()).isTrue();
+
+		contexto.cargar("A", BigDecimal.ONE, "DEPOSIT", null, HTTP);
+		contexto.features()[VelocityFeatureStore.CANTIDAD_1M] = 2;
+		assertThat(plan.evaluar(contexto)).isZero();
+		contexto.features()[VelocityFeatureStore.CANTIDAD_1M] = 3;
+		assertThat(plan.evaluar(contexto)).isEqualTo(1L);
+	}
+
+	@Test
+	void lasReglasInactivasNoSeCompilan() {
+		DefinicionRegla inactiva = new DefinicionRegla("x", DefinicionRegla.Tipo.CUENTA_REQUERIDA, RECHAZAR,
+				null, null, null, null, null, false);
+		PlanReglas plan = PlanReglas.compilar(new ConjuntoReglas("t", null, List.of(inactiva)));
+
+		assertThat(evaluar(plan, null, "1", HTTP)).isSameAs(ResultadoReglas.NINGUNA);
+	}
+
+	@Test
+	void rechazaDefinicionesInvalidas() {
+		assertThatThrownBy(() -> PlanReglas.compilar(conjunto(
+				regla("a", DefinicionRegla.Tipo.CUENTA_REQUERIDA, RECHAZAR, null, null, null, null),
+				regla("a", DefinicionRegla.Tipo.CUENTA_REQUERIDA, RECHAZAR, null, null, null, null))))
+				.isInstanceOf(IllegalArgumentException.class).hasMessageContaining("repetido");
+		assertThatThrownBy(() -> PlanReglas.compilar(conjunto(
+				regla("m", DefinicionRegla.Tipo.MONTO_MAXIMO, RECHAZAR, null, null, null, null))))
+				.hasMessageContaining("umbral");
+		assertThatThrownBy(() -> PlanReglas.compilar(conjunto(
+				regla("v", DefinicionRegla.Tipo.VELOCIDAD, ALERTAR, null, 1d, null, "NO_EXISTE"))))
+				.hasMessageContaining("NO_EXISTE");
+		assertThatThrownBy(() -> PlanReglas.compilar(new ConjuntoReglas("t", 1.5, List.of())))
+				.hasMessageContaining("umbralRiesgo");
+
+		List<DefinicionRegla> demasiadas = new ArrayList<>();
+		for (int i = 0; i <= PlanReglas.MAX_REGLAS; i++) {
+			demasiadas.add(regla("r" + i, DefinicionRegla.Tipo.CUENTA_REQUERIDA, ALERTAR, null, null, null, null));
+		}
+		assertThatThrownBy(() -> PlanReglas.compilar(new ConjuntoReglas("t", null, demasiadas)))
+				.hasMessageContaining(String.valueOf(PlanReglas.MAX_REGLAS));
+	}
+
+	@Test
+	void reglasPorDefectoLimitanElMontoSoloEnKafka() throws Exception {
+		ConjuntoReglas porDefecto;
+		try (InputStream in = getClass().getResourceAsStream("/reglas/reglas-default.json")) {
+			porDefecto = new ObjectMapper().readValue(in, ConjuntoReglas.class);
+		}
+		PlanReglas plan = PlanReglas.compilar(porDefecto);
+
+		assertThat(evaluar(plan, "A", "20000", KAFKA).reglas()).contains("monto_maximo");
+		assertThat(evaluar(plan, "A", "20000", KAFKA).rechazar()).isTrue();
+		assertThat(evaluar(plan, "A", "20000", HTTP).reglas()).doesNotContain("monto_maximo");
+	}
+
+	private ResultadoReglas evaluar(PlanReglas plan, String cuenta, String monto, DefinicionRegla.Canal canal) {
+		contexto.cargar(cuenta, new BigDecimal(monto), "DEPOSIT", null, canal);
+		return plan.resultado(plan.evaluar(contexto), contexto);
+	}
+
+	private static ConjuntoReglas conjunto(DefinicionRegla... reglas) {
+		return new ConjuntoReglas("t", null, List.of(reglas));
+	}
+
+	private static DefinicionRegla regla(String id, DefinicionRegla.Tipo tipo, DefinicionRegla.Accion accion,
+										 DefinicionRegla.Canal canal, Double umbral, List<String> valores,
+										 String feature) {
+		return new DefinicionRegla(id, tipo, accion, canal, umbral, valores, feature, null, null);
+	}
+}
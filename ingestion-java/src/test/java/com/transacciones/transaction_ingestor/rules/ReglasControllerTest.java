@@ -0,0 +1,42 @@
+package com.transacciones.transaction_ingestor.rules;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.transacciones.transaction_ingestor.config.TokenAdmin;
+import com.transacciones.transaction_ingestor.features.VelocityFeatureStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.http.HttpStatus;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReglasControllerTest {
+
+	private final MotorReglas motor = new MotorReglas(new VelocityFeatureStore(100, 1), new ObjectMapper(),
+			new DefaultResourceLoader(), "classpath:reglas/reglas-default.json");
+	private final ConjuntoReglas vacio = new ConjuntoReglas("vacio", null, List.of());
+
+	@Test
+	void sinTokenConfiguradoLosCambiosNoEstanExpuestos() {
+		ReglasController controller = new ReglasController(motor, new TokenAdmin(""));
+
+		assertThat(controller.reemplazar("cualquiera", vacio).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+		assertThat(controller.recargar(null).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+		assertThat(motor.definicionActual().version()).isEqualTo("1");
+	}
+
+	@Test
+	void exigeElTokenConfigurado() {
+		ReglasController controller = new ReglasController(motor, new TokenAdmin("secreto"));
+
+		assertThat(controller.reemplazar(null, vacio).getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+		assertThat(controller.reemplazar("otro", vacio).getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+		assertThat(motor.definicionActual().version()).isEqualTo("1");
+
+		assertThat(controller.reemplazar("secreto", vacio).getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(motor.definicionActual().version()).isEqualTo("vacio");
+		assertThat(controller.recargar("secreto").getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(motor.definicionActual().version()).isEqualTo("1");
+	}
+}
@@ -0,0 +1,44 @@
+package com.transacciones.transaction_ingestor.scoring;
+
+import com.transacciones.transaction_ingestor.config.TokenAdmin;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ModeloControllerTest {
+
+	private final MotorScoring motorScoring = mock(MotorScoring.class);
+
+	@Test
+	void sinTokenConfiguradoLaRecargaNoEstaExpuesta() {
+		ModeloController controller = new ModeloController(motorScoring, new TokenAdmin(""));
+
+		assertThat(controller.recargar("cualquiera").getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+		verifyNoInteractions(motorScoring);
+	}
+
+	@Test
+	void conTokenInvalidoOAusenteDa401() {
+		ModeloController controller = new ModeloController(motorScoring, new TokenAdmin("secreto"));
+
+		assertThat(controller.recargar(null).getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+		assertThat(controller.recargar("otro").getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+		verifyNoInteractions(motorScoring);
+	}
+
+	@Test
+	void conElTokenRecargaElModelo() {
+		DefinicionModelo definicion = mock(DefinicionModelo.class);
+		when(motorScoring.recargar()).thenReturn(definicion);
+
+		ResponseEntity<Object> respuesta = new ModeloController(motorScoring, new TokenAdmin("secreto")).recargar("secreto");
+
+		assertThat(respuesta.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(respuesta.getBody()).isSameAs(definicion);
+	}
+}
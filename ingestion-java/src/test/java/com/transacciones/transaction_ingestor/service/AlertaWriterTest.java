@@ -0,0 +1,223 @@
+package com.transacciones.transaction_ingestor.service;
+
+import com.transacciones.transaction_ingestor.alerts.Alert;
+import com.transacciones.transaction_ingestor.alerts.AlertStream;
+import com.transacciones.transaction_ingestor.model.Alerta;
+import com.transacciones.transaction_ingestor.model.Auditoria;
+import com.transacciones.transaction_ingestor.model.Transaccion;
+import com.transacciones.transaction_ingestor.model.enums.Bandera;
+import com.transacciones.transaction_ingestor.repository.AlertaRepository;
+import com.transacciones.transaction_ingestor.rules.DefinicionRegla;
+import com.transacciones.transaction_ingestor.stats.RollupEstadisticas;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+// Los grupos se escriben en H2 con un escritor propio; el del contexto no interviene
+@SpringBootTest
+class AlertaWriterTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final AlertStream alertStream = mock(AlertStream.class);
+	// Ids de cada grupo publicado, uno por commit
+	private final List<List<String>> commits = Collections.synchronizedList(new ArrayList<>());
+	private AlertaWriter writer;
+	private TransactionTemplate transacciones;
+
+	@Autowired
+	private AlertaRepository alertaRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private TransactionService transactionService;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	AlertaWriterTest() {
+		doAnswer(invocacion -> {
+			List<Alert> alertas = invocacion.getArgument(0);
+			commits.add(alertas.stream().map(Alert::id).toList());
+			return null;
+		}).when(alertStream).publicar(anyList());
+	}
+
+	@AfterEach
+	void cerrar() {
+		if (writer != null) {
+			writer.close();
+		}
+	}
+
+	@Test
+	void conLaColaLlenaLaAlertaSeDescartaYSeCuenta() {
+		// Sin iniciar(): nada drena la cola
+		writer = new AlertaWriter(null, null, null, null, registry, 2, 100, 50);
+		writer.encolar(alerta("TX-1"), new Auditoria());
+		writer.encolar(alerta("TX-2"), new Auditoria());
+		assertThat(registry.get("alertas.descartadas").functionCounter().count()).isZero();
+
+		writer.encolar(alerta("TX-3"), new Auditoria());
+
+		assertThat(registry.get("alertas.descartadas").functionCounter().count()).isEqualTo(1);
+		assertThat(registry.get("alertas.writer.pendientes").gauge().value()).isEqualTo(2);
+	}
+
+	@Test
+	void detenidoDescartaTodo() {
+		writer = new AlertaWriter(null, null, null, null, registry, 2, 100, 50);
+		writer.close();
+
+		writer.encolar(alerta("TX-1"), new Auditoria());
+
+		assertThat(registry.get("alertas.descartadas").functionCounter().count()).isEqualTo(1);
+		assertThat(registry.get("alertas.writer.pendientes").gauge().value()).isZero();
+	}
+
+	@Test
+	void alLlegarAlTamanioDelGrupoSeConfirmaSinEsperar() {
+		List<String> ids = transacciones("tx-aw-tam-", 6);
+		// Espera máxima larga: sólo el tamaño puede cerrar los grupos a tiempo
+		writer = writer(3, 10_000);
+		ids.forEach(id -> encolar(writer, id));
+
+		writer.iniciar();
+
+		await().atMost(Duration.ofSeconds(3)).until(() -> commits.size() == 2);
+		assertThat(commits).containsExactly(ids.subList(0, 3), ids.subList(3, 6));
+		assertThat(alertaRepository.findIdsTransaccionConAlerta(ids)).hasSize(6);
+	}
+
+	@Test
+	void unGrupoIncompletoSeConfirmaAlVencerLaEspera() throws Exception {
+		List<String> ids = transacciones("tx-aw-esp-", 2);
+		writer = writer(100, 500);
+		writer.iniciar();
+
+		encolar(writer, ids.get(0));
+		TimeUnit.MILLISECONDS.sleep(100);
+		encolar(writer, ids.get(1));
+
+		await().atMost(Duration.ofSeconds(3)).until(() -> !commits.isEmpty());
+		assertThat(commits).containsExactly(ids);
+		assertThat(alertaRepository.findIdsTransaccionConAlerta(ids)).hasSize(2);
+	}
+
+	@Test
+	void lasTransaccionesQueYaTienenAlertaSeOmiten() {
+		List<String> ids = transacciones("tx-aw-uk-", 2);
+		writer = writer(10, 50);
+		writer.iniciar();
+		encolar(writer, ids.get(0));
+		await().atMost(Duration.ofSeconds(3)).until(() -> commits.size() == 1);
+
+		// Reenvío de la primera y la segunda repetida, las tres en un mismo grupo
+		writer.close();
+		writer = writer(3, 10_000);
+		encolar(writer, ids.get(0));
+		encolar(writer, ids.get(1));
+		encolar(writer, ids.get(1));
+		writer.iniciar();
+
+		await().atMost(Duration.ofSeconds(3)).until(() -> commits.size() == 2);
+		assertThat(commits.get(1)).containsExactly(ids.get(1));
+		// Un solo commit para el grupo: nada chocó con uk_alert_tx ni hubo reintento de a una
+		verify(transacciones, times(1)).execute(any());
+		assertThat(alertaRepository.findIdsTransaccionConAlerta(ids)).containsExactlyInAnyOrderElementsOf(ids);
+	}
+
+	@Test
+	void siFallaElGrupoSeReintentaDeAUna() {
+		List<String> ids = transacciones("tx-aw-uno-", 2);
+		writer = writer(3, 10_000);
+		encolar(writer, ids.get(0));
+		// Sin fila en transacciones: la FK hace fallar el commit del grupo
+		encolar(writer, "tx-aw-uno-inexistente");
+		encolar(writer, ids.get(1));
+
+		writer.iniciar();
+
+		await().atMost(Duration.ofSeconds(3)).until(() -> commits.size() == 2);
+		assertThat(commits).containsExactly(List.of(ids.get(0)), List.of(ids.get(1)));
+		// El grupo y después cada alerta en su propia transacción
+		verify(transacciones, timeout(3000).times(4)).execute(any());
+		assertThat(alertaRepository.findIdsTransaccionConAlerta(List.of(ids.get(0), ids.get(1), "tx-aw-uno-inexistente")))
+				.containsExactlyInAnyOrderElementsOf(ids);
+	}
+
+	private AlertaWriter writer(int tamanioGrupo, long maxEsperaMs) {
+		transacciones = spy(transactionTemplate);
+		AlertaWriter nuevo = new AlertaWriter(alertaRepository, transacciones, alertStream,
+				mock(RollupEstadisticas.class), registry, 100, tamanioGrupo, maxEsperaMs);
+		ReflectionTestUtils.setField(nuevo, "entityManager", entityManager);
+		return nuevo;
+	}
+
+	// Una cuenta por transacción: ninguna regla de velocidad dispara alertas propias
+	private List<String> transacciones(String prefijo, int cantidad) {
+		List<Transaccion> lote = new ArrayList<>();
+		List<String> ids = new ArrayList<>();
+		for (int i = 0; i < cantidad; i++) {
+			Transaccion tx = new Transaccion();
+			tx.setIdTransaccion(prefijo + i);
+			tx.setIdUsuario("cuenta-" + prefijo + i);
+			tx.setMonto(new BigDecimal("10.00"));
+			tx.setTimestampTransaccion(LocalDateTime.now());
+			tx.setTipo("DEPOSIT");
+			lote.add(tx);
+			ids.add(tx.getIdTransaccion());
+		}
+		transactionService.ingestar(lote, DefinicionRegla.Canal.KAFKA);
+		return ids;
+	}
+
+	private static void encolar(AlertaWriter writer, String idTransaccion) {
+		Alerta alerta = alerta(idTransaccion);
+		Auditoria auditoria = new Auditoria();
+		auditoria.setAlerta(alerta);
+		auditoria.setTimestampAccion(alerta.getCreatedAt());
+		writer.encolar(alerta, auditoria);
+	}
+
+	private static Alerta alerta(String idTransaccion) {
+		Transaccion tx = new Transaccion();
+		tx.setIdTransaccion(idTransaccion);
+		Alerta alerta = new Alerta();
+		alerta.setTransaccion(tx);
+		alerta.setMonto(new BigDecimal("100.00"));
+		alerta.setBandera(Bandera.sospechoso);
+		LocalDateTime ahora = LocalDateTime.now();
+		alerta.setFechaOnly(ahora.toLocalDate());
+		alerta.setHoraOnly(ahora.toLocalTime());
+		alerta.setCreatedAt(Timestamp.valueOf(ahora));
+		return alerta;
+	}
+}
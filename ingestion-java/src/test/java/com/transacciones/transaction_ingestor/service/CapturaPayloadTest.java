@@ -0,0 +1,64 @@
+package com.transacciones.transaction_ingestor.service;
+
+import com.transacciones.transaction_ingestor.model.Transaccion;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CapturaPayloadTest {
+
+	private final CapturaPayload captura = new CapturaPayload(64, 1024);
+
+	@Test
+	void unJsonChicoQuedaEnRawJsonTalComoLlego() {
+		// Espacios, orden de claves y una clave repetida: nada se normaliza
+		String payload = "{ \"monto\": 10.50,\"id\":\"a\", \"id\":\"ñ\" }";
+		Transaccion tx = con(payload.getBytes(StandardCharsets.UTF_8));
+
+		assertThat(captura.aplicar(tx)).isTrue();
+
+		assertThat(tx.getRawJson().getBytes(StandardCharsets.UTF_8)).isEqualTo(payload.getBytes(StandardCharsets.UTF_8));
+		assertThat(tx.getRawPayload()).isNull();
+		assertThat(tx.getPayloadOriginal()).isNull();
+	}
+
+	@Test
+	void unJsonQueNoEsUtf8ValidoVaConSusBytesARawPayload() {
+		byte[] payload = {'{', '"', 'a', '"', ':', '"', (byte) 0xC3, '"', '}'};
+		Transaccion tx = con(payload);
+
+		captura.aplicar(tx);
+
+		assertThat(tx.getRawJson()).isEqualTo("{\"formato\":\"binario\",\"bytes\":9}");
+		assertThat(tx.getRawPayload()).isEqualTo(payload);
+	}
+
+	@Test
+	void unJsonGrandeVaComprimidoYUnoMayorAlMaximoNoSeGuarda() throws IOException {
+		byte[] grande = ("{\"descripcion\":\"" + "x".repeat(100) + "\"}").getBytes(StandardCharsets.UTF_8);
+		Transaccion tx = con(grande);
+
+		captura.aplicar(tx);
+
+		assertThat(tx.getRawJson()).isEqualTo("{\"formato\":\"json+gzip\",\"bytes\":" + grande.length + "}");
+		try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(tx.getRawPayload()))) {
+			assertThat(gzip.readAllBytes()).isEqualTo(grande);
+		}
+
+		Transaccion enorme = con(new byte[2048]);
+		captura.aplicar(enorme);
+		assertThat(enorme.getRawJson()).isEqualTo("{\"formato\":\"omitido\",\"bytes\":2048}");
+		assertThat(enorme.getRawPayload()).isNull();
+	}
+
+	private static Transaccion con(byte[] payload) {
+		Transaccion tx = new Transaccion();
+		tx.setPayloadOriginal(payload);
+		return tx;
+	}
+}
@@ -0,0 +1,217 @@
+package com.transacciones.transaction_ingestor.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.transacciones.transaction_ingestor.dto.ResultadoIngesta;
+import com.transacciones.transaction_ingestor.dto.TransactionDTO;
+import com.transacciones.transaction_ingestor.ids.IdGenerator;
+import com.transacciones.transaction_ingestor.kafka.TransactionProducer;
+import com.transacciones.transaction_ingestor.model.Transaccion;
+import com.transacciones.transaction_ingestor.model.enums.Bandera;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.SendResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IngestaStreamTest {
+
+	private static final int MAX_LINEA = 128;
+
+	private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+	private final TransactionService transactionService = mock(TransactionService.class);
+	private final TransactionProducer transactionProducer = mock(TransactionProducer.class);
+	private final List<List<String>> lotes = Collections.synchronizedList(new ArrayList<>());
+	private final List<String> payloads = Collections.synchronizedList(new ArrayList<>());
+	private IngestaStream ingesta;
+
+	@AfterEach
+	void cerrar() {
+		if (ingesta != null) {
+			ingesta.close();
+		}
+	}
+
+	@Test
+	void lasLineasPartidasEntreLecturasSeRearmanConCrlfYUltimaLineaSinFin() throws Exception {
+		guardarTodo();
+		ingesta = ingesta(2, 4);
+		String cuerpo = linea("tx-1") + "\r\n"
+				+ "\n"
+				+ linea("tx-2") + "\n"
+				+ "  \t\r\n"
+				+ linea("tx-3") + "\r\n"
+				+ linea("tx-4") + "\n"
+				+ linea("tx-5");
+
+		// Lecturas de 7 bytes: cada línea queda repartida en varias y el buffer se corre
+		List<JsonNode> salida = procesar(new PorTrozos(cuerpo.getBytes(StandardCharsets.UTF_8), 7), false);
+
+		assertThat(salida).extracting(r -> r.path("indice").asInt()).containsExactly(0, 1, 2, 3, 4);
+		assertThat(salida).extracting(r -> r.path("idTransaccion").asText())
+				.containsExactly("tx-1", "tx-2", "tx-3", "tx-4", "tx-5");
+		assertThat(salida).extracting(r -> r.path("estado").asText()).containsOnly(ResultadoIngesta.GUARDADA);
+		assertThat(lotes).containsExactly(List.of("tx-1", "tx-2"), List.of("tx-3", "tx-4"), List.of("tx-5"));
+		// El payload original es la línea sin el \r
+		assertThat(payloads).contains(linea("tx-1"), linea("tx-3"), linea("tx-5"));
+	}
+
+	@Test
+	void unaLineaMasLargaQueElMaximoSeRechazaYSeDescartaHastaElFinDeLinea() throws Exception {
+		guardarTodo();
+		ingesta = ingesta(2, 4);
+		String larga = "{\"idTransaccion\":\"" + "x".repeat(3 * MAX_LINEA) + "\"}";
+		String cuerpo = linea("tx-1") + "\n" + larga + "\n" + linea("tx-2") + "\n" + larga;
+
+		List<JsonNode> salida = procesar(new PorTrozos(cuerpo.getBytes(StandardCharsets.UTF_8), 5), false);
+
+		assertThat(salida).extracting(r -> r.path("estado").asText()).containsExactly(
+				ResultadoIngesta.GUARDADA, ResultadoIngesta.RECHAZADA, ResultadoIngesta.GUARDADA, ResultadoIngesta.RECHAZADA);
+		assertThat(salida.get(1).path("error").asText()).isEqualTo("La línea supera el máximo de " + MAX_LINEA + " bytes");
+		assertThat(salida.get(3).path("indice").asInt()).isEqualTo(3);
+		assertThat(lotes).containsExactly(List.of("tx-1"), List.of("tx-2"));
+	}
+
+	@Test
+	void conElMaximoDeLotesEnVueloNoSeLeeMasHastaQueTermineElMasViejo() throws Exception {
+		CountDownLatch liberar = new CountDownLatch(1);
+		when(transactionService.ingestBatch(anyList())).thenAnswer(invocacion -> {
+			List<Transaccion> lote = invocacion.getArgument(0);
+			if ("tx-1".equals(lote.get(0).getIdTransaccion())) {
+				liberar.await(10, TimeUnit.SECONDS);
+			}
+			return guardadas(lote);
+		});
+		ingesta = ingesta(1, 1);
+		StringBuilder cuerpo = new StringBuilder();
+		for (int i = 1; i <= 5; i++) {
+			cuerpo.append(linea("tx-" + i)).append('\n');
+		}
+		// Una línea por lectura
+		PorTrozos entrada = new PorTrozos(cuerpo.toString().getBytes(StandardCharsets.UTF_8), linea("tx-1").length() + 1);
+
+		CompletableFuture<List<JsonNode>> salida = CompletableFuture.supplyAsync(() -> {
+			try {
+				return procesar(entrada, false);
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		await().atMost(Duration.ofSeconds(5)).until(() -> entrada.lecturas.get() >= 2);
+		TimeUnit.MILLISECONDS.sleep(200);
+
+		// Lote 1 guardándose, lote 2 esperando lugar: la tercera línea todavía no se leyó
+		assertThat(entrada.lecturas.get()).isEqualTo(2);
+		assertThat(salida).isNotDone();
+
+		liberar.countDown();
+		assertThat(salida.get(10, TimeUnit.SECONDS)).extracting(r -> r.path("idTransaccion").asText())
+				.containsExactly("tx-1", "tx-2", "tx-3", "tx-4", "tx-5");
+	}
+
+	@Test
+	void losEnviosAKafkaQueTerminanDesordenadosSeEscribenEnElOrdenDeLasLineas() throws Exception {
+		AtomicInteger enviados = new AtomicInteger();
+		when(transactionProducer.sendTransaction(any(TransactionDTO.class))).thenAnswer(invocacion -> {
+			// Cada envío tarda menos que el anterior
+			long demora = 200 - 40L * enviados.getAndIncrement();
+			return CompletableFuture.supplyAsync(() -> (SendResult<String, TransactionDTO>) null,
+					CompletableFuture.delayedExecutor(demora, TimeUnit.MILLISECONDS));
+		});
+		ingesta = ingesta(2, 2);
+		StringBuilder cuerpo = new StringBuilder();
+		for (int i = 1; i <= 5; i++) {
+			cuerpo.append("{\"id\":\"ev-").append(i)
+					.append("\",\"accountId\":\"c\",\"amount\":1,\"type\":\"DEPOSIT\",\"description\":\"d\"}\n");
+		}
+
+		List<JsonNode> salida = procesar(new ByteArrayInputStream(cuerpo.toString().getBytes(StandardCharsets.UTF_8)), true);
+
+		assertThat(salida).extracting(r -> r.path("idTransaccion").asText())
+				.containsExactly("ev-1", "ev-2", "ev-3", "ev-4", "ev-5");
+		assertThat(salida).extracting(r -> r.path("estado").asText()).containsOnly(ResultadoIngesta.ENVIADA);
+	}
+
+	private IngestaStream ingesta(int lote, int lotesEnVuelo) {
+		return new IngestaStream(transactionService, transactionProducer, mock(IdGenerator.class),
+				Validation.buildDefaultValidatorFactory().getValidator(), objectMapper, lote, lotesEnVuelo, 2, MAX_LINEA);
+	}
+
+	private void guardarTodo() {
+		when(transactionService.ingestBatch(anyList())).thenAnswer(invocacion -> guardadas(invocacion.getArgument(0)));
+	}
+
+	private List<ResultadoIngesta> guardadas(List<Transaccion> lote) {
+		List<String> ids = new ArrayList<>();
+		List<ResultadoIngesta> resultados = new ArrayList<>();
+		for (int i = 0; i < lote.size(); i++) {
+			Transaccion tx = lote.get(i);
+			ids.add(tx.getIdTransaccion());
+			payloads.add(new String(tx.getPayloadOriginal(), StandardCharsets.UTF_8));
+			resultados.add(ResultadoIngesta.guardada(i, tx.getIdTransaccion(), Bandera.ok, null));
+		}
+		lotes.add(ids);
+		return resultados;
+	}
+
+	private List<JsonNode> procesar(InputStream entrada, boolean aKafka) throws IOException {
+		ByteArrayOutputStream salida = new ByteArrayOutputStream();
+		ingesta.procesar(entrada, salida, aKafka);
+		List<JsonNode> resultados = new ArrayList<>();
+		for (String linea : salida.toString(StandardCharsets.UTF_8).split("\n")) {
+			resultados.add(objectMapper.readTree(linea));
+		}
+		return resultados;
+	}
+
+	private static String linea(String id) {
+		return "{\"idTransaccion\":\"" + id + "\",\"monto\":1}";
+	}
+
+	/** Entrega el contenido en lecturas de a lo sumo {@code trozo} bytes. */
+	private static final class PorTrozos extends InputStream {
+		private final ByteArrayInputStream datos;
+		private final int trozo;
+		private final AtomicInteger lecturas = new AtomicInteger();
+
+		PorTrozos(byte[] datos, int trozo) {
+			this.datos = new ByteArrayInputStream(datos);
+			this.trozo = trozo;
+		}
+
+		@Override
+		public int read() {
+			return datos.read();
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			int leidos = datos.read(b, off, Math.min(len, trozo));
+			if (leidos > 0) {
+				lecturas.incrementAndGet();
+			}
+			return leidos;
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package com.transacciones.transaction_ingestor.service;
+
+import com.transacciones.transaction_ingestor.dto.ResultadoIngesta;
+import com.transacciones.transaction_ingestor.dto.TransactionDTO;
+import com.transacciones.transaction_ingestor.model.enums.Bandera;
+import com.transacciones.transaction_ingestor.repository.AlertaRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+// Reglas por defecto: monto_maximo rechaza en KAFKA los montos de más de 10000.00
+@SpringBootTest
+class KafkaTransactionServiceTest {
+
+	@Autowired
+	private KafkaTransactionService kafkaTransactionService;
+
+	@Autowired
+	private AlertaRepository alertaRepository;
+
+	@Test
+	void unEventoBloqueadoReentregadoSePublicaRechazadoConElMismoMotivo() {
+		TransactionDTO original = evento("tx-bloq-1", "cuenta-bloq", "20000.00");
+		ResultadoIngesta primero = kafkaTransactionService.ingestar(List.of(original)).get(0);
+		assertThat(primero.bloqueada()).isTrue();
+		assertThat(original.getStatus()).isEqualTo("REJECTED");
+		// La alerta se escribe en el próximo commit en grupo del AlertaWriter
+		await().atMost(Duration.ofSeconds(5))
+				.until(() -> !alertaRepository.findIdsTransaccionConAlerta(List.of("tx-bloq-1")).isEmpty());
+
+		// Redelivery (retry topic, DLT o lote reentregado) del mismo evento
+		TransactionDTO reentregado = evento("tx-bloq-1", "cuenta-bloq", "20000.00");
+		ResultadoIngesta segundo = kafkaTransactionService.ingestar(List.of(reentregado)).get(0);
+
+		assertThat(segundo.estado()).isEqualTo(ResultadoIngesta.DUPLICADA);
+		assertThat(segundo.bandera()).isEqualTo(Bandera.bloqueado);
+		assertThat(reentregado.getStatus()).isEqualTo("REJECTED");
+		assertThat(reentregado.getRejectionReason()).isEqualTo(original.getRejectionReason());
+	}
+
+	@Test
+	void unEventoAprobadoReentregadoSigueValidado() {
+		kafkaTransactionService.ingestar(List.of(evento("tx-ok-1", "cuenta-ok", "10.00")));
+
+		TransactionDTO reentregado = evento("tx-ok-1", "cuenta-ok", "10.00");
+		ResultadoIngesta resultado = kafkaTransactionService.ingestar(List.of(reentregado)).get(0);
+
+		assertThat(resultado.estado()).isEqualTo(ResultadoIngesta.DUPLICADA);
+		assertThat(resultado.bandera()).isEqualTo(Bandera.ok);
+		assertThat(reentregado.getStatus()).isEqualTo("VALIDATED");
+	}
+
+	@Test
+	void unDuplicadoDentroDelLoteTomaLaDecisionDelPrimero() {
+		TransactionDTO primero = evento("tx-lote-1", "cuenta-lote", "50000.00");
+		TransactionDTO repetido = evento("tx-lote-1", "cuenta-lote", "50000.00");
+
+		List<ResultadoIngesta> resultados = kafkaTransactionService.ingestar(List.of(primero, repetido));
+
+		assertThat(resultados.get(1).estado()).isEqualTo(ResultadoIngesta.DUPLICADA);
+		assertThat(resultados.get(1).bloqueada()).isTrue();
+		assertThat(repetido.getStatus()).isEqualTo("REJECTED");
+		assertThat(repetido.getRejectionReason()).isEqualTo(primero.getRejectionReason());
+	}
+
+	private static TransactionDTO evento(String id, String cuenta, String monto) {
+		TransactionDTO dto = new TransactionDTO(cuenta, new BigDecimal(monto), "DEPOSIT", "test");
+		dto.setId(id);
+		return dto;
+	}
+}
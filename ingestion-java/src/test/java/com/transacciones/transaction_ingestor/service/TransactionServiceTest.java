@@ -0,0 +1,167 @@
+package com.transacciones.transaction_ingestor.service;
+
+import com.transacciones.transaction_ingestor.dto.ResultadoIngesta;
+import com.transacciones.transaction_ingestor.features.VelocityFeatureStore;
+import com.transacciones.transaction_ingestor.model.Transaccion;
+import com.transacciones.transaction_ingestor.model.Usuario;
+import com.transacciones.transaction_ingestor.model.enums.Bandera;
+import com.transacciones.transaction_ingestor.repository.AlertaRepository;
+import com.transacciones.transaction_ingestor.repository.TransactionRepository;
+import com.transacciones.transaction_ingestor.repository.UsuarioRepository;
+import com.transacciones.transaction_ingestor.rules.DefinicionRegla;
+import com.transacciones.transaction_ingestor.stats.RollupEstadisticas;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+// Canal KAFKA: la regla monto_maximo bloquea los montos de más de 10000.00
+@SpringBootTest
+class TransactionServiceTest {
+
+	private static final DefinicionRegla.Canal KAFKA = DefinicionRegla.Canal.KAFKA;
+
+	@Autowired
+	private TransactionService transactionService;
+
+	@Autowired
+	private TransactionRepository transactionRepository;
+
+	@Autowired
+	private UsuarioRepository usuarioRepository;
+
+	@Autowired
+	private AlertaRepository alertaRepository;
+
+	@Autowired
+	private VelocityFeatureStore velocityFeatureStore;
+
+	@Autowired
+	private RollupEstadisticas rollupEstadisticas;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Test
+	void devuelveUnResultadoPorItemEnElOrdenDelLote() {
+		usuarioRepository.save(usuario("cuenta-svc-baja", "bloqueada"));
+		Transaccion invalida = transaccion("tx-svc-inv", "cuenta-svc", "10.00");
+		invalida.setMonto(null);
+
+		List<ResultadoIngesta> resultados = transactionService.ingestar(List.of(
+				transaccion("tx-svc-ok", "cuenta-svc", "10.00"),
+				transaccion("tx-svc-bloq", "cuenta-svc", "20000.00"),
+				transaccion("tx-svc-ok", "cuenta-svc", "10.00"),
+				transaccion("tx-svc-bloq", "cuenta-svc", "20000.00"),
+				invalida,
+				transaccion("tx-svc-baja", "cuenta-svc-baja", "10.00"),
+				transaccion("tx-svc-baja", "cuenta-svc-baja", "10.00")), KAFKA);
+
+		assertThat(resultados).extracting(ResultadoIngesta::indice).containsExactly(0, 1, 2, 3, 4, 5, 6);
+		assertThat(resultados).extracting(ResultadoIngesta::estado).containsExactly(
+				ResultadoIngesta.GUARDADA, ResultadoIngesta.GUARDADA,
+				ResultadoIngesta.DUPLICADA, ResultadoIngesta.DUPLICADA,
+				ResultadoIngesta.RECHAZADA, ResultadoIngesta.RECHAZADA, ResultadoIngesta.RECHAZADA);
+
+		assertThat(resultados.get(0).bandera()).isEqualTo(Bandera.ok);
+		assertThat(resultados.get(0).error()).isNull();
+		assertThat(resultados.get(1).bloqueada()).isTrue();
+		assertThat(resultados.get(1).error()).contains("10000.00");
+		// Repetidos dentro del lote: la decisión de la primera aparición
+		assertThat(resultados.get(2).bandera()).isEqualTo(Bandera.ok);
+		assertThat(resultados.get(2).error()).isEqualTo("La transacción ya existe");
+		assertThat(resultados.get(3).bloqueada()).isTrue();
+		assertThat(resultados.get(3).error()).isEqualTo(resultados.get(1).error());
+		assertThat(resultados.get(4).error()).contains("monto");
+		assertThat(resultados.get(5).error()).isEqualTo("La cuenta cuenta-svc-baja no está activa (bloqueada)");
+		assertThat(resultados.get(6).error()).isEqualTo(resultados.get(5).error());
+
+		assertThat(transactionRepository.findExistingIds(List.of("tx-svc-ok", "tx-svc-bloq", "tx-svc-inv", "tx-svc-baja")))
+				.containsExactlyInAnyOrder("tx-svc-ok", "tx-svc-bloq");
+	}
+
+	@Test
+	void unaYaGuardadaDevuelveLaDecisionConLaQueSeGuardo() {
+		List<ResultadoIngesta> originales = transactionService.ingestar(List.of(
+				transaccion("tx-svc-prev-ok", "cuenta-svc-prev", "10.00"),
+				transaccion("tx-svc-prev-bloq", "cuenta-svc-prev", "20000.00")), KAFKA);
+		// La decisión se lee de la alerta, que se escribe en el próximo commit en grupo
+		await().atMost(Duration.ofSeconds(5))
+				.until(() -> !alertaRepository.findIdsTransaccionConAlerta(List.of("tx-svc-prev-bloq")).isEmpty());
+
+		List<ResultadoIngesta> reenvio = transactionService.ingestar(List.of(
+				transaccion("tx-svc-prev-bloq", "cuenta-svc-prev", "20000.00"),
+				transaccion("tx-svc-prev-ok", "cuenta-svc-prev", "10.00")), KAFKA);
+
+		assertThat(reenvio).extracting(ResultadoIngesta::estado)
+				.containsOnly(ResultadoIngesta.DUPLICADA);
+		assertThat(reenvio.get(0).bloqueada()).isTrue();
+		assertThat(reenvio.get(0).error()).isEqualTo(originales.get(1).error());
+		assertThat(reenvio.get(1).bandera()).isEqualTo(Bandera.ok);
+		assertThat(reenvio.get(1).error()).isEqualTo("La transacción ya existe");
+	}
+
+	@Test
+	void velocidadEstadisticasYAlertasSeActualizanSoloAlConfirmar() {
+		String cuenta = "cuenta-svc-commit";
+		long transaccionesAntes = transaccionesEnElRollup();
+
+		transactionTemplate.executeWithoutResult(estado -> {
+			List<ResultadoIngesta> resultados = transactionService.ingestar(List.of(
+					transaccion("tx-svc-rollback", cuenta, "20000.00")), KAFKA);
+			assertThat(resultados.get(0).bloqueada()).isTrue();
+			estado.setRollbackOnly();
+		});
+
+		assertThat(cantidadUltimoMinuto(cuenta)).isZero();
+		assertThat(transaccionesEnElRollup()).isEqualTo(transaccionesAntes);
+		assertThat(transactionRepository.findExistingIds(List.of("tx-svc-rollback"))).isEmpty();
+
+		transactionService.ingestar(List.of(transaccion("tx-svc-commit", cuenta, "20000.00")), KAFKA);
+
+		assertThat(cantidadUltimoMinuto(cuenta)).isEqualTo(1);
+		assertThat(transaccionesEnElRollup()).isEqualTo(transaccionesAntes + 1);
+		// El escritor de alertas es FIFO: cuando aparece la confirmada, la del rollback nunca se encoló
+		await().atMost(Duration.ofSeconds(5))
+				.until(() -> !alertaRepository.findIdsTransaccionConAlerta(List.of("tx-svc-commit")).isEmpty());
+		assertThat(alertaRepository.findIdsTransaccionConAlerta(List.of("tx-svc-rollback"))).isEmpty();
+	}
+
+	private double cantidadUltimoMinuto(String cuenta) {
+		double[] features = new double[VelocityFeatureStore.CANTIDAD_FEATURES];
+		velocityFeatureStore.leer(cuenta, features);
+		return features[VelocityFeatureStore.CANTIDAD_1M];
+	}
+
+	private long transaccionesEnElRollup() {
+		LocalDateTime ahora = LocalDateTime.now();
+		return rollupEstadisticas.resumen(ahora.minusHours(1), ahora.plusHours(1)).transacciones();
+	}
+
+	private static Transaccion transaccion(String id, String cuenta, String monto) {
+		Transaccion tx = new Transaccion();
+		tx.setIdTransaccion(id);
+		tx.setIdUsuario(cuenta);
+		tx.setMonto(new BigDecimal(monto));
+		tx.setTimestampTransaccion(LocalDateTime.now());
+		tx.setTipo("DEPOSIT");
+		return tx;
+	}
+
+	private static Usuario usuario(String id, String estadoCuenta) {
+		Usuario u = new Usuario();
+		u.setIdUsuario(id);
+		u.setFechaCreacion(Timestamp.valueOf(LocalDateTime.now()));
+		u.setEstadoCuenta(estadoCuenta);
+		return u;
+	}
+}
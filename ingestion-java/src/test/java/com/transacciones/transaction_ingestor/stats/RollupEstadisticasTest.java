@@ -0,0 +1,130 @@
+package com.transacciones.transaction_ingestor.stats;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.transacciones.transaction_ingestor.model.EstadisticaRollup;
+import com.transacciones.transaction_ingestor.model.enums.Bandera;
+import com.transacciones.transaction_ingestor.model.enums.Granularidad;
+import com.transacciones.transaction_ingestor.repository.EstadisticaRollupRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class RollupEstadisticasTest {
+
+	private final EstadisticaRollupRepository repository = mock(EstadisticaRollupRepository.class);
+
+	// Sin iniciar(): no lee la tabla ni arranca el hilo de checkpoints
+	private final RollupEstadisticas rollup = new RollupEstadisticas(repository, null, new ObjectMapper(),
+			60, 48, 30, 60_000, 365, "UTC", 0, 1);
+
+	@Test
+	void construirNoTocaLaBase() {
+		verifyNoInteractions(repository);
+	}
+
+	@Test
+	void resumenSumaLoRegistradoEnMemoria() {
+		rollup.registrarTransaccion(new BigDecimal("10.00"), 0.05);
+		rollup.registrarTransaccion(new BigDecimal("90.00"), 0.95);
+		rollup.registrarAlerta(Bandera.sospechoso, new BigDecimal("90.00"), System.currentTimeMillis());
+
+		LocalDateTime ahora = LocalDateTime.now(ZoneOffset.UTC);
+		ResumenEstadisticas resumen = rollup.resumen(ahora.minusMinutes(5), ahora.plusMinutes(1));
+
+		assertThat(resumen.transacciones()).isEqualTo(2);
+		assertThat(resumen.montoTotal()).isEqualByComparingTo("100.00");
+		assertThat(resumen.porBandera().get(Bandera.sospechoso.name()).cantidad()).isEqualTo(1);
+		assertThat(resumen.porBandera().get(Bandera.ok.name()).cantidad()).isEqualTo(1);
+		assertThat(resumen.histograma().get(0)).isEqualTo(1);
+		assertThat(resumen.histograma().get(9)).isEqualTo(1);
+		verifyNoInteractions(repository);
+	}
+
+	@Test
+	void losDiasFueraDeLaRetencionSeLeenDeLaTabla() {
+		when(repository.findRango(eq(Granularidad.dia), any(), any())).thenReturn(List.of());
+		LocalDateTime hoy = LocalDateTime.now(ZoneOffset.UTC).toLocalDate().atStartOfDay();
+
+		ResumenEstadisticas resumen = rollup.resumen(hoy.minusDays(200), hoy.minusDays(100));
+
+		assertThat(resumen.transacciones()).isZero();
+		verify(repository).findRango(eq(Granularidad.dia), any(), any());
+	}
+
+	@Test
+	void conVariosNodosSeSumanLosBucketsDeLosDemasSinContarDosVecesLosPropios() {
+		RollupEstadisticas nodo1 = new RollupEstadisticas(repository, null, new ObjectMapper(),
+				60, 48, 30, 60_000, 365, "UTC", 1, 2);
+		nodo1.registrarTransaccion(new BigDecimal("10.00"), 0.05);
+		long minuto = System.currentTimeMillis() / 60_000 * 60_000;
+		when(repository.findRango(eq(Granularidad.minuto), any(), any())).thenReturn(List.of(
+				fila(minuto, 1, 1, "10.00"),
+				fila(minuto, 2, 3, "300.00")));
+
+		LocalDateTime ahora = LocalDateTime.now(ZoneOffset.UTC);
+		ResumenEstadisticas resumen = nodo1.resumen(ahora.minusMinutes(1), ahora.plusMinutes(1));
+
+		// Lo propio sale de memoria; del nodo 2 sólo lo guardado en su último checkpoint
+		assertThat(resumen.transacciones()).isEqualTo(4);
+		assertThat(resumen.montoTotal()).isEqualByComparingTo("310.00");
+	}
+
+	@Test
+	void elCheckpointGuardaLosBucketsConElNodo() {
+		TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+		doAnswer(invocacion -> {
+			invocacion.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+			return null;
+		}).when(transactionTemplate).executeWithoutResult(any());
+		RollupEstadisticas nodo7 = new RollupEstadisticas(repository, transactionTemplate, new ObjectMapper(),
+				60, 48, 30, 60_000, 365, "UTC", 7, 2);
+		nodo7.registrarTransaccion(new BigDecimal("10.00"), 0.05);
+
+		nodo7.checkpoint();
+
+		ArgumentCaptor<List<EstadisticaRollup>> filas = ArgumentCaptor.captor();
+		verify(repository).saveAll(filas.capture());
+		assertThat(filas.getValue()).hasSize(3).allSatisfy(fila -> {
+			assertThat(fila.getNodo()).isEqualTo(7);
+			assertThat(fila.getTransacciones()).isEqualTo(1);
+		});
+	}
+
+	@Test
+	void unRangoMayorAlMaximoSeRechaza() {
+		LocalDateTime hasta = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+		assertThatThrownBy(() -> rollup.resumen(hasta.minusDays(366), hasta))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("365");
+		assertThat(rollup.resumen(hasta.minusDays(365), hasta).transacciones()).isZero();
+	}
+
+	private static EstadisticaRollup fila(long inicio, int nodo, long transacciones, String monto) {
+		EstadisticaRollup fila = new EstadisticaRollup();
+		fila.setGranularidad(Granularidad.minuto);
+		fila.setInicio(new Timestamp(inicio));
+		fila.setNodo(nodo);
+		fila.setTransacciones(transacciones);
+		fila.setMontoTotal(new BigDecimal(monto));
+		return fila;
+	}
+}
@@ -0,0 +1,25 @@
+package com.transacciones.transaction_ingestor.usuarios;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UsuariosControllerTest {
+
+	private final CacheUsuarios cache = new CacheUsuarios(100, 600);
+	private final UsuariosController controller = new UsuariosController(cache);
+
+	@Test
+	void invalidarDescartaElEstadoCacheado() {
+		cache.registrar(List.of(new EstadoCuenta("A", EstadoCuenta.ACTIVA), new EstadoCuenta("B", EstadoCuenta.ACTIVA)));
+
+		assertThat(controller.invalidar("A").getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+
+		assertThat(cache.consultar("A")).isNull();
+		assertThat(cache.consultar("B")).isEqualTo(EstadoCuenta.ACTIVA);
+		assertThat(controller.invalidar("desconocido").getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+	}
+}
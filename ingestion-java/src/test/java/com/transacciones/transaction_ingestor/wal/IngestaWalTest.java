@@ -0,0 +1,158 @@
+package com.transacciones.transaction_ingestor.wal;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.transacciones.transaction_ingestor.dto.ResultadoIngesta;
+import com.transacciones.transaction_ingestor.model.Transaccion;
+import com.transacciones.transaction_ingestor.model.enums.Bandera;
+import com.transacciones.transaction_ingestor.service.TransactionService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.when;
+
+class IngestaWalTest {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final TransactionService transactionService = mock(TransactionService.class);
+	private final List<String> guardadas = Collections.synchronizedList(new ArrayList<>());
+
+	@TempDir
+	Path directorio;
+
+	@Test
+	void loQueFallaDeAUnoVaACuarentenaYElCheckpointAvanza() throws Exception {
+		when(transactionService.ingestBatch(anyList())).thenAnswer(invocacion -> {
+			List<Transaccion> lote = invocacion.getArgument(0);
+			if (lote.stream().anyMatch(tx -> "TX-MALA".equals(tx.getIdTransaccion()))) {
+				throw new DataIntegrityViolationException("Data too long for column 'pais'");
+			}
+			return guardar(lote);
+		});
+
+		try (IngestaWal ingesta = abrir()) {
+			ingesta.registrar(transaccion("TX-1"));
+			ingesta.registrar(transaccion("TX-MALA"));
+			Transaccion ilegible = transaccion("TX-ROTA");
+			ilegible.setPayloadOriginal("{no es json".getBytes(StandardCharsets.UTF_8));
+			ingesta.registrar(ilegible);
+			ingesta.registrar(transaccion("TX-2"));
+
+			esperar(() -> guardadas.contains("TX-2") && Files.exists(directorio.resolve("cuarentena.ndjson")));
+		}
+
+		assertThat(guardadas).containsExactly("TX-1", "TX-2");
+		List<JsonNode> apartadas = new ArrayList<>();
+		for (String linea : Files.readAllLines(directorio.resolve("cuarentena.ndjson"))) {
+			apartadas.add(objectMapper.readTree(linea));
+		}
+		assertThat(apartadas).hasSize(2);
+		assertThat(apartadas).anySatisfy(linea -> {
+			assertThat(linea.path("payload").asText()).contains("TX-MALA");
+			assertThat(linea.path("motivo").asText()).contains("Data too long");
+		});
+		assertThat(apartadas).anySatisfy(linea -> assertThat(linea.path("payload").asText()).isEqualTo("{no es json"));
+		assertThat(pendientesEnElWal()).isZero();
+	}
+
+	@Test
+	void unaRechazadaAlVolcarVaACuarentenaConElMotivo() throws Exception {
+		when(transactionService.ingestBatch(anyList())).thenAnswer(invocacion -> {
+			List<Transaccion> lote = invocacion.getArgument(0);
+			List<ResultadoIngesta> resultados = new ArrayList<>();
+			for (int i = 0; i < lote.size(); i++) {
+				String id = lote.get(i).getIdTransaccion();
+				if ("TX-INACTIVA".equals(id)) {
+					resultados.add(ResultadoIngesta.rechazada(i, id, "La cuenta U-1 no está activa (bloqueada)"));
+				} else {
+					guardadas.add(id);
+					resultados.add(ResultadoIngesta.guardada(i, id, Bandera.ok, null));
+				}
+			}
+			return resultados;
+		});
+
+		try (IngestaWal ingesta = abrir()) {
+			ingesta.registrar(transaccion("TX-1"));
+			ingesta.registrar(transaccion("TX-INACTIVA"));
+			ingesta.registrar(transaccion("TX-2"));
+
+			esperar(() -> guardadas.contains("TX-2") && Files.exists(directorio.resolve("cuarentena.ndjson")));
+		}
+
+		List<String> lineas = Files.readAllLines(directorio.resolve("cuarentena.ndjson"));
+		assertThat(lineas).singleElement().satisfies(linea -> {
+			JsonNode apartada = objectMapper.readTree(linea);
+			assertThat(apartada.path("payload").asText()).contains("TX-INACTIVA");
+			assertThat(apartada.path("motivo").asText()).contains("no está activa");
+		});
+		assertThat(pendientesEnElWal()).isZero();
+	}
+
+	@Test
+	void conLaBaseCaidaNadaVaACuarentenaNiSeMueveElCheckpoint() throws Exception {
+		when(transactionService.ingestBatch(anyList()))
+				.thenThrow(new CannotCreateTransactionException("Could not open JPA EntityManager"));
+
+		try (IngestaWal ingesta = abrir()) {
+			ingesta.registrar(transaccion("TX-1"));
+			ingesta.registrar(transaccion("TX-2"));
+			esperar(() -> !mockingDetails(transactionService).getInvocations().isEmpty());
+		}
+
+		assertThat(Files.exists(directorio.resolve("cuarentena.ndjson"))).isFalse();
+		assertThat(pendientesEnElWal()).isEqualTo(2);
+	}
+
+	private IngestaWal abrir() throws Exception {
+		return new IngestaWal(transactionService, objectMapper, directorio.toString(), 1 << 16, 4, 100, 10);
+	}
+
+	private List<ResultadoIngesta> guardar(List<Transaccion> lote) {
+		List<ResultadoIngesta> resultados = new ArrayList<>();
+		for (int i = 0; i < lote.size(); i++) {
+			guardadas.add(lote.get(i).getIdTransaccion());
+			resultados.add(ResultadoIngesta.guardada(i, lote.get(i).getIdTransaccion(), Bandera.ok, null));
+		}
+		return resultados;
+	}
+
+	private int pendientesEnElWal() throws Exception {
+		try (WriteAheadLog wal = new WriteAheadLog(directorio, 1 << 16, 4)) {
+			return wal.leer(wal.posicionConfirmada(), 100).registros().size();
+		}
+	}
+
+	private static Transaccion transaccion(String id) {
+		Transaccion tx = new Transaccion();
+		tx.setIdTransaccion(id);
+		tx.setIdUsuario("U-1");
+		tx.setMonto(new BigDecimal("10.00"));
+		tx.setPais("AR");
+		return tx;
+	}
+
+	private static void esperar(BooleanSupplier condicion) throws InterruptedException {
+		long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (!condicion.getAsBoolean()) {
+			assertThat(System.nanoTime()).as("tiempo de espera agotado").isLessThan(limite);
+			TimeUnit.MILLISECONDS.sleep(20);
+		}
+	}
+}
@@ -0,0 +1,129 @@
+package com.transacciones.transaction_ingestor.wal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WriteAheadLogTest {
+
+	// Cabecera de 8 bytes + payload de 20: dos registros por segmento de 64 bytes
+	private static final int SEGMENTO = 64;
+
+	@TempDir
+	Path directorio;
+
+	@Test
+	void alReabrirSeReleeDesdeElUltimoCheckpoint() throws Exception {
+		try (WriteAheadLog wal = new WriteAheadLog(directorio, 4096, 4)) {
+			escribir(wal, "a", "b", "c");
+			WriteAheadLog.Lectura primera = wal.leer(wal.posicionConfirmada(), 2);
+			assertThat(textos(primera)).containsExactly(registro("a"), registro("b"));
+			wal.confirmar(primera.siguiente());
+		}
+
+		try (WriteAheadLog wal = new WriteAheadLog(directorio, 4096, 4)) {
+			WriteAheadLog.Lectura lectura = wal.leer(wal.posicionConfirmada(), 10);
+			assertThat(textos(lectura)).containsExactly(registro("c"));
+			wal.confirmar(lectura.siguiente());
+		}
+
+		try (WriteAheadLog wal = new WriteAheadLog(directorio, 4096, 4)) {
+			assertThat(wal.leer(wal.posicionConfirmada(), 10).registros()).isEmpty();
+		}
+	}
+
+	@Test
+	void rotaAlLlenarElSegmentoYConfirmarBorraLosConsumidos() throws Exception {
+		try (WriteAheadLog wal = new WriteAheadLog(directorio, SEGMENTO, 8)) {
+			escribir(wal, "a", "b", "c", "d", "e");
+			assertThat(wal.segmentos()).isEqualTo(3);
+
+			WriteAheadLog.Lectura lectura = wal.leer(wal.posicionConfirmada(), 10);
+			assertThat(textos(lectura)).containsExactly(
+					registro("a"), registro("b"), registro("c"), registro("d"), registro("e"));
+
+			wal.confirmar(lectura.siguiente());
+			assertThat(wal.segmentos()).isEqualTo(1);
+			assertThat(archivosDeSegmento()).hasSize(1);
+		}
+	}
+
+	@Test
+	void sinVolcarNoPasaDelMaximoDeSegmentos() throws Exception {
+		try (WriteAheadLog wal = new WriteAheadLog(directorio, SEGMENTO, 2)) {
+			escribir(wal, "a", "b", "c", "d");
+
+			assertThatThrownBy(() -> wal.agregar(registro("e").getBytes(StandardCharsets.UTF_8)))
+					.isInstanceOf(IllegalStateException.class);
+		}
+	}
+
+	@Test
+	void unaColaCortadaSeTomaComoFinDelSegmento() throws Exception {
+		try (WriteAheadLog wal = new WriteAheadLog(directorio, 4096, 4)) {
+			escribir(wal, "a", "b", "c");
+		}
+		// Se corrompe el payload del tercer registro, como una escritura a medias
+		Path segmento = archivosDeSegmento().get(0);
+		try (FileChannel canal = FileChannel.open(segmento, StandardOpenOption.WRITE)) {
+			canal.write(ByteBuffer.wrap(new byte[]{'X'}), 2L * (8 + 20) + 8);
+		}
+
+		try (WriteAheadLog wal = new WriteAheadLog(directorio, 4096, 4)) {
+			escribir(wal, "d");
+
+			WriteAheadLog.Lectura lectura = wal.leer(wal.posicionConfirmada(), 10);
+			assertThat(textos(lectura)).containsExactly(registro("a"), registro("b"), registro("d"));
+		}
+	}
+
+	@Test
+	void unaLongitudQueExcedeElSegmentoTambienCortaLaLectura() throws Exception {
+		try (WriteAheadLog wal = new WriteAheadLog(directorio, 4096, 4)) {
+			escribir(wal, "a", "b");
+		}
+		Path segmento = archivosDeSegmento().get(0);
+		try (FileChannel canal = FileChannel.open(segmento, StandardOpenOption.WRITE)) {
+			canal.write(ByteBuffer.allocate(4).putInt(0, Integer.MAX_VALUE), 8 + 20);
+		}
+
+		try (WriteAheadLog wal = new WriteAheadLog(directorio, 4096, 4)) {
+			assertThat(textos(wal.leer(wal.posicionConfirmada(), 10))).containsExactly(registro("a"));
+		}
+	}
+
+	private static void escribir(WriteAheadLog wal, String... claves) throws InterruptedException {
+		long ultimo = 0;
+		for (String clave : claves) {
+			ultimo = wal.agregar(registro(clave).getBytes(StandardCharsets.UTF_8));
+		}
+		wal.esperarDurable(ultimo);
+	}
+
+	// Payloads de 20 bytes
+	private static String registro(String clave) {
+		return String.format("registro-%-11s", clave);
+	}
+
+	private static List<String> textos(WriteAheadLog.Lectura lectura) {
+		return lectura.registros().stream().map(r -> new String(r, StandardCharsets.UTF_8)).toList();
+	}
+
+	private List<Path> archivosDeSegmento() throws IOException {
+		try (Stream<Path> archivos = Files.list(directorio)) {
+			return archivos.filter(a -> a.getFileName().toString().startsWith("wal-")).sorted().toList();
+		}
+	}
+}